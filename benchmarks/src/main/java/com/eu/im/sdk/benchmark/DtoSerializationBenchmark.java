@@ -0,0 +1,77 @@
+package com.eu.im.sdk.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.eu.im.sdk.common.codec.DefaultJsonCodec;
+import com.eu.im.sdk.common.codec.JsonCodec;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体序列化
+ * hutool 为引入 JsonCodec 之前的路径（JSONUtil.toJsonStr 后再转为 UTF-8 字节），jsonCodec 为当前 HttpUtil 的路径
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+    @Param({"message", "batch100", "groupCreate500"})
+    public String payload;
+
+    private Object body;
+
+    private final JsonCodec codec = new DefaultJsonCodec();
+
+
+    @Setup
+    public void setup() {
+        switch (payload) {
+            case "message":
+                body = Payloads.message();
+                break;
+            case "batch100":
+                body = Payloads.batch(100);
+                break;
+            case "groupCreate500":
+                body = Payloads.groupCreate(500);
+                break;
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+    }
+
+    @Benchmark
+    public byte[] hutool() {
+        return JSONUtil.toJsonStr(body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void jsonCodec(Blackhole blackhole) {
+        JsonWriter writer = JsonWriter.obtain();
+        try {
+            codec.encode(body, writer);
+            blackhole.consume(writer.buffer());
+            blackhole.consume(writer.size());
+        } finally {
+            writer.recycle();
+        }
+    }
+
+}
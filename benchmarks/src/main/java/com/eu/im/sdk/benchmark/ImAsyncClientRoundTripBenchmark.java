@@ -0,0 +1,80 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.client.ImAsyncClient;
+import com.eu.im.sdk.common.transport.NioHttpTransport;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImAsyncClient 完整请求往返，服务端为进程内桩服务
+ * 每次操作等待 future 完成，测得的是单个请求在 NIO 传输上的往返成本
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImAsyncClientRoundTripBenchmark {
+
+    private StubServer server;
+
+    private NioHttpTransport transport;
+
+    private ExecutorService callbackExecutor;
+
+    private ImAsyncClient client;
+
+    private MessageDto message;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubServer(50);
+        transport = new NioHttpTransport();
+        callbackExecutor = Executors.newFixedThreadPool(4);
+        client = new ImAsyncClient(server.endpoint(), "benchmark-token", transport, callbackExecutor);
+        message = Payloads.message();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transport.close();
+        callbackExecutor.shutdownNow();
+        server.close();
+    }
+
+    @Benchmark
+    public String chartList() {
+        return client.chartList().join();
+    }
+
+    @Benchmark
+    public List<ChartMessageVo> chartMessageList() {
+        return client.chartMessageList(Payloads.GID).join();
+    }
+
+    @Benchmark
+    public String messageSend() {
+        return client.messageSend(message).join();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.client.ImClient;
+import com.eu.im.sdk.common.codec.WireFormat;
+import com.eu.im.sdk.common.transport.ImTransport;
+import com.eu.im.sdk.common.transport.PooledHttpTransport;
+import com.eu.im.sdk.common.transport.UrlConnectionTransport;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+import com.eu.im.sdk.utils.HttpUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ImClient 完整请求往返，服务端为进程内桩服务
+ * format 为请求体与响应体的编码格式，返回字符串的接口在 msgpack 下需要把响应体转换为 json
+ * 多线程并发可通过 -t 指定
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImClientRoundTripBenchmark {
+
+    @Param({"pooled", "urlConnection"})
+    public String transport;
+
+    @Param({"json", "msgpack"})
+    public String format;
+
+    private StubServer server;
+
+    private ImTransport imTransport;
+
+    private ImClient client;
+
+    private MessageDto message;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new StubServer(50);
+        HttpUtil.INSTANCE.setWireFormat("msgpack".equals(format) ? WireFormat.MESSAGE_PACK : WireFormat.JSON);
+        imTransport = "pooled".equals(transport) ? new PooledHttpTransport() : new UrlConnectionTransport();
+        client = new ImClient(server.endpoint(), "benchmark-token", imTransport);
+        message = Payloads.message();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        imTransport.close();
+        server.close();
+        HttpUtil.INSTANCE.setWireFormat(WireFormat.JSON);
+    }
+
+    @Benchmark
+    public String chartList() {
+        return client.chartList();
+    }
+
+    @Benchmark
+    public List<ChartMessageVo> chartMessageList() {
+        return client.chartMessageList(Payloads.GID);
+    }
+
+    @Benchmark
+    public String messageSend() {
+        return client.messageSend(message);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.pipeline.ImOutbox;
+import com.eu.im.sdk.pipeline.ImOutboxConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息写入发件箱到本地确认的延迟
+ * 8 个线程并发写入，sync 为 true 时多个写入共用一次刷盘；发送函数直接返回，后台发送与压缩同时进行
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class OutboxBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sync;
+
+    private Path directory;
+
+    private ImOutbox outbox;
+
+    private MessageDto message;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("eu-im-outbox");
+        outbox = new ImOutbox((key, message) -> {
+        }, directory.resolve("outbox"), new ImOutboxConfig().setSync(sync), null);
+        message = Payloads.message();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        outbox.close();
+        Files.deleteIfExists(directory.resolve("outbox"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public String send() {
+        return outbox.send(message).join();
+    }
+
+}
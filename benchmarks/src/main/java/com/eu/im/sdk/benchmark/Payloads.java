@@ -0,0 +1,123 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.JsonReader;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import com.eu.im.sdk.common.codec.MessagePackEncoder;
+import com.eu.im.sdk.model.dto.GroupCreateDto;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.dto.MessageForwardDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的请求体与响应体
+ * 内容接近线上的真实消息：中英文混合、带转义字符
+ */
+final class Payloads {
+
+    static final long GID = 10086L;
+
+    private static final String TEXT = "今天下午三点开会，记得带上 \"Q3 roadmap\" 的材料\n谢谢";
+
+    private Payloads() {
+    }
+
+    static MessageDto message() {
+        return new MessageDto(GID, TEXT, 1);
+    }
+
+    static List<MessageDto> batch(int size) {
+        List<MessageDto> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(new MessageDto(GID + (i % 8), TEXT + i, 1));
+        }
+        return batch;
+    }
+
+    static GroupCreateDto groupCreate(int members) {
+        List<Long> uids = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            uids.add(100000L + i);
+        }
+        return new GroupCreateDto("benchmark group", uids);
+    }
+
+    static MessageForwardDto forward(int groups) {
+        List<Long> gids = new ArrayList<>(groups);
+        for (int i = 0; i < groups; i++) {
+            gids.add(GID + i);
+        }
+        MessageForwardDto forward = new MessageForwardDto();
+        forward.setMid(1000000L);
+        forward.setGidList(gids);
+        return forward;
+    }
+
+    /**
+     * 将 json 响应体转换为内容相同的 MessagePack 响应体
+     *
+     * @param json
+     */
+    static byte[] toMessagePack(byte[] json) {
+        try {
+            Object tree = JsonDecoder.read(new JsonReader(new ByteArrayInputStream(json)), Object.class);
+            JsonWriter writer = new JsonWriter(json.length);
+            MessagePackEncoder.write(writer, tree);
+            return writer.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 群组消息接口的响应体
+     *
+     * @param size 消息条数
+     */
+    static byte[] messageHistory(int size) {
+        StringBuilder json = new StringBuilder("{\"code\":0,\"msg\":\"操作成功\",\"data\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"mid\":").append(1000000L + i)
+                    .append(",\"gid\":").append(GID)
+                    .append(",\"uid\":").append(100000L + (i % 50))
+                    .append(",\"message\":\"今天下午三点开会，记得带上 \\\"Q3 roadmap\\\" 的材料\\n谢谢").append(i)
+                    .append("\",\"msgType\":1,\"createTime\":\"2021-06-01 15:00:00\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 群组列表接口的响应体
+     *
+     * @param size 群组个数
+     */
+    static byte[] groupList(int size) {
+        StringBuilder json = new StringBuilder("{\"code\":0,\"msg\":\"操作成功\",\"data\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"gid\":").append(GID + i)
+                    .append(",\"groupName\":\"项目组 ").append(i)
+                    .append("\",\"avatar\":\"https://cdn.example.com/avatar/").append(i).append(".png\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写接口的响应体
+     */
+    static byte[] ok() {
+        return "{\"code\":0,\"msg\":\"操作成功\",\"data\":1000001}".getBytes(StandardCharsets.UTF_8);
+    }
+
+}
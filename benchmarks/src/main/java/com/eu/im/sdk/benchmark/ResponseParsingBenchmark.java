@@ -0,0 +1,83 @@
+package com.eu.im.sdk.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.eu.im.sdk.common.codec.CloseableIterator;
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.codec.ValueReader;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+import com.eu.im.sdk.wrapper.GlobalResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应体解析
+ * hutoolWrapper 为调用者拿到字符串后自行解析的旧路径，其余为直接读取字节流的解码方式
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private byte[] body;
+
+    private ValueReader<List<ChartMessageVo>> listReader;
+
+    private ValueReader<ChartMessageVo> elementReader;
+
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        body = Payloads.messageHistory(size);
+        listReader = JsonDecoder.listOf(ChartMessageVo.class);
+        elementReader = (ValueReader<ChartMessageVo>) JsonDecoder.readerFor(ChartMessageVo.class);
+    }
+
+    @Benchmark
+    public GlobalResponseWrapper hutoolWrapper() {
+        return JSONUtil.toBean(new String(body, StandardCharsets.UTF_8), GlobalResponseWrapper.class);
+    }
+
+    @Benchmark
+    public GlobalResponseWrapper decodeWrapper() throws IOException {
+        return ResponseDecoder.decodeWrapper(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public List<ChartMessageVo> decodeTyped() throws IOException {
+        return ResponseDecoder.decode(new ByteArrayInputStream(body), listReader);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        try (CloseableIterator<ChartMessageVo> iterator = ResponseDecoder.iterate(new ByteArrayInputStream(body), elementReader)) {
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+
+}
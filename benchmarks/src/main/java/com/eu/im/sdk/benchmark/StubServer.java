@@ -0,0 +1,92 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.common.codec.JsonWireFormat;
+import com.eu.im.sdk.common.codec.MessagePackWireFormat;
+import com.eu.im.sdk.common.codec.WireFormat;
+import com.eu.im.sdk.constants.ImConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内 HTTP 桩服务
+ * 按 SDK 的接口地址返回固定的响应体，服务端几乎没有开销，测得的是客户端自身的成本
+ * 请求的 Accept 包含 MessagePack 时返回内容相同的 MessagePack 响应体，否则返回 json
+ */
+final class StubServer implements Closeable {
+
+    static {
+        //关闭 Nagle 算法，否则小响应会被延迟约 40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+
+    /**
+     * @param historySize 群组消息接口返回的消息条数
+     * @throws IOException
+     */
+    StubServer(int historySize) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.route(ImConstants.CHART_LIST, Payloads.groupList(20));
+        this.route(String.format(ImConstants.CHART_MESSAGE, ""), Payloads.messageHistory(historySize));
+        this.route(ImConstants.MESSAGE_SEND, Payloads.ok());
+        this.route(ImConstants.GROUP_CREATE, Payloads.ok());
+
+        this.executor = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void route(String path, byte[] json) {
+        byte[] messagePack = Payloads.toMessagePack(json);
+        this.server.createContext(path, exchange -> {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if (WireFormat.MESSAGE_PACK.accepts(accept)) {
+                reply(exchange, MessagePackWireFormat.CONTENT_TYPE, messagePack);
+            } else {
+                reply(exchange, JsonWireFormat.CONTENT_TYPE, json);
+            }
+        });
+    }
+
+    private static void reply(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] skip = new byte[4096];
+            while (in.read(skip) != -1) {
+                //读完请求体，连接才能被复用
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.eu.im.sdk.benchmark;
+
+import com.eu.im.sdk.common.codec.DefaultJsonCodec;
+import com.eu.im.sdk.common.codec.JsonCodec;
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.codec.WireFormat;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.dto.MessageForwardDto;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * json 与 MessagePack 的编解码开销
+ * 批量消息与转发请求体的编码、消息列表响应体的解码
+ * 两种格式的字节数不属于计时结果，由 main 单独输出：java -cp benchmarks.jar com.eu.im.sdk.benchmark.WireFormatBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "msgpack"})
+    public String format;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private WireFormat wireFormat;
+
+    private List<MessageDto> batch;
+
+    private MessageForwardDto forward;
+
+    private byte[] history;
+
+    private final JsonCodec codec = new DefaultJsonCodec();
+
+
+    @Setup
+    public void setup() {
+        wireFormat = "msgpack".equals(format) ? WireFormat.MESSAGE_PACK : WireFormat.JSON;
+        batch = Payloads.batch(size);
+        forward = Payloads.forward(size);
+        byte[] json = Payloads.messageHistory(size);
+        history = wireFormat == WireFormat.JSON ? json : Payloads.toMessagePack(json);
+    }
+
+    /**
+     * 输出各参数组合下请求体与响应体的字节数
+     */
+    public static void main(String[] args) {
+        for (String format : new String[]{"json", "msgpack"}) {
+            for (int size : new int[]{100, 1000}) {
+                WireFormatBenchmark benchmark = new WireFormatBenchmark();
+                benchmark.format = format;
+                benchmark.size = size;
+                benchmark.setup();
+                System.out.printf("%s size=%d: batch %d bytes, forward %d bytes, history %d bytes%n", format, size,
+                        benchmark.encode(benchmark.batch).size(), benchmark.encode(benchmark.forward).size(), benchmark.history.length);
+            }
+        }
+    }
+
+    @Benchmark
+    public void encodeBatch(Blackhole blackhole) {
+        this.consume(batch, blackhole);
+    }
+
+    @Benchmark
+    public void encodeForward(Blackhole blackhole) {
+        this.consume(forward, blackhole);
+    }
+
+    @Benchmark
+    public List<ChartMessageVo> decodeHistory() throws IOException {
+        return ResponseDecoder.decode(WireFormat.tag(new ByteArrayInputStream(history), wireFormat), JsonDecoder.listOf(ChartMessageVo.class));
+    }
+
+    private void consume(Object body, Blackhole blackhole) {
+        JsonWriter writer = JsonWriter.obtain();
+        try {
+            this.write(body, writer);
+            blackhole.consume(writer.buffer());
+            blackhole.consume(writer.size());
+        } finally {
+            writer.recycle();
+        }
+    }
+
+    private JsonWriter encode(Object body) {
+        JsonWriter writer = new JsonWriter();
+        this.write(body, writer);
+        return writer;
+    }
+
+    /**
+     * 与 HttpUtil 一致：json 使用 DefaultJsonCodec 编码
+     */
+    private void write(Object body, JsonWriter writer) {
+        if (wireFormat == WireFormat.JSON) {
+            codec.encode(body, writer);
+        } else {
+            wireFormat.encode(body, writer);
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.eu.im.sdk.client;
+
+import com.eu.im.sdk.common.codec.CloseableIterator;
+import com.eu.im.sdk.constants.ImConstants;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按页遍历群组历史消息
+ * 开始迭代某一页时立即在后台请求下一页，内存中最多只有当前页与预取的下一页；
+ * 每页的响应体直接解码为对象，不经过中间字符串
+ * 返回的条数少于每页条数时视为没有更多消息；提前结束迭代时必须调用 close
+ */
+final class ChartMessageHistory implements CloseableIterator<ChartMessageVo> {
+
+    /**
+     * 按游标（上一页最早的消息 mid，第一页为 null）请求一页消息
+     */
+    private final Function<Long, CompletableFuture<List<ChartMessageVo>>> pageLoader;
+
+    private final int pageSize;
+
+    private Iterator<ChartMessageVo> page = Collections.emptyIterator();
+
+    /**
+     * 正在请求的下一页，没有更多消息或已关闭时为 null
+     */
+    private CompletableFuture<List<ChartMessageVo>> next;
+
+
+    ChartMessageHistory(Function<Long, CompletableFuture<List<ChartMessageVo>>> pageLoader, int pageSize) {
+        this.pageLoader = pageLoader;
+        this.pageSize = pageSize;
+        this.next = pageLoader.apply(null);
+    }
+
+    /**
+     * 分页查询的请求路径
+     *
+     * @param gid    群组gid
+     * @param before 只返回该消息之前的消息，为 null 时查询第一页
+     * @param size   每页条数
+     */
+    static String pageUrl(Long gid, Long before, int size) {
+        String url = String.format(ImConstants.CHART_MESSAGE_PAGE, gid) + "?size=" + size;
+        return before == null ? url : url + "&mid=" + before;
+    }
+
+    static int checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive.");
+        }
+        return pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            List<ChartMessageVo> messages = this.await(next);
+            Long cursor = messages.size() < pageSize ? null : oldest(messages);
+            next = cursor == null ? null : pageLoader.apply(cursor);
+            page = messages.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public ChartMessageVo next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+        page = Collections.emptyIterator();
+    }
+
+    /**
+     * 以流的形式遍历，关闭流时关闭迭代器
+     */
+    Stream<ChartMessageVo> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    private List<ChartMessageVo> await(CompletableFuture<List<ChartMessageVo>> future) {
+        try {
+            List<ChartMessageVo> messages = future.join();
+            return messages == null ? Collections.emptyList() : messages;
+        } catch (CompletionException | CancellationException e) {
+            this.close();
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof GlobalException) {
+                throw (GlobalException) cause;
+            }
+            throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), cause.getMessage());
+        }
+    }
+
+    /**
+     * 本页最早的消息，作为下一页的游标
+     */
+    private static Long oldest(List<ChartMessageVo> messages) {
+        Long oldest = null;
+        for (ChartMessageVo message : messages) {
+            Long mid = message.getMid();
+            if (mid != null && (oldest == null || mid < oldest)) {
+                oldest = mid;
+            }
+        }
+        return oldest;
+    }
+
+}
@@ -0,0 +1,467 @@
+package com.eu.im.sdk.client;
+
+import com.eu.im.sdk.common.auth.TokenProvider;
+import com.eu.im.sdk.common.codec.CloseableIterator;
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.transport.CallTimeout;
+import com.eu.im.sdk.common.transport.HttpMethod;
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.validation.DtoValidator;
+import com.eu.im.sdk.constants.ImConstants;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.FriendAddDto;
+import com.eu.im.sdk.model.dto.FriendHandleDto;
+import com.eu.im.sdk.model.dto.FriendNoteDto;
+import com.eu.im.sdk.model.dto.GroupCreateDto;
+import com.eu.im.sdk.model.dto.GroupCreateUidsDto;
+import com.eu.im.sdk.model.dto.GroupListDto;
+import com.eu.im.sdk.model.dto.GroupNameDto;
+import com.eu.im.sdk.model.dto.InviteChartDto;
+import com.eu.im.sdk.model.dto.InviteChartUidsDto;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.dto.MessageForwardDto;
+import com.eu.im.sdk.model.dto.UserLoginDto;
+import com.eu.im.sdk.model.vo.ChartGroupVo;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
+import com.eu.im.sdk.utils.HttpUtil;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 即时通信异步客户端
+ * 与 ImClient 的接口一一对应，全部方法立即返回 CompletableFuture，调用线程不会等待网络 I/O
+ * 请求失败时 future 以 GlobalException 异常完成
+ */
+public class ImAsyncClient {
+
+    /**
+     * 请求端点
+     */
+    private final String endpoint;
+
+    /**
+     * 请求token来源
+     */
+    private final TokenProvider tokenProvider;
+
+    /**
+     * 异步传输实现
+     */
+    private final ImAsyncTransport transport;
+
+    /**
+     * 执行响应解析与回调的线程池
+     */
+    private final Executor callbackExecutor;
+
+    /**
+     * 客户端配置
+     */
+    private final ImClientConfig config;
+
+    /**
+     * 通过 withTimeout 指定的调用超时时间（毫秒），0 表示使用配置
+     */
+    private final long callTimeout;
+
+
+    /**
+     * 实例化客户端
+     * 使用 HttpUtil 的默认异步传输实现（NioHttpTransport，仅支持 http），回调在 ForkJoinPool.commonPool() 中执行
+     *
+     * @param endpoint
+     * @param token
+     */
+    public ImAsyncClient(String endpoint, String token) {
+        this(endpoint, TokenProvider.of(token), HttpUtil.INSTANCE.getAsyncTransport(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 实例化客户端
+     *
+     * @param endpoint
+     * @param token
+     * @param transport        异步传输实现，https 端点可使用 ExecutorAsyncTransport
+     * @param callbackExecutor 执行响应解析与回调的线程池，不要传入 I/O 线程
+     */
+    public ImAsyncClient(String endpoint, String token, ImAsyncTransport transport, Executor callbackExecutor) {
+        this(endpoint, TokenProvider.of(token), transport, callbackExecutor);
+    }
+
+    /**
+     * 实例化客户端
+     * 请求因 token 失效而失败时，会在 callbackExecutor 中强制刷新 token 后重试一次
+     * 首次请求时若 tokenProvider 尚未登录，登录会在调用线程中同步完成
+     *
+     * @param endpoint
+     * @param tokenProvider    token来源，如自动登录并刷新的 RefreshingTokenProvider
+     * @param transport        异步传输实现
+     * @param callbackExecutor 执行响应解析与回调的线程池，不要传入 I/O 线程
+     */
+    public ImAsyncClient(String endpoint, TokenProvider tokenProvider, ImAsyncTransport transport, Executor callbackExecutor) {
+        this(endpoint, tokenProvider, transport, callbackExecutor, new ImClientConfig());
+    }
+
+    /**
+     * 实例化客户端
+     *
+     * @param endpoint
+     * @param tokenProvider    token来源
+     * @param transport        异步传输实现
+     * @param callbackExecutor 执行响应解析与回调的线程池，不要传入 I/O 线程
+     * @param config           客户端配置，如按接口设置的调用超时时间
+     */
+    public ImAsyncClient(String endpoint, TokenProvider tokenProvider, ImAsyncTransport transport, Executor callbackExecutor, ImClientConfig config) {
+        this(endpoint, tokenProvider, transport, callbackExecutor, config, 0);
+    }
+
+    private ImAsyncClient(String endpoint, TokenProvider tokenProvider, ImAsyncTransport transport, Executor callbackExecutor, ImClientConfig config, long callTimeout) {
+        this.endpoint = endpoint;
+        this.tokenProvider = tokenProvider;
+        this.transport = transport;
+        this.callbackExecutor = callbackExecutor;
+        this.config = config;
+        this.callTimeout = callTimeout;
+    }
+
+    /**
+     * 使用指定调用超时时间的客户端，与当前客户端共用传输实现、回调线程池与 token 来源
+     *
+     * @param timeout 每次调用的超时时间，覆盖配置中按接口设置的值
+     * @param unit
+     * @return
+     */
+    public ImAsyncClient withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        return new ImAsyncClient(this.endpoint, this.tokenProvider, this.transport, this.callbackExecutor, this.config, Math.max(1, unit.toMillis(timeout)));
+    }
+
+    /**
+     * 用户登录
+     * 不携带登录信息，请使用 login(UserLoginDto)
+     */
+    @Deprecated
+    public CompletableFuture<String> login() {
+        return HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.LOGIN, null, null, String::valueOf, this.callbackExecutor, this.newCall(ImConstants.LOGIN));
+    }
+
+    /**
+     * 用户登录
+     * 登录即注册，返回用户token，用于请求其他接口及连接websocket
+     *
+     * @param loginDto 登录信息
+     */
+    public CompletableFuture<String> login(UserLoginDto loginDto) {
+        return this.validated(loginDto, () -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.LOGIN, null, loginDto, String::valueOf, this.callbackExecutor, this.newCall(ImConstants.LOGIN)));
+    }
+
+    /**
+     * 申请添加好友
+     *
+     * @param friendAddDto 好友uid及申请内容
+     */
+    public CompletableFuture<Void> friendAdd(FriendAddDto friendAddDto) {
+        return this.update(ImConstants.FRIEND_ADD, HttpMethod.POST, friendAddDto);
+    }
+
+    /**
+     * 处理好友申请
+     *
+     * @param friendHandleDto 好友申请id及通过或拒绝
+     */
+    public CompletableFuture<Void> friendHandle(FriendHandleDto friendHandleDto) {
+        return this.update(ImConstants.FRIEND_HANDLE, HttpMethod.PUT, friendHandleDto);
+    }
+
+    /**
+     * 修改好友备注
+     *
+     * @param friendNoteDto 好友uid及备注
+     */
+    public CompletableFuture<Void> friendNote(FriendNoteDto friendNoteDto) {
+        return this.update(ImConstants.FRIEND_NOTE, HttpMethod.PUT, friendNoteDto);
+    }
+
+    /**
+     * 群组列表
+     * 查询所有
+     */
+    public CompletableFuture<String> chartList() {
+        return this.chartList(null);
+    }
+
+    /**
+     * 群组列表
+     * 条件检索群组列表
+     *
+     * @param queryStr 群组检索内容
+     */
+    public CompletableFuture<String> chartList(String queryStr) {
+        return this.call(ImConstants.CHART_LIST, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.CHART_LIST, token, new GroupListDto(queryStr), String::valueOf, this.callbackExecutor, timeout));
+    }
+
+    /**
+     * 查看群组消息
+     * 一次返回全部消息，消息量很大的群组请使用 chartMessageHistory 分页遍历
+     *
+     * @param gid 群组gid
+     */
+    public CompletableFuture<String> chartMessage(Long gid) {
+        return this.call(ImConstants.CHART_MESSAGE, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.GET, this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), token, null, String::valueOf, this.callbackExecutor, timeout));
+    }
+
+    /**
+     * 群组列表
+     * 响应体直接解码为对象，不经过中间字符串
+     *
+     * @param queryStr 群组检索内容
+     */
+    public CompletableFuture<List<ChartGroupVo>> chartGroupList(String queryStr) {
+        return this.call(ImConstants.CHART_LIST, (token, timeout) -> HttpUtil.INSTANCE.exchangeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.CHART_LIST, token, new GroupListDto(queryStr),
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartGroupVo.class)), this.callbackExecutor, timeout));
+    }
+
+    /**
+     * 查看群组消息
+     * 响应体直接解码为对象，不经过中间字符串
+     *
+     * @param gid 群组gid
+     */
+    public CompletableFuture<List<ChartMessageVo>> chartMessageList(Long gid) {
+        return this.call(ImConstants.CHART_MESSAGE, (token, timeout) -> HttpUtil.INSTANCE.exchangeAsync(this.transport, HttpMethod.GET, this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), token, null,
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartMessageVo.class)), this.callbackExecutor, timeout));
+    }
+
+    /**
+     * 分页查看群组消息
+     *
+     * @param gid    群组gid
+     * @param before 只返回该消息之前的消息，为 null 时查询最新一页
+     * @param size   每页条数
+     */
+    public CompletableFuture<List<ChartMessageVo>> chartMessagePage(Long gid, Long before, int size) {
+        ChartMessageHistory.checkPageSize(size);
+        return this.call(ImConstants.CHART_MESSAGE_PAGE, (token, timeout) -> HttpUtil.INSTANCE.exchangeAsync(this.transport, HttpMethod.GET, this.endpoint + ChartMessageHistory.pageUrl(gid, before, size), token, null,
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartMessageVo.class)), this.callbackExecutor, timeout));
+    }
+
+    /**
+     * 从新到旧遍历群组的全部历史消息
+     * 下一页通过异步传输预取，不占用额外线程；迭代时阻塞等待尚未返回的页；提前结束迭代时必须关闭迭代器
+     *
+     * @param gid      群组gid
+     * @param pageSize 每页条数
+     */
+    public CloseableIterator<ChartMessageVo> chartMessageHistory(Long gid, int pageSize) {
+        return this.history(gid, pageSize);
+    }
+
+    /**
+     * 以流的形式从新到旧遍历群组的全部历史消息，提前结束时必须关闭流
+     *
+     * @param gid      群组gid
+     * @param pageSize 每页条数
+     */
+    public Stream<ChartMessageVo> chartMessageStream(Long gid, int pageSize) {
+        return this.history(gid, pageSize).stream();
+    }
+
+    private ChartMessageHistory history(Long gid, int pageSize) {
+        ChartMessageHistory.checkPageSize(pageSize);
+        return new ChartMessageHistory(before -> this.chartMessagePage(gid, before, pageSize), pageSize);
+    }
+
+    /**
+     * 创建群组
+     *
+     * @param groupName 群组名称
+     * @param uidList   群成员uid列表
+     */
+    public CompletableFuture<String> groupCreate(String groupName, List<Long> uidList) {
+        GroupCreateDto groupCreateDto = new GroupCreateDto(groupName, uidList);
+        return this.validated(groupCreateDto, () -> this.call(ImConstants.GROUP_CREATE, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.PUT, this.endpoint + ImConstants.GROUP_CREATE, token, groupCreateDto, String::valueOf, this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 修改群名称
+     *
+     * @param groupNameDto 群组gid及新的群名称
+     */
+    public CompletableFuture<Void> groupRename(GroupNameDto groupNameDto) {
+        return this.update(ImConstants.GROUP_NAME, HttpMethod.PUT, groupNameDto);
+    }
+
+    /**
+     * 邀请加入群聊
+     *
+     * @param inviteChartDto 群组gid及被邀请人uid列表
+     */
+    public CompletableFuture<Void> groupInvite(InviteChartDto inviteChartDto) {
+        return this.update(ImConstants.GROUP_INVITE, HttpMethod.POST, inviteChartDto);
+    }
+
+    /**
+     * 创建群组
+     * 成员uid不装箱直接编码；成员很多时使用 ImBulkGroupOperations 分批创建
+     *
+     * @param groupCreateUidsDto 群组名称及成员uid
+     * @return 新群组的gid，服务端没有返回时为 null
+     */
+    public CompletableFuture<Long> groupCreate(GroupCreateUidsDto groupCreateUidsDto) {
+        return this.validated(groupCreateUidsDto, () -> this.call(ImConstants.GROUP_CREATE, (token, timeout) -> HttpUtil.INSTANCE.exchangeAsync(this.transport, HttpMethod.PUT, this.endpoint + ImConstants.GROUP_CREATE, token, groupCreateUidsDto,
+                body -> ResponseDecoder.decode(body, ImClient::readGid), this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 邀请加入群聊
+     * 被邀请人uid不装箱直接编码；人数很多时使用 ImBulkGroupOperations 分批邀请
+     *
+     * @param inviteChartUidsDto 群组gid及被邀请人uid
+     */
+    public CompletableFuture<Void> groupInvite(InviteChartUidsDto inviteChartUidsDto) {
+        return this.update(ImConstants.GROUP_INVITE, HttpMethod.POST, inviteChartUidsDto);
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param message 消息
+     */
+    public CompletableFuture<String> messageSend(MessageDto message) {
+        return this.validated(message, () -> this.call(ImConstants.MESSAGE_SEND, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND, token, message, String::valueOf, this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 携带幂等键发送消息
+     * 服务端对相同幂等键的请求只处理一次，因此超时或失败后可以使用同一个幂等键安全地重发
+     *
+     * @param message        消息
+     * @param idempotencyKey 幂等键，同一条消息的每次发送使用相同的值
+     */
+    public CompletableFuture<String> messageSend(MessageDto message, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new GlobalException(GlobalExceptionCode.REQUEST_ARGUMENT_EXCEPTION.getCode(), "幂等键不能为空"));
+            return failed;
+        }
+        Map<String, String> headers = Collections.singletonMap(ImRequest.IDEMPOTENCY_KEY, idempotencyKey);
+        return this.validated(message, () -> this.call(ImConstants.MESSAGE_SEND, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND, token, message, headers, String::valueOf, this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 批量发送消息
+     *
+     * @param messages 消息列表
+     */
+    public CompletableFuture<String> messageSendBatch(List<MessageDto> messages) {
+        return this.validated(messages, () -> this.call(ImConstants.MESSAGE_SEND_BATCH, (token, timeout) -> HttpUtil.INSTANCE.executeAsync(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND_BATCH, token, messages, String::valueOf, this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 转发消息
+     *
+     * @param messageForwardDto 消息mid及转发的群组gid列表
+     */
+    public CompletableFuture<Void> messageForward(MessageForwardDto messageForwardDto) {
+        return this.update(ImConstants.MESSAGE_FORWARD, HttpMethod.POST, messageForwardDto);
+    }
+
+    /**
+     * 校验参数后发出不返回数据的请求，响应只检查业务状态码
+     *
+     * @param path   ImConstants 中的路径
+     * @param method
+     * @param dto
+     */
+    private CompletableFuture<Void> update(String path, HttpMethod method, Object dto) {
+        return this.validated(dto, () -> this.call(path, (token, timeout) -> HttpUtil.INSTANCE.exchangeAsync(this.transport, method, this.endpoint + path, token, dto, body -> {
+            ResponseDecoder.verify(body);
+            return null;
+        }, this.callbackExecutor, timeout)));
+    }
+
+    /**
+     * 参数校验通过后才发出请求，不通过时返回以 GlobalException 异常完成的 future
+     *
+     * @param dto
+     * @param request
+     */
+    private <R> CompletableFuture<R> validated(Object dto, Supplier<CompletableFuture<R>> request) {
+        try {
+            DtoValidator.validate(dto);
+        } catch (GlobalException e) {
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return request.get();
+    }
+
+    /**
+     * 从现在开始一次调用
+     *
+     * @param path ImConstants 中的路径模板
+     */
+    private CallTimeout newCall(String path) {
+        return this.config.newCall(path, this.callTimeout);
+    }
+
+    /**
+     * 使用当前 token 发出请求
+     * 因 token 失效而失败时强制刷新 token 并重试一次，并发失败的请求只会触发一次刷新；重试与首次请求共用同一个截止时间
+     *
+     * @param path    ImConstants 中的路径模板，用于确定调用超时时间
+     * @param request
+     */
+    private <R> CompletableFuture<R> call(String path, BiFunction<String, CallTimeout, CompletableFuture<R>> request) {
+        CallTimeout timeout = this.newCall(path);
+        String token = this.tokenProvider.getToken();
+        CompletableFuture<R> result = new CompletableFuture<>();
+        request.apply(token, timeout).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof GlobalException) || !TokenProvider.isAuthenticationFailure((GlobalException) cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            this.callbackExecutor.execute(() -> {
+                try {
+                    String refreshed = this.tokenProvider.refresh(token);
+                    if (refreshed == null || refreshed.equals(token)) {
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    request.apply(refreshed, timeout).whenComplete((retried, retryError) -> {
+                        if (retryError == null) {
+                            result.complete(retried);
+                        } else {
+                            result.completeExceptionally(retryError instanceof CompletionException && retryError.getCause() != null ? retryError.getCause() : retryError);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return result;
+    }
+
+}
@@ -1,12 +1,50 @@
 package com.eu.im.sdk.client;
 
+import com.eu.im.sdk.common.auth.TokenProvider;
+import com.eu.im.sdk.common.codec.CloseableIterator;
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.codec.TokenReader;
+import com.eu.im.sdk.common.codec.ValueReader;
+import com.eu.im.sdk.common.transport.CallTimeout;
+import com.eu.im.sdk.common.transport.HttpMethod;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+import com.eu.im.sdk.common.validation.DtoValidator;
 import com.eu.im.sdk.constants.ImConstants;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.FriendAddDto;
+import com.eu.im.sdk.model.dto.FriendHandleDto;
+import com.eu.im.sdk.model.dto.FriendNoteDto;
 import com.eu.im.sdk.model.dto.GroupCreateDto;
+import com.eu.im.sdk.model.dto.GroupCreateUidsDto;
 import com.eu.im.sdk.model.dto.GroupListDto;
+import com.eu.im.sdk.model.dto.GroupNameDto;
+import com.eu.im.sdk.model.dto.InviteChartDto;
+import com.eu.im.sdk.model.dto.InviteChartUidsDto;
+import com.eu.im.sdk.model.dto.MessageDto;
+import com.eu.im.sdk.model.dto.MessageForwardDto;
+import com.eu.im.sdk.model.dto.UserLoginDto;
+import com.eu.im.sdk.model.vo.ChartGroupVo;
+import com.eu.im.sdk.model.vo.ChartMessageVo;
 import com.eu.im.sdk.utils.HttpUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 /**
  * 即时通信客户端
@@ -20,28 +58,170 @@ public class ImClient {
     private final String endpoint;
 
     /**
-     * 请求token
+     * 请求token来源
      */
-    private final String token;
+    private final TokenProvider tokenProvider;
+
+    /**
+     * 传输实现
+     */
+    private final ImTransport transport;
+
+    /**
+     * 客户端配置
+     */
+    private final ImClientConfig config;
+
+    /**
+     * 通过 withTimeout 指定的调用超时时间（毫秒），0 表示使用配置
+     */
+    private final long callTimeout;
+
+    /**
+     * 预取历史消息的线程池，由客户端及其 withTimeout 副本共用，空闲线程自动回收
+     */
+    private final ExecutorService historyExecutor;
 
 
     /**
      * 实例化客户端
+     * 使用 HttpUtil 的默认传输实现
      *
      * @param endpoint
      * @param token
      */
     public ImClient(String endpoint, String token) {
+        this(endpoint, TokenProvider.of(token), HttpUtil.INSTANCE.getTransport());
+    }
+
+    /**
+     * 实例化客户端
+     *
+     * @param endpoint
+     * @param token
+     * @param transport 传输实现，如 PooledHttpTransport、UrlConnectionTransport，需要缓存查询结果时可使用 CachingTransport 包装，需要合并并发的相同查询时可使用 SingleFlightTransport 包装
+     */
+    public ImClient(String endpoint, String token, ImTransport transport) {
+        this(endpoint, TokenProvider.of(token), transport);
+    }
+
+    /**
+     * 实例化客户端
+     * 使用 HttpUtil 的默认传输实现
+     *
+     * @param endpoint
+     * @param tokenProvider token来源，如自动登录并刷新的 RefreshingTokenProvider
+     */
+    public ImClient(String endpoint, TokenProvider tokenProvider) {
+        this(endpoint, tokenProvider, HttpUtil.INSTANCE.getTransport());
+    }
+
+    /**
+     * 实例化客户端
+     * 请求因 token 失效而失败时，会强制刷新 token 后重试一次
+     *
+     * @param endpoint
+     * @param tokenProvider token来源，如自动登录并刷新的 RefreshingTokenProvider
+     * @param transport     传输实现
+     */
+    public ImClient(String endpoint, TokenProvider tokenProvider, ImTransport transport) {
+        this(endpoint, tokenProvider, transport, new ImClientConfig());
+    }
+
+    /**
+     * 实例化客户端
+     *
+     * @param endpoint
+     * @param tokenProvider token来源
+     * @param transport     传输实现
+     * @param config        客户端配置，如按接口设置的调用超时时间
+     */
+    public ImClient(String endpoint, TokenProvider tokenProvider, ImTransport transport, ImClientConfig config) {
+        this(endpoint, tokenProvider, transport, config, 0, newHistoryExecutor());
+    }
+
+    private ImClient(String endpoint, TokenProvider tokenProvider, ImTransport transport, ImClientConfig config, long callTimeout, ExecutorService historyExecutor) {
         this.endpoint = endpoint;
-        this.token = token;
+        this.tokenProvider = tokenProvider;
+        this.transport = transport;
+        this.config = config;
+        this.callTimeout = callTimeout;
+        this.historyExecutor = historyExecutor;
+    }
+
+    /**
+     * 每个迭代器同时只有一个预取任务，线程数随进行中的迭代器数量伸缩，空闲 60 秒后回收
+     */
+    private static ExecutorService newHistoryExecutor() {
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "eu-im-history-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 使用指定调用超时时间的客户端，与当前客户端共用传输实现与 token 来源
+     * 如 client.withTimeout(200, TimeUnit.MILLISECONDS).messageSend(message)
+     *
+     * @param timeout 每次调用的超时时间，覆盖配置中按接口设置的值
+     * @param unit
+     * @return
+     */
+    public ImClient withTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        return new ImClient(this.endpoint, this.tokenProvider, this.transport, this.config, Math.max(1, unit.toMillis(timeout)), this.historyExecutor);
     }
 
     /**
      * 用户登录
-     * 返回用户token，用于请求其他接口及连接websocket
+     * 不携带登录信息，请使用 login(UserLoginDto)
      */
+    @Deprecated
     public String login() {
-        return HttpUtil.INSTANCE.post(this.endpoint + ImConstants.LOGIN, null, null, String::valueOf);
+        return HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.LOGIN, null, null, String::valueOf, this.newCall(ImConstants.LOGIN));
+    }
+
+    /**
+     * 用户登录
+     * 登录即注册，返回用户token，用于请求其他接口及连接websocket
+     * 需要自动维护 token 时使用 RefreshingTokenProvider
+     *
+     * @param loginDto 登录信息
+     */
+    public String login(UserLoginDto loginDto) {
+        DtoValidator.validate(loginDto);
+        return HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.LOGIN, null, loginDto, String::valueOf, this.newCall(ImConstants.LOGIN));
+    }
+
+    /**
+     * 申请添加好友
+     *
+     * @param friendAddDto 好友uid及申请内容
+     */
+    public void friendAdd(FriendAddDto friendAddDto) {
+        this.update(ImConstants.FRIEND_ADD, HttpMethod.POST, friendAddDto);
+    }
+
+    /**
+     * 处理好友申请
+     *
+     * @param friendHandleDto 好友申请id及通过或拒绝
+     */
+    public void friendHandle(FriendHandleDto friendHandleDto) {
+        this.update(ImConstants.FRIEND_HANDLE, HttpMethod.PUT, friendHandleDto);
+    }
+
+    /**
+     * 修改好友备注
+     *
+     * @param friendNoteDto 好友uid及备注
+     */
+    public void friendNote(FriendNoteDto friendNoteDto) {
+        this.update(ImConstants.FRIEND_NOTE, HttpMethod.PUT, friendNoteDto);
     }
 
     /**
@@ -59,16 +239,103 @@ public class ImClient {
      * @param queryStr 群组检索内容
      */
     public String chartList(String queryStr) {
-        return HttpUtil.INSTANCE.post(this.endpoint + ImConstants.CHART_LIST, this.token, new GroupListDto(queryStr), String::valueOf);
+        return this.call(ImConstants.CHART_LIST, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.CHART_LIST, token, new GroupListDto(queryStr), String::valueOf, timeout));
     }
 
     /**
      * 查看群组消息
+     * 一次返回全部消息，消息量很大的群组请使用 chartMessageHistory 分页遍历
      *
      * @param gid 群组gid
      */
     public String chartMessage(Long gid) {
-        return HttpUtil.INSTANCE.get(this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), this.token, String::valueOf);
+        return this.call(ImConstants.CHART_MESSAGE, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.GET, this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), token, null, String::valueOf, timeout));
+    }
+
+    /**
+     * 群组列表
+     * 响应体直接解码为对象，不经过中间字符串
+     *
+     * @param queryStr 群组检索内容
+     */
+    public List<ChartGroupVo> chartGroupList(String queryStr) {
+        return this.call(ImConstants.CHART_LIST, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.POST, this.endpoint + ImConstants.CHART_LIST, token, new GroupListDto(queryStr),
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartGroupVo.class)), timeout));
+    }
+
+    /**
+     * 查看群组消息
+     * 响应体直接解码为对象，不经过中间字符串
+     *
+     * @param gid 群组gid
+     */
+    public List<ChartMessageVo> chartMessageList(Long gid) {
+        return this.call(ImConstants.CHART_MESSAGE, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.GET, this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), token, null,
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartMessageVo.class)), timeout));
+    }
+
+    /**
+     * 查看群组消息
+     * 边读取边解码，内存中只保留当前一条消息，适合消息量很大的群组
+     * 使用完毕后必须关闭迭代器，连接才能被归还复用；迭代读取同样受调用超时时间限制
+     *
+     * @param gid 群组gid
+     */
+    @SuppressWarnings("unchecked")
+    public CloseableIterator<ChartMessageVo> chartMessageIterator(Long gid) {
+        ImResponse response = this.call(ImConstants.CHART_MESSAGE, (token, timeout) -> HttpUtil.INSTANCE.open(this.transport, HttpMethod.GET, this.endpoint + String.format(ImConstants.CHART_MESSAGE, gid), token, null, timeout));
+        return ResponseDecoder.iterate(response.getBody(), (ValueReader<ChartMessageVo>) JsonDecoder.readerFor(ChartMessageVo.class));
+    }
+
+    /**
+     * 分页查看群组消息
+     *
+     * @param gid    群组gid
+     * @param before 只返回该消息之前的消息，为 null 时查询最新一页
+     * @param size   每页条数
+     */
+    public List<ChartMessageVo> chartMessagePage(Long gid, Long before, int size) {
+        ChartMessageHistory.checkPageSize(size);
+        return this.call(ImConstants.CHART_MESSAGE_PAGE, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.GET, this.endpoint + ChartMessageHistory.pageUrl(gid, before, size), token, null,
+                body -> ResponseDecoder.decode(body, JsonDecoder.listOf(ChartMessageVo.class)), timeout));
+    }
+
+    /**
+     * 从新到旧遍历群组的全部历史消息
+     * 在客户端自有的守护线程中预取下一页，内存占用与历史消息总量无关；提前结束迭代时必须关闭迭代器
+     *
+     * @param gid      群组gid
+     * @param pageSize 每页条数
+     */
+    public CloseableIterator<ChartMessageVo> chartMessageHistory(Long gid, int pageSize) {
+        return this.chartMessageHistory(gid, pageSize, this.historyExecutor);
+    }
+
+    /**
+     * 从新到旧遍历群组的全部历史消息
+     * 当前页被迭代时，下一页已经在 executor 中请求，内存中最多只有两页消息；提前结束迭代时必须关闭迭代器
+     *
+     * @param gid      群组gid
+     * @param pageSize 每页条数
+     * @param executor 预取下一页的线程池
+     */
+    public CloseableIterator<ChartMessageVo> chartMessageHistory(Long gid, int pageSize, Executor executor) {
+        return this.history(gid, pageSize, executor);
+    }
+
+    /**
+     * 以流的形式从新到旧遍历群组的全部历史消息，在客户端自有的守护线程中预取下一页，提前结束时必须关闭流
+     *
+     * @param gid      群组gid
+     * @param pageSize 每页条数
+     */
+    public Stream<ChartMessageVo> chartMessageStream(Long gid, int pageSize) {
+        return this.history(gid, pageSize, this.historyExecutor).stream();
+    }
+
+    private ChartMessageHistory history(Long gid, int pageSize, Executor executor) {
+        ChartMessageHistory.checkPageSize(pageSize);
+        return new ChartMessageHistory(before -> CompletableFuture.supplyAsync(() -> this.chartMessagePage(gid, before, pageSize), executor), pageSize);
     }
 
     /**
@@ -78,7 +345,173 @@ public class ImClient {
      * @param uidList   群成员uid列表
      */
     public String groupCreate(String groupName, List<Long> uidList) {
-        return HttpUtil.INSTANCE.put(this.endpoint + ImConstants.GROUP_CREATE, this.token, new GroupCreateDto(groupName, uidList), String::valueOf);
+        GroupCreateDto groupCreateDto = new GroupCreateDto(groupName, uidList);
+        DtoValidator.validate(groupCreateDto);
+        return this.call(ImConstants.GROUP_CREATE, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.PUT, this.endpoint + ImConstants.GROUP_CREATE, token, groupCreateDto, String::valueOf, timeout));
+    }
+
+    /**
+     * 修改群名称
+     *
+     * @param groupNameDto 群组gid及新的群名称
+     */
+    public void groupRename(GroupNameDto groupNameDto) {
+        this.update(ImConstants.GROUP_NAME, HttpMethod.PUT, groupNameDto);
+    }
+
+    /**
+     * 邀请加入群聊
+     *
+     * @param inviteChartDto 群组gid及被邀请人uid列表
+     */
+    public void groupInvite(InviteChartDto inviteChartDto) {
+        this.update(ImConstants.GROUP_INVITE, HttpMethod.POST, inviteChartDto);
+    }
+
+    /**
+     * 创建群组
+     * 成员uid不装箱直接编码；成员很多时使用 ImBulkGroupOperations 分批创建
+     *
+     * @param groupCreateUidsDto 群组名称及成员uid
+     * @return 新群组的gid，服务端没有返回时为 null
+     */
+    public Long groupCreate(GroupCreateUidsDto groupCreateUidsDto) {
+        DtoValidator.validate(groupCreateUidsDto);
+        return this.call(ImConstants.GROUP_CREATE, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.PUT, this.endpoint + ImConstants.GROUP_CREATE, token, groupCreateUidsDto,
+                body -> ResponseDecoder.decode(body, ImClient::readGid), timeout));
+    }
+
+    /**
+     * 邀请加入群聊
+     * 被邀请人uid不装箱直接编码；人数很多时使用 ImBulkGroupOperations 分批邀请
+     *
+     * @param inviteChartUidsDto 群组gid及被邀请人uid
+     */
+    public void groupInvite(InviteChartUidsDto inviteChartUidsDto) {
+        this.update(ImConstants.GROUP_INVITE, HttpMethod.POST, inviteChartUidsDto);
+    }
+
+    /**
+     * 发送消息
+     *
+     * @param message 消息
+     */
+    public String messageSend(MessageDto message) {
+        DtoValidator.validate(message);
+        return this.call(ImConstants.MESSAGE_SEND, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND, token, message, String::valueOf, timeout));
+    }
+
+    /**
+     * 携带幂等键发送消息
+     * 服务端对相同幂等键的请求只处理一次，因此超时或失败后可以使用同一个幂等键安全地重发
+     *
+     * @param message        消息
+     * @param idempotencyKey 幂等键，同一条消息的每次发送使用相同的值
+     */
+    public String messageSend(MessageDto message, String idempotencyKey) {
+        DtoValidator.validate(message);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            throw new GlobalException(GlobalExceptionCode.REQUEST_ARGUMENT_EXCEPTION.getCode(), "幂等键不能为空");
+        }
+        Map<String, String> headers = Collections.singletonMap(ImRequest.IDEMPOTENCY_KEY, idempotencyKey);
+        return this.call(ImConstants.MESSAGE_SEND, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND, token, message, headers, String::valueOf, timeout));
+    }
+
+    /**
+     * 批量发送消息
+     * 大量发送时建议使用 ImMessagePipeline 自动合并
+     *
+     * @param messages 消息列表
+     */
+    public String messageSendBatch(List<MessageDto> messages) {
+        DtoValidator.validate(messages);
+        return this.call(ImConstants.MESSAGE_SEND_BATCH, (token, timeout) -> HttpUtil.INSTANCE.execute(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND_BATCH, token, messages, String::valueOf, timeout));
+    }
+
+    /**
+     * 批量发送消息，data 直接从响应流中读取
+     *
+     * @param messages   消息列表
+     * @param dataReader data 的读取方式
+     */
+    public <T> T messageSendBatch(List<MessageDto> messages, ValueReader<T> dataReader) {
+        DtoValidator.validate(messages);
+        return this.call(ImConstants.MESSAGE_SEND_BATCH, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.POST, this.endpoint + ImConstants.MESSAGE_SEND_BATCH, token, messages,
+                body -> ResponseDecoder.decode(body, dataReader), timeout));
+    }
+
+    /**
+     * 转发消息
+     *
+     * @param messageForwardDto 消息mid及转发的群组gid列表
+     */
+    public void messageForward(MessageForwardDto messageForwardDto) {
+        this.update(ImConstants.MESSAGE_FORWARD, HttpMethod.POST, messageForwardDto);
+    }
+
+    /**
+     * 校验参数后发出不返回数据的请求，响应只检查业务状态码
+     *
+     * @param path   ImConstants 中的路径
+     * @param method
+     * @param dto
+     */
+    private void update(String path, HttpMethod method, Object dto) {
+        DtoValidator.validate(dto);
+        this.call(path, (token, timeout) -> HttpUtil.INSTANCE.exchange(this.transport, method, this.endpoint + path, token, dto, body -> {
+            ResponseDecoder.verify(body);
+            return null;
+        }, timeout));
+    }
+
+    /**
+     * 读取创建群组响应中的gid，data 可以是gid本身或群组信息
+     */
+    static Long readGid(TokenReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NUMBER:
+            case STRING:
+                return reader.nextLong();
+            case BEGIN_OBJECT:
+                return JsonDecoder.read(reader, ChartGroupVo.class).getGid();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * 从现在开始一次调用
+     *
+     * @param path ImConstants 中的路径模板
+     */
+    private CallTimeout newCall(String path) {
+        return this.config.newCall(path, this.callTimeout);
+    }
+
+    /**
+     * 使用当前 token 发出请求
+     * 因 token 失效而失败时强制刷新 token 并重试一次，并发失败的请求只会触发一次刷新；重试与首次请求共用同一个截止时间
+     *
+     * @param path    ImConstants 中的路径模板，用于确定调用超时时间
+     * @param request
+     */
+    private <R> R call(String path, BiFunction<String, CallTimeout, R> request) {
+        CallTimeout timeout = this.newCall(path);
+        String token = this.tokenProvider.getToken();
+        try {
+            return request.apply(token, timeout);
+        } catch (GlobalException e) {
+            if (!TokenProvider.isAuthenticationFailure(e)) {
+                throw e;
+            }
+            String refreshed = this.tokenProvider.refresh(token);
+            if (refreshed == null || refreshed.equals(token)) {
+                throw e;
+            }
+            log.debug("token 已失效（错误码 {}），刷新后重试", e.getCode());
+            return request.apply(refreshed, timeout);
+        }
     }
 
 }
@@ -0,0 +1,92 @@
+package com.eu.im.sdk.client;
+
+import com.eu.im.sdk.common.transport.CallTimeout;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端配置
+ * 超时时间是整个调用的截止时间：限流等待、获取连接、重试与 token 失效后的重新发送共用同一个截止时间，
+ * 连接与每次读取的超时都不会超过剩余时间，而不是各自使用固定的超时时间
+ */
+public class ImClientConfig {
+
+    /**
+     * 建立连接的超时时间上限（毫秒）
+     */
+    private int connectTimeout = 1000;
+
+    /**
+     * 未单独配置的接口的调用超时时间（毫秒），默认与之前连接 1 秒 + 读取 3 秒的上限相同
+     */
+    private long timeout = 4000;
+
+    /**
+     * 单独配置的接口（ImConstants 中的路径模板）的调用超时时间（毫秒）
+     */
+    private final Map<String, Long> endpointTimeouts = new HashMap<>();
+
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public ImClientConfig setConnectTimeout(int connectTimeout) {
+        if (connectTimeout <= 0) {
+            throw new IllegalArgumentException("connectTimeout must be positive.");
+        }
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public ImClientConfig setTimeout(long timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * 单独设置某个接口的调用超时时间，如延迟敏感的 MESSAGE_SEND 设置为 200 毫秒，携带大量成员的 GROUP_CREATE 适当放宽
+     *
+     * @param endpoint ImConstants 中的路径模板，如 ImConstants.MESSAGE_SEND
+     * @param timeout  毫秒
+     * @return
+     */
+    public ImClientConfig setTimeout(String endpoint, long timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        this.endpointTimeouts.put(endpoint, timeout);
+        return this;
+    }
+
+    public long getTimeout(String endpoint) {
+        Long endpointTimeout = endpointTimeouts.get(endpoint);
+        return endpointTimeout == null ? timeout : endpointTimeout;
+    }
+
+    public Map<String, Long> getEndpointTimeouts() {
+        return Collections.unmodifiableMap(endpointTimeouts);
+    }
+
+    /**
+     * 从现在开始一次调用
+     *
+     * @param endpoint ImConstants 中的路径模板
+     * @param timeout  调用超时时间（毫秒），不大于 0 时使用接口的配置
+     * @return
+     */
+    CallTimeout newCall(String endpoint, long timeout) {
+        return CallTimeout.after(connectTimeout, timeout > 0 ? timeout : this.getTimeout(endpoint), TimeUnit.MILLISECONDS);
+    }
+
+}
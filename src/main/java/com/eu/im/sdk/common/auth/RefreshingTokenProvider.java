@@ -0,0 +1,308 @@
+package com.eu.im.sdk.common.auth;
+
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.JsonReader;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.transport.HttpMethod;
+import com.eu.im.sdk.common.transport.ImTransport;
+import com.eu.im.sdk.constants.ImConstants;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.UserLoginDto;
+import com.eu.im.sdk.utils.HttpUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自动登录并在过期前后台刷新的 token
+ * 登录凭证来自 DefaultCredentialProvider：accessKeyId 为登录手机号，accessKeySecret 为用户名（登录即注册）
+ * <p>
+ * 过期时间依次取自登录结果中的 expiresIn（秒）/ expireTime（毫秒时间戳）、JWT 的 exp 声明，都没有时使用配置的默认有效期
+ * 每个实例有自己的后台线程，在过期前 refreshAhead 毫秒刷新；getToken 只有一次 volatile 读，
+ * 只有首次使用或后台刷新一直失败导致 token 过期时才会在调用线程中同步登录
+ * 同一时刻只有一次登录，其余线程等待该次登录的结果；登录请求不持有锁，不会阻塞只读取 token 的线程
+ */
+@Slf4j
+public class RefreshingTokenProvider implements TokenProvider, Closeable {
+
+    private final String endpoint;
+
+    private final DefaultCredentialProvider credentialProvider;
+
+    private final ImTransport transport;
+
+    private final TokenRefreshConfig config;
+
+    /**
+     * 后台刷新线程，只在有刷新任务等待时存在
+     */
+    private final ScheduledThreadPoolExecutor refresher;
+
+    /**
+     * 保护 inFlight、scheduled 与 closed，持有期间不发出请求
+     */
+    private final Object lock = new Object();
+
+    private volatile AccessToken current;
+
+    /**
+     * 进行中的登录，其余需要新 token 的线程等待它完成
+     */
+    private CompletableFuture<AccessToken> inFlight;
+
+    private ScheduledFuture<?> scheduled;
+
+    private boolean closed;
+
+
+    public RefreshingTokenProvider(String endpoint, DefaultCredentialProvider credentialProvider) {
+        this(endpoint, credentialProvider, HttpUtil.INSTANCE.getTransport(), new TokenRefreshConfig());
+    }
+
+    /**
+     * @param endpoint           请求端点
+     * @param credentialProvider 登录凭证，替换凭证后下一次刷新生效
+     * @param transport          登录请求使用的传输实现
+     * @param config
+     */
+    public RefreshingTokenProvider(String endpoint, DefaultCredentialProvider credentialProvider, ImTransport transport, TokenRefreshConfig config) {
+        this.endpoint = endpoint;
+        this.credentialProvider = credentialProvider;
+        this.transport = transport;
+        this.config = config;
+        this.refresher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "eu-im-token-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.setKeepAliveTime(1, TimeUnit.MINUTES);
+        this.refresher.allowCoreThreadTimeOut(true);
+        this.refresher.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public String getToken() {
+        AccessToken token = current;
+        if (token != null && System.currentTimeMillis() < token.expiresAt) {
+            return token.value;
+        }
+        return this.refresh(token == null ? null : token.value);
+    }
+
+    @Override
+    public String refresh(String staleToken) {
+        CompletableFuture<AccessToken> flight;
+        boolean leader;
+        synchronized (lock) {
+            AccessToken token = current;
+            if (token != null && !token.value.equals(staleToken) && System.currentTimeMillis() < token.expiresAt) {
+                return token.value;     //其他线程已经刷新过
+            }
+            flight = inFlight;
+            leader = flight == null;
+            if (leader) {
+                flight = inFlight = new CompletableFuture<>();
+            }
+        }
+        return leader ? this.renew(flight).value : await(flight).value;
+    }
+
+    /**
+     * 当前 token 的过期时间（毫秒时间戳），尚未登录时为 0
+     *
+     * @return
+     */
+    public long getExpiresAt() {
+        AccessToken token = current;
+        return token == null ? 0 : token.expiresAt;
+    }
+
+    /**
+     * 停止后台刷新
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+        refresher.shutdown();
+    }
+
+    /**
+     * 登录并发布结果，安排下一次刷新
+     * 调用者必须已将 flight 登记为 inFlight，且不能持有 lock
+     */
+    private AccessToken renew(CompletableFuture<AccessToken> flight) {
+        AccessToken token;
+        try {
+            token = this.login();
+        } catch (RuntimeException | Error e) {
+            synchronized (lock) {
+                inFlight = null;
+            }
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (lock) {
+            current = token;
+            inFlight = null;
+            this.schedule(token);
+        }
+        flight.complete(token);
+        return token;
+    }
+
+    /**
+     * 等待其他线程进行中的登录，调用者不能持有 lock
+     */
+    private static AccessToken await(CompletableFuture<AccessToken> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GlobalException(GlobalExceptionCode.USER_LOGIN_STATUS_EXCEPTION.getCode(), "等待登录时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    /**
+     * 安排下一次刷新，调用前必须持有 lock
+     */
+    private void schedule(AccessToken token) {
+        if (closed) {
+            return;
+        }
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        long lifetime = token.expiresAt - token.issuedAt;
+        long ahead = Math.min(config.getRefreshAhead(), lifetime / 2);
+        long delay = Math.max(0, token.expiresAt - ahead - System.currentTimeMillis());
+        scheduled = refresher.schedule(this::refreshInBackground, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        CompletableFuture<AccessToken> flight;
+        boolean leader;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            flight = inFlight;
+            leader = flight == null;
+            if (leader) {
+                flight = inFlight = new CompletableFuture<>();
+            }
+        }
+        try {
+            if (leader) {
+                this.renew(flight);
+            } else {
+                await(flight);  //进行中的登录成功后会安排下一次刷新
+            }
+        } catch (RuntimeException e) {
+            log.warn("token 刷新失败，{} 毫秒后重试", config.getRetryInterval(), e);
+            synchronized (lock) {
+                if (!closed) {
+                    scheduled = refresher.schedule(this::refreshInBackground, config.getRetryInterval(), TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private AccessToken login() {
+        DefaultCredentials credentials = credentialProvider.getCredentials();
+        UserLoginDto loginDto = new UserLoginDto();
+        loginDto.setPhone(credentials.getAccessKeyId());
+        loginDto.setUsername(credentials.getAccessKeySecret());
+
+        long issuedAt = System.currentTimeMillis();
+        Object data = HttpUtil.INSTANCE.exchange(this.transport, HttpMethod.POST, this.endpoint + ImConstants.LOGIN, null, loginDto,
+                body -> ResponseDecoder.decode(body, JsonDecoder.readerFor(Object.class)));
+        return this.parse(data, issuedAt);
+    }
+
+    /**
+     * 解析登录结果，data 为 token 字符串，或包含 token 与过期时间的对象
+     */
+    private AccessToken parse(Object data, long issuedAt) {
+        String token = null;
+        long expiresAt = 0;
+        if (data instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) data;
+            Object value = map.containsKey("token") ? map.get("token") : map.get("accessToken");
+            token = value == null ? null : value.toString();
+            if (map.get("expiresIn") instanceof Number) {
+                expiresAt = issuedAt + TimeUnit.SECONDS.toMillis(((Number) map.get("expiresIn")).longValue());
+            } else if (map.get("expireTime") instanceof Number) {
+                expiresAt = ((Number) map.get("expireTime")).longValue();
+            }
+        } else if (data != null) {
+            token = data.toString();
+        }
+        if (token == null || token.trim().isEmpty()) {
+            throw new GlobalException(GlobalExceptionCode.USER_LOGIN_STATUS_EXCEPTION.getCode(), "登录失败，未返回 token");
+        }
+        if (expiresAt <= issuedAt) {
+            expiresAt = jwtExpiresAt(token);
+        }
+        if (expiresAt <= issuedAt) {
+            expiresAt = issuedAt + config.getDefaultTimeToLive();
+        }
+        return new AccessToken(token, issuedAt, expiresAt);
+    }
+
+    /**
+     * JWT 的 exp 声明（毫秒时间戳），不是 JWT 时返回 0
+     */
+    private static long jwtExpiresAt(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return 0;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            Object claims = JsonDecoder.read(new JsonReader(new ByteArrayInputStream(payload)), Object.class);
+            if (claims instanceof Map && ((Map<?, ?>) claims).get("exp") instanceof Number) {
+                return TimeUnit.SECONDS.toMillis(((Number) ((Map<?, ?>) claims).get("exp")).longValue());
+            }
+        } catch (IllegalArgumentException | IOException ignore) {  //不是 JWT
+        }
+        return 0;
+    }
+
+    private static final class AccessToken {
+
+        private final String value;
+
+        private final long issuedAt;
+
+        private final long expiresAt;
+
+        AccessToken(String value, long issuedAt, long expiresAt) {
+            this.value = value;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
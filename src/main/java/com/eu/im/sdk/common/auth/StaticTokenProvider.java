@@ -0,0 +1,26 @@
+package com.eu.im.sdk.common.auth;
+
+/**
+ * 固定 token
+ * 刷新时原样返回，token 失效后请求将直接失败
+ */
+public class StaticTokenProvider implements TokenProvider {
+
+    private final String token;
+
+
+    public StaticTokenProvider(String token) {
+        this.token = token;
+    }
+
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public String refresh(String staleToken) {
+        return token;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.eu.im.sdk.common.auth;
+
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+
+/**
+ * 请求 token 的来源
+ * getToken 位于每个请求的调用路径上，实现必须足够轻量；refresh 只在请求因 token 失效而失败时调用
+ * 实现必须是线程安全的
+ */
+public interface TokenProvider {
+
+    /**
+     * 当前可用的 token
+     *
+     * @return
+     */
+    String getToken();
+
+    /**
+     * 强制刷新 token
+     * 并发调用时只会刷新一次：若当前 token 已经不是 staleToken，说明其他线程已经刷新过，直接返回当前 token
+     *
+     * @param staleToken 请求失败时使用的 token
+     * @return 刷新后的 token
+     */
+    String refresh(String staleToken);
+
+    /**
+     * 固定 token，不会刷新
+     *
+     * @param token
+     * @return
+     */
+    static TokenProvider of(String token) {
+        return new StaticTokenProvider(token);
+    }
+
+    /**
+     * 请求是否因为 token 无效而失败
+     * HTTP 401 或服务端返回登录信息异常
+     *
+     * @param e
+     * @return
+     */
+    static boolean isAuthenticationFailure(GlobalException e) {
+        return e.getCode() == 401 || e.getCode() == GlobalExceptionCode.USER_LOGIN_STATUS_EXCEPTION.getCode();
+    }
+
+}
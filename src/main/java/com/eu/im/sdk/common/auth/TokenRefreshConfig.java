@@ -0,0 +1,62 @@
+package com.eu.im.sdk.common.auth;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token 刷新配置
+ */
+public class TokenRefreshConfig {
+
+    /**
+     * 无法从登录结果中解析出过期时间时，token 的有效期（毫秒）
+     */
+    private long defaultTimeToLive = TimeUnit.HOURS.toMillis(2);
+
+    /**
+     * 在过期前多久开始后台刷新（毫秒），有效期较短时最多提前有效期的一半
+     */
+    private long refreshAhead = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * 后台刷新失败后的重试间隔（毫秒），重试期间继续使用尚未过期的 token
+     */
+    private long retryInterval = TimeUnit.SECONDS.toMillis(5);
+
+
+    public long getDefaultTimeToLive() {
+        return defaultTimeToLive;
+    }
+
+    public TokenRefreshConfig setDefaultTimeToLive(long defaultTimeToLive) {
+        if (defaultTimeToLive <= 0) {
+            throw new IllegalArgumentException("defaultTimeToLive must be positive.");
+        }
+        this.defaultTimeToLive = defaultTimeToLive;
+        return this;
+    }
+
+    public long getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public TokenRefreshConfig setRefreshAhead(long refreshAhead) {
+        if (refreshAhead < 0) {
+            throw new IllegalArgumentException("refreshAhead must not be negative.");
+        }
+        this.refreshAhead = refreshAhead;
+        return this;
+    }
+
+    public long getRetryInterval() {
+        return retryInterval;
+    }
+
+    public TokenRefreshConfig setRetryInterval(long retryInterval) {
+        if (retryInterval <= 0) {
+            throw new IllegalArgumentException("retryInterval must be positive.");
+        }
+        this.retryInterval = retryInterval;
+        return this;
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.eu.im.sdk.common.cache;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+import com.eu.im.sdk.common.transport.QueryMatcher;
+import com.eu.im.sdk.common.transport.RequestKey;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带查询结果缓存的传输实现
+ * 以 token + 请求方法 + 地址 + 请求体为键缓存 GET 与配置为查询接口的 POST 的成功响应，
+ * 新鲜期内直接返回缓存；过期后若响应带 ETag，使用 If-None-Match 向服务端确认，304 时继续使用缓存
+ * 同一 token 的任何其他写请求（如创建群组）经过本传输实现时，会清除该 token 的全部缓存
+ * <p>
+ * 使用方式：new ImClient(endpoint, token, new CachingTransport(HttpUtil.INSTANCE.getTransport()))
+ */
+public class CachingTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final ImCacheConfig config;
+
+    private final QueryMatcher queryMatcher;
+
+    private final Cache<RequestKey, CachedResponse> cache;
+
+    /**
+     * 每个 token 当前的缓存代，key 为 token（没有 token 时为空字符串）
+     * 写请求使该 token 的当前代失效，查询只能写入开始时所在的代，因此写请求之前发出的查询不会缓存旧数据
+     */
+    private final ConcurrentMap<String, Generation> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder revalidatedCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder invalidationCount = new LongAdder();
+
+
+    public CachingTransport(ImTransport delegate) {
+        this(delegate, new ImCacheConfig());
+    }
+
+    public CachingTransport(ImTransport delegate, ImCacheConfig config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.queryMatcher = new QueryMatcher(config.getQueryPaths());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTimeToLive() + config.getRevalidateWindow(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        if (!queryMatcher.isQuery(request)) {
+            return this.mutate(request);
+        }
+
+        RequestKey key = RequestKey.of(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        long now = System.nanoTime();
+        if (cached != null && now - cached.freshUntil < 0) {
+            hitCount.increment();
+            return cached.toResponse();
+        }
+        if (cached != null && cached.etag != null) {
+            request.header("If-None-Match", cached.etag);
+        } else {
+            cached = null;  //没有 ETag 的过期响应无法确认，按未命中处理
+        }
+
+        Generation generation = this.generation(key.getToken());
+        ImResponse response = delegate.execute(request);
+
+        if (response.getStatus() == 304 && cached != null) {
+            response.close();
+            revalidatedCount.increment();
+            CachedResponse refreshed = cached.refresh(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeToLive()));
+            this.store(key, refreshed, generation);
+            return refreshed.toResponse();
+        }
+
+        missCount.increment();
+        if (response.getStatus() != 200 || isNoStore(response)) {
+            return response;
+        }
+
+        byte[] body;
+        try (ImResponse closeable = response) {
+            InputStream in = closeable.getBody();
+            body = in == null ? new byte[0] : ByteStreams.toByteArray(in);
+        }
+        CachedResponse fetched = new CachedResponse(response.getHeaders(), body,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeToLive()));
+        this.store(key, fetched, generation);
+        return fetched.toResponse();
+    }
+
+    /**
+     * 清除某个 token 的全部缓存
+     *
+     * @param token
+     */
+    public void invalidate(String token) {
+        this.retire(token);
+        invalidationCount.increment();
+    }
+
+    /**
+     * 清除全部缓存
+     */
+    public void invalidateAll() {
+        for (String token : generations.keySet()) {
+            this.retire(token);
+        }
+        cache.invalidateAll();
+        invalidationCount.increment();
+    }
+
+    /**
+     * 缓存命中统计
+     *
+     * @return
+     */
+    public ImCacheStats stats() {
+        return new ImCacheStats(hitCount.sum(), revalidatedCount.sum(), missCount.sum(),
+                cache.stats().evictionCount(), invalidationCount.sum(), cache.size());
+    }
+
+    @Override
+    public void close() {
+        generations.clear();
+        cache.invalidateAll();
+        delegate.close();
+    }
+
+    /**
+     * 写请求
+     * 发送前后都会清除缓存：发送前清除使进行中的查询不再写入缓存，完成后清除使之后的查询能读到写入的结果
+     */
+    private ImResponse mutate(ImRequest request) throws IOException {
+        String token = request.getHeader("Authorization");
+        this.retire(token);
+        try {
+            return delegate.execute(request);
+        } finally {
+            this.invalidate(token);
+        }
+    }
+
+    private Generation generation(String token) {
+        return generations.computeIfAbsent(nonNull(token), t -> new Generation());
+    }
+
+    /**
+     * 使 token 的当前代失效，只清除该代登记的缓存
+     */
+    private void retire(String token) {
+        Generation generation = generations.remove(nonNull(token));
+        if (generation == null) {
+            return;
+        }
+        synchronized (generation) {
+            generation.retired = true;
+        }
+        for (RequestKey key : generation.entries.keySet()) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 登记与写入在代的锁内完成，失效之后的写入会被放弃，失效时遍历到的登记一定已经写入缓存
+     */
+    private void store(RequestKey key, CachedResponse value, Generation generation) {
+        synchronized (generation) {
+            if (generation.retired) {
+                return;
+            }
+            generation.entries.put(key, value);
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * 淘汰或过期的缓存同时从所在代的登记中移除，按值移除以免误删同一个键之后写入的缓存
+     */
+    private void onRemoval(RemovalNotification<RequestKey, CachedResponse> notification) {
+        if (notification.getCause() == RemovalCause.REPLACED) {
+            return;
+        }
+        RequestKey key = notification.getKey();
+        Generation generation = key == null ? null : generations.get(nonNull(key.getToken()));
+        if (generation != null) {
+            generation.entries.remove(key, notification.getValue());
+        }
+    }
+
+    private static String nonNull(String token) {
+        return token == null ? "" : token;
+    }
+
+    private static boolean isNoStore(ImResponse response) {
+        String cacheControl = response.getHeader("Cache-Control");
+        return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-store");
+    }
+
+    /**
+     * 某个 token 的一代缓存
+     */
+    private static final class Generation {
+
+        /**
+         * 本代写入的缓存
+         */
+        private final ConcurrentMap<RequestKey, CachedResponse> entries = new ConcurrentHashMap<>();
+
+        private boolean retired;
+
+    }
+
+    /**
+     * 缓存的响应
+     */
+    private static final class CachedResponse {
+
+        private final Map<String, String> headers;
+
+        private final byte[] body;
+
+        private final String etag;
+
+        /**
+         * 新鲜期截止时间（System.nanoTime）
+         */
+        private final long freshUntil;
+
+        CachedResponse(Map<String, String> headers, byte[] body, long freshUntil) {
+            this.headers = headers;
+            this.body = body;
+            this.etag = headers.get("ETag");
+            this.freshUntil = freshUntil;
+        }
+
+        CachedResponse refresh(long freshUntil) {
+            return new CachedResponse(headers, body, freshUntil);
+        }
+
+        ImResponse toResponse() {
+            return new ImResponse(200, headers, new ByteArrayInputStream(body));
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.eu.im.sdk.common.cache;
+
+import com.eu.im.sdk.constants.ImConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询结果缓存配置
+ */
+public class ImCacheConfig {
+
+    /**
+     * 最多缓存的响应个数，超过后按最近最少使用淘汰
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * 响应的新鲜期（毫秒），新鲜期内直接使用缓存，不访问服务端
+     */
+    private long timeToLive = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 新鲜期过后带 ETag 的响应继续保留的时间（毫秒），期间使用 If-None-Match 向服务端确认是否仍然有效
+     */
+    private long revalidateWindow = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * 使用 POST 发送但只做查询的接口路径，这些请求与 GET 一样会被缓存，且不会触发缓存失效
+     */
+    private Set<String> queryPaths = Collections.singleton(ImConstants.CHART_LIST);
+
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public ImCacheConfig setMaximumSize(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive.");
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public ImCacheConfig setTimeToLive(long timeToLive) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive.");
+        }
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    public long getRevalidateWindow() {
+        return revalidateWindow;
+    }
+
+    public ImCacheConfig setRevalidateWindow(long revalidateWindow) {
+        if (revalidateWindow < 0) {
+            throw new IllegalArgumentException("revalidateWindow must not be negative.");
+        }
+        this.revalidateWindow = revalidateWindow;
+        return this;
+    }
+
+    public Set<String> getQueryPaths() {
+        return queryPaths;
+    }
+
+    public ImCacheConfig setQueryPaths(String... queryPaths) {
+        this.queryPaths = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(queryPaths)));
+        return this;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.eu.im.sdk.common.cache;
+
+/**
+ * 缓存命中统计快照
+ */
+public class ImCacheStats {
+
+    /**
+     * 新鲜期内直接命中的次数
+     */
+    private final long hitCount;
+
+    /**
+     * 经服务端确认（304）后使用缓存的次数
+     */
+    private final long revalidatedCount;
+
+    /**
+     * 未命中，完整请求服务端的次数
+     */
+    private final long missCount;
+
+    /**
+     * 因容量或过期被淘汰的响应个数
+     */
+    private final long evictionCount;
+
+    /**
+     * 因写操作被清除的次数
+     */
+    private final long invalidationCount;
+
+    /**
+     * 当前缓存的响应个数
+     */
+    private final long size;
+
+
+    public ImCacheStats(long hitCount, long revalidatedCount, long missCount, long evictionCount, long invalidationCount, long size) {
+        this.hitCount = hitCount;
+        this.revalidatedCount = revalidatedCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getRevalidatedCount() {
+        return revalidatedCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 命中率，包括经服务端确认后的命中，没有请求时为 1
+     */
+    public double hitRate() {
+        long total = hitCount + revalidatedCount + missCount;
+        return total == 0 ? 1.0 : (double) (hitCount + revalidatedCount) / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImCacheStats{hit=%d, revalidated=%d, miss=%d, eviction=%d, invalidation=%d, size=%d, hitRate=%.4f}",
+                hitCount, revalidatedCount, missCount, evictionCount, invalidationCount, size, hitRate());
+    }
+
+}
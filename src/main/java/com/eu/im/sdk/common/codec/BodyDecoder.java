@@ -0,0 +1,17 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 响应体解码
+ * 直接读取响应体字节流，调用者负责关闭流
+ *
+ * @param <R>
+ */
+@FunctionalInterface
+public interface BodyDecoder<R> {
+
+    R decode(InputStream body) throws IOException;
+
+}
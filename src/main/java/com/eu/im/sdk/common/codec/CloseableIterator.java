@@ -0,0 +1,17 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * 持有底层资源的迭代器
+ * 迭代结束时自动关闭，提前结束迭代时必须调用 close
+ *
+ * @param <T>
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,23 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 默认 json 编解码
+ * 编码使用 JsonEncoder，字段访问器与字段名字节按类型预先计算，直接写入 UTF-8 字节
+ * 解码使用 JsonReader 与 JsonDecoder 流式读取
+ */
+public class DefaultJsonCodec implements JsonCodec {
+
+    @Override
+    public void encode(Object value, JsonWriter writer) {
+        JsonEncoder.write(writer, value);
+    }
+
+    @Override
+    public <T> T decode(InputStream in, Class<T> type) throws IOException {
+        return JsonDecoder.read(new JsonReader(in), type);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * 标记了编码格式的响应体
+ * 读取与关闭都直接交给原响应体
+ */
+public final class FormattedInputStream extends FilterInputStream {
+
+    private final WireFormat format;
+
+    public FormattedInputStream(InputStream in, WireFormat format) {
+        super(in);
+        this.format = format;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.eu.im.sdk.common.codec;
+
+import cn.hutool.json.JSONUtil;
+import com.google.common.io.CharStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于 Hutool JSONUtil 的 json 编解码
+ * 与引入 JsonCodec 之前的序列化结果完全一致，需要兼容 Hutool 注解等特性时使用
+ */
+public class HutoolJsonCodec implements JsonCodec {
+
+    @Override
+    public void encode(Object value, JsonWriter writer) {
+        writer.writeRaw(JSONUtil.toJsonStr(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public <T> T decode(InputStream in, Class<T> type) throws IOException {
+        return JSONUtil.toBean(CharStreams.toString(new InputStreamReader(in, StandardCharsets.UTF_8)), type);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * json 编解码 SPI
+ * HttpUtil 通过该接口编码请求体，可通过 HttpUtil.INSTANCE.setCodec 替换
+ * 实现必须是线程安全的
+ */
+public interface JsonCodec {
+
+    /**
+     * 将对象编码为 UTF-8 json，追加写入 writer
+     *
+     * @param value  不为 null
+     * @param writer
+     */
+    void encode(Object value, JsonWriter writer);
+
+    /**
+     * 从 UTF-8 json 字节流中读取对象，调用者负责关闭流
+     *
+     * @param in
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    <T> T decode(InputStream in, Class<T> type) throws IOException;
+
+}
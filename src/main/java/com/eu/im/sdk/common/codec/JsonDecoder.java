@@ -0,0 +1,277 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * json 到对象的绑定
+ * 从 TokenReader 读取，同样适用于 MessagePack 等与 json 数据模型一致的格式
+ * 每个类型的读取方式（包括对象的字段映射）只在第一次使用时解析一次并缓存
+ * 支持 String、数字、布尔、List、Map、Object 以及带无参构造器的普通对象，未知字段会被跳过
+ */
+public final class JsonDecoder {
+
+    private static final Map<Type, ValueReader<?>> READERS = new ConcurrentHashMap<>();
+
+    private JsonDecoder() {
+    }
+
+    /**
+     * 读取一个值
+     *
+     * @param reader
+     * @param type
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(TokenReader reader, Class<T> type) throws IOException {
+        return (T) readerFor(type).read(reader);
+    }
+
+    /**
+     * 获取类型对应的读取方式
+     *
+     * @param type
+     * @return
+     */
+    public static ValueReader<?> readerFor(Type type) {
+        ValueReader<?> cached = READERS.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        ValueReader<?> created = create(type);
+        ValueReader<?> previous = READERS.putIfAbsent(type, created);
+        return previous != null ? previous : created;
+    }
+
+    /**
+     * 元素类型为 elementType 的列表的读取方式
+     *
+     * @param elementType
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValueReader<List<T>> listOf(Class<T> elementType) {
+        return (ValueReader<List<T>>) (ValueReader<?>) listReader(readerFor(elementType));
+    }
+
+    private static ValueReader<?> create(Type type) {
+        if (type == String.class) {
+            return nullable(TokenReader::nextString);
+        }
+        if (type == Long.class || type == long.class) {
+            return nullable(TokenReader::nextLong);
+        }
+        if (type == Integer.class || type == int.class) {
+            return nullable(TokenReader::nextInt);
+        }
+        if (type == Double.class || type == double.class) {
+            return nullable(TokenReader::nextDouble);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return nullable(TokenReader::nextBoolean);
+        }
+        if (type == Object.class) {
+            return JsonDecoder::readAny;
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            if (List.class.isAssignableFrom(raw) || raw == Collection.class) {
+                return listReader(readerFor(parameterized.getActualTypeArguments()[0]));
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                return mapReader(readerFor(parameterized.getActualTypeArguments()[1]));
+            }
+            return readerFor(raw);
+        }
+        if (type instanceof Class) {
+            Class<?> raw = (Class<?>) type;
+            if (List.class.isAssignableFrom(raw)) {
+                return listReader(JsonDecoder::readAny);
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                return mapReader(JsonDecoder::readAny);
+            }
+            return new BeanReader<>(raw);
+        }
+        throw new IllegalArgumentException(String.format("不支持的类型[%s]", type));
+    }
+
+    private static <T> ValueReader<T> nullable(ValueReader<T> delegate) {
+        return reader -> {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            return delegate.read(reader);
+        };
+    }
+
+    private static ValueReader<List<Object>> listReader(ValueReader<?> element) {
+        return nullable(reader -> {
+            List<Object> list = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(element.read(reader));
+            }
+            reader.endArray();
+            return list;
+        });
+    }
+
+    private static ValueReader<Map<String, Object>> mapReader(ValueReader<?> value) {
+        return nullable(reader -> {
+            Map<String, Object> map = new LinkedHashMap<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                map.put(reader.nextName(), value.read(reader));
+            }
+            reader.endObject();
+            return map;
+        });
+    }
+
+    /**
+     * 读取任意值：对象为 Map，数组为 List，整数为 Long，小数为 Double
+     */
+    static Object readAny(TokenReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    map.put(reader.nextName(), readAny(reader));
+                }
+                reader.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readAny(reader));
+                }
+                reader.endArray();
+                return list;
+            case NUMBER:
+                String number = reader.nextString();
+                if (number.indexOf('.') == -1 && number.indexOf('e') == -1 && number.indexOf('E') == -1) {
+                    try {
+                        return Long.parseLong(number);
+                    } catch (NumberFormatException ignore) {  //超出 long 范围时按小数处理
+                    }
+                }
+                return Double.parseDouble(number);
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /**
+     * 普通对象的读取方式
+     * 字段映射在构造时一次性解析，字段类型的读取方式在第一次遇到该字段时解析
+     */
+    private static final class BeanReader<T> implements ValueReader<T> {
+
+        private final Constructor<T> constructor;
+
+        private final Map<String, FieldBinding> fields = new HashMap<>();
+
+        BeanReader(Class<T> type) {
+            try {
+                this.constructor = type.getDeclaredConstructor();
+                this.constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(String.format("类型[%s]缺少无参构造器", type.getName()), e);
+            }
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || fields.containsKey(field.getName())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    fields.put(field.getName(), new FieldBinding(field));
+                }
+            }
+        }
+
+        @Override
+        public T read(TokenReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            T instance;
+            try {
+                instance = constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                FieldBinding binding = fields.get(reader.nextName());
+                if (binding == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                Object value = binding.reader().read(reader);
+                if (value == null && binding.field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    binding.field.set(instance, value);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            reader.endObject();
+            return instance;
+        }
+
+    }
+
+    private static final class FieldBinding {
+
+        private final Field field;
+
+        private volatile ValueReader<?> reader;
+
+        FieldBinding(Field field) {
+            this.field = field;
+        }
+
+        /**
+         * 延迟解析，允许对象之间相互引用
+         */
+        ValueReader<?> reader() {
+            ValueReader<?> current = reader;
+            if (current == null) {
+                current = readerFor(field.getGenericType());
+                reader = current;
+            }
+            return current;
+        }
+
+    }
+
+}
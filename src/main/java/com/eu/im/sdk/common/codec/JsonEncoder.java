@@ -0,0 +1,267 @@
+package com.eu.im.sdk.common.codec;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对象到 json 的编码
+ * 每个类型的写入方式（包括对象的字段访问器与预编码的字段名）只在第一次使用时解析一次并缓存
+ * 与 Hutool 的默认行为保持一致：对象与 Map 中值为 null 的字段不输出
+ */
+public final class JsonEncoder {
+
+    private static final Map<Class<?>, ValueWriter<?>> WRITERS = new ConcurrentHashMap<>();
+
+    private JsonEncoder() {
+    }
+
+    /**
+     * 写入一个值，null 写为 json 的 null
+     *
+     * @param writer
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.writeNull();
+            return;
+        }
+        ((ValueWriter<Object>) writerFor(value.getClass())).write(writer, value);
+    }
+
+    /**
+     * 获取类型对应的写入方式
+     *
+     * @param type
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValueWriter<T> writerFor(Class<T> type) {
+        ValueWriter<?> cached = WRITERS.get(type);
+        if (cached != null) {
+            return (ValueWriter<T>) cached;
+        }
+        ValueWriter<?> created = create(type);
+        ValueWriter<?> previous = WRITERS.putIfAbsent(type, created);
+        return (ValueWriter<T>) (previous != null ? previous : created);
+    }
+
+    private static ValueWriter<?> create(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (ValueWriter<CharSequence>) JsonWriter::writeString;
+        }
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class) {
+            return (ValueWriter<Number>) (writer, value) -> writer.writeLong(value.longValue());
+        }
+        if (type == Double.class || type == Float.class) {
+            return (ValueWriter<Number>) (writer, value) -> writer.writeDouble(value.doubleValue());
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return (writer, value) -> writer.writeAscii(value.toString());
+        }
+        if (type == Boolean.class) {
+            return (ValueWriter<Boolean>) JsonWriter::writeBoolean;
+        }
+        if (type == Character.class || Enum.class.isAssignableFrom(type)) {
+            return (writer, value) -> writer.writeString(value.toString());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return (ValueWriter<Date>) (writer, value) -> writer.writeLong(value.getTime());
+        }
+        if (type == long[].class) {
+            return (ValueWriter<long[]>) JsonEncoder::writeLongArray;
+        }
+        if (type.isArray()) {
+            return JsonEncoder::writeArray;
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return (ValueWriter<Iterable<?>>) JsonEncoder::writeIterable;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return (ValueWriter<Map<?, ?>>) JsonEncoder::writeMap;
+        }
+        return new BeanWriter(type);
+    }
+
+    private static void writeLongArray(JsonWriter writer, long[] values) {
+        writer.writeByte('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.writeByte(',');
+            }
+            writer.writeLong(values[i]);
+        }
+        writer.writeByte(']');
+    }
+
+    private static void writeArray(JsonWriter writer, Object array) {
+        writer.writeByte('[');
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                writer.writeByte(',');
+            }
+            write(writer, Array.get(array, i));
+        }
+        writer.writeByte(']');
+    }
+
+    private static void writeIterable(JsonWriter writer, Iterable<?> values) {
+        writer.writeByte('[');
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                writer.writeByte(',');
+            }
+            first = false;
+            write(writer, value);
+        }
+        writer.writeByte(']');
+    }
+
+    private static void writeMap(JsonWriter writer, Map<?, ?> map) {
+        writer.writeByte('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            if (!first) {
+                writer.writeByte(',');
+            }
+            first = false;
+            writer.writeString(String.valueOf(entry.getKey())).writeByte(':');
+            write(writer, entry.getValue());
+        }
+        writer.writeByte('}');
+    }
+
+    /**
+     * 普通对象的写入方式
+     * 字段访问器与 "字段名": 的 UTF-8 字节在构造时一次性解析
+     */
+    private static final class BeanWriter implements ValueWriter<Object> {
+
+        private final FieldWriter[] fields;
+
+        BeanWriter(Class<?> type) {
+            List<FieldWriter> list = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || !names.add(field.getName())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    list.add(new FieldWriter(field));
+                }
+            }
+            this.fields = list.toArray(new FieldWriter[0]);
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object bean) {
+            writer.writeByte('{');
+            boolean first = true;
+            for (FieldWriter field : fields) {
+                Object value;
+                try {
+                    value = field.field.get(bean);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (value == null) {
+                    continue;
+                }
+                writer.writeRaw(first ? field.name : field.separatedName);
+                first = false;
+                field.write(writer, value);
+            }
+            writer.writeByte('}');
+        }
+
+    }
+
+    private static final class FieldWriter {
+
+        private final Field field;
+
+        /**
+         * "字段名":
+         */
+        private final byte[] name;
+
+        /**
+         * ,"字段名":
+         */
+        private final byte[] separatedName;
+
+        /**
+         * String、包装类型等不可能有子类的字段预先解析，否则按运行时类型查找
+         */
+        private final ValueWriter<Object> writer;
+
+        @SuppressWarnings("unchecked")
+        FieldWriter(Field field) {
+            this.field = field;
+            JsonWriter encoded = new JsonWriter(field.getName().length() + 8);
+            encoded.writeString(field.getName()).writeByte(':');
+            this.name = encoded.toByteArray();
+            this.separatedName = new byte[name.length + 1];
+            this.separatedName[0] = ',';
+            System.arraycopy(name, 0, separatedName, 1, name.length);
+
+            Class<?> type = boxed(field.getType());
+            this.writer = Modifier.isFinal(type.getModifiers()) && type.getName().startsWith("java.lang.") ? (ValueWriter<Object>) writerFor(type) : null;
+        }
+
+        void write(JsonWriter out, Object value) {
+            if (writer != null) {
+                writer.write(out, value);
+            } else {
+                JsonEncoder.write(out, value);
+            }
+        }
+
+        private static Class<?> boxed(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return type;
+            }
+            if (type == long.class) {
+                return Long.class;
+            }
+            if (type == int.class) {
+                return Integer.class;
+            }
+            if (type == boolean.class) {
+                return Boolean.class;
+            }
+            if (type == double.class) {
+                return Double.class;
+            }
+            if (type == float.class) {
+                return Float.class;
+            }
+            if (type == short.class) {
+                return Short.class;
+            }
+            if (type == byte.class) {
+                return Byte.class;
+            }
+            return Character.class;
+        }
+
+    }
+
+}
@@ -0,0 +1,554 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 流式 json 读取器
+ * 直接从 UTF-8 字节流中按需解析，不会把整个响应体读成字符串
+ * 非线程安全
+ */
+public final class JsonReader implements TokenReader {
+
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_TRUE = 5;
+    private static final int PEEKED_FALSE = 6;
+    private static final int PEEKED_NULL = 7;
+    private static final int PEEKED_STRING = 8;
+    private static final int PEEKED_NAME = 9;
+    private static final int PEEKED_NUMBER = 10;
+    private static final int PEEKED_EOF = 11;
+
+    private static final int SCOPE_EMPTY_ARRAY = 1;
+    private static final int SCOPE_NONEMPTY_ARRAY = 2;
+    private static final int SCOPE_EMPTY_OBJECT = 3;
+    private static final int SCOPE_DANGLING_NAME = 4;
+    private static final int SCOPE_NONEMPTY_OBJECT = 5;
+    private static final int SCOPE_EMPTY_DOCUMENT = 6;
+    private static final int SCOPE_NONEMPTY_DOCUMENT = 7;
+
+    private final InputStream in;
+
+    private final byte[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    private int peeked = PEEKED_NONE;
+
+    private int[] stack = new int[32];
+
+    private int stackSize;
+
+    /**
+     * 字符串与数字的解码缓冲区
+     */
+    private char[] chars = new char[64];
+
+    private int charCount;
+
+
+    public JsonReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    public JsonReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.stack[stackSize++] = SCOPE_EMPTY_DOCUMENT;
+    }
+
+    public JsonToken peek() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        switch (p) {
+            case PEEKED_BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case PEEKED_NAME:
+                return JsonToken.NAME;
+            case PEEKED_STRING:
+                return JsonToken.STRING;
+            case PEEKED_NUMBER:
+                return JsonToken.NUMBER;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return JsonToken.BOOLEAN;
+            case PEEKED_NULL:
+                return JsonToken.NULL;
+            default:
+                return JsonToken.END_DOCUMENT;
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect(PEEKED_BEGIN_OBJECT, "{");
+        push(SCOPE_EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(PEEKED_END_OBJECT, "}");
+        stackSize--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(PEEKED_BEGIN_ARRAY, "[");
+        push(SCOPE_EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(PEEKED_END_ARRAY, "]");
+        stackSize--;
+    }
+
+    /**
+     * 当前对象或数组中是否还有元素
+     */
+    public boolean hasNext() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+    }
+
+    public String nextName() throws IOException {
+        expect(PEEKED_NAME, "字段名");
+        return readString();
+    }
+
+    /**
+     * 读取字符串，数字会以原始文本返回
+     */
+    public String nextString() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        peeked = PEEKED_NONE;
+        if (p == PEEKED_STRING) {
+            return readString();
+        }
+        if (p == PEEKED_NUMBER) {
+            readNumber();
+            return new String(chars, 0, charCount);
+        }
+        if (p == PEEKED_TRUE || p == PEEKED_FALSE) {
+            return p == PEEKED_TRUE ? "true" : "false";
+        }
+        throw syntaxError("期望字符串");
+    }
+
+    /**
+     * 读取整数，字符串形式的数字同样可以读取
+     */
+    public long nextLong() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        peeked = PEEKED_NONE;
+        if (p == PEEKED_NUMBER) {
+            readNumber();
+        } else if (p == PEEKED_STRING) {
+            readString();
+        } else {
+            throw syntaxError("期望数字");
+        }
+        return parseLong();
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw syntaxError(String.format("数字[%s]超出 int 范围", value));
+        }
+        return (int) value;
+    }
+
+    public double nextDouble() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        peeked = PEEKED_NONE;
+        if (p == PEEKED_NUMBER) {
+            readNumber();
+        } else if (p == PEEKED_STRING) {
+            readString();
+        } else {
+            throw syntaxError("期望数字");
+        }
+        try {
+            return Double.parseDouble(new String(chars, 0, charCount));
+        } catch (NumberFormatException e) {
+            throw syntaxError("非法的数字");
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        peeked = PEEKED_NONE;
+        if (p == PEEKED_TRUE) {
+            return true;
+        }
+        if (p == PEEKED_FALSE) {
+            return false;
+        }
+        if (p == PEEKED_STRING) {
+            return "true".equals(readString());
+        }
+        throw syntaxError("期望布尔值");
+    }
+
+    public void nextNull() throws IOException {
+        expect(PEEKED_NULL, "null");
+    }
+
+    /**
+     * 跳过当前值，包括嵌套的对象与数组
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+            peeked = PEEKED_NONE;
+            switch (p) {
+                case PEEKED_BEGIN_OBJECT:
+                    push(SCOPE_EMPTY_OBJECT);
+                    depth++;
+                    break;
+                case PEEKED_BEGIN_ARRAY:
+                    push(SCOPE_EMPTY_ARRAY);
+                    depth++;
+                    break;
+                case PEEKED_END_OBJECT:
+                case PEEKED_END_ARRAY:
+                    stackSize--;
+                    depth--;
+                    break;
+                case PEEKED_NAME:
+                case PEEKED_STRING:
+                    skipString();
+                    break;
+                case PEEKED_NUMBER:
+                    readNumber();
+                    break;
+                case PEEKED_EOF:
+                    throw syntaxError("json 不完整");
+                default:
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(int expected, String description) throws IOException {
+        int p = peeked == PEEKED_NONE ? doPeek() : peeked;
+        if (p != expected) {
+            throw syntaxError("期望 " + description);
+        }
+        peeked = PEEKED_NONE;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private int doPeek() throws IOException {
+        int scope = stack[stackSize - 1];
+        int c;
+        switch (scope) {
+            case SCOPE_EMPTY_ARRAY:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_ARRAY;
+                break;
+            case SCOPE_NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = PEEKED_END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("数组元素之间缺少 ,");
+                }
+                break;
+            case SCOPE_EMPTY_OBJECT:
+            case SCOPE_NONEMPTY_OBJECT:
+                stack[stackSize - 1] = SCOPE_DANGLING_NAME;
+                if (scope == SCOPE_NONEMPTY_OBJECT) {
+                    c = nextNonWhitespace();
+                    if (c == '}') {
+                        return peeked = PEEKED_END_OBJECT;
+                    }
+                    if (c != ',') {
+                        throw syntaxError("对象字段之间缺少 ,");
+                    }
+                }
+                c = nextNonWhitespace();
+                if (c == '"') {
+                    return peeked = PEEKED_NAME;
+                }
+                if (c == '}' && scope == SCOPE_EMPTY_OBJECT) {
+                    return peeked = PEEKED_END_OBJECT;
+                }
+                throw syntaxError("期望字段名");
+            case SCOPE_DANGLING_NAME:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("字段名之后缺少 :");
+                }
+                break;
+            case SCOPE_EMPTY_DOCUMENT:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if (nextNonWhitespaceOrEof() == -1) {
+                    return peeked = PEEKED_EOF;
+                }
+                throw syntaxError("json 结束后存在多余内容");
+        }
+
+        c = nextNonWhitespace();
+        switch (c) {
+            case ']':
+                if (scope == SCOPE_EMPTY_ARRAY) {
+                    return peeked = PEEKED_END_ARRAY;
+                }
+                throw syntaxError("非法的 ]");
+            case '{':
+                return peeked = PEEKED_BEGIN_OBJECT;
+            case '[':
+                return peeked = PEEKED_BEGIN_ARRAY;
+            case '"':
+                return peeked = PEEKED_STRING;
+            case 't':
+                expectLiteral("rue");
+                return peeked = PEEKED_TRUE;
+            case 'f':
+                expectLiteral("alse");
+                return peeked = PEEKED_FALSE;
+            case 'n':
+                expectLiteral("ull");
+                return peeked = PEEKED_NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;  //数字的第一个字符留给 readNumber
+                    return peeked = PEEKED_NUMBER;
+                }
+                throw syntaxError(String.format("非法的字符[%s]", (char) c));
+        }
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (nextByte() != rest.charAt(i)) {
+                throw syntaxError("非法的字面量");
+            }
+        }
+    }
+
+    /**
+     * 读取字符串内容，调用前已经读过开头的引号
+     */
+    private String readString() throws IOException {
+        charCount = 0;
+        while (true) {
+            // 快速路径：缓冲区内的 ASCII 字符直接复制
+            int p = pos;
+            int l = limit;
+            while (p < l) {
+                byte b = buffer[p];
+                if (b == '"' || b == '\\' || b < 0x20) {
+                    break;
+                }
+                if (charCount == chars.length) {
+                    chars = Arrays.copyOf(chars, chars.length * 2);
+                }
+                chars[charCount++] = (char) b;
+                p++;
+            }
+            pos = p;
+
+            int b = nextByte();
+            if (b == '"') {
+                return new String(chars, 0, charCount);
+            }
+            if (b == '\\') {
+                appendChar(readEscape());
+            } else if (b < 0x20) {
+                throw syntaxError("字符串中存在未转义的控制字符");
+            } else if (b < 0x80) {
+                appendChar((char) b);   //缓冲区重新填充后的第一个字符
+            } else {
+                readUtf8(b);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int b = nextByte();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                nextByte();
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = nextByte();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(nextByte(), 16);
+                    if (h == -1) {
+                        throw syntaxError("非法的 unicode 转义");
+                    }
+                    value = (value << 4) | h;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("非法的转义字符");
+        }
+    }
+
+    private void readUtf8(int b0) throws IOException {
+        if ((b0 & 0xE0) == 0xC0) {
+            appendChar((char) (((b0 & 0x1F) << 6) | continuation()));
+        } else if ((b0 & 0xF0) == 0xE0) {
+            appendChar((char) (((b0 & 0x0F) << 12) | (continuation() << 6) | continuation()));
+        } else if ((b0 & 0xF8) == 0xF0) {
+            int codePoint = ((b0 & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+            appendChar(Character.highSurrogate(codePoint));
+            appendChar(Character.lowSurrogate(codePoint));
+        } else {
+            throw syntaxError("非法的 UTF-8 字节");
+        }
+    }
+
+    private int continuation() throws IOException {
+        int b = nextByte();
+        if ((b & 0xC0) != 0x80) {
+            throw syntaxError("非法的 UTF-8 字节");
+        }
+        return b & 0x3F;
+    }
+
+    private void appendChar(char c) {
+        if (charCount == chars.length) {
+            chars = Arrays.copyOf(chars, chars.length * 2);
+        }
+        chars[charCount++] = c;
+    }
+
+    /**
+     * 读取数字文本到 chars
+     */
+    private void readNumber() throws IOException {
+        charCount = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                return;
+            }
+            int c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                appendChar((char) c);
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private long parseLong() throws IOException {
+        if (charCount == 0) {
+            throw syntaxError("期望数字");
+        }
+        boolean negative = chars[0] == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < charCount; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                //小数或科学计数法
+                try {
+                    return (long) Double.parseDouble(new String(chars, 0, charCount));
+                } catch (NumberFormatException e) {
+                    throw syntaxError("非法的数字");
+                }
+            }
+            long next = value * 10 - (c - '0');
+            if (next > value) {
+                throw syntaxError("数字超出 long 范围");
+            }
+            value = next;
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            throw syntaxError("数字超出 long 范围");
+        }
+        return negative ? value : -value;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = nextNonWhitespaceOrEof();
+        if (c == -1) {
+            throw new EOFException("json 不完整");
+        }
+        return c;
+    }
+
+    private int nextNonWhitespaceOrEof() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            int c = buffer[pos++] & 0xFF;
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    private int nextByte() throws IOException {
+        if (pos == limit && !fill()) {
+            throw new EOFException("json 不完整");
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new JsonSyntaxException(message);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+
+/**
+ * json 格式错误，MessagePack 等二进制格式的数据错误同样使用该异常
+ */
+public class JsonSyntaxException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JsonSyntaxException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.eu.im.sdk.common.codec;
+
+/**
+ * json 词法单元
+ */
+public enum JsonToken {
+
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT
+
+}
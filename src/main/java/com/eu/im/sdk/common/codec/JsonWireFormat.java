@@ -0,0 +1,41 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.InputStream;
+
+/**
+ * json 格式
+ * HttpUtil 编码 json 请求体时使用可替换的 JsonCodec，这里的 encode 供直接使用该格式的调用者
+ */
+public final class JsonWireFormat implements WireFormat {
+
+    public static final String CONTENT_TYPE = "application/json;charset=utf-8";
+
+    JsonWireFormat() {
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean accepts(String contentType) {
+        return contentType == null || contentType.toLowerCase().contains("json");
+    }
+
+    @Override
+    public void encode(Object value, JsonWriter writer) {
+        JsonEncoder.write(writer, value);
+    }
+
+    @Override
+    public TokenReader newReader(InputStream in) {
+        return new JsonReader(in);
+    }
+
+    @Override
+    public String toString() {
+        return "json";
+    }
+
+}
@@ -0,0 +1,341 @@
+package com.eu.im.sdk.common.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * json 字节写入器
+ * 直接将 UTF-8 编码写入可扩容的字节数组，不经过 String 与 char[] 中转
+ * 只负责字面量的编码，逗号、冒号等结构字符由 ValueWriter 自行写入
+ * MessagePackEncoder 同样以它作为请求体的字节缓冲区
+ * <p>
+ * 非线程安全，通过 obtain() 获取的实例属于当前线程，用完后调用 recycle() 归还
+ */
+public final class JsonWriter {
+
+    /**
+     * 超过该大小的缓冲区不再缓存，避免一次大请求让线程长期占用大块内存
+     */
+    private static final int MAX_CACHED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<JsonWriter> CACHE = new ThreadLocal<>();
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+
+    private int size;
+
+    /**
+     * 是否已被 obtain() 取出
+     */
+    private boolean inUse;
+
+
+    public JsonWriter() {
+        this(256);
+    }
+
+    public JsonWriter(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive.");
+        }
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * 获取当前线程缓存的写入器
+     * 嵌套调用时（缓存实例尚未归还）返回新的实例
+     *
+     * @return
+     */
+    public static JsonWriter obtain() {
+        JsonWriter writer = CACHE.get();
+        if (writer == null || writer.inUse) {
+            writer = new JsonWriter();
+            if (CACHE.get() == null) {
+                CACHE.set(writer);
+            }
+        }
+        writer.inUse = true;
+        writer.size = 0;
+        return writer;
+    }
+
+    /**
+     * 归还到当前线程的缓存，归还之后不能再读取 buffer()
+     */
+    public void recycle() {
+        if (this != CACHE.get()) {
+            return;
+        }
+        if (buffer.length > MAX_CACHED_CAPACITY) {
+            CACHE.remove();
+            return;
+        }
+        inUse = false;
+        size = 0;
+    }
+
+    /**
+     * 底层缓冲区，有效内容为 [0, size())
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入单个结构字符，如 { } [ ] , :
+     */
+    public JsonWriter writeByte(char c) {
+        ensure(1);
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * 原样写入已编码的字节
+     */
+    public JsonWriter writeRaw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    /**
+     * 原样写入 bytes 中 [offset, offset + length) 的字节
+     */
+    public JsonWriter writeRaw(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+        return this;
+    }
+
+    public JsonWriter writeNull() {
+        return writeRaw(NULL);
+    }
+
+    public JsonWriter writeBoolean(boolean value) {
+        return writeRaw(value ? TRUE : FALSE);
+    }
+
+    public JsonWriter writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return writeRaw(MIN_LONG);
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = size + digits;
+        for (int i = end - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        size = end;
+        return this;
+    }
+
+    /**
+     * 写入小数，NaN 与无穷大写为 null
+     */
+    public JsonWriter writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return writeNull();
+        }
+        return writeAscii(Double.toString(value));
+    }
+
+    /**
+     * 写入数字的文本形式，如 BigDecimal.toString()
+     */
+    public JsonWriter writeAscii(String text) {
+        int length = text.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * 写入带引号并转义的字符串
+     */
+    public JsonWriter writeString(CharSequence value) {
+        int length = value.length();
+        // 每个 char 最多编码为 3 个字节，转义字符另行扩容
+        ensure(length * 3 + 2);
+        byte[] buf = buffer;
+        int pos = size;
+        buf[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buf[pos++] = (byte) c;
+                    continue;
+                }
+                size = pos;
+                ensure(6 + (length - i) * 3 + 1);
+                buf = buffer;
+                pos = writeEscape(buf, pos, c);
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';   //不成对的代理字符无法编码为 UTF-8
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buf[pos++] = '"';
+        size = pos;
+        return this;
+    }
+
+    /**
+     * 写入类型字节与 length 个字节的大端整数，用于 MessagePack 等二进制格式
+     */
+    void writeHeader(int type, long value, int length) {
+        ensure(1 + length);
+        buffer[size++] = (byte) type;
+        for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * 写入不带引号、不转义的 UTF-8 字节，长度与 utf8Length 一致
+     */
+    void writeUtf8(CharSequence value) {
+        int length = value.length();
+        ensure(length * 3);
+        byte[] buf = buffer;
+        int pos = size;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        size = pos;
+    }
+
+    /**
+     * 字符串的 UTF-8 编码长度，不成对的代理字符按 writeUtf8 的方式计为 1 个字节
+     */
+    static int utf8Length(CharSequence value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    private static int writeEscape(byte[] buf, int pos, char c) {
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                buf[pos++] = (byte) c;
+                break;
+            case '\n':
+                buf[pos++] = 'n';
+                break;
+            case '\r':
+                buf[pos++] = 'r';
+                break;
+            case '\t':
+                buf[pos++] = 't';
+                break;
+            case '\b':
+                buf[pos++] = 'b';
+                break;
+            case '\f':
+                buf[pos++] = 'f';
+                break;
+            default:
+                buf[pos++] = 'u';
+                buf[pos++] = '0';
+                buf[pos++] = '0';
+                buf[pos++] = HEX[c >> 4];
+                buf[pos++] = HEX[c & 0xF];
+        }
+        return pos;
+    }
+
+    private void ensure(int extra) {
+        int required = size + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,292 @@
+package com.eu.im.sdk.common.codec;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对象到 MessagePack 的编码
+ * 与 JsonEncoder 的数据模型一致：对象与 Map 编码为 map，值为 null 的字段不输出，字段名预先编码；
+ * 整数按大小选择最短的编码，long[] 不经过装箱
+ */
+public final class MessagePackEncoder {
+
+    private static final Map<Class<?>, ValueWriter<?>> WRITERS = new ConcurrentHashMap<>();
+
+    private static final int NIL = 0xc0;
+
+    private static final int FALSE = 0xc2;
+
+    private static final int TRUE = 0xc3;
+
+    private MessagePackEncoder() {
+    }
+
+    /**
+     * 写入一个值，null 写为 nil
+     *
+     * @param writer
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.writeHeader(NIL, 0, 0);
+            return;
+        }
+        ((ValueWriter<Object>) writerFor(value.getClass())).write(writer, value);
+    }
+
+    /**
+     * 获取类型对应的写入方式
+     *
+     * @param type
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValueWriter<T> writerFor(Class<T> type) {
+        ValueWriter<?> cached = WRITERS.get(type);
+        if (cached != null) {
+            return (ValueWriter<T>) cached;
+        }
+        ValueWriter<?> created = create(type);
+        ValueWriter<?> previous = WRITERS.putIfAbsent(type, created);
+        return (ValueWriter<T>) (previous != null ? previous : created);
+    }
+
+    public static void writeLong(JsonWriter writer, long value) {
+        if (value >= 0) {
+            if (value < 0x80) {
+                writer.writeHeader((int) value, 0, 0);
+            } else if (value < 0x100) {
+                writer.writeHeader(0xcc, value, 1);
+            } else if (value < 0x10000) {
+                writer.writeHeader(0xcd, value, 2);
+            } else if (value < 0x100000000L) {
+                writer.writeHeader(0xce, value, 4);
+            } else {
+                writer.writeHeader(0xcf, value, 8);
+            }
+        } else if (value >= -32) {
+            writer.writeHeader((int) value & 0xff, 0, 0);
+        } else if (value >= Byte.MIN_VALUE) {
+            writer.writeHeader(0xd0, value, 1);
+        } else if (value >= Short.MIN_VALUE) {
+            writer.writeHeader(0xd1, value, 2);
+        } else if (value >= Integer.MIN_VALUE) {
+            writer.writeHeader(0xd2, value, 4);
+        } else {
+            writer.writeHeader(0xd3, value, 8);
+        }
+    }
+
+    public static void writeString(JsonWriter writer, CharSequence value) {
+        int length = JsonWriter.utf8Length(value);
+        if (length < 32) {
+            writer.writeHeader(0xa0 | length, 0, 0);
+        } else if (length < 0x100) {
+            writer.writeHeader(0xd9, length, 1);
+        } else if (length < 0x10000) {
+            writer.writeHeader(0xda, length, 2);
+        } else {
+            writer.writeHeader(0xdb, length, 4);
+        }
+        writer.writeUtf8(value);
+    }
+
+    public static void writeArrayHeader(JsonWriter writer, int size) {
+        writeContainerHeader(writer, 0x90, 0xdc, 0xdd, size, size);
+    }
+
+    public static void writeMapHeader(JsonWriter writer, int size) {
+        writeContainerHeader(writer, 0x80, 0xde, 0xdf, size, size);
+    }
+
+    private static ValueWriter<?> create(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (ValueWriter<CharSequence>) MessagePackEncoder::writeString;
+        }
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class) {
+            return (ValueWriter<Number>) (writer, value) -> writeLong(writer, value.longValue());
+        }
+        if (type == Double.class) {
+            return (ValueWriter<Double>) (writer, value) -> writer.writeHeader(0xcb, Double.doubleToLongBits(value), 8);
+        }
+        if (type == Float.class) {
+            return (ValueWriter<Float>) (writer, value) -> writer.writeHeader(0xca, Float.floatToIntBits(value), 4);
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            //BigDecimal 等没有对应的类型，与 json 一样以文本表示，读取时按数字解析
+            return (writer, value) -> writeString(writer, value.toString());
+        }
+        if (type == Boolean.class) {
+            return (ValueWriter<Boolean>) (writer, value) -> writer.writeHeader(value ? TRUE : FALSE, 0, 0);
+        }
+        if (type == Character.class || Enum.class.isAssignableFrom(type)) {
+            return (writer, value) -> writeString(writer, value.toString());
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return (ValueWriter<Date>) (writer, value) -> writeLong(writer, value.getTime());
+        }
+        if (type == long[].class) {
+            return (ValueWriter<long[]>) MessagePackEncoder::writeLongArray;
+        }
+        if (type.isArray()) {
+            return MessagePackEncoder::writeArray;
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return (ValueWriter<Iterable<?>>) MessagePackEncoder::writeIterable;
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return (ValueWriter<Map<?, ?>>) MessagePackEncoder::writeMap;
+        }
+        return new BeanWriter(type);
+    }
+
+    private static void writeLongArray(JsonWriter writer, long[] values) {
+        writeArrayHeader(writer, values.length);
+        for (long value : values) {
+            writeLong(writer, value);
+        }
+    }
+
+    private static void writeArray(JsonWriter writer, Object array) {
+        int length = Array.getLength(array);
+        writeArrayHeader(writer, length);
+        for (int i = 0; i < length; i++) {
+            write(writer, Array.get(array, i));
+        }
+    }
+
+    private static void writeIterable(JsonWriter writer, Iterable<?> values) {
+        //元素个数未知时按最大宽度预留头部，写完之后回填
+        int capacity = values instanceof Collection ? ((Collection<?>) values).size() : Integer.MAX_VALUE;
+        int header = writer.size();
+        writeContainerHeader(writer, 0x90, 0xdc, 0xdd, capacity, 0);
+        int count = 0;
+        for (Object value : values) {
+            write(writer, value);
+            count++;
+        }
+        patchHeader(writer, header, 0x90, capacity, count);
+    }
+
+    private static void writeMap(JsonWriter writer, Map<?, ?> map) {
+        int header = writer.size();
+        writeContainerHeader(writer, 0x80, 0xde, 0xdf, map.size(), 0);
+        int count = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            writeString(writer, String.valueOf(entry.getKey()));
+            write(writer, entry.getValue());
+            count++;
+        }
+        patchHeader(writer, header, 0x80, map.size(), count);
+    }
+
+    /**
+     * 按 capacity 选择头部宽度，写入 size
+     */
+    private static void writeContainerHeader(JsonWriter writer, int fix, int type16, int type32, int capacity, int size) {
+        if (capacity < 16) {
+            writer.writeHeader(fix | size, 0, 0);
+        } else if (capacity < 0x10000) {
+            writer.writeHeader(type16, size, 2);
+        } else {
+            writer.writeHeader(type32, size, 4);
+        }
+    }
+
+    /**
+     * 回填 writeContainerHeader 按 capacity 预留的头部
+     */
+    private static void patchHeader(JsonWriter writer, int header, int fix, int capacity, int size) {
+        byte[] buffer = writer.buffer();
+        if (capacity < 16) {
+            buffer[header] = (byte) (fix | size);
+            return;
+        }
+        int length = capacity < 0x10000 ? 2 : 4;
+        for (int i = 0; i < length; i++) {
+            buffer[header + length - i] = (byte) (size >>> (i * 8));
+        }
+    }
+
+    /**
+     * 普通对象的写入方式
+     * 字段访问器与字段名的编码在构造时一次性解析
+     */
+    private static final class BeanWriter implements ValueWriter<Object> {
+
+        private final FieldWriter[] fields;
+
+        BeanWriter(Class<?> type) {
+            List<FieldWriter> list = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || !names.add(field.getName())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    list.add(new FieldWriter(field));
+                }
+            }
+            this.fields = list.toArray(new FieldWriter[0]);
+        }
+
+        @Override
+        public void write(JsonWriter writer, Object bean) {
+            int header = writer.size();
+            writeContainerHeader(writer, 0x80, 0xde, 0xdf, fields.length, 0);
+            int count = 0;
+            for (FieldWriter field : fields) {
+                Object value;
+                try {
+                    value = field.field.get(bean);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (value == null) {
+                    continue;
+                }
+                writer.writeRaw(field.name);
+                MessagePackEncoder.write(writer, value);
+                count++;
+            }
+            patchHeader(writer, header, 0x80, fields.length, count);
+        }
+
+    }
+
+    private static final class FieldWriter {
+
+        private final Field field;
+
+        /**
+         * 编码后的字段名
+         */
+        private final byte[] name;
+
+        FieldWriter(Field field) {
+            this.field = field;
+            JsonWriter encoded = new JsonWriter(field.getName().length() * 3 + 5);
+            writeString(encoded, field.getName());
+            this.name = encoded.toByteArray();
+        }
+
+    }
+
+}
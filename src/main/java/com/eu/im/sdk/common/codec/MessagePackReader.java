@@ -0,0 +1,541 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 流式 MessagePack 读取器
+ * 按与 json 相同的词法单元读取：map 为对象，其中偶数位置的元素为字段名，array 为数组，bin 按 UTF-8 字符串读取，ext 类型不支持
+ * 非线程安全
+ */
+public final class MessagePackReader implements TokenReader {
+
+    private static final int SCOPE_DOCUMENT = 0;
+    private static final int SCOPE_ARRAY = 1;
+    private static final int SCOPE_OBJECT = 2;
+
+    private static final int TYPE_NONE = -1;
+
+    /**
+     * 字符串的最大字节数，数组长度的上限
+     */
+    private static final int MAX_STRING_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * 超过缓冲区的长字符串从这个大小开始按实际读到的数据扩容，不按声明的长度一次分配
+     */
+    private static final int INITIAL_STRING_CAPACITY = 64 * 1024;
+
+    private final InputStream in;
+
+    private final byte[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    private int[] scopes = new int[32];
+
+    /**
+     * 每层对象或数组中还未读取的元素数，对象的字段名与值各计一个
+     */
+    private long[] remaining = new long[32];
+
+    private int depth;
+
+    /**
+     * 已经读取但还未消费的类型字节
+     */
+    private int type = TYPE_NONE;
+
+
+    public MessagePackReader(InputStream in) {
+        this(in, 8192);
+    }
+
+    public MessagePackReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.scopes[0] = SCOPE_DOCUMENT;
+        this.remaining[0] = 1;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (remaining[depth] == 0) {
+            switch (scopes[depth]) {
+                case SCOPE_OBJECT:
+                    return JsonToken.END_OBJECT;
+                case SCOPE_ARRAY:
+                    return JsonToken.END_ARRAY;
+                default:
+                    return JsonToken.END_DOCUMENT;
+            }
+        }
+        if (type == TYPE_NONE) {
+            if (pos == limit && !fill()) {
+                if (depth == 0) {
+                    return JsonToken.END_DOCUMENT;
+                }
+                throw new EOFException("MessagePack 数据不完整");
+            }
+            type = buffer[pos++] & 0xff;
+        }
+        if (isName()) {
+            return JsonToken.NAME;
+        }
+        int t = type;
+        if (isInteger(t) || t == 0xca || t == 0xcb) {
+            return JsonToken.NUMBER;
+        }
+        if (isString(t)) {
+            return JsonToken.STRING;
+        }
+        if ((t & 0xf0) == 0x80 || t == 0xde || t == 0xdf) {
+            return JsonToken.BEGIN_OBJECT;
+        }
+        if ((t & 0xf0) == 0x90 || t == 0xdc || t == 0xdd) {
+            return JsonToken.BEGIN_ARRAY;
+        }
+        if (t == 0xc0) {
+            return JsonToken.NULL;
+        }
+        if (t == 0xc2 || t == 0xc3) {
+            return JsonToken.BOOLEAN;
+        }
+        throw syntaxError(String.format("不支持的 MessagePack 类型 0x%02x", t));
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        int t = take();
+        long size;
+        if ((t & 0xf0) == 0x80) {
+            size = t & 0x0f;
+        } else if (t == 0xde) {
+            size = readUnsigned(2);
+        } else if (t == 0xdf) {
+            size = readUnsigned(4);
+        } else {
+            throw syntaxError("期望对象");
+        }
+        push(SCOPE_OBJECT, size * 2);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        pop(SCOPE_OBJECT, "期望对象结束");
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        int t = take();
+        long size;
+        if ((t & 0xf0) == 0x90) {
+            size = t & 0x0f;
+        } else if (t == 0xdc) {
+            size = readUnsigned(2);
+        } else if (t == 0xdd) {
+            size = readUnsigned(4);
+        } else {
+            throw syntaxError("期望数组");
+        }
+        push(SCOPE_ARRAY, size);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        pop(SCOPE_ARRAY, "期望数组结束");
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining[depth] > 0 && scopes[depth] != SCOPE_DOCUMENT;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        if (!isName()) {
+            throw syntaxError("期望字段名");
+        }
+        int t = take();
+        if (isString(t)) {
+            return readString(t);
+        }
+        if (isInteger(t)) {
+            return Long.toString(readInteger(t));
+        }
+        throw syntaxError("期望字段名");
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        int t = take();
+        if (isString(t)) {
+            return readString(t);
+        }
+        if (isInteger(t)) {
+            return Long.toString(readInteger(t));
+        }
+        if (t == 0xca || t == 0xcb) {
+            return Double.toString(readFloat(t));
+        }
+        if (t == 0xc2 || t == 0xc3) {
+            return t == 0xc3 ? "true" : "false";
+        }
+        throw syntaxError("期望字符串");
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        int t = take();
+        if (isInteger(t)) {
+            return readInteger(t);
+        }
+        if (t == 0xca || t == 0xcb) {
+            double value = readFloat(t);
+            if ((long) value != value) {
+                throw syntaxError(String.format("数字[%s]不是整数", value));
+            }
+            return (long) value;
+        }
+        if (isString(t)) {
+            String text = readString(t);
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw syntaxError("非法的数字");
+            }
+        }
+        throw syntaxError("期望数字");
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw syntaxError(String.format("数字[%s]超出 int 范围", value));
+        }
+        return (int) value;
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        int t = take();
+        if (isInteger(t)) {
+            return readInteger(t);
+        }
+        if (t == 0xca || t == 0xcb) {
+            return readFloat(t);
+        }
+        if (isString(t)) {
+            try {
+                return Double.parseDouble(readString(t));
+            } catch (NumberFormatException e) {
+                throw syntaxError("非法的数字");
+            }
+        }
+        throw syntaxError("期望数字");
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        int t = take();
+        if (t == 0xc3) {
+            return true;
+        }
+        if (t == 0xc2) {
+            return false;
+        }
+        if (isString(t)) {
+            return "true".equals(readString(t));
+        }
+        throw syntaxError("期望布尔值");
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        if (take() != 0xc0) {
+            throw syntaxError("期望 nil");
+        }
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        long pending = 1;
+        int t = take();
+        for (; ; ) {
+            pending += skip(t) - 1;
+            if (pending == 0) {
+                return;
+            }
+            t = readByte();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * 当前位置是否为对象的字段名
+     */
+    private boolean isName() {
+        return scopes[depth] == SCOPE_OBJECT && (remaining[depth] & 1) == 0;
+    }
+
+    /**
+     * 消费当前值的类型字节
+     */
+    private int take() throws IOException {
+        if (remaining[depth] == 0) {
+            throw syntaxError("没有更多的元素");
+        }
+        int t = type;
+        if (t == TYPE_NONE) {
+            t = readByte();
+        }
+        type = TYPE_NONE;
+        remaining[depth]--;
+        return t;
+    }
+
+    private void push(int scope, long size) {
+        if (++depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+            remaining = Arrays.copyOf(remaining, depth * 2);
+        }
+        scopes[depth] = scope;
+        remaining[depth] = size;
+    }
+
+    private void pop(int scope, String message) throws IOException {
+        if (scopes[depth] != scope || remaining[depth] != 0) {
+            throw syntaxError(message);
+        }
+        depth--;
+    }
+
+    /**
+     * 跳过类型字节之后的内容
+     *
+     * @return 嵌套的元素个数
+     */
+    private long skip(int t) throws IOException {
+        if ((t & 0xf0) == 0x80) {
+            return (t & 0x0f) * 2L;
+        }
+        if ((t & 0xf0) == 0x90) {
+            return t & 0x0f;
+        }
+        if (isString(t)) {
+            skipBytes(stringLength(t));
+            return 0;
+        }
+        switch (t) {
+            case 0xde:
+                return readUnsigned(2) * 2;
+            case 0xdf:
+                return readUnsigned(4) * 2;
+            case 0xdc:
+                return readUnsigned(2);
+            case 0xdd:
+                return readUnsigned(4);
+            case 0xcc:
+            case 0xd0:
+                skipBytes(1);
+                return 0;
+            case 0xcd:
+            case 0xd1:
+                skipBytes(2);
+                return 0;
+            case 0xca:
+            case 0xce:
+            case 0xd2:
+                skipBytes(4);
+                return 0;
+            case 0xcb:
+            case 0xcf:
+            case 0xd3:
+                skipBytes(8);
+                return 0;
+            case 0xd4:
+            case 0xd5:
+            case 0xd6:
+            case 0xd7:
+            case 0xd8:
+                skipBytes(1 + (1 << (t - 0xd4)));
+                return 0;
+            case 0xc7:
+                skipBytes(1 + readUnsigned(1));
+                return 0;
+            case 0xc8:
+                skipBytes(1 + readUnsigned(2));
+                return 0;
+            case 0xc9:
+                skipBytes(1 + readUnsigned(4));
+                return 0;
+            case 0xc1:
+                throw syntaxError("非法的 MessagePack 类型 0xc1");
+            default:
+                //fixint、nil、布尔值没有后续内容
+                return 0;
+        }
+    }
+
+    private static boolean isInteger(int t) {
+        return t < 0x80 || t >= 0xe0 || (t >= 0xcc && t <= 0xd3);
+    }
+
+    private static boolean isString(int t) {
+        return (t & 0xe0) == 0xa0 || (t >= 0xd9 && t <= 0xdb) || (t >= 0xc4 && t <= 0xc6);
+    }
+
+    private long readInteger(int t) throws IOException {
+        if (t < 0x80) {
+            return t;
+        }
+        if (t >= 0xe0) {
+            return (byte) t;
+        }
+        switch (t) {
+            case 0xcc:
+                return readUnsigned(1);
+            case 0xcd:
+                return readUnsigned(2);
+            case 0xce:
+                return readUnsigned(4);
+            case 0xcf:
+                long value = readUnsigned(8);
+                if (value < 0) {
+                    throw syntaxError("数字超出 long 范围");
+                }
+                return value;
+            case 0xd0:
+                return (byte) readUnsigned(1);
+            case 0xd1:
+                return (short) readUnsigned(2);
+            case 0xd2:
+                return (int) readUnsigned(4);
+            default:
+                return readUnsigned(8);
+        }
+    }
+
+    private double readFloat(int t) throws IOException {
+        if (t == 0xca) {
+            return Float.intBitsToFloat((int) readUnsigned(4));
+        }
+        return Double.longBitsToDouble(readUnsigned(8));
+    }
+
+    private int stringLength(int t) throws IOException {
+        long length;
+        if ((t & 0xe0) == 0xa0) {
+            length = t & 0x1f;
+        } else if (t == 0xd9 || t == 0xc4) {
+            length = readUnsigned(1);
+        } else if (t == 0xda || t == 0xc5) {
+            length = readUnsigned(2);
+        } else {
+            length = readUnsigned(4);
+        }
+        if (length > MAX_STRING_LENGTH) {
+            throw syntaxError(String.format("字符串过长[%s]", length));
+        }
+        return (int) length;
+    }
+
+    private String readString(int t) throws IOException {
+        int length = stringLength(t);
+        if (length <= buffer.length) {
+            require(length);
+            String value = new String(buffer, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+        byte[] bytes = new byte[Math.max(limit - pos, Math.min(length, INITIAL_STRING_CAPACITY))];
+        int copied = limit - pos;
+        System.arraycopy(buffer, pos, bytes, 0, copied);
+        pos = limit;
+        while (copied < length) {
+            if (copied == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+            }
+            int n = in.read(bytes, copied, bytes.length - copied);
+            if (n == -1) {
+                throw new EOFException("MessagePack 数据不完整");
+            }
+            copied += n;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取 length 个字节的大端无符号整数，8 个字节时按位返回
+     */
+    private long readUnsigned(int length) throws IOException {
+        require(length);
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value << 8 | (buffer[pos++] & 0xff);
+        }
+        return value;
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit && !fill()) {
+            throw new EOFException("MessagePack 数据不完整");
+        }
+        return buffer[pos++] & 0xff;
+    }
+
+    private void skipBytes(long n) throws IOException {
+        while (n > 0) {
+            if (pos == limit && !fill()) {
+                throw new EOFException("MessagePack 数据不完整");
+            }
+            int skipped = (int) Math.min(n, limit - pos);
+            pos += skipped;
+            n -= skipped;
+        }
+    }
+
+    /**
+     * 保证缓冲区中至少有 n 个字节可读
+     */
+    private void require(int n) throws IOException {
+        if (limit - pos >= n) {
+            return;
+        }
+        System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < n) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                throw new EOFException("MessagePack 数据不完整");
+            }
+            limit += read;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new JsonSyntaxException(message);
+    }
+
+}
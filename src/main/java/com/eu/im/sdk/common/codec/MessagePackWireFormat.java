@@ -0,0 +1,46 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.InputStream;
+
+/**
+ * MessagePack 格式
+ * 数据模型与 json 一致，对象以字段名为键，服务端可以用任意 MessagePack 实现按原有的字段名读写；
+ * 数字与 UTF-8 字符串不需要文本转换与转义，消息列表的体积与编解码开销都明显小于 json
+ */
+public final class MessagePackWireFormat implements WireFormat {
+
+    public static final String CONTENT_TYPE = "application/x-msgpack";
+
+    MessagePackWireFormat() {
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public boolean accepts(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.trim().toLowerCase();
+        return type.startsWith(CONTENT_TYPE) || type.startsWith("application/msgpack") || type.startsWith("application/vnd.msgpack");
+    }
+
+    @Override
+    public void encode(Object value, JsonWriter writer) {
+        MessagePackEncoder.write(writer, value);
+    }
+
+    @Override
+    public TokenReader newReader(InputStream in) {
+        return new MessagePackReader(in);
+    }
+
+    @Override
+    public String toString() {
+        return "msgpack";
+    }
+
+}
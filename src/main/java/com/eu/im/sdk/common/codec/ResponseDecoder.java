@@ -0,0 +1,248 @@
+package com.eu.im.sdk.common.codec;
+
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.wrapper.GlobalResponseWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * 服务端统一响应（GlobalResponseWrapper 格式）的流式解码
+ * code 不为成功时抛出 GlobalException
+ * 响应体按 WireFormat 的格式标记读取，没有标记时按 json 读取
+ */
+public final class ResponseDecoder {
+
+    private ResponseDecoder() {
+    }
+
+    /**
+     * 解码响应并返回 data
+     *
+     * @param body
+     * @param dataReader
+     * @param <T>
+     * @return
+     * @throws IOException
+     */
+    public static <T> T decode(InputStream body, ValueReader<T> dataReader) throws IOException {
+        TokenReader reader = WireFormat.readerFor(body);
+        int code = GlobalExceptionCode.SUCCESS.getCode();
+        String msg = null;
+        T data = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "code":
+                    code = reader.nextInt();
+                    break;
+                case "msg":
+                    msg = readNullableString(reader);
+                    break;
+                case "data":
+                    data = dataReader.read(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        check(code, msg);
+        return data;
+    }
+
+    /**
+     * 解码没有返回数据的响应，只检查 code，data 被跳过
+     *
+     * @param body
+     * @throws IOException
+     */
+    public static void verify(InputStream body) throws IOException {
+        decode(body, reader -> {
+            reader.skipValue();
+            return null;
+        });
+    }
+
+    /**
+     * 解码为 GlobalResponseWrapper，data 为 Map / List 等通用类型
+     *
+     * @param body
+     * @return
+     * @throws IOException
+     */
+    public static GlobalResponseWrapper decodeWrapper(InputStream body) throws IOException {
+        TokenReader reader = WireFormat.readerFor(body);
+        GlobalResponseWrapper wrapper = new GlobalResponseWrapper();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "code":
+                    wrapper.setCode(reader.nextInt());
+                    break;
+                case "msg":
+                    wrapper.setMsg(readNullableString(reader));
+                    break;
+                case "data":
+                    wrapper.setData(JsonDecoder.readAny(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return wrapper;
+    }
+
+    /**
+     * 以迭代器的形式逐个解码 data 数组中的元素
+     * 元素在迭代时才从流中读取，迭代结束或出错时关闭 body
+     *
+     * @param body
+     * @param elementReader
+     * @param <T>
+     * @return
+     */
+    public static <T> CloseableIterator<T> iterate(InputStream body, ValueReader<T> elementReader) {
+        return new DataIterator<>(body, elementReader);
+    }
+
+    private static String readNullableString(TokenReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static void check(int code, String msg) {
+        if (code != GlobalExceptionCode.SUCCESS.getCode()) {
+            throw new GlobalException(code, msg);
+        }
+    }
+
+    private static final class DataIterator<T> implements CloseableIterator<T> {
+
+        private final InputStream body;
+
+        private final TokenReader reader;
+
+        private final ValueReader<T> elementReader;
+
+        private int code = GlobalExceptionCode.SUCCESS.getCode();
+
+        private String msg;
+
+        /**
+         * 是否位于 data 数组中
+         */
+        private boolean inArray;
+
+        private boolean closed;
+
+        DataIterator(InputStream body, ValueReader<T> elementReader) {
+            this.body = body;
+            this.reader = WireFormat.readerFor(body);
+            this.elementReader = elementReader;
+            try {
+                reader.beginObject();
+                seekData();
+                check(code, msg);
+            } catch (IOException e) {
+                close();
+                throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), e.getMessage());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!inArray) {
+                return false;
+            }
+            try {
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+                inArray = false;
+                //data 之后可能还有 code 等字段
+                seekData();
+                check(code, msg);
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), e.getMessage());
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            } finally {
+                if (!inArray) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return elementReader.read(reader);
+            } catch (IOException e) {
+                close();
+                throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            inArray = false;
+            try {
+                body.close();
+            } catch (IOException ignore) {  //关闭失败时无需处理
+            }
+        }
+
+        /**
+         * 读取字段直到进入 data 数组，或对象结束
+         */
+        private void seekData() throws IOException {
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "code":
+                        code = reader.nextInt();
+                        break;
+                    case "msg":
+                        msg = readNullableString(reader);
+                        break;
+                    case "data":
+                        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                            reader.beginArray();
+                            inArray = true;
+                            return;
+                        }
+                        reader.skipValue();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+    }
+
+}
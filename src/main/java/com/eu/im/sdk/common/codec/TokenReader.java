@@ -0,0 +1,53 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 结构化数据的流式读取
+ * json 与 MessagePack 等格式都按 JsonToken 的词法单元读取，JsonDecoder 与 ResponseDecoder 因此不依赖具体的编码格式
+ * 非线程安全
+ */
+public interface TokenReader extends Closeable {
+
+    JsonToken peek() throws IOException;
+
+    void beginObject() throws IOException;
+
+    void endObject() throws IOException;
+
+    void beginArray() throws IOException;
+
+    void endArray() throws IOException;
+
+    /**
+     * 当前对象或数组中是否还有元素
+     */
+    boolean hasNext() throws IOException;
+
+    String nextName() throws IOException;
+
+    /**
+     * 读取字符串，数字与布尔值以文本形式返回
+     */
+    String nextString() throws IOException;
+
+    /**
+     * 读取整数，字符串形式的数字同样可以读取
+     */
+    long nextLong() throws IOException;
+
+    int nextInt() throws IOException;
+
+    double nextDouble() throws IOException;
+
+    boolean nextBoolean() throws IOException;
+
+    void nextNull() throws IOException;
+
+    /**
+     * 跳过当前值，包括嵌套的对象与数组
+     */
+    void skipValue() throws IOException;
+
+}
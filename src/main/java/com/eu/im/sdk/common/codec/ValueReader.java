@@ -0,0 +1,15 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.IOException;
+
+/**
+ * 从 TokenReader 中读取一个指定类型的值
+ *
+ * @param <T>
+ */
+@FunctionalInterface
+public interface ValueReader<T> {
+
+    T read(TokenReader reader) throws IOException;
+
+}
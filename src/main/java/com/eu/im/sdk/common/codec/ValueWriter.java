@@ -0,0 +1,13 @@
+package com.eu.im.sdk.common.codec;
+
+/**
+ * 将一个指定类型的非 null 值写入 JsonWriter
+ *
+ * @param <T>
+ */
+@FunctionalInterface
+public interface ValueWriter<T> {
+
+    void write(JsonWriter writer, T value);
+
+}
@@ -0,0 +1,100 @@
+package com.eu.im.sdk.common.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 请求体与响应体的编码格式
+ * HttpUtil 按配置的格式编码请求体并通过 Accept 请求该格式的响应，响应按 Content-Type 选择读取方式，
+ * 服务端不支持时仍可以返回 json。实现必须是线程安全的
+ */
+public interface WireFormat {
+
+    WireFormat JSON = new JsonWireFormat();
+
+    WireFormat MESSAGE_PACK = new MessagePackWireFormat();
+
+    /**
+     * 请求体的 Content-Type
+     *
+     * @return
+     */
+    String getContentType();
+
+    /**
+     * 响应的 Content-Type 是否为该格式
+     *
+     * @param contentType 可能为 null
+     * @return
+     */
+    boolean accepts(String contentType);
+
+    /**
+     * 将对象编码后追加写入 writer
+     *
+     * @param value  不为 null
+     * @param writer
+     */
+    void encode(Object value, JsonWriter writer);
+
+    /**
+     * 创建响应体的读取器
+     *
+     * @param in
+     * @return
+     */
+    TokenReader newReader(InputStream in);
+
+    /**
+     * 按 Content-Type 识别内置的格式，无法识别时视为 json
+     *
+     * @param contentType
+     * @return
+     */
+    static WireFormat forContentType(String contentType) {
+        return MESSAGE_PACK.accepts(contentType) ? MESSAGE_PACK : JSON;
+    }
+
+    /**
+     * 为响应体标记编码格式，ResponseDecoder 按标记选择读取方式
+     *
+     * @param body
+     * @param format
+     * @return json 不做标记，原样返回
+     */
+    static InputStream tag(InputStream body, WireFormat format) {
+        return format == JSON ? body : new FormattedInputStream(body, format);
+    }
+
+    /**
+     * 按响应体的格式标记创建读取器，没有标记时按 json 读取
+     *
+     * @param body
+     * @return
+     */
+    static TokenReader readerFor(InputStream body) {
+        if (body instanceof FormattedInputStream) {
+            return ((FormattedInputStream) body).getFormat().newReader(body);
+        }
+        return new JsonReader(body);
+    }
+
+    /**
+     * 将响应体转换为 json，供按字符串处理响应的旧接口使用
+     *
+     * @param body
+     * @return json 响应体原样返回
+     * @throws IOException
+     */
+    static InputStream toJson(InputStream body) throws IOException {
+        if (!(body instanceof FormattedInputStream)) {
+            return body;
+        }
+        Object value = JsonDecoder.readAny(readerFor(body));
+        JsonWriter writer = new JsonWriter();
+        JsonEncoder.write(writer, value);
+        return new ByteArrayInputStream(writer.buffer(), 0, writer.size());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.eu.im.sdk.common.metrics;
+
+/**
+ * 监控指标扩展接口
+ * HttpUtil 与传输实现在请求路径上调用，参数只有接口名等常量字符串与基本类型，调用本身不产生任何对象；
+ * 实现类必须是线程安全的，记录时同样不应分配对象（例如按接口预先创建好计数器，使用 LongAdder 累加）
+ * 全部方法默认不做任何事，实现类按需覆盖
+ * <p>
+ * 接入 Micrometer 等监控系统时，每个方法对应一组按接口缓存的 Meter：
+ * onRequest 对应带 endpoint、status 标签的 Timer；onExchange 对应连接耗时与首字节耗时两个 Timer、收发字节数两个 DistributionSummary；
+ * onRetries、onError 对应 Counter；onPoolUsage 更新 Gauge 读取的数值
+ */
+public interface ImMetrics {
+
+    /**
+     * 不记录任何指标的默认实现
+     */
+    ImMetrics NOOP = new ImMetrics() {
+    };
+
+    /**
+     * 一次调用结束，耗时包括编码、发送、等待与读取解码响应
+     *
+     * @param endpoint ImConstants 中的路径模板
+     * @param status   响应状态码，没有得到响应时为 0
+     * @param latency  耗时（纳秒）
+     */
+    default void onRequest(String endpoint, int status, long latency) {
+    }
+
+    /**
+     * 一次调用在传输层各阶段的数据，数值由传输实现填写在 ImRequest 中，不支持的阶段为 0
+     *
+     * @param endpoint
+     * @param connectTime     获取连接耗时（纳秒），包括等待空闲连接与建立新连接
+     * @param timeToFirstByte 从开始写出请求到读到第一个响应字节的耗时（纳秒）
+     * @param bytesSent       写出的字节数
+     * @param bytesReceived   读取的字节数
+     */
+    default void onExchange(String endpoint, long connectTime, long timeToFirstByte, long bytesSent, long bytesReceived) {
+    }
+
+    /**
+     * 调用经过了重试
+     *
+     * @param endpoint
+     * @param retries 本次调用的重试次数
+     */
+    default void onRetries(String endpoint, int retries) {
+    }
+
+    /**
+     * 调用以 GlobalException 失败
+     *
+     * @param endpoint
+     * @param code     GlobalException 的错误码：GlobalExceptionCode 中的业务错误码，或 http 状态码，没有得到响应时为 0
+     */
+    default void onError(String endpoint, int code) {
+    }
+
+    /**
+     * 连接池使用情况发生变化
+     *
+     * @param route  端点（协议 + 主机 + 端口）
+     * @param leased 使用中（包括正在建立）的连接数
+     * @param idle   空闲连接数
+     * @param max    连接数上限
+     */
+    default void onPoolUsage(String route, int leased, int idle, int max) {
+    }
+
+}
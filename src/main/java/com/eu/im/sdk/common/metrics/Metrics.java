@@ -0,0 +1,25 @@
+package com.eu.im.sdk.common.metrics;
+
+/**
+ * 全局使用的监控实现
+ * 传输实现与 HttpUtil 在每次记录时读取，替换后立即对之后的请求生效
+ */
+public final class Metrics {
+
+    private static volatile ImMetrics current = ImMetrics.NOOP;
+
+    private Metrics() {
+    }
+
+    public static ImMetrics get() {
+        return current;
+    }
+
+    public static void set(ImMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("metrics should not be null.");
+        }
+        current = metrics;
+    }
+
+}
@@ -0,0 +1,257 @@
+package com.eu.im.sdk.common.metrics;
+
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在内存中统计的监控实现
+ * 不依赖任何监控系统，可以直接读取统计结果输出到日志，也可以作为对接其他监控系统的参考
+ * 每个接口的统计在第一次调用时创建，之后的记录只有一次 ConcurrentHashMap 查找与若干次原子累加
+ * 错误码按下标计数：http 状态码与 GlobalExceptionCode 中的错误码各占数组中的一格，记录时不装箱、不加锁
+ * <p>
+ * 使用方式：HttpUtil.INSTANCE.setMetrics(new SimpleImMetrics())
+ */
+public class SimpleImMetrics implements ImMetrics {
+
+    /**
+     * 小于该值的错误码（http 状态码与 GlobalExceptionCode 中的通用错误码）直接作为下标
+     */
+    private static final int DIRECT_CODES = 600;
+
+    /**
+     * GlobalExceptionCode 中其余的错误码，升序，下标排在 DIRECT_CODES 之后
+     */
+    private static final int[] BUSINESS_CODES = Arrays.stream(GlobalExceptionCode.values())
+            .mapToInt(GlobalExceptionCode::getCode).filter(code -> code >= DIRECT_CODES).distinct().sorted().toArray();
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    private final Map<String, PoolStats> pools = new ConcurrentHashMap<>();
+
+
+    @Override
+    public void onRequest(String endpoint, int status, long latency) {
+        EndpointStats stats = this.endpoint(endpoint);
+        stats.latency.record(latency);
+        if (status != 200) {
+            stats.failures.increment();
+        }
+    }
+
+    @Override
+    public void onExchange(String endpoint, long connectTime, long timeToFirstByte, long bytesSent, long bytesReceived) {
+        EndpointStats stats = this.endpoint(endpoint);
+        stats.connectTime.record(connectTime);
+        stats.timeToFirstByte.record(timeToFirstByte);
+        stats.bytesSent.add(bytesSent);
+        stats.bytesReceived.add(bytesReceived);
+    }
+
+    @Override
+    public void onRetries(String endpoint, int retries) {
+        this.endpoint(endpoint).retries.add(retries);
+    }
+
+    @Override
+    public void onError(String endpoint, int code) {
+        this.endpoint(endpoint).errors(code).increment();
+    }
+
+    @Override
+    public void onPoolUsage(String route, int leased, int idle, int max) {
+        PoolStats stats = pools.get(route);
+        if (stats == null) {
+            stats = pools.computeIfAbsent(route, key -> new PoolStats());
+        }
+        stats.leased = leased;
+        stats.idle = idle;
+        stats.max = max;
+    }
+
+    /**
+     * 全部接口的统计
+     *
+     * @return
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * 全部端点的连接池使用情况
+     *
+     * @return
+     */
+    public Map<String, PoolStats> getPools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    private EndpointStats endpoint(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 单个接口的统计
+     */
+    public static final class EndpointStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final LatencyHistogram connectTime = new LatencyHistogram();
+
+        private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder bytesSent = new LongAdder();
+
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        /**
+         * 已知错误码的计数器，第一次出现时创建
+         */
+        private final AtomicReferenceArray<LongAdder> errors = new AtomicReferenceArray<>(DIRECT_CODES + BUSINESS_CODES.length);
+
+        /**
+         * 其他错误码的计数器
+         */
+        private final Map<Integer, LongAdder> otherErrors = new ConcurrentHashMap<>();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public LatencyHistogram getConnectTime() {
+            return connectTime;
+        }
+
+        public LatencyHistogram getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /**
+         * 没有得到 200 响应的调用次数
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        /**
+         * 各错误码出现的次数
+         *
+         * @param code
+         * @return
+         */
+        public long getErrors(int code) {
+            int index = index(code);
+            LongAdder adder = index < 0 ? otherErrors.get(code) : errors.get(index);
+            return adder == null ? 0 : adder.sum();
+        }
+
+        private LongAdder errors(int code) {
+            int index = index(code);
+            if (index < 0) {
+                LongAdder adder = otherErrors.get(code);
+                if (adder == null) {
+                    adder = otherErrors.computeIfAbsent(code, key -> new LongAdder());
+                }
+                return adder;
+            }
+            LongAdder adder = errors.get(index);
+            if (adder == null) {
+                errors.compareAndSet(index, null, new LongAdder());
+                adder = errors.get(index);
+            }
+            return adder;
+        }
+
+        /**
+         * 错误码在 errors 中的下标，不是已知错误码时返回 -1
+         */
+        private static int index(int code) {
+            if (code >= 0 && code < DIRECT_CODES) {
+                return code;
+            }
+            int index = Arrays.binarySearch(BUSINESS_CODES, code);
+            return index < 0 ? -1 : DIRECT_CODES + index;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder errorCounts = new StringBuilder();
+            for (int i = 0; i < errors.length(); i++) {
+                LongAdder adder = errors.get(i);
+                if (adder != null) {
+                    errorCounts.append(errorCounts.length() == 0 ? "" : ", ").append(i < DIRECT_CODES ? i : BUSINESS_CODES[i - DIRECT_CODES]).append('=').append(adder.sum());
+                }
+            }
+            otherErrors.forEach((code, adder) -> errorCounts.append(errorCounts.length() == 0 ? "" : ", ").append(code).append('=').append(adder.sum()));
+            return String.format("EndpointStats{latency=%s, connectTime=%s, timeToFirstByte=%s, failures=%d, bytesSent=%d, bytesReceived=%d, retries=%d, errors={%s}}",
+                    latency, connectTime, timeToFirstByte, getFailures(), getBytesSent(), getBytesReceived(), getRetries(), errorCounts);
+        }
+
+    }
+
+    /**
+     * 单个端点的连接池使用情况
+     */
+    public static final class PoolStats {
+
+        private volatile int leased;
+
+        private volatile int idle;
+
+        private volatile int max;
+
+        public int getLeased() {
+            return leased;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * 使用率
+         */
+        public double getUtilisation() {
+            int limit = max;
+            return limit == 0 ? 0 : (double) leased / limit;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PoolStats{leased=%d, idle=%d, max=%d}", leased, idle, max);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 负载均衡策略
+ * 从可用节点中为一次请求选择一个节点；实现必须是线程安全的
+ */
+@FunctionalInterface
+public interface BalancingStrategy {
+
+    /**
+     * 选择节点
+     *
+     * @param candidates 可用节点，不为空
+     * @return
+     */
+    ServerNode select(List<ServerNode> candidates);
+
+    /**
+     * 轮询
+     *
+     * @return
+     */
+    static BalancingStrategy roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return candidates -> candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * 进行中请求数最少的节点，数量相同时从随机位置开始选择，避免总是选中第一个
+     *
+     * @return
+     */
+    static BalancingStrategy leastOutstanding() {
+        return candidates -> {
+            int size = candidates.size();
+            int start = ThreadLocalRandom.current().nextInt(size);
+            ServerNode best = null;
+            for (int i = 0; i < size; i++) {
+                ServerNode node = candidates.get((start + i) % size);
+                if (best == null || node.getOutstanding() < best.getOutstanding()) {
+                    best = node;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * 按延迟 EWMA 加权
+     * 随机取两个节点，选择 延迟 EWMA ×（进行中请求数 + 1）较小的一个；还没有延迟样本的节点优先，
+     * 既偏向响应快的节点，又不会让所有请求同时涌向同一个节点
+     *
+     * @return
+     */
+    static BalancingStrategy latencyEwma() {
+        return candidates -> {
+            int size = candidates.size();
+            if (size == 1) {
+                return candidates.get(0);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            ServerNode a = candidates.get(first);
+            ServerNode b = candidates.get(second);
+            return a.getLatencyEwma() * (a.getOutstanding() + 1) <= b.getLatencyEwma() * (b.getOutstanding() + 1) ? a : b;
+        };
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的舱壁（信号量）
+ * 进行中的调用数保存在一个 AtomicInteger 中，获取与释放都是一次 CAS，不排队、不加锁
+ */
+public final class Bulkhead {
+
+    private final String endpoint;
+
+    private final int maxConcurrentCalls;
+
+    private final AtomicInteger activeCalls = new AtomicInteger();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+
+    Bulkhead(String endpoint, int maxConcurrentCalls) {
+        this.endpoint = endpoint;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    /**
+     * 获取一个调用许可，获取成功后必须调用 release 归还
+     *
+     * @return 已达到并发上限时返回 false
+     */
+    boolean tryAcquire() {
+        int active;
+        do {
+            active = activeCalls.get();
+            if (active >= maxConcurrentCalls) {
+                rejectedCount.increment();
+                return false;
+            }
+        } while (!activeCalls.compareAndSet(active, active + 1));
+        return true;
+    }
+
+    void release() {
+        activeCalls.decrementAndGet();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /**
+     * 进行中的调用数
+     *
+     * @return
+     */
+    public int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    /**
+     * 因达到并发上限被拒绝的调用次数
+     *
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 按接口限制并发调用数的异步传输实现
+ * 进行中的调用从发出请求到返回的 future 完成为止，超出上限的调用以 CallNotPermittedException 异常完成
+ */
+public class BulkheadAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final BulkheadRegistry registry;
+
+
+    public BulkheadAsyncTransport(ImAsyncTransport delegate) {
+        this(delegate, new BulkheadRegistry());
+    }
+
+    public BulkheadAsyncTransport(ImAsyncTransport delegate, BulkheadRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        Bulkhead bulkhead = registry.of(request);
+        if (!bulkhead.tryAcquire()) {
+            CompletableFuture<ImResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CallNotPermittedException(bulkhead.getEndpoint(),
+                    String.format("接口[%s]并发调用数已达上限[%s]", bulkhead.getEndpoint(), bulkhead.getMaxConcurrentCalls())));
+            return rejected;
+        }
+        try {
+            return delegate.executeAsync(request).whenComplete((response, error) -> bulkhead.release());
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    public BulkheadRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 舱壁隔离配置
+ * 每个接口允许同时进行的调用数，超出时立即拒绝而不是排队等待
+ */
+public class BulkheadConfig {
+
+    /**
+     * 未单独配置的接口允许的最大并发调用数
+     */
+    private int maxConcurrentCalls = 50;
+
+    /**
+     * 单独配置的接口（ImConstants 中的路径模板）允许的最大并发调用数
+     */
+    private final Map<String, Integer> endpointLimits = new HashMap<>();
+
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public BulkheadConfig setMaxConcurrentCalls(int maxConcurrentCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive.");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        return this;
+    }
+
+    /**
+     * 单独设置某个接口的最大并发调用数
+     *
+     * @param endpoint           ImConstants 中的路径模板，如 ImConstants.LOGIN
+     * @param maxConcurrentCalls
+     * @return
+     */
+    public BulkheadConfig setMaxConcurrentCalls(String endpoint, int maxConcurrentCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive.");
+        }
+        this.endpointLimits.put(endpoint, maxConcurrentCalls);
+        return this;
+    }
+
+    public int getMaxConcurrentCalls(String endpoint) {
+        Integer limit = endpointLimits.get(endpoint);
+        return limit == null ? maxConcurrentCalls : limit;
+    }
+
+    public Map<String, Integer> getEndpointLimits() {
+        return Collections.unmodifiableMap(endpointLimits);
+    }
+
+}
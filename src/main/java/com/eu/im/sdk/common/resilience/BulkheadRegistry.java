@@ -0,0 +1,62 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口划分的舱壁
+ * 同一个实例可以同时交给同步与异步的舱壁传输实现，使两者共用并发上限
+ */
+public class BulkheadRegistry {
+
+    private final BulkheadConfig config;
+
+    private final EndpointResolver resolver;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+
+    public BulkheadRegistry() {
+        this(new BulkheadConfig());
+    }
+
+    public BulkheadRegistry(BulkheadConfig config) {
+        this(config, EndpointResolver.DEFAULT);
+    }
+
+    public BulkheadRegistry(BulkheadConfig config, EndpointResolver resolver) {
+        this.config = config;
+        this.resolver = resolver;
+    }
+
+    /**
+     * 接口对应的舱壁
+     *
+     * @param endpoint ImConstants 中的路径模板，如 ImConstants.GROUP_CREATE
+     * @return
+     */
+    public Bulkhead get(String endpoint) {
+        Bulkhead bulkhead = bulkheads.get(endpoint);
+        if (bulkhead == null) {
+            bulkhead = bulkheads.computeIfAbsent(endpoint, key -> new Bulkhead(key, config.getMaxConcurrentCalls(key)));
+        }
+        return bulkhead;
+    }
+
+    /**
+     * 已经创建的全部舱壁
+     *
+     * @return
+     */
+    public Map<String, Bulkhead> getAll() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
+    Bulkhead of(ImRequest request) {
+        return this.get(resolver.resolve(request));
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+
+/**
+ * 按接口限制并发调用数的传输实现
+ * 某个接口变慢时，占用的线程最多为该接口的并发上限，超出的调用立即抛出 CallNotPermittedException，不会拖垮其他接口
+ * 从发出请求到收到响应头的期间计为进行中
+ */
+public class BulkheadTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final BulkheadRegistry registry;
+
+
+    public BulkheadTransport(ImTransport delegate) {
+        this(delegate, new BulkheadRegistry());
+    }
+
+    public BulkheadTransport(ImTransport delegate, BulkheadRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        Bulkhead bulkhead = registry.of(request);
+        if (!bulkhead.tryAcquire()) {
+            throw new CallNotPermittedException(bulkhead.getEndpoint(),
+                    String.format("接口[%s]并发调用数已达上限[%s]", bulkhead.getEndpoint(), bulkhead.getMaxConcurrentCalls()));
+        }
+        try {
+            return delegate.execute(request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public BulkheadRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.io.IOException;
+
+/**
+ * 调用被熔断器、舱壁或限流器拒绝，请求没有发出
+ */
+public class CallNotPermittedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+
+    public CallNotPermittedException(String endpoint, String message) {
+        super(message);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * 被拒绝的接口
+     *
+     * @return
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+}
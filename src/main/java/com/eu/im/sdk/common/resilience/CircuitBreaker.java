@@ -0,0 +1,232 @@
+package com.eu.im.sdk.common.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口的熔断器
+ * CLOSED：正常放行并统计；OPEN：直接拒绝，等待期满后进入 HALF_OPEN；HALF_OPEN：只放行有限次探测调用
+ * <p>
+ * 状态保存在一个 AtomicReference 中，状态切换通过 CAS 完成；
+ * CLOSED 状态下的放行只有一次 volatile 读，成功调用的记录只累加统计窗口的计数器，整个过程不加锁
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int WINDOW_BUCKETS = 10;
+
+    private final String endpoint;
+
+    private final CircuitBreakerConfig config;
+
+    private final AtomicReference<Phase> phase;
+
+    private final LongAdder notPermittedCount = new LongAdder();
+
+
+    CircuitBreaker(String endpoint, CircuitBreakerConfig config) {
+        this.endpoint = endpoint;
+        this.config = config;
+        this.phase = new AtomicReference<>(this.closed());
+    }
+
+    /**
+     * 是否放行本次调用，放行后必须调用 onResult 记录结果
+     *
+     * @return
+     */
+    boolean tryAcquirePermission() {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - current.since < TimeUnit.MILLISECONDS.toNanos(config.getWaitDurationInOpenState())) {
+                        notPermittedCount.increment();
+                        return false;
+                    }
+                    this.transition(current, new Phase(State.HALF_OPEN, null, config.getPermittedCallsInHalfOpenState()));
+                    break;
+                default:
+                    int permits;
+                    do {
+                        permits = current.permits.get();
+                        if (permits <= 0) {
+                            notPermittedCount.increment();
+                            return false;
+                        }
+                    } while (!current.permits.compareAndSet(permits, permits - 1));
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * 记录一次放行的调用的结果
+     *
+     * @param durationNanos 耗时
+     * @param failed        是否失败
+     */
+    void onResult(long durationNanos, boolean failed) {
+        boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDuration());
+        Phase current = phase.get();
+        if (current.state == State.CLOSED) {
+            current.window.record(failed, slow);
+            if (failed || slow) {
+                SlidingWindow.Snapshot snapshot = current.window.snapshot();
+                if (snapshot.calls >= config.getMinimumNumberOfCalls() && this.isUnhealthy(snapshot)) {
+                    this.transition(current, this.open());
+                }
+            }
+        } else if (current.state == State.HALF_OPEN) {
+            current.probes.record(failed, slow);
+            SlidingWindow.Snapshot snapshot = current.probes.snapshot();
+            if (snapshot.calls >= config.getPermittedCallsInHalfOpenState()) {
+                this.transition(current, this.isUnhealthy(snapshot) ? this.open() : this.closed());
+            }
+        }
+        //OPEN：熔断前放行的调用，结果不再统计
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * 统计窗口内（半开状态下为探测调用中）的失败率
+     *
+     * @return
+     */
+    public double getFailureRate() {
+        SlidingWindow.Snapshot snapshot = this.snapshot();
+        return snapshot == null ? 0 : snapshot.failureRate();
+    }
+
+    /**
+     * 统计窗口内（半开状态下为探测调用中）的慢调用率
+     *
+     * @return
+     */
+    public double getSlowCallRate() {
+        SlidingWindow.Snapshot snapshot = this.snapshot();
+        return snapshot == null ? 0 : snapshot.slowCallRate();
+    }
+
+    /**
+     * 因熔断被拒绝的调用次数
+     *
+     * @return
+     */
+    public long getNotPermittedCount() {
+        return notPermittedCount.sum();
+    }
+
+    /**
+     * 手动恢复到 CLOSED 状态并清空统计
+     */
+    public void reset() {
+        phase.set(this.closed());
+    }
+
+    private SlidingWindow.Snapshot snapshot() {
+        Phase current = phase.get();
+        if (current.state == State.CLOSED) {
+            return current.window.snapshot();
+        }
+        return current.state == State.HALF_OPEN ? current.probes.snapshot() : null;
+    }
+
+    private boolean isUnhealthy(SlidingWindow.Snapshot snapshot) {
+        return snapshot.failureRate() >= config.getFailureRateThreshold() || snapshot.slowCallRate() >= config.getSlowCallRateThreshold();
+    }
+
+    private void transition(Phase from, Phase to) {
+        if (phase.compareAndSet(from, to)) {
+            log.info("接口[{}]熔断器状态：{} -> {}", endpoint, from.state, to.state);
+        }
+    }
+
+    private Phase closed() {
+        return new Phase(State.CLOSED, new SlidingWindow(config.getSlidingWindow(), WINDOW_BUCKETS), 0);
+    }
+
+    private Phase open() {
+        return new Phase(State.OPEN, null, 0);
+    }
+
+    /**
+     * 一个状态及其附带的统计，每次状态切换都创建新的实例
+     */
+    private static final class Phase {
+
+        private final State state;
+
+        private final long since = System.nanoTime();
+
+        /**
+         * CLOSED 状态的统计窗口
+         */
+        private final SlidingWindow window;
+
+        /**
+         * HALF_OPEN 状态剩余的探测次数
+         */
+        private final AtomicInteger permits;
+
+        /**
+         * HALF_OPEN 状态探测调用的统计
+         */
+        private final Probes probes;
+
+        Phase(State state, SlidingWindow window, int permits) {
+            this.state = state;
+            this.window = window;
+            this.permits = new AtomicInteger(permits);
+            this.probes = state == State.HALF_OPEN ? new Probes() : null;
+        }
+
+    }
+
+    /**
+     * 半开状态的探测调用统计，不随时间滑动
+     */
+    private static final class Probes {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        void record(boolean failed, boolean slow) {
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            if (slow) {
+                slowCalls.incrementAndGet();
+            }
+            calls.incrementAndGet();
+        }
+
+        SlidingWindow.Snapshot snapshot() {
+            return new SlidingWindow.Snapshot(calls.get(), failures.get(), slowCalls.get());
+        }
+
+    }
+
+}
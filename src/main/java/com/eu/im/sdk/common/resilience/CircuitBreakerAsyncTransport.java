@@ -0,0 +1,61 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 按接口熔断的异步传输实现，熔断规则与 CircuitBreakerTransport 相同
+ */
+public class CircuitBreakerAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final CircuitBreakerRegistry registry;
+
+
+    public CircuitBreakerAsyncTransport(ImAsyncTransport delegate) {
+        this(delegate, new CircuitBreakerRegistry());
+    }
+
+    public CircuitBreakerAsyncTransport(ImAsyncTransport delegate, CircuitBreakerRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        CircuitBreaker breaker = registry.of(request);
+        if (!breaker.tryAcquirePermission()) {
+            CompletableFuture<ImResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CallNotPermittedException(breaker.getEndpoint(), String.format("接口[%s]已熔断", breaker.getEndpoint())));
+            return rejected;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<ImResponse> future;
+        try {
+            future = delegate.executeAsync(request);
+        } catch (RuntimeException e) {
+            breaker.onResult(System.nanoTime() - start, true);
+            throw e;
+        }
+        return future.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean failed = cause == null ? response.getStatus() >= 500 : !(cause instanceof CallNotPermittedException);
+            breaker.onResult(System.nanoTime() - start, failed);
+        });
+    }
+
+    public CircuitBreakerRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器配置
+ * 网络失败与 5xx 响应视为失败，耗时达到 slowCallDuration 的调用（无论成败）视为慢调用；
+ * 最近 slidingWindow 毫秒内的调用数不少于 minimumNumberOfCalls，且失败率或慢调用率达到阈值时熔断
+ */
+public class CircuitBreakerConfig {
+
+    /**
+     * 失败率阈值（0 ~ 1）
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 慢调用率阈值（0 ~ 1）
+     */
+    private double slowCallRateThreshold = 0.8;
+
+    /**
+     * 慢调用的耗时（毫秒）
+     */
+    private long slowCallDuration = TimeUnit.SECONDS.toMillis(2);
+
+    /**
+     * 统计窗口长度（毫秒）
+     */
+    private long slidingWindow = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 统计窗口内至少有多少次调用才计算失败率
+     */
+    private int minimumNumberOfCalls = 20;
+
+    /**
+     * 熔断后等待多久（毫秒）进入半开状态
+     */
+    private long waitDurationInOpenState = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 半开状态下放行的探测调用次数，探测调用的失败率与慢调用率都低于阈值时恢复，否则重新熔断
+     */
+    private int permittedCallsInHalfOpenState = 5;
+
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public CircuitBreakerConfig setFailureRateThreshold(double failureRateThreshold) {
+        if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+            throw new IllegalArgumentException("failureRateThreshold must be between 0 (exclusive) and 1.");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public CircuitBreakerConfig setSlowCallRateThreshold(double slowCallRateThreshold) {
+        if (!(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1)) {
+            throw new IllegalArgumentException("slowCallRateThreshold must be between 0 (exclusive) and 1.");
+        }
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public CircuitBreakerConfig setSlowCallDuration(long slowCallDuration) {
+        if (slowCallDuration <= 0) {
+            throw new IllegalArgumentException("slowCallDuration must be positive.");
+        }
+        this.slowCallDuration = slowCallDuration;
+        return this;
+    }
+
+    public long getSlidingWindow() {
+        return slidingWindow;
+    }
+
+    public CircuitBreakerConfig setSlidingWindow(long slidingWindow) {
+        if (slidingWindow <= 0) {
+            throw new IllegalArgumentException("slidingWindow must be positive.");
+        }
+        this.slidingWindow = slidingWindow;
+        return this;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public CircuitBreakerConfig setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        if (minimumNumberOfCalls <= 0) {
+            throw new IllegalArgumentException("minimumNumberOfCalls must be positive.");
+        }
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+        return this;
+    }
+
+    public long getWaitDurationInOpenState() {
+        return waitDurationInOpenState;
+    }
+
+    public CircuitBreakerConfig setWaitDurationInOpenState(long waitDurationInOpenState) {
+        if (waitDurationInOpenState <= 0) {
+            throw new IllegalArgumentException("waitDurationInOpenState must be positive.");
+        }
+        this.waitDurationInOpenState = waitDurationInOpenState;
+        return this;
+    }
+
+    public int getPermittedCallsInHalfOpenState() {
+        return permittedCallsInHalfOpenState;
+    }
+
+    public CircuitBreakerConfig setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+        if (permittedCallsInHalfOpenState <= 0) {
+            throw new IllegalArgumentException("permittedCallsInHalfOpenState must be positive.");
+        }
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        return this;
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口划分的熔断器
+ * 同一个实例可以同时交给同步与异步的熔断传输实现，使两者共用熔断状态
+ */
+public class CircuitBreakerRegistry {
+
+    private final CircuitBreakerConfig config;
+
+    private final EndpointResolver resolver;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+
+    public CircuitBreakerRegistry() {
+        this(new CircuitBreakerConfig());
+    }
+
+    public CircuitBreakerRegistry(CircuitBreakerConfig config) {
+        this(config, EndpointResolver.DEFAULT);
+    }
+
+    public CircuitBreakerRegistry(CircuitBreakerConfig config, EndpointResolver resolver) {
+        this.config = config;
+        this.resolver = resolver;
+    }
+
+    /**
+     * 接口对应的熔断器
+     *
+     * @param endpoint ImConstants 中的路径模板，如 ImConstants.CHART_LIST
+     * @return
+     */
+    public CircuitBreaker get(String endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        if (breaker == null) {
+            breaker = breakers.computeIfAbsent(endpoint, key -> new CircuitBreaker(key, config));
+        }
+        return breaker;
+    }
+
+    /**
+     * 已经创建的全部熔断器
+     *
+     * @return
+     */
+    public Map<String, CircuitBreaker> getAll() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    CircuitBreaker of(ImRequest request) {
+        return this.get(resolver.resolve(request));
+    }
+
+}
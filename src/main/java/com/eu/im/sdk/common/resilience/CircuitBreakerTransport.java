@@ -0,0 +1,61 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+
+/**
+ * 按接口熔断的传输实现
+ * 接口熔断期间请求不会发出，直接抛出 CallNotPermittedException，调用线程不再等待连接与读取超时
+ * <p>
+ * 与舱壁一起使用时放在舱壁的内层：new BulkheadTransport(new CircuitBreakerTransport(transport))，
+ * 被舱壁拒绝的调用不会计入熔断统计；与重试一起使用时放在重试的内层，使每次重试都经过熔断判断
+ */
+public class CircuitBreakerTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final CircuitBreakerRegistry registry;
+
+
+    public CircuitBreakerTransport(ImTransport delegate) {
+        this(delegate, new CircuitBreakerRegistry());
+    }
+
+    public CircuitBreakerTransport(ImTransport delegate, CircuitBreakerRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        CircuitBreaker breaker = registry.of(request);
+        if (!breaker.tryAcquirePermission()) {
+            throw new CallNotPermittedException(breaker.getEndpoint(), String.format("接口[%s]已熔断", breaker.getEndpoint()));
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ImResponse response = delegate.execute(request);
+            failed = response.getStatus() >= 500;
+            return response;
+        } catch (CallNotPermittedException e) {
+            failed = false;     //被内层拒绝，与服务端的状况无关
+            throw e;
+        } finally {
+            breaker.onResult(System.nanoTime() - start, failed);
+        }
+    }
+
+    public CircuitBreakerRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ConnectTimeoutException;
+import com.eu.im.sdk.common.transport.DeadlineExceededException;
+import com.eu.im.sdk.common.transport.HttpMethod;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.QueryMatcher;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一组提供相同服务的 IM 服务端节点
+ * 由 LoadBalancingTransport 使用：每个请求按策略选择一个可用节点，并将请求地址的协议、主机与端口替换为该节点；
+ * 节点连续失败达到阈值后被摘除，全部节点都被摘除时仍在全部节点中选择，不会因此拒绝请求
+ */
+@Slf4j
+public final class EndpointGroup {
+
+    private final ServerNode[] nodes;
+
+    private final List<ServerNode> nodeList;
+
+    private final BalancingStrategy strategy;
+
+    private final EndpointGroupConfig config;
+
+    private final QueryMatcher queryMatcher;
+
+    private final long ejectNanos;
+
+
+    /**
+     * 使用默认配置
+     *
+     * @param strategy
+     * @param urls     节点地址，如 http://10.0.0.1:8080
+     */
+    public EndpointGroup(BalancingStrategy strategy, String... urls) {
+        this(strategy, new EndpointGroupConfig(), urls);
+    }
+
+    /**
+     * @param strategy
+     * @param config
+     * @param urls     节点地址，如 http://10.0.0.1:8080，只能包含协议、主机与端口
+     */
+    public EndpointGroup(BalancingStrategy strategy, EndpointGroupConfig config, String... urls) {
+        if (urls.length == 0 || urls.length > Long.SIZE) {
+            throw new IllegalArgumentException("urls must contain 1 to 64 nodes.");
+        }
+        this.nodes = new ServerNode[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            String url = urls[i].endsWith("/") ? urls[i].substring(0, urls[i].length() - 1) : urls[i];
+            int scheme = url.indexOf("://");
+            if (scheme <= 0 || url.indexOf('/', scheme + 3) >= 0) {
+                throw new IllegalArgumentException("url must only contain scheme, host and port: " + urls[i]);
+            }
+            this.nodes[i] = new ServerNode(i, url);
+        }
+        this.nodeList = Collections.unmodifiableList(Arrays.asList(nodes));
+        this.strategy = strategy;
+        this.config = config;
+        this.queryMatcher = new QueryMatcher(config.getQueryPaths());
+        this.ejectNanos = TimeUnit.MILLISECONDS.toNanos(config.getEjectMillis());
+    }
+
+    /**
+     * 选择一个还没有尝试过的节点
+     * 优先选择可用的节点；没有可用节点时在未尝试的节点中选择
+     *
+     * @param tried 已经尝试过的节点，按 ServerNode.index 的位表示
+     * @return 全部节点都已尝试过时返回 null
+     */
+    ServerNode select(long tried) {
+        long now = System.nanoTime();
+        List<ServerNode> candidates = new ArrayList<>(nodes.length);
+        for (ServerNode node : nodes) {
+            if ((tried & (1L << node.index)) == 0 && node.isAvailable(now)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (ServerNode node : nodes) {
+                if ((tried & (1L << node.index)) == 0) {
+                    candidates.add(node);
+                }
+            }
+        }
+        return candidates.isEmpty() ? null : strategy.select(candidates);
+    }
+
+    /**
+     * 将请求地址的协议、主机与端口替换为节点地址
+     *
+     * @param node
+     * @param url
+     * @return
+     */
+    String rewrite(ServerNode node, String url) {
+        int scheme = url.indexOf("//");
+        int pathStart = scheme < 0 ? -1 : url.indexOf('/', scheme + 2);
+        return pathStart < 0 ? node.getUrl() : node.getUrl() + url.substring(pathStart);
+    }
+
+    void onComplete(ServerNode node, long latency, boolean failed) {
+        if (node.onComplete(latency, failed, config.getFailureThreshold(), ejectNanos)) {
+            log.warn("节点[{}]连续失败 {} 次，摘除 {}ms", node.getUrl(), config.getFailureThreshold(), config.getEjectMillis());
+        }
+    }
+
+    /**
+     * 失败的请求能否转移到其他节点重新发送
+     * 连接失败时请求还没有发出，任何请求都可以转移；其余失败只转移幂等请求与查询
+     *
+     * @param request
+     * @param failure 为 null 表示收到了 5xx 响应
+     * @return
+     */
+    boolean canFailover(ImRequest request, IOException failure) {
+        if (failure instanceof DeadlineExceededException || request.remainingNanos() == 0) {
+            return false;
+        }
+        if (failure instanceof CallNotPermittedException) {
+            return false;
+        }
+        if (failure instanceof ConnectTimeoutException || failure instanceof ConnectException || failure instanceof NoRouteToHostException) {
+            return true;
+        }
+        return request.isResendable() || queryMatcher.isQuery(request);
+    }
+
+    /**
+     * 节点的主动健康检查请求
+     *
+     * @param node
+     * @return
+     */
+    ImRequest healthCheckRequest(ServerNode node) {
+        int timeout = config.getHealthCheckTimeout();
+        return new ImRequest(HttpMethod.GET, node.getUrl() + config.getHealthCheckPath()).timeout(timeout, timeout);
+    }
+
+    /**
+     * 主动健康检查的结果：健康时立即恢复被摘除的节点，不健康时摘除
+     *
+     * @param node
+     * @param healthy
+     */
+    void onHealthCheck(ServerNode node, boolean healthy) {
+        boolean ejected = node.isEjected();
+        if (healthy) {
+            node.restore();
+            if (ejected) {
+                log.info("节点[{}]健康检查通过，恢复使用", node.getUrl());
+            }
+        } else {
+            node.eject(ejectNanos);
+            if (!ejected) {
+                log.warn("节点[{}]健康检查失败，摘除 {}ms", node.getUrl(), config.getEjectMillis());
+            }
+        }
+    }
+
+    /**
+     * 全部节点
+     *
+     * @return
+     */
+    public List<ServerNode> getNodes() {
+        return nodeList;
+    }
+
+    public EndpointGroupConfig getConfig() {
+        return config;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.constants.ImConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 多节点负载均衡与故障转移配置
+ */
+public class EndpointGroupConfig {
+
+    /**
+     * 节点连续失败多少次后被摘除
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 被摘除的节点多久之后重新参与选择（毫秒）
+     */
+    private long ejectMillis = 30000;
+
+    /**
+     * 主动健康检查的间隔（毫秒），0 表示不做主动检查，只根据请求结果判断
+     */
+    private long healthCheckInterval = 0;
+
+    /**
+     * 主动健康检查请求的路径，响应状态码小于 500 即视为健康
+     */
+    private String healthCheckPath = "/";
+
+    /**
+     * 主动健康检查请求的连接与读取超时时间（毫秒）
+     */
+    private int healthCheckTimeout = 1000;
+
+    /**
+     * 使用 POST 发送但只做查询的接口路径，失败时与幂等请求一样可以转移到其他节点
+     */
+    private Set<String> queryPaths = Collections.singleton(ImConstants.CHART_LIST);
+
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public EndpointGroupConfig setFailureThreshold(int failureThreshold) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive.");
+        }
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    public long getEjectMillis() {
+        return ejectMillis;
+    }
+
+    public EndpointGroupConfig setEjectMillis(long ejectMillis) {
+        if (ejectMillis <= 0) {
+            throw new IllegalArgumentException("ejectMillis must be positive.");
+        }
+        this.ejectMillis = ejectMillis;
+        return this;
+    }
+
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public EndpointGroupConfig setHealthCheckInterval(long healthCheckInterval) {
+        if (healthCheckInterval < 0) {
+            throw new IllegalArgumentException("healthCheckInterval must not be negative.");
+        }
+        this.healthCheckInterval = healthCheckInterval;
+        return this;
+    }
+
+    public String getHealthCheckPath() {
+        return healthCheckPath;
+    }
+
+    public EndpointGroupConfig setHealthCheckPath(String healthCheckPath) {
+        if (healthCheckPath == null || !healthCheckPath.startsWith("/")) {
+            throw new IllegalArgumentException("healthCheckPath must start with '/'.");
+        }
+        this.healthCheckPath = healthCheckPath;
+        return this;
+    }
+
+    public int getHealthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+
+    public EndpointGroupConfig setHealthCheckTimeout(int healthCheckTimeout) {
+        if (healthCheckTimeout <= 0) {
+            throw new IllegalArgumentException("healthCheckTimeout must be positive.");
+        }
+        this.healthCheckTimeout = healthCheckTimeout;
+        return this;
+    }
+
+    public Set<String> getQueryPaths() {
+        return queryPaths;
+    }
+
+    public EndpointGroupConfig setQueryPaths(String... queryPaths) {
+        this.queryPaths = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(queryPaths)));
+        return this;
+    }
+
+}
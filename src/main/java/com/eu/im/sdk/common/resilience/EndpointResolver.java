@@ -0,0 +1,112 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.constants.ImConstants;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 将请求归类到它调用的接口
+ * 接口以 ImConstants 中的路径模板表示（如 /chart/enter/%s），%s 匹配一段非空的路径；
+ * 按模板长度从长到短匹配请求路径的结尾，因此 /system/chart/group 不会被归为 /chart/group
+ * 不匹配任何模板的请求以其路径作为接口
+ * 每个请求都会经过这里（监控、熔断、限流），匹配直接在地址字符串上逐段比较，不解析 URL、不创建对象
+ */
+public final class EndpointResolver {
+
+    /**
+     * SDK 调用的全部 http 接口
+     */
+    public static final EndpointResolver DEFAULT = new EndpointResolver(ImConstants.LOGIN,
+            ImConstants.FRIEND_ADD, ImConstants.FRIEND_HANDLE, ImConstants.FRIEND_NOTE,
+            ImConstants.CHART_LIST, ImConstants.CHART_MESSAGE, ImConstants.CHART_MESSAGE_PAGE, ImConstants.GROUP_CREATE, ImConstants.GROUP_NAME, ImConstants.GROUP_INVITE,
+            ImConstants.MESSAGE_SEND, ImConstants.MESSAGE_SEND_BATCH, ImConstants.MESSAGE_FORWARD);
+
+    private static final String WILDCARD = "%s";
+
+    private final String[] templates;
+
+    /**
+     * 模板按 / 拆分后的路径段
+     */
+    private final String[][] segments;
+
+
+    public EndpointResolver(String... templates) {
+        this.templates = templates.clone();
+        Arrays.sort(this.templates, Comparator.comparingInt(String::length).reversed());
+        this.segments = new String[this.templates.length][];
+        for (int i = 0; i < this.templates.length; i++) {
+            String template = this.templates[i];
+            this.segments[i] = (template.startsWith("/") ? template.substring(1) : template).split("/", -1);
+        }
+    }
+
+    /**
+     * 请求调用的接口
+     *
+     * @param request
+     * @return
+     */
+    public String resolve(ImRequest request) {
+        return this.resolve(request.getUrl());
+    }
+
+    /**
+     * 请求地址调用的接口
+     *
+     * @param url
+     * @return
+     */
+    public String resolve(String url) {
+        int scheme = url.indexOf("//");
+        int pathStart = scheme < 0 ? 0 : url.indexOf('/', scheme + 2);
+        int end = url.length();
+        if (pathStart < 0) {
+            pathStart = end;
+        }
+        for (int i = pathStart; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+
+        for (int i = 0; i < templates.length; i++) {
+            if (matches(url, pathStart, end, segments[i])) {
+                return templates[i];
+            }
+        }
+        return url.substring(pathStart, end);
+    }
+
+    /**
+     * 从路径结尾向前逐段比较，每一段之前都必须是 /
+     */
+    private static boolean matches(String url, int pathStart, int end, String[] segments) {
+        int position = end;
+        for (int k = segments.length - 1; k >= 0; k--) {
+            String segment = segments[k];
+            int slash;
+            if (WILDCARD.equals(segment)) {
+                slash = url.lastIndexOf('/', position - 1);
+                if (slash == position - 1) {
+                    return false;
+                }
+            } else {
+                slash = position - segment.length() - 1;
+                if (slash < pathStart || !url.regionMatches(slash + 1, segment, 0, segment.length())) {
+                    return false;
+                }
+            }
+            if (slash < pathStart || url.charAt(slash) != '/') {
+                return false;
+            }
+            position = slash;
+        }
+        return true;
+    }
+
+}
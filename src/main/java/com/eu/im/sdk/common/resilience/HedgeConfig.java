@@ -0,0 +1,133 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.constants.ImConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 对冲请求配置
+ * 查询请求在各自接口延迟的 percentile 分位数之后仍未返回时，再发出一次相同的请求，先返回的结果生效
+ */
+public class HedgeConfig {
+
+    /**
+     * 发出对冲请求的延迟分位数
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 对冲延迟的下限（毫秒），避免在延迟很低时频繁对冲
+     */
+    private long minDelay = 5;
+
+    /**
+     * 统计延迟分位数的窗口（毫秒），每个窗口结束时按窗口内的延迟重新计算对冲延迟
+     */
+    private long window = 10000;
+
+    /**
+     * 一个窗口中至少需要的样本数，接口的第一个窗口样本数不足之前不对冲
+     */
+    private int minSamples = 100;
+
+    /**
+     * 每个请求存入的对冲令牌数，即对冲请求最多占请求数的比例
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 对冲令牌的最大积累数量
+     */
+    private int budgetCapacity = 10;
+
+    /**
+     * 使用 POST 发送但只做查询的接口路径，与 GET 请求一样可以对冲
+     */
+    private Set<String> queryPaths = Collections.singleton(ImConstants.CHART_LIST);
+
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public HedgeConfig setPercentile(double percentile) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1.");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public HedgeConfig setMinDelay(long minDelay) {
+        if (minDelay < 0) {
+            throw new IllegalArgumentException("minDelay must not be negative.");
+        }
+        this.minDelay = minDelay;
+        return this;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public HedgeConfig setWindow(long window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive.");
+        }
+        this.window = window;
+        return this;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public HedgeConfig setMinSamples(int minSamples) {
+        if (minSamples <= 0) {
+            throw new IllegalArgumentException("minSamples must be positive.");
+        }
+        this.minSamples = minSamples;
+        return this;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public HedgeConfig setBudgetRatio(double budgetRatio) {
+        if (budgetRatio <= 0) {
+            throw new IllegalArgumentException("budgetRatio must be positive.");
+        }
+        this.budgetRatio = budgetRatio;
+        return this;
+    }
+
+    public int getBudgetCapacity() {
+        return budgetCapacity;
+    }
+
+    public HedgeConfig setBudgetCapacity(int budgetCapacity) {
+        if (budgetCapacity <= 0) {
+            throw new IllegalArgumentException("budgetCapacity must be positive.");
+        }
+        this.budgetCapacity = budgetCapacity;
+        return this;
+    }
+
+    public Set<String> getQueryPaths() {
+        return queryPaths;
+    }
+
+    public HedgeConfig setQueryPaths(String... queryPaths) {
+        this.queryPaths = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(queryPaths)));
+        return this;
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.metrics.LatencyHistogram;
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.QueryMatcher;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步与异步对冲传输实现共用的对冲判断
+ * 每个接口按窗口统计延迟：窗口结束时取窗口内延迟的分位数作为之后的对冲延迟，再开始新的窗口，
+ * 因此对冲延迟跟随接口最近的表现变化，而计算分位数的开销只在窗口切换时发生一次
+ */
+final class Hedger {
+
+    private final HedgeConfig config;
+
+    private final QueryMatcher queryMatcher;
+
+    private final EndpointResolver resolver;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final LongAdder hedgeCount = new LongAdder();
+
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+
+    Hedger(HedgeConfig config, EndpointResolver resolver) {
+        this.config = config;
+        this.queryMatcher = new QueryMatcher(config.getQueryPaths());
+        this.resolver = resolver;
+    }
+
+    /**
+     * 请求所属接口的对冲状态
+     *
+     * @param request
+     * @return 请求不是查询时返回 null，不能对冲
+     */
+    Endpoint endpointOf(ImRequest request) {
+        if (!queryMatcher.isQuery(request)) {
+            return null;
+        }
+        String endpoint = resolver.resolve(request);
+        Endpoint state = endpoints.get(endpoint);
+        if (state == null) {
+            state = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        }
+        return state;
+    }
+
+    /**
+     * 发出请求，delay 之后仍未返回时再发出一次请求的副本，先成功的响应生效，另一次请求被取消
+     * 两次都失败时以后失败的异常结束
+     *
+     * @param transport
+     * @param request
+     * @param endpoint
+     * @param delay     纳秒
+     * @return
+     */
+    CompletableFuture<ImResponse> hedge(ImAsyncTransport transport, ImRequest request, Endpoint endpoint, long delay) {
+        return new HedgedCall(transport, request, endpoint, delay).result;
+    }
+
+    long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * 单个接口的延迟统计与对冲预算
+     */
+    final class Endpoint {
+
+        final RetryBudget budget = new RetryBudget(config.getBudgetRatio(), config.getBudgetCapacity());
+
+        private volatile LatencyHistogram window = new LatencyHistogram();
+
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+        /**
+         * 对冲延迟（纳秒），0 表示样本还不足，不对冲
+         */
+        private volatile long delay;
+
+        /**
+         * 发出对冲请求前的等待时间
+         *
+         * @return 纳秒，0 表示不对冲
+         */
+        long delay() {
+            return delay;
+        }
+
+        /**
+         * 记录一次成功请求的延迟，窗口到期且样本足够时更新对冲延迟
+         * 第一个窗口只要样本足够就立即计算，使对冲尽早生效
+         *
+         * @param latency 纳秒
+         */
+        void record(long latency) {
+            LatencyHistogram current = window;
+            current.record(latency);
+            long start = windowStart.get();
+            long now = System.nanoTime();
+            if (current.getCount() < config.getMinSamples() || (delay != 0 && now - start < TimeUnit.MILLISECONDS.toNanos(config.getWindow()))) {
+                return;
+            }
+            if (windowStart.compareAndSet(start, now)) {
+                window = new LatencyHistogram();
+                delay = Math.max(TimeUnit.MILLISECONDS.toNanos(config.getMinDelay()), current.getPercentile(config.getPercentile()));
+            }
+        }
+
+    }
+
+    /**
+     * 一次可能被对冲的调用
+     */
+    private final class HedgedCall {
+
+        private final ImAsyncTransport transport;
+
+        private final ImRequest request;
+
+        private final Endpoint endpoint;
+
+        private final CompletableFuture<ImResponse> result = new CompletableFuture<>();
+
+        /**
+         * 尚未结束的请求数，降为 0 后不再发出对冲请求
+         */
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+
+        private final CompletableFuture<ImResponse> primary;
+
+        private final ScheduledFuture<?> timer;
+
+        private volatile CompletableFuture<ImResponse> hedge;
+
+        /**
+         * 最近一次失败，最后一个请求结束时用它完成调用
+         */
+        private volatile Throwable lastError;
+
+        HedgedCall(ImAsyncTransport transport, ImRequest request, Endpoint endpoint, long delay) {
+            this.transport = transport;
+            this.request = request;
+            this.endpoint = endpoint;
+            this.primary = this.send(request, false);
+            this.timer = Scheduler.schedule(this::hedge, delay, TimeUnit.NANOSECONDS);
+            if (result.isDone()) {
+                timer.cancel(false);
+            }
+        }
+
+        private CompletableFuture<ImResponse> send(ImRequest attempt, boolean hedged) {
+            long start = System.nanoTime();
+            CompletableFuture<ImResponse> future;
+            try {
+                future = transport.executeAsync(attempt);
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((response, error) -> {
+                if (error == null) {
+                    endpoint.record(System.nanoTime() - start);
+                    if (result.complete(response)) {
+                        this.cancelOther(hedged);
+                    } else {
+                        Retrier.discard(response);
+                    }
+                } else {
+                    lastError = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    this.release();
+                }
+            });
+            return future;
+        }
+
+        private void hedge() {
+            int current;
+            do {
+                current = outstanding.get();
+                if (current == 0 || result.isDone()) {
+                    return;
+                }
+            } while (!outstanding.compareAndSet(current, current + 1));
+            if (!endpoint.budget.tryWithdraw()) {
+                //主请求可能恰好在这期间失败，此时由这里结束调用
+                this.release();
+                return;
+            }
+            hedgeCount.increment();
+            CompletableFuture<ImResponse> sent = this.send(request.copy(), true);
+            hedge = sent;
+            if (result.isDone() && !sent.isDone()) {
+                sent.cancel(false);
+            }
+        }
+
+        /**
+         * 一个请求失败或放弃发出，所有请求都已结束时以最近一次失败完成调用
+         */
+        private void release() {
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(lastError);
+            }
+        }
+
+        private void cancelOther(boolean hedgeWon) {
+            if (hedgeWon) {
+                hedgeWinCount.increment();
+                primary.cancel(false);
+                return;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            CompletableFuture<ImResponse> sent = hedge;
+            if (sent != null) {
+                sent.cancel(false);
+            }
+        }
+
+    }
+
+}
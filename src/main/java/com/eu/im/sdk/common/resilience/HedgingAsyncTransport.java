@@ -0,0 +1,72 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 对冲请求的异步传输实现
+ * 查询请求在所属接口延迟的分位数之后仍未返回时，用请求的副本再发出一次，先成功的响应生效，另一次请求被取消；
+ * 两次都失败时以后失败的异常结束。对冲次数受每个接口的对冲预算限制，只有查询（GET 与配置的查询接口）会被对冲
+ * <p>
+ * 与 LoadBalancingAsyncTransport 一起使用时放在它的外层，对冲请求会重新选择节点，通常会发往另一个节点
+ */
+public class HedgingAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final Hedger hedger;
+
+
+    public HedgingAsyncTransport(ImAsyncTransport delegate) {
+        this(delegate, new HedgeConfig());
+    }
+
+    public HedgingAsyncTransport(ImAsyncTransport delegate, HedgeConfig config) {
+        this.delegate = delegate;
+        this.hedger = new Hedger(config, EndpointResolver.DEFAULT);
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        Hedger.Endpoint endpoint = hedger.endpointOf(request);
+        if (endpoint == null) {
+            return delegate.executeAsync(request);
+        }
+        endpoint.budget.deposit();
+        long delay = endpoint.delay();
+        if (delay == 0 || delay >= request.remainingNanos()) {
+            long start = System.nanoTime();
+            CompletableFuture<ImResponse> future = delegate.executeAsync(request);
+            future.thenRun(() -> endpoint.record(System.nanoTime() - start));
+            return future;
+        }
+        return hedger.hedge(delegate, request, endpoint, delay);
+    }
+
+    /**
+     * 发出的对冲请求数
+     *
+     * @return
+     */
+    public long getHedgeCount() {
+        return hedger.getHedgeCount();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     *
+     * @return
+     */
+    public long getHedgeWinCount() {
+        return hedger.getHedgeWinCount();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
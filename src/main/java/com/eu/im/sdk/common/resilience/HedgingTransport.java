@@ -0,0 +1,134 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 对冲请求的传输实现
+ * 规则与 HedgingAsyncTransport 相同；需要对冲的请求在 executor 中发送，调用线程等待先返回的成功响应，
+ * 被取消的一方在其线程中读完响应后归还连接。不是查询或接口样本还不足时直接在调用线程中发送
+ * <p>
+ * 与 LoadBalancingTransport 一起使用时放在它的外层，对冲请求会重新选择节点
+ */
+public class HedgingTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final Hedger hedger;
+
+    /**
+     * 在 executor 中执行 delegate 的异步适配，响应不做缓冲
+     */
+    private final ImAsyncTransport async;
+
+
+    /**
+     * @param delegate
+     * @param executor 发送对冲请求的线程池，对冲的调用同时占用其中两个线程
+     */
+    public HedgingTransport(ImTransport delegate, Executor executor) {
+        this(delegate, executor, new HedgeConfig());
+    }
+
+    public HedgingTransport(ImTransport delegate, Executor executor, HedgeConfig config) {
+        this.delegate = delegate;
+        this.hedger = new Hedger(config, EndpointResolver.DEFAULT);
+        this.async = new ImAsyncTransport() {
+            @Override
+            public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+                CompletableFuture<ImResponse> future = new CompletableFuture<>();
+                executor.execute(() -> {
+                    //等待执行期间已被取消（另一方先返回）的请求不再发出
+                    if (future.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        ImResponse response = delegate.execute(request);
+                        if (!future.complete(response)) {
+                            Retrier.discard(response);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+                return future;
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        Hedger.Endpoint endpoint = hedger.endpointOf(request);
+        if (endpoint == null) {
+            return delegate.execute(request);
+        }
+        endpoint.budget.deposit();
+        long delay = endpoint.delay();
+        if (delay == 0 || delay >= request.remainingNanos()) {
+            long start = System.nanoTime();
+            ImResponse response = delegate.execute(request);
+            endpoint.record(System.nanoTime() - start);
+            return response;
+        }
+
+        //请求体可能是调用线程缓存的缓冲区，调用返回后即被复用，而落后的一方可能仍在发送，因此先复制一份
+        if (request.hasBody()) {
+            request.body(Arrays.copyOf(request.getBody(), request.getBodyLength()), request.getBodyLength());
+        }
+        CompletableFuture<ImResponse> result = hedger.hedge(async, request, endpoint, delay);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待对冲请求时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 发出的对冲请求数
+     *
+     * @return
+     */
+    public long getHedgeCount() {
+        return hedger.getHedgeCount();
+    }
+
+    /**
+     * 对冲请求先于原请求返回的次数
+     *
+     * @return
+     */
+    public long getHedgeWinCount() {
+        return hedger.getHedgeWinCount();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
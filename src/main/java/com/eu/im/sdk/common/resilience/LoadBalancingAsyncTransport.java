@@ -0,0 +1,109 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在多个服务端节点之间负载均衡的异步传输实现
+ * 节点选择与故障转移规则与 LoadBalancingTransport 相同，转移时在回调中直接向下一个节点发出请求，不占用额外线程；
+ * 主动健康检查由共用的后台线程定时发起，检查请求本身同样是异步的
+ */
+public class LoadBalancingAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final EndpointGroup group;
+
+    private final ScheduledFuture<?> healthCheck;
+
+
+    public LoadBalancingAsyncTransport(ImAsyncTransport delegate, EndpointGroup group) {
+        this.delegate = delegate;
+        this.group = group;
+        long interval = group.getConfig().getHealthCheckInterval();
+        this.healthCheck = interval > 0 ? Scheduler.scheduleWithFixedDelay(this::checkHealth, interval, TimeUnit.MILLISECONDS) : null;
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        CompletableFuture<ImResponse> result = new CompletableFuture<>();
+        this.attempt(request, request.getUrl(), group.select(0), 0, result);
+        return result;
+    }
+
+    public EndpointGroup getGroup() {
+        return group;
+    }
+
+    @Override
+    public void close() {
+        if (healthCheck != null) {
+            healthCheck.cancel(false);
+        }
+        delegate.close();
+    }
+
+    private void attempt(ImRequest request, String url, ServerNode node, long tried, CompletableFuture<ImResponse> result) {
+        long attempted = tried | 1L << node.index;
+        request.url(group.rewrite(node, url));
+        node.onStart();
+        long start = System.nanoTime();
+        CompletableFuture<ImResponse> future;
+        try {
+            future = delegate.executeAsync(request);
+        } catch (RuntimeException e) {
+            node.onCancel();
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CallNotPermittedException || (cause != null && !(cause instanceof IOException))) {
+                node.onCancel();
+                result.completeExceptionally(cause);
+                return;
+            }
+            boolean failed = cause != null || response.getStatus() >= 500;
+            group.onComplete(node, System.nanoTime() - start, failed);
+            ServerNode next = failed && group.canFailover(request, (IOException) cause) ? group.select(attempted) : null;
+            if (next == null) {
+                if (cause == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(cause);
+                }
+                return;
+            }
+            if (response != null) {
+                Retrier.discard(response);
+            }
+            this.attempt(request, url, next, attempted, result);
+        });
+    }
+
+    private void checkHealth() {
+        for (ServerNode node : group.getNodes()) {
+            CompletableFuture<ImResponse> probe;
+            try {
+                probe = delegate.executeAsync(group.healthCheckRequest(node));
+            } catch (RuntimeException e) {
+                group.onHealthCheck(node, false);
+                continue;
+            }
+            probe.whenComplete((response, error) -> {
+                group.onHealthCheck(node, error == null && response.getStatus() < 500);
+                if (response != null) {
+                    Retrier.discard(response);
+                }
+            });
+        }
+    }
+
+}
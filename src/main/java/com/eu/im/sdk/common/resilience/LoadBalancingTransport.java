@@ -0,0 +1,106 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在多个服务端节点之间负载均衡的传输实现
+ * 每个请求按 EndpointGroup 的策略选择节点，ImClient 的 endpoint 只提供路径，协议、主机与端口被替换为选中的节点；
+ * 节点失败（连接失败、超时、5xx）时，还没有发出的请求以及幂等请求与查询立即转移到其他节点，每个节点最多尝试一次
+ * <p>
+ * 使用方式：new ImClient("http://im", token, new LoadBalancingTransport(new PooledHttpTransport(), group))
+ * 放在其他传输实现的最内层，使缓存、合并查询与熔断看到的仍是原始地址；配置了健康检查间隔时使用一个后台线程定期检查每个节点
+ */
+public class LoadBalancingTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final EndpointGroup group;
+
+    private final ScheduledExecutorService healthChecker;
+
+
+    public LoadBalancingTransport(ImTransport delegate, EndpointGroup group) {
+        this.delegate = delegate;
+        this.group = group;
+        long interval = group.getConfig().getHealthCheckInterval();
+        if (interval > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "eu-im-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        String url = request.getUrl();
+        long tried = 0;
+        for (ServerNode node = group.select(tried); ; ) {
+            tried |= 1L << node.index;
+            request.url(group.rewrite(node, url));
+            node.onStart();
+            long start = System.nanoTime();
+            ImResponse response;
+            try {
+                response = delegate.execute(request);
+            } catch (CallNotPermittedException | RuntimeException e) {
+                node.onCancel();
+                throw e;
+            } catch (IOException e) {
+                group.onComplete(node, System.nanoTime() - start, true);
+                ServerNode next = group.canFailover(request, e) ? group.select(tried) : null;
+                if (next == null) {
+                    throw e;
+                }
+                node = next;
+                continue;
+            }
+            boolean failed = response.getStatus() >= 500;
+            group.onComplete(node, System.nanoTime() - start, failed);
+            ServerNode next = failed && group.canFailover(request, null) ? group.select(tried) : null;
+            if (next == null) {
+                return response;
+            }
+            Retrier.discard(response);
+            node = next;
+        }
+    }
+
+    public EndpointGroup getGroup() {
+        return group;
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        delegate.close();
+    }
+
+    private void checkHealth() {
+        for (ServerNode node : group.getNodes()) {
+            boolean healthy;
+            try {
+                ImResponse response = delegate.execute(group.healthCheckRequest(node));
+                healthy = response.getStatus() < 500;
+                Retrier.discard(response);
+            } catch (IOException | RuntimeException e) {
+                healthy = false;
+            }
+            group.onHealthCheck(node, healthy);
+        }
+    }
+
+}
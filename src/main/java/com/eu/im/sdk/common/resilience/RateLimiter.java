@@ -0,0 +1,239 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 接口 + token 的限流器（令牌桶）
+ * 使用 GCRA 算法实现：只保存下一个许可的理论发放时间，获取许可是对一个 AtomicLong 的一次 CAS，
+ * 不加锁、不排队，数百个线程并发获取时也只在这一个变量上竞争；需要等待时先预约许可再在调用线程中等待
+ * <p>
+ * 服务端的限流响应头会动态调整发放速率：
+ * 429 时暂停到 Retry-After（或 RateLimit-Reset）指定的时间；
+ * 带 RateLimit-Remaining 与 RateLimit-Reset（或 X-RateLimit-*）时，在重置之前把速率降为 剩余次数 / 剩余时间，剩余 0 次时暂停到重置
+ */
+public final class RateLimiter {
+
+    private final String endpoint;
+
+    /**
+     * 配置的许可间隔（纳秒）
+     */
+    private final long interval;
+
+    /**
+     * 允许提前发放的时间（纳秒），即 burst - 1 个许可间隔
+     */
+    private final long tolerance;
+
+    /**
+     * 下一个许可的理论发放时间（System.nanoTime）
+     */
+    private final AtomicLong arrival;
+
+    /**
+     * 服务端要求的更低速率，为 null 表示没有
+     */
+    private volatile Quota quota;
+
+    private final LongAdder throttledCount = new LongAdder();
+
+
+    RateLimiter(String endpoint, double permitsPerSecond, int burst) {
+        this.endpoint = endpoint;
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.tolerance = (burst - 1) * interval;
+        this.arrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 立即获取一个许可
+     *
+     * @return 没有可用的许可时返回 false
+     */
+    public boolean tryAcquire() {
+        return this.reserve(0) >= 0;
+    }
+
+    /**
+     * 在指定时间内获取一个许可，需要等待的时间超过 timeout 时立即返回 false，不会白白等待
+     *
+     * @param timeout
+     * @param unit
+     * @return
+     * @throws InterruptedException
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long wait = this.reserve(unit.toNanos(timeout));
+        if (wait < 0) {
+            return false;
+        }
+        TimeUnit.NANOSECONDS.sleep(wait);
+        return true;
+    }
+
+    /**
+     * 获取一个许可，必要时阻塞等待
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(this.reserve(Long.MAX_VALUE));
+    }
+
+    /**
+     * 获取一个许可，返回的 future 在获得许可时完成，等待期间不占用调用线程
+     *
+     * @return
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long wait = this.reserve(Long.MAX_VALUE);
+        if (wait == 0) {
+            future.complete(null);
+        } else {
+            Scheduler.schedule(() -> future.complete(null), wait, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * 当前生效的每秒许可数
+     *
+     * @return
+     */
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / this.interval(System.nanoTime());
+    }
+
+    /**
+     * 收到 429 的次数
+     *
+     * @return
+     */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * 预约一个许可
+     *
+     * @param maxWait 最多等待的纳秒数
+     * @return 获得许可前需要等待的纳秒数，超过 maxWait 时不预约并返回 -1
+     */
+    long reserve(long maxWait) {
+        long now = System.nanoTime();
+        long step = this.interval(now);
+        while (true) {
+            long current = arrival.get();
+            long wait = Math.max(0, current - tolerance - now);
+            if (wait > maxWait) {
+                return -1;
+            }
+            if (arrival.compareAndSet(current, Math.max(current, now) + step)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * 根据响应头调整速率
+     *
+     * @param response
+     * @param throttledPause 429 没有说明何时恢复时暂停的毫秒数
+     */
+    void onResponse(ImResponse response, long throttledPause) {
+        long now = System.nanoTime();
+        long reset = resetAfter(header(response, "RateLimit-Reset", "X-RateLimit-Reset"));
+        if (response.getStatus() == 429) {
+            throttledCount.increment();
+            long retryAfter = TimeUnit.MILLISECONDS.toNanos(Retrier.retryAfter(response));
+            long pause = retryAfter > 0 ? retryAfter : reset > 0 ? reset : TimeUnit.MILLISECONDS.toNanos(throttledPause);
+            this.pauseUntil(now + pause);
+            return;
+        }
+        String remaining = header(response, "RateLimit-Remaining", "X-RateLimit-Remaining");
+        if (remaining == null || reset <= 0) {
+            return;
+        }
+        long left;
+        try {
+            left = Long.parseLong(remaining.trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (left <= 0) {
+            this.pauseUntil(now + reset);
+        } else if (reset / left > interval) {
+            quota = new Quota(reset / left, now + reset);
+        }
+    }
+
+    private long interval(long now) {
+        Quota current = quota;
+        return current != null && now - current.until < 0 ? current.interval : interval;
+    }
+
+    /**
+     * 在指定时间（System.nanoTime）之前不再发放许可
+     */
+    private void pauseUntil(long until) {
+        long target = until + tolerance;
+        long current;
+        do {
+            current = arrival.get();
+            if (current - target >= 0) {
+                return;
+            }
+        } while (!arrival.compareAndSet(current, target));
+    }
+
+    private static String header(ImResponse response, String name, String legacyName) {
+        String value = response.getHeader(name);
+        return value != null ? value : response.getHeader(legacyName);
+    }
+
+    /**
+     * 距离配额重置的纳秒数，头的值为秒数或秒级时间戳，没有或无法解析时返回 -1
+     */
+    private static long resetAfter(String value) {
+        if (value == null) {
+            return -1;
+        }
+        long seconds;
+        try {
+            seconds = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (seconds > 1_000_000_000L) {     //时间戳
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, TimeUnit.SECONDS.toMillis(seconds) - System.currentTimeMillis()));
+        }
+        return TimeUnit.SECONDS.toNanos(Math.max(0, seconds));
+    }
+
+    /**
+     * 服务端要求的速率及其有效期
+     */
+    private static final class Quota {
+
+        private final long interval;
+
+        private final long until;
+
+        Quota(long interval, long until) {
+            this.interval = interval;
+            this.until = until;
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流配置
+ * 限流按 接口 + token 分别计算，即每个用户调用每个接口的速率各自受限
+ */
+public class RateLimiterConfig {
+
+    /**
+     * 未单独配置的接口每秒允许的调用次数
+     */
+    private double permitsPerSecond = 50;
+
+    /**
+     * 单独配置的接口（ImConstants 中的路径模板）每秒允许的调用次数
+     */
+    private final Map<String, Double> endpointRates = new HashMap<>();
+
+    /**
+     * 空闲后允许连续发出的调用次数
+     */
+    private int burst = 10;
+
+    /**
+     * 限流传输实现最多等待多久（毫秒），需要等待更久时直接拒绝
+     */
+    private long maxWait = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * 收到 429 但响应没有说明何时恢复时暂停的时间（毫秒）
+     */
+    private long throttledPause = TimeUnit.SECONDS.toMillis(1);
+
+    /**
+     * 限流器空闲多久（毫秒）后被回收，避免大量 token 的限流器一直占用内存
+     */
+    private long expireAfterAccess = TimeUnit.MINUTES.toMillis(10);
+
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public RateLimiterConfig setPermitsPerSecond(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive.");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        return this;
+    }
+
+    /**
+     * 单独设置某个接口每秒允许的调用次数
+     *
+     * @param endpoint         ImConstants 中的路径模板，如 ImConstants.GROUP_CREATE
+     * @param permitsPerSecond
+     * @return
+     */
+    public RateLimiterConfig setPermitsPerSecond(String endpoint, double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive.");
+        }
+        this.endpointRates.put(endpoint, permitsPerSecond);
+        return this;
+    }
+
+    public double getPermitsPerSecond(String endpoint) {
+        Double rate = endpointRates.get(endpoint);
+        return rate == null ? permitsPerSecond : rate;
+    }
+
+    public Map<String, Double> getEndpointRates() {
+        return Collections.unmodifiableMap(endpointRates);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public RateLimiterConfig setBurst(int burst) {
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive.");
+        }
+        this.burst = burst;
+        return this;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public RateLimiterConfig setMaxWait(long maxWait) {
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("maxWait must not be negative.");
+        }
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    public long getThrottledPause() {
+        return throttledPause;
+    }
+
+    public RateLimiterConfig setThrottledPause(long throttledPause) {
+        if (throttledPause < 0) {
+            throw new IllegalArgumentException("throttledPause must not be negative.");
+        }
+        this.throttledPause = throttledPause;
+        return this;
+    }
+
+    public long getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    public RateLimiterConfig setExpireAfterAccess(long expireAfterAccess) {
+        if (expireAfterAccess <= 0) {
+            throw new IllegalArgumentException("expireAfterAccess must be positive.");
+        }
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
+}
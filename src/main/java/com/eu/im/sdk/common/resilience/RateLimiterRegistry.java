@@ -0,0 +1,99 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 接口 + token 划分的限流器
+ * 同一个实例可以同时交给同步与异步的限流传输实现，也可以由批量任务直接取出限流器控制自己的节奏，
+ * 如 registry.get(ImConstants.GROUP_CREATE, token).acquire()
+ */
+public class RateLimiterRegistry {
+
+    private final RateLimiterConfig config;
+
+    private final EndpointResolver resolver;
+
+    private final Cache<Key, RateLimiter> limiters;
+
+
+    public RateLimiterRegistry() {
+        this(new RateLimiterConfig());
+    }
+
+    public RateLimiterRegistry(RateLimiterConfig config) {
+        this(config, EndpointResolver.DEFAULT);
+    }
+
+    public RateLimiterRegistry(RateLimiterConfig config, EndpointResolver resolver) {
+        this.config = config;
+        this.resolver = resolver;
+        this.limiters = CacheBuilder.newBuilder()
+                .expireAfterAccess(config.getExpireAfterAccess(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 某个用户调用某个接口的限流器
+     *
+     * @param endpoint ImConstants 中的路径模板
+     * @param token    用户 token，为 null 表示不携带 token 的调用（如登录）
+     * @return
+     */
+    public RateLimiter get(String endpoint, String token) {
+        Key key = new Key(endpoint, token);
+        RateLimiter limiter = limiters.getIfPresent(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        try {
+            return limiters.get(key, () -> new RateLimiter(endpoint, config.getPermitsPerSecond(endpoint), config.getBurst()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());  //创建限流器不会抛出受检异常
+        }
+    }
+
+    public RateLimiterConfig getConfig() {
+        return config;
+    }
+
+    RateLimiter of(ImRequest request) {
+        return this.get(resolver.resolve(request), request.getHeader("Authorization"));
+    }
+
+    private static final class Key {
+
+        private final String endpoint;
+
+        private final String token;
+
+        Key(String endpoint, String token) {
+            this.endpoint = endpoint;
+            this.token = token;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return endpoint.equals(that.endpoint) && Objects.equals(token, that.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return endpoint.hashCode() * 31 + Objects.hashCode(token);
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 接口 + token 限流的异步传输实现，限流规则与 RateLimitingTransport 相同
+ * 等待许可期间不占用任何线程，到期后由共用的后台线程发出请求
+ */
+public class RateLimitingAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final RateLimiterRegistry registry;
+
+
+    public RateLimitingAsyncTransport(ImAsyncTransport delegate) {
+        this(delegate, new RateLimiterRegistry());
+    }
+
+    public RateLimitingAsyncTransport(ImAsyncTransport delegate, RateLimiterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        RateLimiterConfig config = registry.getConfig();
+        RateLimiter limiter = registry.of(request);
+        //等待时间同时受请求截止时间限制
+        long wait = limiter.reserve(Math.min(TimeUnit.MILLISECONDS.toNanos(config.getMaxWait()), request.remainingNanos()));
+        if (wait < 0) {
+            CompletableFuture<ImResponse> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CallNotPermittedException(limiter.getEndpoint(),
+                    String.format("接口[%s]调用过于频繁，需要等待超过[%s]毫秒", limiter.getEndpoint(), config.getMaxWait())));
+            return rejected;
+        }
+        if (wait == 0) {
+            return this.send(request, limiter);
+        }
+        CompletableFuture<ImResponse> result = new CompletableFuture<>();
+        Scheduler.schedule(() -> this.send(request, limiter).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(response);
+            }
+        }), wait, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    public RateLimiterRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private CompletableFuture<ImResponse> send(ImRequest request, RateLimiter limiter) {
+        CompletableFuture<ImResponse> future;
+        try {
+            future = delegate.executeAsync(request);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        long throttledPause = registry.getConfig().getThrottledPause();
+        return future.whenComplete((response, error) -> {
+            if (response != null) {
+                limiter.onResponse(response, throttledPause);
+            }
+        });
+    }
+
+}
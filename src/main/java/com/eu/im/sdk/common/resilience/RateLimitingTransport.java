@@ -0,0 +1,66 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 接口 + token 限流的传输实现
+ * 请求发出前在调用线程中等待许可，需要等待超过 maxWait 时直接抛出 CallNotPermittedException；
+ * 收到响应后根据服务端的限流响应头调整速率
+ * <p>
+ * 与重试一起使用时放在重试的内层，使重试同样受限流控制，并在重试前就根据 429 调整速率
+ */
+public class RateLimitingTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final RateLimiterRegistry registry;
+
+
+    public RateLimitingTransport(ImTransport delegate) {
+        this(delegate, new RateLimiterRegistry());
+    }
+
+    public RateLimitingTransport(ImTransport delegate, RateLimiterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        RateLimiterConfig config = registry.getConfig();
+        RateLimiter limiter = registry.of(request);
+        //等待时间同时受请求截止时间限制
+        long wait = limiter.reserve(Math.min(TimeUnit.MILLISECONDS.toNanos(config.getMaxWait()), request.remainingNanos()));
+        if (wait < 0) {
+            throw new CallNotPermittedException(limiter.getEndpoint(),
+                    String.format("接口[%s]调用过于频繁，需要等待超过[%s]毫秒", limiter.getEndpoint(), config.getMaxWait()));
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待限流许可时被中断");
+            }
+        }
+        ImResponse response = delegate.execute(request);
+        limiter.onResponse(response, config.getThrottledPause());
+        return response;
+    }
+
+    public RateLimiterRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ConnectTimeoutException;
+import com.eu.im.sdk.common.transport.DeadlineExceededException;
+import com.eu.im.sdk.common.transport.HttpRoute;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.QueryMatcher;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同步与异步重试传输实现共用的重试判断
+ * <p>
+ * 失败的分类：
+ * 连接失败、连接超时：请求还没有发出，任何请求都重试；
+ * 读取响应超时：服务端可能已经处理了请求，只重试幂等请求（包括携带幂等键的请求）与查询；
+ * 429：服务端拒绝处理，任何请求都按 Retry-After 重试；
+ * 配置的 5xx 状态码：只重试幂等请求与查询，带 Retry-After 时等待时间不少于其要求；
+ * 其余失败不重试；请求有截止时间时，超过截止时间或剩余时间不足以等待到下一次发送也不再重试
+ */
+final class Retrier {
+
+    private final RetryConfig config;
+
+    private final QueryMatcher queryMatcher;
+
+    private final Map<HttpRoute, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+
+    Retrier(RetryConfig config) {
+        this.config = config;
+        this.queryMatcher = new QueryMatcher(config.getQueryPaths());
+    }
+
+    /**
+     * 请求端点的重试预算
+     *
+     * @param request
+     * @return
+     * @throws IOException 请求地址不合法
+     */
+    RetryBudget budget(ImRequest request) throws IOException {
+        HttpRoute route = HttpRoute.of(new URL(request.getUrl()));
+        RetryBudget budget = budgets.get(route);
+        if (budget == null) {
+            budget = budgets.computeIfAbsent(route, key -> new RetryBudget(config.getBudgetRatio(), config.getBudgetCapacity()));
+        }
+        return budget;
+    }
+
+    /**
+     * 网络层面失败后的等待时间
+     *
+     * @param request
+     * @param failure
+     * @param attempt 已经发送的次数
+     * @param budget
+     * @return 等待的毫秒数，不重试时返回 -1
+     */
+    long delayAfter(ImRequest request, IOException failure, int attempt, RetryBudget budget) {
+        boolean retryable;
+        if (failure instanceof DeadlineExceededException) {
+            retryable = false;
+        } else if (failure instanceof ConnectTimeoutException || failure instanceof ConnectException || failure instanceof NoRouteToHostException) {
+            retryable = true;
+        } else if (failure instanceof SocketTimeoutException) {
+            retryable = config.isRetryOnReadTimeout() && this.isResendable(request);
+        } else {
+            retryable = false;
+        }
+        return retryable ? this.schedule(request, attempt, 0, budget) : -1;
+    }
+
+    /**
+     * 收到响应后的等待时间
+     *
+     * @param request
+     * @param response
+     * @param attempt  已经发送的次数
+     * @param budget
+     * @return 等待的毫秒数，不重试时返回 -1
+     */
+    long delayAfter(ImRequest request, ImResponse response, int attempt, RetryBudget budget) {
+        int status = response.getStatus();
+        if (status != 429 && !(config.getRetryableStatuses().contains(status) && this.isResendable(request))) {
+            return -1;
+        }
+        long retryAfter = retryAfter(response);
+        if (retryAfter > config.getMaxRetryAfter()) {
+            return -1;
+        }
+        return this.schedule(request, attempt, retryAfter, budget);
+    }
+
+    long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    private boolean isResendable(ImRequest request) {
+        return request.isResendable() || queryMatcher.isQuery(request);
+    }
+
+    private long schedule(ImRequest request, int attempt, long minimum, RetryBudget budget) {
+        if (attempt >= config.getMaxAttempts()) {
+            return -1;
+        }
+        long delay = Math.max(minimum, this.backoff(attempt));
+        if (TimeUnit.MILLISECONDS.toNanos(delay) >= request.remainingNanos()) {
+            return -1;
+        }
+        if (!budget.tryWithdraw()) {
+            budgetExhaustedCount.increment();
+            return -1;
+        }
+        retryCount.increment();
+        request.incrementRetries();
+        return delay;
+    }
+
+    private long backoff(int attempt) {
+        double delay = Math.min(config.getMaxDelay(), config.getBaseDelay() * Math.pow(config.getMultiplier(), attempt - 1));
+        return (long) (delay * (1 - config.getJitter() * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Retry-After 要求的等待时间（毫秒），支持秒数与 HTTP 日期两种格式，没有或无法解析时返回 0
+     */
+    static long retryAfter(ImResponse response) {
+        String value = response.getHeader("Retry-After");
+        if (value == null) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException ignore) {  //不是秒数，按 HTTP 日期解析
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 丢弃准备重试的响应，读完响应体使连接可以被复用
+     *
+     * @param response
+     */
+    static void discard(ImResponse response) {
+        try (ImResponse closeable = response) {
+            InputStream body = closeable.getBody();
+            if (body != null) {
+                ByteStreams.exhaust(body);
+            }
+        } catch (IOException ignore) {  //读取失败时连接已经被丢弃，这里无需处理
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个端点的重试预算（令牌桶），对冲请求同样使用
+ * 每个请求存入 ratio 个令牌，每次重试取出一个，令牌不足时不再重试，
+ * 服务端持续失败时重试次数被限制在请求数的固定比例内，不会成倍放大故障期间的流量
+ * <p>
+ * 令牌以千分之一为单位保存在一个 AtomicLong 中，存取都是无锁的
+ */
+final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+
+    RetryBudget(double ratio, int capacity) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = capacity * SCALE;
+        this.balance = new AtomicLong(this.capacity);   //初始为满，冷启动时也能重试
+    }
+
+    /**
+     * 发出一个新请求时存入令牌
+     */
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * 取出一次重试所需的令牌
+     *
+     * @return 令牌不足时返回 false
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * 剩余的令牌数
+     *
+     * @return
+     */
+    double getBalance() {
+        return balance.get() / (double) SCALE;
+    }
+
+}
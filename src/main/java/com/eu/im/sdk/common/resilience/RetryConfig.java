@@ -0,0 +1,204 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.constants.ImConstants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重试策略配置
+ * 第 n 次重试前等待 baseDelay * multiplier^(n-1)，不超过 maxDelay，再乘以 (1 - jitter, 1] 之间的随机数打散
+ * 重试预算按端点分别计算：每个请求存入 budgetRatio 个令牌，每次重试取出一个，最多积累 budgetCapacity 个，
+ * 因此长期来看重试次数不会超过请求数的 budgetRatio 倍（外加 budgetCapacity 次突发）
+ */
+public class RetryConfig {
+
+    /**
+     * 最多发送次数（包括第一次）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 第一次重试前的等待时间（毫秒）
+     */
+    private long baseDelay = 100;
+
+    /**
+     * 单次等待时间的上限（毫秒）
+     */
+    private long maxDelay = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * 等待时间的增长倍数
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * 随机打散的比例，1 表示在 (0, 等待时间] 之间完全随机，0 表示不打散
+     */
+    private double jitter = 1.0;
+
+    /**
+     * 服务端通过 Retry-After 要求等待的时间超过该值（毫秒）时不再重试
+     */
+    private long maxRetryAfter = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 幂等请求收到后可以重试的状态码，429 总是按 Retry-After 重试，不需要配置在这里
+     */
+    private Set<Integer> retryableStatuses = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(502, 503, 504)));
+
+    /**
+     * 是否重试读取响应超时的幂等请求
+     */
+    private boolean retryOnReadTimeout = true;
+
+    /**
+     * 每个请求存入重试预算的令牌数，即重试次数占请求数的最大比例
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 每个端点的重试预算最多积累的令牌数
+     */
+    private int budgetCapacity = 10;
+
+    /**
+     * 使用 POST 发送但只做查询、可以像幂等请求一样重试的接口路径
+     */
+    private Set<String> queryPaths = Collections.singleton(ImConstants.CHART_LIST);
+
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryConfig setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive.");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    public RetryConfig setBaseDelay(long baseDelay) {
+        if (baseDelay < 0) {
+            throw new IllegalArgumentException("baseDelay must not be negative.");
+        }
+        this.baseDelay = baseDelay;
+        return this;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public RetryConfig setMaxDelay(long maxDelay) {
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("maxDelay must not be negative.");
+        }
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public RetryConfig setMultiplier(double multiplier) {
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("multiplier must not be less than 1.");
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public RetryConfig setJitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1.");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    public long getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    public RetryConfig setMaxRetryAfter(long maxRetryAfter) {
+        if (maxRetryAfter < 0) {
+            throw new IllegalArgumentException("maxRetryAfter must not be negative.");
+        }
+        this.maxRetryAfter = maxRetryAfter;
+        return this;
+    }
+
+    public Set<Integer> getRetryableStatuses() {
+        return retryableStatuses;
+    }
+
+    public RetryConfig setRetryableStatuses(Integer... retryableStatuses) {
+        for (Integer status : retryableStatuses) {
+            if (status == null || status < 100 || status > 599) {
+                throw new IllegalArgumentException("retryableStatuses must be valid http status codes.");
+            }
+        }
+        this.retryableStatuses = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(retryableStatuses)));
+        return this;
+    }
+
+    public boolean isRetryOnReadTimeout() {
+        return retryOnReadTimeout;
+    }
+
+    public RetryConfig setRetryOnReadTimeout(boolean retryOnReadTimeout) {
+        this.retryOnReadTimeout = retryOnReadTimeout;
+        return this;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public RetryConfig setBudgetRatio(double budgetRatio) {
+        if (!(budgetRatio >= 0 && budgetRatio <= 1)) {
+            throw new IllegalArgumentException("budgetRatio must be between 0 and 1.");
+        }
+        this.budgetRatio = budgetRatio;
+        return this;
+    }
+
+    public int getBudgetCapacity() {
+        return budgetCapacity;
+    }
+
+    public RetryConfig setBudgetCapacity(int budgetCapacity) {
+        if (budgetCapacity < 0) {
+            throw new IllegalArgumentException("budgetCapacity must not be negative.");
+        }
+        this.budgetCapacity = budgetCapacity;
+        return this;
+    }
+
+    public Set<String> getQueryPaths() {
+        return queryPaths;
+    }
+
+    public RetryConfig setQueryPaths(String... queryPaths) {
+        this.queryPaths = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(queryPaths)));
+        return this;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按重试策略自动重试的异步传输实现
+ * 重试判断与 RetryingTransport 相同，等待期间不占用任何线程：到期后由共用的后台线程重新发出请求
+ */
+public class RetryingAsyncTransport implements ImAsyncTransport {
+
+    private final ImAsyncTransport delegate;
+
+    private final Retrier retrier;
+
+
+    public RetryingAsyncTransport(ImAsyncTransport delegate) {
+        this(delegate, new RetryConfig());
+    }
+
+    public RetryingAsyncTransport(ImAsyncTransport delegate, RetryConfig config) {
+        this.delegate = delegate;
+        this.retrier = new Retrier(config);
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        CompletableFuture<ImResponse> result = new CompletableFuture<>();
+        RetryBudget budget;
+        try {
+            budget = retrier.budget(request);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        budget.deposit();
+        this.attempt(request, budget, 1, result);
+        return result;
+    }
+
+    /**
+     * 重试的总次数
+     *
+     * @return
+     */
+    public long getRetryCount() {
+        return retrier.getRetryCount();
+    }
+
+    /**
+     * 因重试预算耗尽而放弃重试的次数
+     *
+     * @return
+     */
+    public long getBudgetExhaustedCount() {
+        return retrier.getBudgetExhaustedCount();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private void attempt(ImRequest request, RetryBudget budget, int attempt, CompletableFuture<ImResponse> result) {
+        CompletableFuture<ImResponse> future;
+        try {
+            future = delegate.executeAsync(request);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            long delay;
+            if (cause == null) {
+                delay = retrier.delayAfter(request, response, attempt, budget);
+            } else if (cause instanceof IOException) {
+                delay = retrier.delayAfter(request, (IOException) cause, attempt, budget);
+            } else {
+                delay = -1;
+            }
+
+            if (delay < 0) {
+                if (cause == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(cause);
+                }
+                return;
+            }
+            if (response != null) {
+                Retrier.discard(response);
+            }
+            Scheduler.schedule(() -> this.attempt(request, budget, attempt + 1, result), delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.eu.im.sdk.common.resilience;
+
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * 按重试策略自动重试的传输实现
+ * 可重试的失败在调用线程中等待指数退避（带随机打散）后重新发送，重试次数受每个端点的重试预算限制，
+ * 放弃重试时原样返回最后一次的响应或抛出最后一次的异常，调用者看到的结果与不重试时一致
+ * <p>
+ * 使用方式：new ImClient(endpoint, token, new RetryingTransport(HttpUtil.INSTANCE.getTransport()))
+ * 与缓存、合并查询一起使用时放在它们的内层，使缓存命中与共享的查询不消耗重试预算
+ */
+public class RetryingTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final Retrier retrier;
+
+
+    public RetryingTransport(ImTransport delegate) {
+        this(delegate, new RetryConfig());
+    }
+
+    public RetryingTransport(ImTransport delegate, RetryConfig config) {
+        this.delegate = delegate;
+        this.retrier = new Retrier(config);
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        RetryBudget budget = retrier.budget(request);
+        budget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            ImResponse response;
+            try {
+                response = delegate.execute(request);
+            } catch (IOException e) {
+                long delay = retrier.delayAfter(request, e, attempt, budget);
+                if (delay < 0) {
+                    throw e;
+                }
+                sleep(delay);
+                continue;
+            }
+            long delay = retrier.delayAfter(request, response, attempt, budget);
+            if (delay < 0) {
+                return response;
+            }
+            Retrier.discard(response);
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 重试的总次数
+     *
+     * @return
+     */
+    public long getRetryCount() {
+        return retrier.getRetryCount();
+    }
+
+    /**
+     * 因重试预算耗尽而放弃重试的次数
+     *
+     * @return
+     */
+    public long getBudgetExhaustedCount() {
+        return retrier.getBudgetExhaustedCount();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static void sleep(long delay) throws InterruptedIOException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待重试时被中断");
+        }
+    }
+
+}
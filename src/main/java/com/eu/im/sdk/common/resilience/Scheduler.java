@@ -0,0 +1,31 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步重试、限流等待、对冲请求、异步健康检查共用的定时线程
+ * 到期后执行的任务只负责发出请求或完成 future，不会执行阻塞操作
+ */
+final class Scheduler {
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "eu-im-resilience-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Scheduler() {
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return EXECUTOR.schedule(task, delay, unit);
+    }
+
+    static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay, TimeUnit unit) {
+        return EXECUTOR.scheduleWithFixedDelay(task, delay, delay, unit);
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端节点及其负载与健康状态
+ * 连续失败达到阈值后被摘除一段时间，期间不再被选中；主动健康检查成功时立即恢复
+ */
+public final class ServerNode {
+
+    /**
+     * 延迟 EWMA 中新样本的权重
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    /**
+     * 在 EndpointGroup 中的序号
+     */
+    final int index;
+
+    private final String url;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /**
+     * 延迟的指数加权移动平均（纳秒），以 double 的位保存，0 表示还没有样本
+     */
+    private final AtomicLong latencyEwma = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 摘除到期的时间点（System.nanoTime），0 表示没有被摘除
+     */
+    private volatile long ejectedUntil;
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+
+    ServerNode(int index, String url) {
+        this.index = index;
+        this.url = url;
+    }
+
+    /**
+     * 当前是否可以被选中
+     *
+     * @param now System.nanoTime
+     * @return
+     */
+    boolean isAvailable(long now) {
+        long until = ejectedUntil;
+        return until == 0 || now - until >= 0;
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+        requestCount.increment();
+    }
+
+    /**
+     * 请求完成
+     *
+     * @param latency          纳秒，只有成功的请求计入延迟
+     * @param failed           是否因节点自身的原因失败（连接失败、超时、5xx）
+     * @param failureThreshold 连续失败多少次后摘除
+     * @param ejectNanos       摘除时长
+     * @return 本次失败是否导致节点被摘除
+     */
+    boolean onComplete(long latency, boolean failed, int failureThreshold, long ejectNanos) {
+        outstanding.decrementAndGet();
+        if (!failed) {
+            //失败往往很快返回（如连接被拒绝），只用成功请求的延迟，避免故障节点显得更快
+            this.recordLatency(latency);
+            consecutiveFailures.set(0);
+            return false;
+        }
+        failureCount.increment();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            consecutiveFailures.set(0);
+            this.eject(ejectNanos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 请求没有到达节点（被内层拒绝等），只归还计数
+     */
+    void onCancel() {
+        outstanding.decrementAndGet();
+    }
+
+    void eject(long ejectNanos) {
+        long until = System.nanoTime() + ejectNanos;
+        ejectedUntil = until == 0 ? 1 : until;
+    }
+
+    void restore() {
+        consecutiveFailures.set(0);
+        ejectedUntil = 0;
+    }
+
+    private void recordLatency(long latency) {
+        long current;
+        long updated;
+        do {
+            current = latencyEwma.get();
+            double ewma = Double.longBitsToDouble(current);
+            updated = Double.doubleToRawLongBits(ewma == 0 ? latency : ewma + EWMA_WEIGHT * (latency - ewma));
+        } while (!latencyEwma.compareAndSet(current, updated));
+    }
+
+    /**
+     * 节点地址，只包含协议、主机与端口，如 http://10.0.0.1:8080
+     *
+     * @return
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 进行中的请求数
+     *
+     * @return
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * 延迟的指数加权移动平均（纳秒），还没有样本时为 0
+     *
+     * @return
+     */
+    public double getLatencyEwma() {
+        return Double.longBitsToDouble(latencyEwma.get());
+    }
+
+    /**
+     * 是否处于摘除状态
+     *
+     * @return
+     */
+    public boolean isEjected() {
+        return !this.isAvailable(System.nanoTime());
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return url + "{outstanding=" + outstanding.get() + ", latencyEwma=" + TimeUnit.NANOSECONDS.toMillis((long) this.getLatencyEwma()) + "ms, ejected=" + this.isEjected() + "}";
+    }
+
+}
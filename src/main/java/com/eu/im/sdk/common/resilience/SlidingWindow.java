@@ -0,0 +1,119 @@
+package com.eu.im.sdk.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按时间滑动的调用统计窗口
+ * 窗口被切分为固定个数的时间片，记录调用时只累加当前时间片的计数器；
+ * 时间片过期后通过 CAS 整体替换，记录与替换都不加锁，替换瞬间并发写入旧时间片的少量计数会丢失，对比例统计没有影响
+ */
+final class SlidingWindow {
+
+    private final long bucketNanos;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+
+    /**
+     * @param window      窗口长度（毫秒）
+     * @param bucketCount 时间片个数
+     */
+    SlidingWindow(long window, int bucketCount) {
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(window) / bucketCount);
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * 记录一次调用
+     *
+     * @param failed 是否失败
+     * @param slow   是否为慢调用
+     */
+    void record(boolean failed, boolean slow) {
+        long index = Math.floorDiv(System.nanoTime(), bucketNanos);
+        int slot = (int) Math.floorMod(index, (long) buckets.length());
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.index != index) {
+            if (bucket != null && bucket.index > index) {
+                return;     //线程在计算下标后被挂起过久，时间片已被后来的调用占用
+            }
+            Bucket fresh = new Bucket(index);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+            bucket = buckets.get(slot);
+        }
+        bucket.calls.increment();
+        if (failed) {
+            bucket.failures.increment();
+        }
+        if (slow) {
+            bucket.slowCalls.increment();
+        }
+    }
+
+    /**
+     * 窗口内的统计
+     *
+     * @return
+     */
+    Snapshot snapshot() {
+        long current = Math.floorDiv(System.nanoTime(), bucketNanos);
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && current - bucket.index < buckets.length()) {
+                calls += bucket.calls.sum();
+                failures += bucket.failures.sum();
+                slowCalls += bucket.slowCalls.sum();
+            }
+        }
+        return new Snapshot(calls, failures, slowCalls);
+    }
+
+    private static final class Bucket {
+
+        private final long index;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder slowCalls = new LongAdder();
+
+        Bucket(long index) {
+            this.index = index;
+        }
+
+    }
+
+    static final class Snapshot {
+
+        final long calls;
+
+        final long failures;
+
+        final long slowCalls;
+
+        Snapshot(long calls, long failures, long slowCalls) {
+            this.calls = calls;
+            this.failures = failures;
+            this.slowCalls = slowCalls;
+        }
+
+        double failureRate() {
+            return calls == 0 ? 0 : (double) failures / calls;
+        }
+
+        double slowCallRate() {
+            return calls == 0 ? 0 : (double) slowCalls / calls;
+        }
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.eu.im.sdk.common.tracing;
+
+import lombok.Data;
+
+/**
+ * 一次 HTTP 调用的 span，只有被采样的调用才会创建
+ * 各阶段耗时均为纳秒，传输实现不支持的阶段为 0
+ */
+@Data
+public class ImSpan {
+
+    private String traceId;
+
+    private String spanId;
+
+    /**
+     * 上游 span id，本次调用开始了新链路时为 null
+     */
+    private String parentSpanId;
+
+    /**
+     * ImConstants 中的路径模板
+     */
+    private String endpoint;
+
+    private String method;
+
+    private String url;
+
+    /**
+     * 响应状态码，没有得到响应时为 0
+     */
+    private int status;
+
+    /**
+     * 失败时 GlobalException 的错误码，成功时为 null
+     */
+    private Integer errorCode;
+
+    /**
+     * 开始时间（毫秒时间戳）
+     */
+    private long startTime;
+
+    /**
+     * 总耗时
+     */
+    private long duration;
+
+    /**
+     * 解析主机名
+     */
+    private long resolve;
+
+    /**
+     * 获取连接，包括等待空闲连接、建立连接与 TLS 握手
+     */
+    private long connect;
+
+    /**
+     * 写出请求
+     */
+    private long write;
+
+    /**
+     * 请求写出后等待第一个响应字节，基本等于服务端处理时间
+     */
+    private long waiting;
+
+    /**
+     * 传输层读取响应，流式读取响应体的传输实现只包括响应头
+     */
+    private long read;
+
+    /**
+     * 读取剩余的响应体并解码
+     */
+    private long decode;
+
+    /**
+     * 重试次数
+     */
+    private int retries;
+
+}
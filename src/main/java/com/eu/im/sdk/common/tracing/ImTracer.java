@@ -0,0 +1,23 @@
+package com.eu.im.sdk.common.tracing;
+
+/**
+ * 链路追踪扩展接口，接收被采样调用的 span
+ * 在调用线程（异步调用时为解码响应的线程）中同步调用，实现类如需上报到远端应自行缓冲、批量发送
+ */
+@FunctionalInterface
+public interface ImTracer {
+
+    /**
+     * 关闭链路追踪：不生成链路 id，也不添加 traceparent 请求头
+     */
+    ImTracer NOOP = span -> {
+    };
+
+    /**
+     * 一次被采样的调用结束
+     *
+     * @param span
+     */
+    void onSpan(ImSpan span);
+
+}
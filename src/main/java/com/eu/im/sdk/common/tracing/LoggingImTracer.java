@@ -0,0 +1,28 @@
+package com.eu.im.sdk.common.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将 span 输出到日志的实现，用于排查单次调用的耗时分布
+ */
+@Slf4j
+public class LoggingImTracer implements ImTracer {
+
+    @Override
+    public void onSpan(ImSpan span) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        log.info("[{}/{}] {} {} status={} error={} retries={} total={}ms resolve={}ms connect={}ms write={}ms wait={}ms read={}ms decode={}ms",
+                span.getTraceId(), span.getSpanId(), span.getMethod(), span.getEndpoint(), span.getStatus(), span.getErrorCode(), span.getRetries(),
+                millis(span.getDuration()), millis(span.getResolve()), millis(span.getConnect()), millis(span.getWrite()),
+                millis(span.getWaiting()), millis(span.getRead()), millis(span.getDecode()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.eu.im.sdk.common.tracing;
+
+/**
+ * 采样策略
+ * 只对新开始的链路调用，沿用上游链路时采样结果跟随上游；判断只依赖链路 id，不产生任何对象
+ */
+@FunctionalInterface
+public interface Sampler {
+
+    /**
+     * 全部采样
+     */
+    Sampler ALWAYS = traceId -> true;
+
+    /**
+     * 全部不采样，链路 id 仍会传递给服务端
+     */
+    Sampler NEVER = traceId -> false;
+
+    /**
+     * 是否采样
+     *
+     * @param traceId 链路 id 的低 64 位，随机生成
+     * @return
+     */
+    boolean isSampled(long traceId);
+
+    /**
+     * 按比例采样
+     * 直接比较随机的链路 id，同一条链路在任何节点上的判断结果都相同
+     *
+     * @param ratio 0 到 1 之间
+     * @return
+     */
+    static Sampler ratio(double ratio) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("ratio must be between 0 and 1.");
+        }
+        if (ratio == 0) {
+            return NEVER;
+        }
+        if (ratio == 1) {
+            return ALWAYS;
+        }
+        long bound = (long) (ratio * Long.MAX_VALUE);
+        return traceId -> (traceId & Long.MAX_VALUE) < bound;
+    }
+
+}
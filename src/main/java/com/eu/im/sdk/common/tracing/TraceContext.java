@@ -0,0 +1,187 @@
+package com.eu.im.sdk.common.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C Trace Context 中的链路信息，对应 traceparent 请求头
+ * 格式：00-{32 位十六进制链路 id}-{16 位十六进制 span id}-{标志位，01 表示采样}
+ * 参考：https://www.w3.org/TR/trace-context/
+ */
+public final class TraceContext {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final int TRACEPARENT_LENGTH = 55;
+
+    private final long traceIdHigh;
+
+    private final long traceIdLow;
+
+    private final long spanId;
+
+    /**
+     * 上游 span id，没有上游或上游来自其它进程时为 0
+     */
+    private final long parentSpanId;
+
+    private final boolean sampled;
+
+
+    private TraceContext(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, boolean sampled) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * 开始一条新的链路
+     *
+     * @param sampler
+     * @return
+     */
+    public static TraceContext newRoot(Sampler sampler) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long low = nonZero(random);
+        return new TraceContext(random.nextLong(), low, nonZero(random), 0, sampler.isSampled(low));
+    }
+
+    /**
+     * 解析 traceparent 请求头，用于接续上游的链路
+     *
+     * @param traceparent
+     * @return 格式不合法时返回 null
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        traceparent = traceparent.trim();
+        if (traceparent.length() < TRACEPARENT_LENGTH || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-'
+                || traceparent.charAt(52) != '-' || traceparent.startsWith("ff")) {
+            return null;
+        }
+        //版本 00 的长度固定，更高的版本允许在后面追加字段
+        if (traceparent.startsWith("00") ? traceparent.length() != TRACEPARENT_LENGTH
+                : traceparent.length() > TRACEPARENT_LENGTH && traceparent.charAt(TRACEPARENT_LENGTH) != '-') {
+            return null;
+        }
+        try {
+            digit(traceparent.charAt(0));
+            digit(traceparent.charAt(1));
+            long high = parseHex(traceparent, 3);
+            long low = parseHex(traceparent, 19);
+            long spanId = parseHex(traceparent, 36);
+            int flags = (digit(traceparent.charAt(53)) << 4) | digit(traceparent.charAt(54));
+            if ((high == 0 && low == 0) || spanId == 0) {
+                return null;
+            }
+            return new TraceContext(high, low, spanId, 0, (flags & 1) != 0);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 同一链路下的新 span，采样结果与当前 span 相同
+     *
+     * @return
+     */
+    public TraceContext newChild() {
+        return new TraceContext(traceIdHigh, traceIdLow, nonZero(ThreadLocalRandom.current()), spanId, sampled);
+    }
+
+    /**
+     * traceparent 请求头的值
+     *
+     * @return
+     */
+    public String toTraceparent() {
+        char[] chars = new char[TRACEPARENT_LENGTH];
+        chars[0] = '0';
+        chars[1] = '0';
+        chars[2] = '-';
+        writeHex(chars, 3, traceIdHigh);
+        writeHex(chars, 19, traceIdLow);
+        chars[35] = '-';
+        writeHex(chars, 36, spanId);
+        chars[52] = '-';
+        chars[53] = '0';
+        chars[54] = sampled ? '1' : '0';
+        return new String(chars);
+    }
+
+    public String getTraceId() {
+        char[] chars = new char[32];
+        writeHex(chars, 0, traceIdHigh);
+        writeHex(chars, 16, traceIdLow);
+        return new String(chars);
+    }
+
+    public String getSpanId() {
+        char[] chars = new char[16];
+        writeHex(chars, 0, spanId);
+        return new String(chars);
+    }
+
+    /**
+     * 上游 span id
+     *
+     * @return 本 span 开始了新链路时返回 null
+     */
+    public String getParentSpanId() {
+        if (parentSpanId == 0) {
+            return null;
+        }
+        char[] chars = new char[16];
+        writeHex(chars, 0, parentSpanId);
+        return new String(chars);
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String toString() {
+        return this.toTraceparent();
+    }
+
+    private static long nonZero(ThreadLocalRandom random) {
+        long value;
+        do {
+            value = random.nextLong();
+        } while (value == 0);
+        return value;
+    }
+
+    private static void writeHex(char[] chars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+
+    private static long parseHex(String value, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            result = (result << 4) | digit(value.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * 规范只允许小写的十六进制字符
+     */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        throw new IllegalArgumentException("invalid hex character.");
+    }
+
+}
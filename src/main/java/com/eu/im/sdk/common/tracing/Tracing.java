@@ -0,0 +1,109 @@
+package com.eu.im.sdk.common.tracing;
+
+/**
+ * 全局使用的链路追踪实现与采样策略
+ * 默认关闭；设置 ImTracer 后，HttpUtil 为每个请求添加 traceparent 请求头，被采样的请求结束后生成 span
+ * 线上建议配合 Sampler.ratio 使用：未被采样的请求只生成链路 id，不记录任何数据
+ * <p>
+ * 需要接续上游链路时（例如在处理带 traceparent 的请求时调用 SDK），在调用线程中激活上游的链路：
+ * <pre>
+ * try (Tracing.Scope scope = Tracing.activate(TraceContext.parse(traceparent))) {
+ *     client.chartMessage(...);
+ * }
+ * </pre>
+ */
+public final class Tracing {
+
+    /**
+     * W3C Trace Context 的请求头
+     */
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+    private static volatile ImTracer tracer = ImTracer.NOOP;
+
+    private static volatile Sampler sampler = Sampler.ALWAYS;
+
+    private Tracing() {
+    }
+
+    public static ImTracer getTracer() {
+        return tracer;
+    }
+
+    public static void setTracer(ImTracer tracer) {
+        if (tracer == null) {
+            throw new IllegalArgumentException("tracer should not be null.");
+        }
+        Tracing.tracer = tracer;
+    }
+
+    public static Sampler getSampler() {
+        return sampler;
+    }
+
+    public static void setSampler(Sampler sampler) {
+        if (sampler == null) {
+            throw new IllegalArgumentException("sampler should not be null.");
+        }
+        Tracing.sampler = sampler;
+    }
+
+    /**
+     * 当前线程激活的链路
+     *
+     * @return 没有时返回 null
+     */
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在当前线程激活链路，关闭返回的 Scope 后恢复之前的链路
+     *
+     * @param context 为 null 时表示之后的请求开始新链路
+     * @return
+     */
+    public static Scope activate(TraceContext context) {
+        TraceContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return new Scope(previous);
+    }
+
+    /**
+     * 为一次调用生成 span 的链路信息：当前线程有激活的链路时作为其子 span，否则开始新链路
+     *
+     * @return 链路追踪关闭时返回 null
+     */
+    public static TraceContext nextSpan() {
+        if (tracer == ImTracer.NOOP) {
+            return null;
+        }
+        TraceContext parent = CURRENT.get();
+        return parent == null ? TraceContext.newRoot(sampler) : parent.newChild();
+    }
+
+    /**
+     * 激活链路的作用域
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final TraceContext previous;
+
+        private Scope(TraceContext previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+
+    }
+
+}
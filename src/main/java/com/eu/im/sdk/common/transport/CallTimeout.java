@@ -0,0 +1,71 @@
+package com.eu.im.sdk.common.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次调用的超时设置
+ * 设置了截止时间时，连接、等待与读取的超时都不会超过剩余时间，调用内的全部重试共用同一个截止时间
+ */
+public final class CallTimeout {
+
+    /**
+     * 不限制截止时间，连接超时 1 秒、每次读取超时 3 秒
+     */
+    public static final CallTimeout DEFAULT = new CallTimeout(1000, 3000, 0);
+
+    /**
+     * 连接超时时间（毫秒）
+     */
+    private final int connectTimeout;
+
+    /**
+     * 每次读取的超时时间（毫秒），0 表示只受截止时间限制
+     */
+    private final int readTimeout;
+
+    /**
+     * 截止时间（System.nanoTime），0 表示不限制
+     */
+    private final long deadline;
+
+
+    public CallTimeout(int connectTimeout, int readTimeout, long deadline) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("connectTimeout must not be negative.");
+        }
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException("readTimeout must not be negative.");
+        }
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.deadline = deadline;
+    }
+
+    /**
+     * 从现在开始计算截止时间，读取只受截止时间限制
+     *
+     * @param connectTimeout 连接超时时间（毫秒），同样不超过剩余时间
+     * @param timeout        整个调用的超时时间
+     * @param unit
+     * @return
+     */
+    public static CallTimeout after(int connectTimeout, long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be positive.");
+        }
+        return new CallTimeout(connectTimeout, 0, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+}
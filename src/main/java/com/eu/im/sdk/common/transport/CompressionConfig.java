@@ -0,0 +1,74 @@
+package com.eu.im.sdk.common.transport;
+
+import java.util.zip.Deflater;
+
+/**
+ * 请求与响应的压缩配置
+ * 响应按 Content-Encoding 边读取边解压，请求体超过 minRequestSize 时使用 gzip 压缩
+ */
+public class CompressionConfig {
+
+    /**
+     * 是否发送 Accept-Encoding，接受 gzip 与 deflate 压缩的响应
+     */
+    private boolean acceptCompressed = true;
+
+    /**
+     * 是否压缩请求体，需要服务端支持 Content-Encoding: gzip 的请求
+     */
+    private boolean compressRequests = false;
+
+    /**
+     * 请求体达到该大小（字节）时才压缩，过小的请求压缩后收益有限
+     */
+    private int minRequestSize = 1024;
+
+    /**
+     * 请求体的压缩级别，1 最快，9 压缩率最高
+     */
+    private int level = 6;
+
+
+    public boolean isAcceptCompressed() {
+        return acceptCompressed;
+    }
+
+    public CompressionConfig setAcceptCompressed(boolean acceptCompressed) {
+        this.acceptCompressed = acceptCompressed;
+        return this;
+    }
+
+    public boolean isCompressRequests() {
+        return compressRequests;
+    }
+
+    public CompressionConfig setCompressRequests(boolean compressRequests) {
+        this.compressRequests = compressRequests;
+        return this;
+    }
+
+    public int getMinRequestSize() {
+        return minRequestSize;
+    }
+
+    public CompressionConfig setMinRequestSize(int minRequestSize) {
+        if (minRequestSize < 0) {
+            throw new IllegalArgumentException("minRequestSize must not be negative.");
+        }
+        this.minRequestSize = minRequestSize;
+        return this;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public CompressionConfig setLevel(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level must be between 1 and 9.");
+        }
+        this.level = level;
+        return this;
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.SocketTimeoutException;
+
+/**
+ * 建立连接（包括 TLS 握手）超时
+ * 与读取响应超时不同，抛出本异常时请求一定还没有发出，任何请求方法都可以安全的重新发送
+ */
+public class ConnectTimeoutException extends SocketTimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConnectTimeoutException(String message) {
+        super(message);
+    }
+
+}
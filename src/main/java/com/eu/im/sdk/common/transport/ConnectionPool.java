@@ -0,0 +1,212 @@
+package com.eu.im.sdk.common.transport;
+
+import com.eu.im.sdk.common.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/1.1 连接池
+ * 按端点分组管理连接，每个端点的连接数受信号量限制
+ * 空闲连接优先复用最近归还的一个（LIFO），过期连接在获取时以及后台定时任务中回收
+ */
+final class ConnectionPool {
+
+    private final PoolConfig config;
+
+    private final Map<HttpRoute, RoutePool> routes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+
+
+    ConnectionPool(PoolConfig config) {
+        this.config = config;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "eu-im-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(config.getIdleTimeout() / 2, 1000);
+        this.evictor.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取连接，优先复用空闲连接
+     *
+     * @param route
+     * @param request 等待连接与建立连接的时间受请求的截止时间限制
+     * @return
+     * @throws IOException 连接池耗尽或建立连接失败
+     */
+    HttpConnection acquire(HttpRoute route, ImRequest request) throws IOException {
+        return this.acquire(route, request, false);
+    }
+
+    /**
+     * 获取连接
+     *
+     * @param route
+     * @param request 等待连接与建立连接的时间受请求的截止时间限制
+     * @param fresh   为 true 时不复用空闲连接，总是建立新连接
+     * @return
+     * @throws IOException 连接池耗尽或建立连接失败
+     */
+    HttpConnection acquire(HttpRoute route, ImRequest request, boolean fresh) throws IOException {
+        if (closed) {
+            throw new IOException("连接池已关闭");
+        }
+
+        RoutePool routePool = routes.computeIfAbsent(route, key -> new RoutePool(key.toString(), config.getMaxConnectionsPerRoute()));
+
+        try {
+            long wait = Math.min(TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeout()), request.remainingNanos());
+            if (!routePool.permits.tryAcquire(wait, TimeUnit.NANOSECONDS)) {
+                request.timeoutWithinDeadline(0);   //因截止时间而放弃等待时抛出 DeadlineExceededException
+                throw new IOException(String.format("端点[%s]连接数已达上限[%s]", route, config.getMaxConnectionsPerRoute()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待可用连接时被中断", e);
+        }
+
+        long now = System.currentTimeMillis();
+        HttpConnection connection;
+        while (!fresh && (connection = routePool.pollIdle()) != null) {
+            if (isExpired(connection, now) || !connection.isOpen()) {
+                connection.close();
+                continue;
+            }
+            connection.markReused();
+            routePool.report();
+            return connection;
+        }
+
+        routePool.report();
+        try {
+            return HttpConnection.open(route, request.timeoutWithinDeadline(request.getConnectTimeout()));
+        } catch (IOException | RuntimeException e) {
+            routePool.permits.release();
+            routePool.report();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接
+     *
+     * @param connection
+     */
+    void release(HttpConnection connection) {
+        RoutePool routePool = routes.get(connection.getRoute());
+        if (closed || routePool == null || isExpired(connection, System.currentTimeMillis())) {
+            discard(connection);
+            return;
+        }
+        connection.markIdle();
+        routePool.idle.offerFirst(connection);
+        routePool.idleCount.incrementAndGet();
+        routePool.permits.release();
+        routePool.report();
+    }
+
+    /**
+     * 丢弃连接
+     *
+     * @param connection
+     */
+    void discard(HttpConnection connection) {
+        connection.close();
+        RoutePool routePool = routes.get(connection.getRoute());
+        if (routePool != null) {
+            routePool.permits.release();
+            routePool.report();
+        }
+    }
+
+    void close() {
+        closed = true;
+        evictor.shutdownNow();
+        for (RoutePool routePool : routes.values()) {
+            HttpConnection connection;
+            while ((connection = routePool.pollIdle()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private boolean isExpired(HttpConnection connection, long now) {
+        return now - connection.getCreatedAt() >= config.getTimeToLive()
+                || now - connection.getIdleSince() >= config.getIdleTimeout();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (RoutePool routePool : routes.values()) {
+            for (HttpConnection connection : routePool.idle) {
+                //remove 成功说明连接没有被其它线程取走
+                if (isExpired(connection, now) && routePool.idle.remove(connection)) {
+                    routePool.idleCount.decrementAndGet();
+                    connection.close();
+                    routePool.report();
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个端点的连接分组
+     */
+    private static final class RoutePool {
+
+        /**
+         * 端点名称，用于上报连接池使用情况
+         */
+        private final String name;
+
+        private final int maxConnections;
+
+        /**
+         * 可借出的连接许可
+         */
+        private final Semaphore permits;
+
+        /**
+         * 空闲连接，头部为最近归还的连接
+         */
+        private final ConcurrentLinkedDeque<HttpConnection> idle = new ConcurrentLinkedDeque<>();
+
+        /**
+         * 空闲连接数，ConcurrentLinkedDeque 的 size 需要遍历，单独计数
+         */
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        RoutePool(String name, int maxConnections) {
+            this.name = name;
+            this.maxConnections = maxConnections;
+            this.permits = new Semaphore(maxConnections);
+        }
+
+        HttpConnection pollIdle() {
+            HttpConnection connection = idle.pollFirst();
+            if (connection != null) {
+                idleCount.decrementAndGet();
+            }
+            return connection;
+        }
+
+        void report() {
+            Metrics.get().onPoolUsage(name, maxConnections - permits.availablePermits(), idleCount.get(), maxConnections);
+        }
+
+    }
+
+}
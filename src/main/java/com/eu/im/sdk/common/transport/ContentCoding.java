@@ -0,0 +1,379 @@
+package com.eu.im.sdk.common.transport;
+
+import com.eu.im.sdk.common.codec.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * HTTP 内容编码（gzip 与 deflate）的压缩与解压
+ * Deflater 与压缩缓冲区按线程缓存，Inflater 与读取缓冲区放在共享的池中，解压流读取完毕或关闭时归还，
+ * 避免每次调用都分配本地内存与缓冲区
+ */
+public final class ContentCoding {
+
+    /**
+     * 请求头 Accept-Encoding 的值
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 超过该大小的压缩缓冲区不再缓存
+     */
+    private static final int MAX_CACHED_CAPACITY = 64 * 1024;
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final int FHCRC = 2;
+
+    private static final int FEXTRA = 4;
+
+    private static final int FNAME = 8;
+
+    private static final int FCOMMENT = 16;
+
+    private static final ThreadLocal<Compression> COMPRESSION = ThreadLocal.withInitial(Compression::new);
+
+    /**
+     * 不带 zlib 头的 Inflater，用于 gzip 与不规范的 deflate 响应
+     */
+    private static final BlockingQueue<Inflater> RAW_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final BlockingQueue<Inflater> ZLIB_INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+
+    private ContentCoding() {
+    }
+
+    /**
+     * 将 body 中的内容原地替换为 gzip 压缩后的内容
+     *
+     * @param body
+     * @param level 压缩级别
+     * @return 压缩后没有变小时不做替换，返回 false
+     */
+    public static boolean gzip(JsonWriter body, int level) {
+        Compression compression = COMPRESSION.get();
+        Deflater deflater = compression.deflater;
+        byte[] chunk = compression.chunk;
+        JsonWriter out = compression.out;
+        out.reset();
+        out.writeRaw(GZIP_HEADER);
+
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(body.buffer(), 0, body.size());
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.writeRaw(chunk, 0, n);
+        }
+        CRC32 crc = compression.crc;
+        crc.reset();
+        crc.update(body.buffer(), 0, body.size());
+        writeInt(chunk, 0, (int) crc.getValue());
+        writeInt(chunk, 4, body.size());
+        out.writeRaw(chunk, 0, 8);
+
+        boolean smaller = out.size() < body.size();
+        if (smaller) {
+            body.reset();
+            body.writeRaw(out.buffer(), 0, out.size());
+        }
+        if (out.buffer().length > MAX_CACHED_CAPACITY) {
+            compression.out = new JsonWriter(BUFFER_SIZE);
+        }
+        return smaller;
+    }
+
+    /**
+     * 按响应头 Content-Encoding 包装响应体，读取时边读边解压
+     * 返回的流关闭时同时关闭 body
+     *
+     * @param encoding 为 null 或 identity 时原样返回 body
+     * @param body
+     * @return
+     * @throws IOException 不支持的编码
+     */
+    public static InputStream decode(String encoding, InputStream body) throws IOException {
+        if (encoding == null) {
+            return body;
+        }
+        String coding = encoding.trim();
+        if (coding.isEmpty() || "identity".equalsIgnoreCase(coding)) {
+            return body;
+        }
+        if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+            return new InflatingInputStream(body, true);
+        }
+        if (DEFLATE.equalsIgnoreCase(coding)) {
+            return new InflatingInputStream(body, false);
+        }
+        throw new IOException("不支持的响应编码: " + encoding);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static Inflater obtainInflater(boolean raw) {
+        Inflater inflater = (raw ? RAW_INFLATERS : ZLIB_INFLATERS).poll();
+        return inflater == null ? new Inflater(raw) : inflater;
+    }
+
+    private static void recycle(Inflater inflater, boolean raw) {
+        inflater.reset();
+        if (!(raw ? RAW_INFLATERS : ZLIB_INFLATERS).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    private static byte[] obtainBuffer() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+    }
+
+    /**
+     * 线程缓存的压缩状态
+     */
+    private static final class Compression {
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        private final CRC32 crc = new CRC32();
+
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+
+        private JsonWriter out = new JsonWriter(BUFFER_SIZE);
+
+    }
+
+    /**
+     * 边读取边解压的响应体
+     * gzip 的头部与尾部由这里解析与校验，deflate 按首部判断是否带有 zlib 头
+     */
+    private static final class InflatingInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private final boolean gzip;
+
+        private final CRC32 crc;
+
+        private final byte[] single = new byte[1];
+
+        private Inflater inflater;
+
+        private boolean raw;
+
+        private byte[] buffer;
+
+        /**
+         * buffer 中尚未交给 Inflater 的数据为 [position, limit)
+         */
+        private int position;
+
+        private int limit;
+
+        private boolean started;
+
+        private boolean finished;
+
+        private boolean closed;
+
+        InflatingInputStream(InputStream in, boolean gzip) {
+            this.in = in;
+            this.gzip = gzip;
+            this.crc = gzip ? new CRC32() : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("响应体已关闭");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!started) {
+                started = true;
+                this.start();
+            }
+            if (finished) {
+                return -1;
+            }
+            try {
+                for (; ; ) {
+                    int n = inflater.inflate(b, off, len);
+                    if (n > 0) {
+                        if (gzip) {
+                            crc.update(b, off, n);
+                        }
+                        return n;
+                    }
+                    if (inflater.finished()) {
+                        this.finish();
+                        return -1;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("压缩数据需要预置字典");
+                    }
+                    if (inflater.needsInput()) {
+                        this.fill();
+                        inflater.setInput(buffer, position, limit - position);
+                        position = limit;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            this.release();
+            in.close();
+        }
+
+        /**
+         * 读取头部并取得 Inflater，空的响应体直接结束
+         */
+        private void start() throws IOException {
+            buffer = obtainBuffer();
+            limit = in.read(buffer, 0, buffer.length);
+            if (limit <= 0) {
+                limit = 0;
+                finished = true;
+                this.release();
+                return;
+            }
+            if (gzip) {
+                this.readGzipHeader();
+                raw = true;
+            } else {
+                //标准的 deflate 带有 zlib 头，部分服务端发送的是不带头的原始数据
+                raw = limit < 2 || (buffer[0] & 0x0f) != Deflater.DEFLATED || ((buffer[0] & 0xff) << 8 | (buffer[1] & 0xff)) % 31 != 0;
+            }
+            inflater = obtainInflater(raw);
+            inflater.setInput(buffer, position, limit - position);
+            position = limit;
+        }
+
+        private void readGzipHeader() throws IOException {
+            if (this.next() != 0x1f || this.next() != 0x8b) {
+                throw new ZipException("响应体不是 gzip 格式");
+            }
+            if (this.next() != Deflater.DEFLATED) {
+                throw new ZipException("不支持的 gzip 压缩方法");
+            }
+            int flags = this.next();
+            this.skip(6);
+            if ((flags & FEXTRA) != 0) {
+                this.skip(this.next() | this.next() << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                while (this.next() != 0) {
+                    //跳过文件名
+                }
+            }
+            if ((flags & FCOMMENT) != 0) {
+                while (this.next() != 0) {
+                    //跳过注释
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                this.skip(2);
+            }
+        }
+
+        /**
+         * 压缩数据结束，gzip 还需要校验尾部的 CRC32 与原始长度
+         */
+        private void finish() throws IOException {
+            if (gzip) {
+                position = limit - inflater.getRemaining();
+                if ((int) crc.getValue() != this.readInt()) {
+                    throw new ZipException("gzip 数据校验失败");
+                }
+                if ((int) inflater.getBytesWritten() != this.readInt()) {
+                    throw new ZipException("gzip 数据长度不一致");
+                }
+            }
+            finished = true;
+            this.release();
+        }
+
+        private int readInt() throws IOException {
+            return this.next() | this.next() << 8 | this.next() << 16 | this.next() << 24;
+        }
+
+        private void skip(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                this.next();
+            }
+        }
+
+        private int next() throws IOException {
+            if (position == limit) {
+                this.fill();
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        private void fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                throw new EOFException("压缩数据不完整");
+            }
+            position = 0;
+            limit = n;
+        }
+
+        /**
+         * 归还 Inflater 与缓冲区，之后不能再解压
+         */
+        private void release() {
+            if (inflater != null) {
+                recycle(inflater, raw);
+                inflater = null;
+            }
+            if (buffer != null) {
+                BUFFERS.offer(buffer);
+                buffer = null;
+            }
+        }
+
+    }
+
+}
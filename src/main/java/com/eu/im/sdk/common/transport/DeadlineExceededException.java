@@ -0,0 +1,17 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.SocketTimeoutException;
+
+/**
+ * 调用已超过截止时间
+ * 截止时间覆盖一次调用的全部重试，抛出本异常后不应再重试
+ */
+public class DeadlineExceededException extends SocketTimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.eu.im.sdk.common.transport;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 将阻塞的 ImTransport 适配为 ImAsyncTransport
+ * 请求在指定的线程池中执行，响应体会被完整读取后再交给调用者，以便尽早归还连接
+ * 用于非阻塞引擎不支持的场景（例如 https）
+ */
+public class ExecutorAsyncTransport implements ImAsyncTransport {
+
+    private final ImTransport transport;
+
+    private final Executor executor;
+
+
+    /**
+     * @param transport 阻塞传输实现
+     * @param executor  执行阻塞 I/O 的线程池，其大小即为最大并发请求数
+     */
+    public ExecutorAsyncTransport(ImTransport transport, Executor executor) {
+        this.transport = transport;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (ImResponse response = transport.execute(request)) {
+                byte[] body = response.getBody() == null ? new byte[0] : ByteStreams.toByteArray(response.getBody());
+                return new ImResponse(response.getStatus(), response.getHeaders(), new ByteArrayInputStream(body));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+}
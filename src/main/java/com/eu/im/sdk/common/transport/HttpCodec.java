@@ -0,0 +1,67 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 报文编码
+ * 阻塞与非阻塞两种连接共用
+ */
+final class HttpCodec {
+
+    private HttpCodec() {
+    }
+
+    /**
+     * 编码请求行与请求头
+     *
+     * @param request
+     * @param url
+     * @param route
+     * @return
+     */
+    static byte[] encodeHead(ImRequest request, URL url, HttpRoute route) {
+        String path = url.getFile();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+
+        StringBuilder head = new StringBuilder(256);
+        head.append(request.getMethod().name()).append(' ').append(path).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(route.hostHeader()).append("\r\n");
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        if (request.hasBody()) {
+            head.append("Content-Length: ").append(request.getBodyLength()).append("\r\n");
+        } else if (request.getMethod() != HttpMethod.GET) {
+            head.append("Content-Length: 0\r\n");
+        }
+        head.append("\r\n");
+
+        return head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 根据协议版本与 Connection 响应头判断连接是否可以复用
+     *
+     * @param http10
+     * @param connection
+     * @return
+     */
+    static boolean isKeepAlive(boolean http10, String connection) {
+        return http10 ? "keep-alive".equalsIgnoreCase(connection) : !"close".equalsIgnoreCase(connection);
+    }
+
+    /**
+     * 该状态码的响应是否没有响应体
+     *
+     * @param status
+     * @return
+     */
+    static boolean hasNoBody(int status) {
+        return status == 204 || status == 304;
+    }
+
+}
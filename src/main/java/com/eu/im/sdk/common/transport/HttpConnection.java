@@ -0,0 +1,489 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 长连接
+ * 一个连接同一时间只承载一个请求，响应体读取完毕后由连接池回收
+ */
+final class HttpConnection {
+
+    /**
+     * 响应体读取完毕后允许丢弃的最大剩余字节数，超过则直接关闭连接
+     */
+    private static final int MAX_DRAIN_BYTES = 8192;
+
+    private final HttpRoute route;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    /**
+     * 创建时间
+     */
+    private final long createdAt;
+
+    /**
+     * 最后一次归还到连接池的时间
+     */
+    private volatile long idleSince;
+
+    /**
+     * 是否为从连接池中复用的连接
+     */
+    private boolean reused;
+
+    /**
+     * 当前请求是否已经完整写出
+     */
+    private boolean requestWritten;
+
+    /**
+     * 是否已经读取到了响应的字节
+     */
+    private boolean responseStarted;
+
+    /**
+     * 当前交换的请求，用于记录收发的字节数与首字节耗时
+     */
+    private ImRequest request;
+
+    /**
+     * 当前交换中通过 readLine 读取的字节数（响应行与响应头）
+     */
+    private long lineBytes;
+
+    /**
+     * 建立连接时解析主机名的耗时（纳秒）
+     */
+    private final long resolveTime;
+
+
+    private HttpConnection(HttpRoute route, Socket socket, long resolveTime) throws IOException {
+        this.route = route;
+        this.socket = socket;
+        this.resolveTime = resolveTime;
+        this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.createdAt = System.currentTimeMillis();
+        this.idleSince = this.createdAt;
+    }
+
+    /**
+     * 建立连接
+     *
+     * @param route
+     * @param connectTimeout
+     * @return
+     * @throws IOException
+     */
+    static HttpConnection open(HttpRoute route, int connectTimeout) throws IOException {
+        long resolveStart = System.nanoTime();
+        InetAddress address = InetAddress.getByName(route.getHost());
+        long resolveTime = System.nanoTime() - resolveStart;
+        Socket socket = Sockets.open(route, address, connectTimeout);
+        try {
+            return new HttpConnection(route, socket, resolveTime);
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    /**
+     * 发送请求并读取响应头
+     *
+     * @param request
+     * @param url
+     * @param pool    响应体读取完毕后连接的归还位置
+     * @return
+     * @throws IOException
+     */
+    ImResponse exchange(ImRequest request, URL url, ConnectionPool pool) throws IOException {
+        this.requestWritten = false;
+        this.responseStarted = false;
+        this.request = request;
+        this.lineBytes = 0;
+        socket.setSoTimeout(request.timeoutWithinDeadline(request.getReadTimeout()));
+
+        long writeStart = System.nanoTime();
+        writeRequest(request, url);
+        this.requestWritten = true;
+        request.addWriteTime(System.nanoTime() - writeStart);
+        applyDeadline();
+
+        int status;
+        Map<String, String> headers;
+        boolean http10;
+        long firstByteAt = 0;
+        //跳过 1xx 的临时响应
+        do {
+            String statusLine = readLine();
+            if (firstByteAt == 0) {
+                firstByteAt = System.nanoTime();
+                request.setTimeToFirstByte(firstByteAt - writeStart);
+            }
+            if (statusLine.length() < 12 || !statusLine.startsWith("HTTP/1.")) {
+                throw new ProtocolException(String.format("非法的响应行[%s]", statusLine));
+            }
+            http10 = statusLine.charAt(7) == '0';
+            status = (int) parseNumber(statusLine.substring(9, 12), 10, "响应行", statusLine);
+            headers = readHeaders();
+        } while (status >= 100 && status < 200);
+
+        request.addBytesReceived(lineBytes);
+        //响应体由调用者按需读取，这里只能统计到响应头读取完成为止
+        request.setReadTime(System.nanoTime() - firstByteAt);
+        boolean keepAlive = HttpCodec.isKeepAlive(http10, headers.get("connection"));
+
+        InputStream body;
+        String transferEncoding = headers.get("transfer-encoding");
+        String contentLength = headers.get("content-length");
+        if (HttpCodec.hasNoBody(status)) {
+            body = new FixedLengthBody(pool, keepAlive, 0);
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            body = new ChunkedBody(pool, keepAlive);
+        } else if (contentLength != null) {
+            body = new FixedLengthBody(pool, keepAlive, parseNumber(contentLength.trim(), 10, "Content-Length", contentLength));
+        } else {
+            //没有长度信息时以连接关闭作为响应体结束，此时连接不能复用
+            body = new UntilCloseBody(pool);
+        }
+
+        return new ImResponse(status, headers, body);
+    }
+
+    private void writeRequest(ImRequest request, URL url) throws IOException {
+        byte[] head = HttpCodec.encodeHead(request, url, route);
+        out.write(head);
+        if (request.hasBody()) {
+            out.write(request.getBody(), 0, request.getBodyLength());
+        }
+        out.flush();
+        request.addBytesSent(head.length + (request.hasBody() ? request.getBodyLength() : 0));
+    }
+
+    /**
+     * 有截止时间时，按剩余时间重新设置读取超时
+     */
+    private void applyDeadline() throws IOException {
+        if (request.getDeadline() != 0) {
+            socket.setSoTimeout(request.timeoutWithinDeadline(request.getReadTimeout()));
+        }
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int index = line.indexOf(':');
+            if (index <= 0) {
+                throw new ProtocolException(String.format("非法的响应头[%s]", line));
+            }
+            String name = line.substring(0, index).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(index + 1).trim();
+            headers.merge(name, value, (oldValue, newValue) -> oldValue + ", " + newValue);
+        }
+        return headers;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            responseStarted = true;
+            lineBytes++;
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        throw new EOFException("连接已被服务端关闭");
+    }
+
+    HttpRoute getRoute() {
+        return route;
+    }
+
+    long getResolveTime() {
+        return resolveTime;
+    }
+
+    boolean isReused() {
+        return reused;
+    }
+
+    void markReused() {
+        this.reused = true;
+    }
+
+    boolean isRequestWritten() {
+        return requestWritten;
+    }
+
+    boolean isResponseStarted() {
+        return responseStarted;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getIdleSince() {
+        return idleSince;
+    }
+
+    void markIdle() {
+        this.idleSince = System.currentTimeMillis();
+    }
+
+    boolean isOpen() {
+        return !socket.isClosed() && !socket.isInputShutdown() && !socket.isOutputShutdown();
+    }
+
+    void close() {
+        closeQuietly(socket);
+    }
+
+    /**
+     * 解析响应中的非负整数，格式错误时抛出 ProtocolException，使连接被丢弃、调用者得到 IOException
+     */
+    private static long parseNumber(String text, int radix, String name, String raw) throws ProtocolException {
+        try {
+            long value = Long.parseLong(text, radix);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignore) {  //与负数一并处理
+        }
+        throw new ProtocolException(String.format("非法的%s[%s]", name, raw));
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {  //关闭失败时无需处理
+        }
+    }
+
+    /**
+     * 响应体基类
+     * 响应体被完整读取并关闭时归还连接，否则尝试丢弃少量剩余数据，仍无法读完则关闭连接
+     */
+    private abstract class ResponseBody extends InputStream {
+
+        private final ConnectionPool pool;
+
+        private final boolean keepAlive;
+
+        private final byte[] single = new byte[1];
+
+        private boolean closed;
+
+        ResponseBody(ConnectionPool pool, boolean keepAlive) {
+            this.pool = pool;
+            this.keepAlive = keepAlive;
+        }
+
+        /**
+         * 响应体是否已经读取完毕
+         */
+        abstract boolean isComplete();
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        /**
+         * 记录读取的响应体字节数
+         */
+        int count(int n) {
+            if (n > 0) {
+                request.addBytesReceived(n);
+            }
+            return n;
+        }
+
+        void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("响应体已关闭");
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            boolean reusable = keepAlive;
+            if (reusable && !isComplete()) {
+                reusable = drain();
+            }
+
+            if (reusable) {
+                pool.release(HttpConnection.this);
+            } else {
+                pool.discard(HttpConnection.this);
+            }
+        }
+
+        private boolean drain() {
+            byte[] skip = new byte[1024];
+            int drained = 0;
+            try {
+                int n;
+                while (drained < MAX_DRAIN_BYTES && (n = read(skip, 0, skip.length)) != -1) {
+                    drained += n;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+            return isComplete();
+        }
+
+    }
+
+    /**
+     * Content-Length 定长响应体
+     */
+    private final class FixedLengthBody extends ResponseBody {
+
+        private long remaining;
+
+        FixedLengthBody(ConnectionPool pool, boolean keepAlive, long length) {
+            super(pool, keepAlive);
+            this.remaining = length;
+        }
+
+        @Override
+        boolean isComplete() {
+            return remaining == 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            applyDeadline();
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n == -1) {
+                throw new EOFException("响应体不完整");
+            }
+            remaining -= n;
+            return count(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+    }
+
+    /**
+     * Transfer-Encoding: chunked 分块响应体
+     */
+    private final class ChunkedBody extends ResponseBody {
+
+        private long chunkRemaining;
+
+        private boolean finished;
+
+        ChunkedBody(ConnectionPool pool, boolean keepAlive) {
+            super(pool, keepAlive);
+        }
+
+        @Override
+        boolean isComplete() {
+            return finished;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            applyDeadline();
+            if (chunkRemaining == 0) {
+                String sizeLine = readLine();
+                int extension = sizeLine.indexOf(';');
+                if (extension != -1) {
+                    sizeLine = sizeLine.substring(0, extension);
+                }
+                chunkRemaining = parseNumber(sizeLine.trim(), 16, "分块大小", sizeLine);
+                if (chunkRemaining == 0) {
+                    //跳过 trailer
+                    readHeaders();
+                    finished = true;
+                    return -1;
+                }
+            }
+            int n = in.read(b, off, (int) Math.min(len, chunkRemaining));
+            if (n == -1) {
+                throw new EOFException("响应体不完整");
+            }
+            chunkRemaining -= n;
+            if (chunkRemaining == 0) {
+                readLine();     //分块结尾的 CRLF
+            }
+            return count(n);
+        }
+
+    }
+
+    /**
+     * 以连接关闭作为结束的响应体
+     */
+    private final class UntilCloseBody extends ResponseBody {
+
+        private boolean finished;
+
+        UntilCloseBody(ConnectionPool pool) {
+            super(pool, false);
+        }
+
+        @Override
+        boolean isComplete() {
+            return finished;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            applyDeadline();
+            int n = in.read(b, off, len);
+            if (n == -1) {
+                finished = true;
+            }
+            return count(n);
+        }
+
+    }
+
+}
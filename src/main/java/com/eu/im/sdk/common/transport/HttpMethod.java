@@ -0,0 +1,22 @@
+package com.eu.im.sdk.common.transport;
+
+/**
+ * 请求方法
+ */
+public enum HttpMethod {
+
+    GET,
+    POST,
+    PUT,
+    PATCH,
+    DELETE;
+
+    /**
+     * 是否为幂等请求
+     * 幂等请求在连接失效时可以安全的重新发送
+     */
+    public boolean isIdempotent() {
+        return this != POST && this != PATCH;
+    }
+
+}
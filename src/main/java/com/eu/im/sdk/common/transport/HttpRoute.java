@@ -0,0 +1,84 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 请求端点：协议 + 主机 + 端口
+ * 连接池、重试预算等按端点分别计算的状态都以它为键
+ */
+public final class HttpRoute {
+
+    private final boolean secure;
+
+    private final String host;
+
+    private final int port;
+
+
+    private HttpRoute(boolean secure, String host, int port) {
+        this.secure = secure;
+        this.host = host;
+        this.port = port;
+    }
+
+    public static HttpRoute of(URL url) {
+        String protocol = url.getProtocol().toLowerCase(Locale.ROOT);
+        boolean secure;
+        if ("https".equals(protocol)) {
+            secure = true;
+        } else if ("http".equals(protocol)) {
+            secure = false;
+        } else {
+            throw new IllegalArgumentException(String.format("不支持的协议[%s]", protocol));
+        }
+        int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        return new HttpRoute(secure, url.getHost().toLowerCase(Locale.ROOT), port);
+    }
+
+    boolean isSecure() {
+        return secure;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    /**
+     * 请求头 Host 的值，默认端口不写出
+     */
+    String hostHeader() {
+        if ((secure && port == 443) || (!secure && port == 80)) {
+            return host;
+        }
+        return host + ":" + port;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HttpRoute)) {
+            return false;
+        }
+        HttpRoute that = (HttpRoute) o;
+        return secure == that.secure && port == that.port && host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(secure, host, port);
+    }
+
+    @Override
+    public String toString() {
+        return (secure ? "https://" : "http://") + host + ":" + port;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步传输层扩展接口
+ * 请求发出后立即返回，调用线程不会等待网络 I/O
+ * 实现类必须是线程安全的
+ */
+public interface ImAsyncTransport extends Closeable {
+
+    /**
+     * 执行请求
+     * 只要收到了服务端的响应，无论状态码如何都以 ImResponse 完成，网络层面的失败以 IOException 异常完成
+     * 注意：返回的 future 可能在 I/O 线程上完成，不要在其回调中执行阻塞操作
+     *
+     * @param request
+     * @return
+     */
+    CompletableFuture<ImResponse> executeAsync(ImRequest request);
+
+    /**
+     * 释放传输层持有的全部连接与线程
+     */
+    @Override
+    void close();
+
+}
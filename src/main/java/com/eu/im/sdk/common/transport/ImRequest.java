@@ -0,0 +1,329 @@
+package com.eu.im.sdk.common.transport;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 传输层请求
+ * 请求体在进入传输层之前已经完成序列化，传输层只负责字节的收发
+ */
+public class ImRequest {
+
+    /**
+     * 幂等键请求头，服务端对相同幂等键的请求只处理一次
+     */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * 请求方法
+     */
+    private final HttpMethod method;
+
+    /**
+     * 请求地址
+     */
+    private String url;
+
+    /**
+     * 请求头
+     */
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    /**
+     * 请求体，为 null 表示没有请求体
+     */
+    private byte[] body;
+
+    /**
+     * 请求体有效长度
+     */
+    private int bodyLength;
+
+    /**
+     * 连接超时时间（毫秒）
+     */
+    private int connectTimeout;
+
+    /**
+     * 响应读取超时时间（毫秒）
+     */
+    private int readTimeout;
+
+    /**
+     * 截止时间（System.nanoTime），0 表示不限制
+     * 设置后连接、等待与每次读取的超时时间都不会超过剩余时间，重试共用同一个截止时间
+     */
+    private long deadline;
+
+    //以下由传输实现在发送过程中填写，供监控与链路追踪使用，不支持的项保持为 0；重试时首字节与读取耗时取最后一次，其余累加
+
+    /**
+     * 新建连接时解析主机名的耗时（纳秒）
+     */
+    private long resolveTime;
+
+    /**
+     * 获取连接耗时（纳秒），包括等待空闲连接与建立新连接（含 TLS 握手），不含解析主机名
+     */
+    private long connectTime;
+
+    /**
+     * 写出请求的耗时（纳秒）
+     */
+    private long writeTime;
+
+    /**
+     * 从开始写出请求到读到第一个响应字节的耗时（纳秒）
+     */
+    private long timeToFirstByte;
+
+    /**
+     * 从读到第一个响应字节到传输层读取完成的耗时（纳秒），流式读取响应体的实现只统计到响应头为止
+     */
+    private long readTime;
+
+    /**
+     * 写出的字节数
+     */
+    private long bytesSent;
+
+    /**
+     * 读取的字节数
+     */
+    private long bytesReceived;
+
+    /**
+     * 重试次数
+     */
+    private int retries;
+
+
+    public ImRequest(HttpMethod method, String url) {
+        this.method = method;
+        this.url = url;
+    }
+
+    /**
+     * 修改请求地址，用于负载均衡时将请求发往选中的节点
+     *
+     * @param url
+     * @return
+     */
+    public ImRequest url(String url) {
+        this.url = url;
+        return this;
+    }
+
+    /**
+     * 复制请求的地址、请求头、请求体、超时与截止时间，不复制各阶段耗时等统计
+     * 用于同一请求同时发出多次（对冲请求），每次发送使用各自的副本；请求体同样复制，被取消的一方仍在发送时原请求体可以被复用
+     *
+     * @return
+     */
+    public ImRequest copy() {
+        ImRequest copy = new ImRequest(method, url);
+        copy.headers.putAll(headers);
+        copy.body = body == null ? null : Arrays.copyOf(body, bodyLength);
+        copy.bodyLength = bodyLength;
+        copy.connectTimeout = connectTimeout;
+        copy.readTimeout = readTimeout;
+        copy.deadline = deadline;
+        return copy;
+    }
+
+    /**
+     * 设置请求头，value 为 null 时忽略
+     *
+     * @param name
+     * @param value
+     * @return
+     */
+    public ImRequest header(String name, String value) {
+        if (value != null) {
+            this.headers.put(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 设置请求体
+     *
+     * @param body
+     * @param length
+     * @return
+     */
+    public ImRequest body(byte[] body, int length) {
+        this.body = body;
+        this.bodyLength = length;
+        return this;
+    }
+
+    /**
+     * 设置超时时间
+     *
+     * @param connectTimeout
+     * @param readTimeout
+     * @return
+     */
+    public ImRequest timeout(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * 设置截止时间
+     *
+     * @param deadline System.nanoTime 表示的时间点，0 表示不限制
+     * @return
+     */
+    public ImRequest deadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * 请求能否重复发送：请求方法是幂等的，或者携带了幂等键
+     */
+    public boolean isResendable() {
+        return method.isIdempotent() || headers.containsKey(IDEMPOTENCY_KEY);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getBodyLength() {
+        return bodyLength;
+    }
+
+    public boolean hasBody() {
+        return body != null;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 距截止时间的剩余纳秒数
+     *
+     * @return 没有截止时间时返回 Long.MAX_VALUE，已超过时返回 0
+     */
+    public long remainingNanos() {
+        if (deadline == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * 受截止时间限制后的超时时间
+     *
+     * @param timeout 原超时时间（毫秒），0 表示不限制
+     * @return 不超过剩余时间的超时时间（毫秒），0 表示不限制
+     * @throws DeadlineExceededException 已超过截止时间
+     */
+    public int timeoutWithinDeadline(int timeout) throws DeadlineExceededException {
+        if (deadline == 0) {
+            return timeout;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new DeadlineExceededException(String.format("请求[%s]已超过截止时间", url));
+        }
+        return timeout > 0 && timeout < remaining ? timeout : (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    public long getResolveTime() {
+        return resolveTime;
+    }
+
+    public void addResolveTime(long resolveTime) {
+        this.resolveTime += resolveTime;
+    }
+
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    public void addConnectTime(long connectTime) {
+        this.connectTime += connectTime;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public void addWriteTime(long writeTime) {
+        this.writeTime += writeTime;
+    }
+
+    public long getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public void setTimeToFirstByte(long timeToFirstByte) {
+        this.timeToFirstByte = timeToFirstByte;
+    }
+
+    public long getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(long readTime) {
+        this.readTime = readTime;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public void addBytesSent(long bytesSent) {
+        this.bytesSent += bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public void addBytesReceived(long bytesReceived) {
+        this.bytesReceived += bytesReceived;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public void incrementRetries() {
+        this.retries++;
+    }
+
+}
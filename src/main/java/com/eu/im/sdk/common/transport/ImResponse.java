@@ -0,0 +1,75 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 传输层响应
+ * 响应体以流的形式提供，调用者读取完毕后必须关闭响应，连接才能被归还复用
+ */
+public class ImResponse implements Closeable {
+
+    /**
+     * 响应状态码
+     */
+    private final int status;
+
+    /**
+     * 响应头，忽略大小写
+     */
+    private final Map<String, String> headers;
+
+    /**
+     * 响应体
+     */
+    private final InputStream body;
+
+
+    public ImResponse(int status, Map<String, String> headers, InputStream body) {
+        this.status = status;
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            this.headers.putAll(headers);
+        }
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isSuccessful() {
+        return status == 200;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * 关闭响应体
+     * 对于连接池中的连接，响应体被完整读取后关闭会将连接归还到池中
+     */
+    @Override
+    public void close() {
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException ignore) {  //关闭失败时连接已经被丢弃，这里无需处理
+        }
+    }
+
+}
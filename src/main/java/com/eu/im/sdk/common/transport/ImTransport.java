@@ -0,0 +1,29 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 传输层扩展接口
+ * HttpUtil 的全部请求都通过本接口发出，实现类负责连接的建立、复用与释放
+ * 实现类必须是线程安全的
+ */
+public interface ImTransport extends Closeable {
+
+    /**
+     * 执行请求
+     * 只要收到了服务端的响应，无论状态码如何都应返回 ImResponse，网络层面的失败抛出 IOException
+     *
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    ImResponse execute(ImRequest request) throws IOException;
+
+    /**
+     * 释放传输层持有的全部连接
+     */
+    @Override
+    void close();
+
+}
@@ -0,0 +1,389 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 非阻塞 HTTP/1.1 长连接
+ * 除 open 外的全部方法都只在所属的 NioWorker 线程中调用
+ */
+final class NioConnection {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final NioHttpTransport transport;
+
+    private final NioWorker worker;
+
+    private final HttpRoute route;
+
+    private final SocketChannel channel;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private final long createdAt;
+
+    /**
+     * 发起连接的时间（纳秒），用于记录建立连接的耗时
+     */
+    private final long connectStartedAt;
+
+    /**
+     * 解析主机名的耗时（纳秒）
+     */
+    private final long resolveTime;
+
+    private volatile long idleSince;
+
+    private SelectionKey key;
+
+    private boolean connected;
+
+    private boolean closed;
+
+    /**
+     * 当前交换是否运行在复用的连接上
+     */
+    private boolean reused;
+
+    private NioExchange exchange;
+
+    private ByteBuffer[] out;
+
+    private ResponseParser parser;
+
+    /**
+     * 当前阶段的超时时间点，0 表示不限制
+     */
+    private long deadline;
+
+    /**
+     * 当前交换开始写出请求的时间（纳秒），用于记录首字节耗时
+     */
+    private long writeStartedAt;
+
+    /**
+     * 当前交换读到第一个响应字节的时间（纳秒）
+     */
+    private long firstByteAt;
+
+
+    private NioConnection(NioHttpTransport transport, NioWorker worker, HttpRoute route, SocketChannel channel, boolean connected, long resolveTime) {
+        this.transport = transport;
+        this.worker = worker;
+        this.route = route;
+        this.channel = channel;
+        this.connected = connected;
+        this.createdAt = System.currentTimeMillis();
+        this.connectStartedAt = System.nanoTime();
+        this.resolveTime = resolveTime;
+        this.idleSince = this.createdAt;
+    }
+
+    /**
+     * 发起非阻塞连接，连接的完成在 I/O 线程中处理
+     * 主机名由调用者事先解析，本方法不会阻塞
+     *
+     * @param transport
+     * @param worker
+     * @param route
+     * @param address     已解析的地址
+     * @param resolveTime 解析主机名的耗时（纳秒）
+     * @return
+     * @throws IOException
+     */
+    static NioConnection open(NioHttpTransport transport, NioWorker worker, HttpRoute route, InetAddress address, long resolveTime) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            boolean connected = channel.connect(new InetSocketAddress(address, route.getPort()));
+            return new NioConnection(transport, worker, route, channel, connected, resolveTime);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 注册到 Selector 并开始第一个交换
+     *
+     * @param first
+     */
+    void register(NioExchange first) {
+        try {
+            key = channel.register(worker.selector(), connected ? 0 : SelectionKey.OP_CONNECT, this);
+        } catch (IOException e) {
+            exchange = first;
+            fail(e);
+            return;
+        }
+        worker.add(this);
+        first.request.addResolveTime(resolveTime);
+        if (connected) {
+            first.request.addConnectTime(System.nanoTime() - connectStartedAt);
+        }
+        start(first, false);
+    }
+
+    /**
+     * 在本连接上开始一次交换
+     *
+     * @param next
+     * @param reused
+     */
+    void start(NioExchange next, boolean reused) {
+        if (closed) {
+            //连接在被取出后、交换开始前被关闭，重新分配连接
+            transport.dispatch(next);
+            return;
+        }
+        next.connection = this;
+        if (next.future.isCancelled()) {
+            //交换在分配到连接之前已被取消：复用的连接放回连接池，新建的连接直接关闭
+            if (reused) {
+                transport.release(this);
+            } else {
+                close();
+            }
+            return;
+        }
+        this.exchange = next;
+        this.reused = reused;
+        this.parser = new ResponseParser();
+        this.out = next.encode();
+        long bytes = 0;
+        for (ByteBuffer buffer : out) {
+            bytes += buffer.remaining();
+        }
+        next.request.addBytesSent(bytes);
+        if (connected) {
+            writeStartedAt = System.nanoTime();
+            deadline = timeout(next.request, next.request.getReadTimeout());
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            deadline = timeout(next.request, next.request.getConnectTimeout());
+        }
+    }
+
+    void onSelected(SelectionKey selected) {
+        try {
+            if (selected.isConnectable()) {
+                finishConnect();
+            }
+            if (selected.isValid() && selected.isWritable()) {
+                write();
+            }
+            if (selected.isValid() && selected.isReadable()) {
+                read();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    void onSweep(long now) {
+        if (exchange != null) {
+            if (deadline != 0 && now >= deadline) {
+                if (exchange.request.remainingNanos() == 0) {
+                    fail(new DeadlineExceededException(String.format("请求[%s]已超过截止时间", exchange.request.getUrl())));
+                } else {
+                    fail(connected ? new SocketTimeoutException("读取响应超时") : new ConnectTimeoutException("连接超时"));
+                }
+            }
+        } else if (transport.evictIfExpired(this, now)) {
+            close();
+        }
+    }
+
+    private void finishConnect() throws IOException {
+        if (!channel.finishConnect()) {
+            return;
+        }
+        connected = true;
+        if (exchange != null) {
+            writeStartedAt = System.nanoTime();
+            exchange.request.addConnectTime(writeStartedAt - connectStartedAt);
+            deadline = timeout(exchange.request, exchange.request.getReadTimeout());
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void write() throws IOException {
+        if (exchange == null) {
+            key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        channel.write(out);
+        if (!out[out.length - 1].hasRemaining()) {
+            out = null;
+            exchange.request.addWriteTime(System.nanoTime() - writeStartedAt);
+            deadline = timeout(exchange.request, exchange.request.getReadTimeout());
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void read() throws IOException {
+        while (true) {
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            if (n == 0) {
+                return;
+            }
+            if (n == -1) {
+                onEof();
+                return;
+            }
+            if (exchange == null) {
+                //空闲连接上收到了不属于任何请求的数据，连接状态已不可信
+                close();
+                return;
+            }
+            readBuffer.flip();
+            deadline = timeout(exchange.request, exchange.request.getReadTimeout());
+            if (!parser.isStarted()) {
+                firstByteAt = System.nanoTime();
+                exchange.request.setTimeToFirstByte(firstByteAt - writeStartedAt);
+            }
+            exchange.request.addBytesReceived(n);
+            if (parser.feed(readBuffer)) {
+                complete();
+                return;
+            }
+        }
+    }
+
+    private void onEof() {
+        if (exchange == null) {
+            close();
+        } else if (parser.eof()) {
+            complete();
+        } else {
+            fail(new EOFException("连接已被服务端关闭"));
+        }
+    }
+
+    private void complete() {
+        NioExchange finished = exchange;
+        finished.request.setReadTime(System.nanoTime() - firstByteAt);
+        ImResponse response = parser.toResponse();
+        boolean keepAlive = parser.isKeepAlive();
+
+        exchange = null;
+        parser = null;
+        deadline = 0;
+
+        if (keepAlive) {
+            key.interestOps(SelectionKey.OP_READ);
+            transport.release(this);
+        } else {
+            close();
+        }
+        finished.future.complete(response);
+    }
+
+    /**
+     * 当前交换失败并关闭连接
+     * 复用的连接可能已被服务端关闭：还没有读到任何响应时换一个连接重新发送一次，
+     * 但只限于可以安全重发的请求（幂等的请求方法或带幂等键），或请求还没有完整写出、服务端不可能已经处理
+     *
+     * @param e
+     */
+    void fail(IOException e) {
+        NioExchange failed = exchange;
+        boolean retry = failed != null && reused && !failed.retried
+                && parser != null && !parser.isStarted()
+                && !(e instanceof SocketTimeoutException)
+                && (failed.request.isResendable() || out != null);
+
+        exchange = null;
+        parser = null;
+        close();
+
+        if (failed == null) {
+            return;
+        }
+        if (retry) {
+            failed.retried = true;
+            transport.dispatch(failed);
+        } else {
+            failed.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 交换被调用者取消：连接上可能还有未读完的响应，不能复用，直接关闭
+     *
+     * @param cancelled
+     */
+    void abort(NioExchange cancelled) {
+        if (exchange != cancelled) {
+            return;
+        }
+        exchange = null;
+        parser = null;
+        deadline = 0;
+        close();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignore) {  //关闭失败时无需处理
+        }
+        worker.remove(this);
+        transport.onClosed(this);
+    }
+
+    NioWorker getWorker() {
+        return worker;
+    }
+
+    HttpRoute getRoute() {
+        return route;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getIdleSince() {
+        return idleSince;
+    }
+
+    void markIdle() {
+        this.idleSince = System.currentTimeMillis();
+    }
+
+    /**
+     * 当前阶段的超时时间点，不晚于请求的截止时间，检查精度为 NioWorker 的超时检查间隔
+     */
+    private static long timeout(ImRequest request, int millis) {
+        long now = System.currentTimeMillis();
+        long at = millis <= 0 ? 0 : now + millis;
+        if (request.getDeadline() != 0) {
+            long bound = now + TimeUnit.NANOSECONDS.toMillis(request.remainingNanos());
+            at = at == 0 ? bound : Math.min(at, bound);
+        }
+        return at;
+    }
+
+}
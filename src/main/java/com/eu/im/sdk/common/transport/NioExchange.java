@@ -0,0 +1,54 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 非阻塞连接上的一次请求响应交换
+ */
+final class NioExchange {
+
+    final ImRequest request;
+
+    final URL url;
+
+    final HttpRoute route;
+
+    final CompletableFuture<ImResponse> future = new CompletableFuture<>();
+
+    /**
+     * 是否已经因为连接失效重新发送过
+     */
+    boolean retried;
+
+    /**
+     * 交换所在的连接，分配连接之前为 null；取消交换时用于中止连接上的读写
+     */
+    volatile NioConnection connection;
+
+    /**
+     * 等待可用连接的超时任务
+     */
+    ScheduledFuture<?> acquireTimer;
+
+
+    NioExchange(ImRequest request, URL url, HttpRoute route) {
+        this.request = request;
+        this.url = url;
+        this.route = route;
+    }
+
+    /**
+     * 编码请求报文，每次发送（包括重新发送）都重新生成
+     */
+    ByteBuffer[] encode() {
+        ByteBuffer head = ByteBuffer.wrap(HttpCodec.encodeHead(request, url, route));
+        if (!request.hasBody()) {
+            return new ByteBuffer[]{head};
+        }
+        return new ByteBuffer[]{head, ByteBuffer.wrap(request.getBody(), 0, request.getBodyLength())};
+    }
+
+}
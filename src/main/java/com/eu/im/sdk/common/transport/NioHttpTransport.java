@@ -0,0 +1,374 @@
+package com.eu.im.sdk.common.transport;
+
+import com.eu.im.sdk.common.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 NIO 的非阻塞 HTTP/1.1 传输实现
+ * 全部连接由固定数量的 I/O 线程通过 Selector 驱动，调用线程只负责提交请求
+ * 新建连接时的主机名解析可能阻塞，在单独的解析线程中进行，不占用调用线程与 I/O 线程
+ * 连接池限制与 PooledHttpTransport 一致：连接数达到上限后请求进入等待队列，而不是阻塞调用线程
+ * 目前仅支持 http，https 请使用 ExecutorAsyncTransport 包装 PooledHttpTransport
+ */
+public class NioHttpTransport implements ImAsyncTransport {
+
+    private final PoolConfig config;
+
+    private final NioWorker[] workers;
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    private final Map<HttpRoute, RoutePool> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 等待可用连接的超时定时器
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * 解析主机名的线程池，线程数随同时新建的连接数伸缩，空闲后回收
+     */
+    private final ThreadPoolExecutor resolver;
+
+    private volatile boolean closed;
+
+
+    /**
+     * 使用默认配置，I/O 线程数为 min(2, CPU 核数)
+     */
+    public NioHttpTransport() {
+        this(Math.min(2, Runtime.getRuntime().availableProcessors()), new PoolConfig());
+    }
+
+    /**
+     * @param ioThreads I/O 线程数
+     * @param config    连接池配置
+     */
+    public NioHttpTransport(int ioThreads, PoolConfig config) {
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("ioThreads must be positive.");
+        }
+        this.config = config;
+        this.workers = new NioWorker[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            try {
+                workers[i] = new NioWorker("eu-im-nio-" + i);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        for (NioWorker worker : workers) {
+            worker.start();
+        }
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "eu-im-nio-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        AtomicInteger resolverIndex = new AtomicInteger();
+        this.resolver = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "eu-im-nio-resolver-" + resolverIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ImResponse> executeAsync(ImRequest request) {
+        NioExchange exchange;
+        try {
+            URL url = new URL(request.getUrl());
+            HttpRoute route = HttpRoute.of(url);
+            if (route.isSecure()) {
+                throw new IllegalArgumentException("NioHttpTransport 不支持 https，请使用 ExecutorAsyncTransport");
+            }
+            exchange = new NioExchange(request, url, route);
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<ImResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        NioExchange cancellable = exchange;
+        exchange.future.whenComplete((response, error) -> {
+            if (cancellable.future.isCancelled()) {
+                this.cancel(cancellable);
+            }
+        });
+        dispatch(exchange);
+        return exchange.future;
+    }
+
+    /**
+     * 调用者取消了请求：还在等待连接时移出等待队列，已经开始时关闭所在的连接
+     *
+     * @param exchange
+     */
+    private void cancel(NioExchange exchange) {
+        NioConnection connection = exchange.connection;
+        if (connection != null) {
+            connection.getWorker().execute(() -> connection.abort(exchange));
+            return;
+        }
+        RoutePool pool = routes.get(exchange.route);
+        if (pool == null) {
+            return;
+        }
+        synchronized (pool) {
+            if (pool.pending.remove(exchange) && exchange.acquireTimer != null) {
+                exchange.acquireTimer.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 为交换分配连接：优先复用空闲连接，其次新建连接，都不行则进入等待队列
+     *
+     * @param exchange
+     */
+    void dispatch(NioExchange exchange) {
+        if (closed) {
+            exchange.future.completeExceptionally(new IOException("传输层已关闭"));
+            return;
+        }
+
+        RoutePool pool = routes.computeIfAbsent(exchange.route, key -> new RoutePool(key.toString()));
+        NioConnection connection;
+        synchronized (pool) {
+            connection = pool.idle.pollFirst();
+            if (connection == null) {
+                if (pool.total >= config.getMaxConnectionsPerRoute()) {
+                    pool.pending.offerLast(exchange);
+                    long wait = Math.min(TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeout()), exchange.request.remainingNanos());
+                    exchange.acquireTimer = timer.schedule(() -> expire(pool, exchange), wait, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                pool.total++;
+            }
+        }
+        this.report(pool);
+
+        if (connection != null) {
+            NioConnection idle = connection;
+            idle.getWorker().execute(() -> idle.start(exchange, true));
+            return;
+        }
+
+        try {
+            resolver.execute(() -> this.connect(pool, exchange));
+        } catch (RejectedExecutionException e) {
+            this.connectFailed(pool, exchange, new IOException("传输层已关闭", e));
+        }
+    }
+
+    /**
+     * 解析主机名并发起新连接（解析线程中调用）
+     */
+    private void connect(RoutePool pool, NioExchange exchange) {
+        NioWorker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+        try {
+            long resolveStart = System.nanoTime();
+            InetAddress address = InetAddress.getByName(exchange.route.getHost());
+            long resolveTime = System.nanoTime() - resolveStart;
+            if (closed) {
+                throw new IOException("传输层已关闭");
+            }
+            NioConnection created = NioConnection.open(this, worker, exchange.route, address, resolveTime);
+            worker.execute(() -> created.register(exchange));
+        } catch (IOException | RuntimeException e) {
+            this.connectFailed(pool, exchange, e);
+        }
+    }
+
+    private void connectFailed(RoutePool pool, NioExchange exchange, Exception e) {
+        NioExchange next;
+        synchronized (pool) {
+            pool.total--;
+            next = pollPending(pool);
+        }
+        this.report(pool);
+        exchange.future.completeExceptionally(e);
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    /**
+     * 连接上的交换完成，连接可以复用（I/O 线程中调用）
+     *
+     * @param connection
+     */
+    void release(NioConnection connection) {
+        RoutePool pool = routes.get(connection.getRoute());
+        if (closed || pool == null || isExpired(connection, System.currentTimeMillis())) {
+            connection.close();
+            return;
+        }
+
+        NioExchange next;
+        synchronized (pool) {
+            next = pollPending(pool);
+            if (next == null) {
+                connection.markIdle();
+                pool.idle.offerFirst(connection);
+            }
+        }
+        if (next == null) {
+            this.report(pool);
+            return;
+        }
+        connection.start(next, true);
+    }
+
+    /**
+     * 连接已关闭（I/O 线程中调用）
+     *
+     * @param connection
+     */
+    void onClosed(NioConnection connection) {
+        RoutePool pool = routes.get(connection.getRoute());
+        if (pool == null) {
+            return;
+        }
+        NioExchange next;
+        synchronized (pool) {
+            pool.idle.remove(connection);
+            pool.total--;
+            next = pollPending(pool);
+        }
+        this.report(pool);
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    /**
+     * 空闲连接过期时将其从连接池中移除
+     *
+     * @param connection
+     * @param now
+     * @return 是否已移除，移除后由调用者关闭连接
+     */
+    boolean evictIfExpired(NioConnection connection, long now) {
+        if (!isExpired(connection, now)) {
+            return false;
+        }
+        RoutePool pool = routes.get(connection.getRoute());
+        if (pool == null) {
+            return true;
+        }
+        synchronized (pool) {
+            return pool.idle.remove(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+        resolver.shutdownNow();
+        for (NioWorker worker : workers) {
+            worker.shutdown();
+        }
+        for (RoutePool pool : routes.values()) {
+            NioExchange pending;
+            while (true) {
+                synchronized (pool) {
+                    pending = pollPending(pool);
+                }
+                if (pending == null) {
+                    break;
+                }
+                pending.future.completeExceptionally(new IOException("传输层已关闭"));
+            }
+        }
+    }
+
+    private boolean isExpired(NioConnection connection, long now) {
+        return now - connection.getCreatedAt() >= config.getTimeToLive()
+                || now - connection.getIdleSince() >= config.getIdleTimeout();
+    }
+
+    private void expire(RoutePool pool, NioExchange exchange) {
+        boolean removed;
+        synchronized (pool) {
+            removed = pool.pending.remove(exchange);
+        }
+        if (removed && exchange.request.remainingNanos() == 0) {
+            exchange.future.completeExceptionally(new DeadlineExceededException(String.format("请求[%s]已超过截止时间", exchange.request.getUrl())));
+        } else if (removed) {
+            exchange.future.completeExceptionally(new IOException(String.format("端点[%s]连接数已达上限[%s]", exchange.route, config.getMaxConnectionsPerRoute())));
+        }
+    }
+
+    /**
+     * 上报端点连接的使用情况，调用者不能持有 pool 的锁
+     */
+    private void report(RoutePool pool) {
+        int total;
+        int idle;
+        synchronized (pool) {
+            total = pool.total;
+            idle = pool.idle.size();
+        }
+        Metrics.get().onPoolUsage(pool.name, total - idle, idle, config.getMaxConnectionsPerRoute());
+    }
+
+    /**
+     * 取出一个等待中的交换，调用者必须持有 pool 的锁
+     */
+    private static NioExchange pollPending(RoutePool pool) {
+        NioExchange next = pool.pending.pollFirst();
+        if (next != null && next.acquireTimer != null) {
+            next.acquireTimer.cancel(false);
+        }
+        return next;
+    }
+
+    /**
+     * 单个端点的连接分组，全部字段由其自身的锁保护
+     */
+    private static final class RoutePool {
+
+        /**
+         * 端点名称，用于上报连接池使用情况
+         */
+        private final String name;
+
+        /**
+         * 连接总数，包括正在建立、使用中与空闲的连接
+         */
+        private int total;
+
+        /**
+         * 空闲连接，头部为最近归还的连接
+         */
+        private final Deque<NioConnection> idle = new ArrayDeque<>();
+
+        /**
+         * 等待可用连接的交换
+         */
+        private final Deque<NioExchange> pending = new ArrayDeque<>();
+
+        RoutePool(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
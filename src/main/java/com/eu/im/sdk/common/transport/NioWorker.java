@@ -0,0 +1,126 @@
+package com.eu.im.sdk.common.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 非阻塞 I/O 线程
+ * 每个线程持有一个 Selector，其上注册的连接只在本线程中读写，因此连接内部无需加锁
+ */
+@Slf4j
+final class NioWorker implements Runnable {
+
+    /**
+     * 超时检查间隔（毫秒）
+     */
+    private static final long SWEEP_INTERVAL = 100;
+
+    private final Selector selector;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 本线程上的全部连接，只在本线程中访问
+     */
+    private final Set<NioConnection> connections = new HashSet<>();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+
+    NioWorker(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * 在 I/O 线程中执行任务
+     *
+     * @param task
+     */
+    void execute(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    void add(NioConnection connection) {
+        connections.add(connection);
+    }
+
+    void remove(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long lastSweep = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(SWEEP_INTERVAL);
+            } catch (IOException e) {
+                log.warn("Selector 等待失败", e);
+                continue;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) {
+                    ((NioConnection) key.attachment()).onSelected(key);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastSweep >= SWEEP_INTERVAL) {
+                lastSweep = now;
+                for (NioConnection connection : new ArrayList<>(connections)) {
+                    connection.onSweep(now);
+                }
+            }
+        }
+
+        //执行剩余的任务，使已经提交的交换都能得到结果
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        for (NioConnection connection : new ArrayList<>(connections)) {
+            connection.fail(new IOException("传输层已关闭"));
+        }
+        try {
+            selector.close();
+        } catch (IOException ignore) {  //关闭失败时无需处理
+        }
+    }
+
+}
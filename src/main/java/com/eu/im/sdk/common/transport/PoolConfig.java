@@ -0,0 +1,80 @@
+package com.eu.im.sdk.common.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池配置
+ * 所有限制均按请求端点（协议 + 主机 + 端口）分别计算
+ */
+public class PoolConfig {
+
+    /**
+     * 每个端点允许的最大连接数
+     */
+    private int maxConnectionsPerRoute = 20;
+
+    /**
+     * 空闲连接的最大存活时间（毫秒），超过后会被回收
+     */
+    private long idleTimeout = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * 连接的最大存活时间（毫秒），无论是否空闲，超过后都不再复用
+     */
+    private long timeToLive = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * 连接池耗尽时等待可用连接的最长时间（毫秒）
+     */
+    private long acquireTimeout = TimeUnit.SECONDS.toMillis(3);
+
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public PoolConfig setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        if (maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerRoute must be positive.");
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public PoolConfig setIdleTimeout(long idleTimeout) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("idleTimeout must be positive.");
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public PoolConfig setTimeToLive(long timeToLive) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive.");
+        }
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public PoolConfig setAcquireTimeout(long acquireTimeout) {
+        if (acquireTimeout < 0) {
+            throw new IllegalArgumentException("acquireTimeout must not be negative.");
+        }
+        this.acquireTimeout = acquireTimeout;
+        return this;
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+
+/**
+ * 基于连接池的 HTTP/1.1 keep-alive 传输实现
+ * 连接按端点复用，避免每次请求都重新进行 TCP 与 TLS 握手
+ */
+public class PooledHttpTransport implements ImTransport {
+
+    private final ConnectionPool pool;
+
+
+    public PooledHttpTransport() {
+        this(new PoolConfig());
+    }
+
+    public PooledHttpTransport(PoolConfig config) {
+        this.pool = new ConnectionPool(config);
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        URL url = new URL(request.getUrl());
+        HttpRoute route = HttpRoute.of(url);
+
+        boolean retried = false;
+        while (true) {
+            long acquireStart = System.nanoTime();
+            HttpConnection connection = pool.acquire(route, request, retried);
+            long acquireTime = System.nanoTime() - acquireStart;
+            if (!connection.isReused()) {
+                //新建的连接，从获取连接的耗时中分出解析主机名的部分
+                request.addResolveTime(connection.getResolveTime());
+                acquireTime -= connection.getResolveTime();
+            }
+            request.addConnectTime(acquireTime);
+            try {
+                return connection.exchange(request, url, pool);
+            } catch (IOException | RuntimeException e) {
+                pool.discard(connection);
+                if (!retried && e instanceof IOException && isStale(connection, (IOException) e, request)) {
+                    retried = true;
+                    continue;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 复用的连接可能已被服务端关闭，此时在新建的连接上重新发送一次
+     * 只有还没有读到任何响应，并且请求可以重复发送或者没有完整写出时才重新发送：
+     * 请求已经完整写出时服务端可能已经处理过，重新发送非幂等请求会造成重复；读取超时同理
+     */
+    private static boolean isStale(HttpConnection connection, IOException e, ImRequest request) {
+        if (!connection.isReused() || connection.isResponseStarted() || e instanceof SocketTimeoutException) {
+            return false;
+        }
+        return request.isResendable() || !connection.isRequestWritten();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+}
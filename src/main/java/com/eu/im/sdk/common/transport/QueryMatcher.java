@@ -0,0 +1,51 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 判断请求是否为只读查询
+ * GET 请求，以及路径以指定接口路径结尾的 POST 请求（如使用 POST 发送的群组列表查询）视为查询
+ */
+public final class QueryMatcher {
+
+    private final Set<String> queryPaths;
+
+
+    /**
+     * @param queryPaths 使用 POST 发送但只做查询的接口路径
+     */
+    public QueryMatcher(Collection<String> queryPaths) {
+        this.queryPaths = Collections.unmodifiableSet(new LinkedHashSet<>(queryPaths));
+    }
+
+    public Set<String> getQueryPaths() {
+        return queryPaths;
+    }
+
+    public boolean isQuery(ImRequest request) {
+        if (request.getMethod() == HttpMethod.GET) {
+            return true;
+        }
+        if (request.getMethod() != HttpMethod.POST || queryPaths.isEmpty()) {
+            return false;
+        }
+        String path;
+        try {
+            path = new URL(request.getUrl()).getPath();
+        } catch (MalformedURLException e) {
+            return false;
+        }
+        for (String queryPath : queryPaths) {
+            if (path.endsWith(queryPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
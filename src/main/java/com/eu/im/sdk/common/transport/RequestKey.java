@@ -0,0 +1,62 @@
+package com.eu.im.sdk.common.transport;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 请求的身份：token + 请求方法 + 地址 + 请求体
+ * 用于识别相同的请求，请求体可能来自可复用的缓冲区，构造时会复制
+ */
+public final class RequestKey {
+
+    private final String token;
+
+    private final HttpMethod method;
+
+    private final String url;
+
+    private final byte[] body;
+
+    private final int hash;
+
+
+    private RequestKey(ImRequest request) {
+        this.token = request.getHeader("Authorization");
+        this.method = request.getMethod();
+        this.url = request.getUrl();
+        this.body = request.hasBody() ? Arrays.copyOf(request.getBody(), request.getBodyLength()) : null;
+        this.hash = Objects.hash(token, method, url) * 31 + Arrays.hashCode(body);
+    }
+
+    public static RequestKey of(ImRequest request) {
+        return new RequestKey(request);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey that = (RequestKey) o;
+        return hash == that.hash && method == that.method && Objects.equals(token, that.token)
+                && url.equals(that.url) && Arrays.equals(body, that.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.ByteArrayInputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 增量响应解析器
+ * 供非阻塞连接使用，每次读到数据后调用 feed，直到响应完整
+ */
+final class ResponseParser {
+
+    /**
+     * 单行最大长度
+     */
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    /**
+     * 响应体完整读入内存，长度不能超过数组的上限
+     */
+    private static final long MAX_BODY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * 按 Content-Length 预分配的最大字节数，更长的响应体随数据到达逐步扩容
+     */
+    private static final int INITIAL_BODY_CAPACITY = 64 * 1024;
+
+    private enum State {
+        STATUS_LINE, HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, UNTIL_CLOSE, DONE
+    }
+
+    private State state = State.STATUS_LINE;
+
+    private final StringBuilder line = new StringBuilder(64);
+
+    private int status;
+
+    private boolean http10;
+
+    private Map<String, String> headers = new HashMap<>();
+
+    private long remaining;
+
+    private byte[] body = new byte[0];
+
+    private int bodyLength;
+
+    /**
+     * 是否以连接关闭作为响应体结束
+     */
+    private boolean untilClose;
+
+    /**
+     * 是否已经收到过响应数据
+     */
+    private boolean started;
+
+
+    /**
+     * 解析缓冲区中的数据
+     *
+     * @param buffer
+     * @return 响应是否已完整
+     * @throws ProtocolException
+     */
+    boolean feed(ByteBuffer buffer) throws ProtocolException {
+        while (buffer.hasRemaining() && state != State.DONE) {
+            started = true;
+            switch (state) {
+                case FIXED_BODY:
+                case CHUNK_DATA:
+                    int n = (int) Math.min(remaining, buffer.remaining());
+                    this.append(buffer, n);
+                    remaining -= n;
+                    if (remaining == 0) {
+                        state = state == State.FIXED_BODY ? State.DONE : State.CHUNK_END;
+                    }
+                    break;
+                case UNTIL_CLOSE:
+                    this.append(buffer, buffer.remaining());
+                    break;
+                default:
+                    if (!readLine(buffer)) {
+                        return false;
+                    }
+                    onLine(line.toString());
+                    line.setLength(0);
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * 连接被服务端关闭
+     *
+     * @return 响应是否已完整（以连接关闭作为结束的响应）
+     */
+    boolean eof() {
+        if (state == State.UNTIL_CLOSE) {
+            state = State.DONE;
+            return true;
+        }
+        return false;
+    }
+
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 响应结束后连接是否可以复用
+     */
+    boolean isKeepAlive() {
+        return !untilClose && HttpCodec.isKeepAlive(http10, headers.get("connection"));
+    }
+
+    ImResponse toResponse() {
+        return new ImResponse(status, headers, new ByteArrayInputStream(body, 0, bodyLength));
+    }
+
+    private void onLine(String value) throws ProtocolException {
+        switch (state) {
+            case STATUS_LINE:
+                if (value.length() < 12 || !value.startsWith("HTTP/1.")) {
+                    throw new ProtocolException(String.format("非法的响应行[%s]", value));
+                }
+                http10 = value.charAt(7) == '0';
+                status = (int) parseNumber(value.substring(9, 12), 10, "响应行", value);
+                headers = new HashMap<>();
+                state = State.HEADERS;
+                break;
+            case HEADERS:
+                if (value.isEmpty()) {
+                    onHeadersEnd();
+                } else {
+                    int index = value.indexOf(':');
+                    if (index <= 0) {
+                        throw new ProtocolException(String.format("非法的响应头[%s]", value));
+                    }
+                    String name = value.substring(0, index).trim().toLowerCase(Locale.ROOT);
+                    headers.merge(name, value.substring(index + 1).trim(), (oldValue, newValue) -> oldValue + ", " + newValue);
+                }
+                break;
+            case CHUNK_SIZE:
+                int extension = value.indexOf(';');
+                String size = extension == -1 ? value : value.substring(0, extension);
+                remaining = parseNumber(size.trim(), 16, "分块长度", value);
+                state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (value.isEmpty()) {
+                    state = State.DONE;
+                }
+                break;
+            default:
+                throw new IllegalStateException(state.name());
+        }
+    }
+
+    private void onHeadersEnd() throws ProtocolException {
+        //跳过 1xx 的临时响应
+        if (status >= 100 && status < 200) {
+            state = State.STATUS_LINE;
+            return;
+        }
+
+        String transferEncoding = headers.get("transfer-encoding");
+        String contentLength = headers.get("content-length");
+        if (HttpCodec.hasNoBody(status)) {
+            state = State.DONE;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            remaining = parseNumber(contentLength.trim(), 10, "Content-Length", contentLength);
+            if (remaining > MAX_BODY_SIZE) {
+                throw new ProtocolException(String.format("响应体过长[%s]", contentLength));
+            }
+            body = new byte[(int) Math.min(remaining, INITIAL_BODY_CAPACITY)];
+            state = remaining == 0 ? State.DONE : State.FIXED_BODY;
+        } else {
+            //没有长度信息时以连接关闭作为响应体结束，此时连接不能复用
+            untilClose = true;
+            state = State.UNTIL_CLOSE;
+        }
+    }
+
+    /**
+     * 解析非负整数，格式错误或为负数时抛出 ProtocolException
+     */
+    private static long parseNumber(String text, int radix, String name, String raw) throws ProtocolException {
+        try {
+            long value = Long.parseLong(text, radix);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignore) {  //与负数一并处理
+        }
+        throw new ProtocolException(String.format("非法的%s[%s]", name, raw));
+    }
+
+    private boolean readLine(ByteBuffer buffer) throws ProtocolException {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return true;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new ProtocolException("响应行过长");
+            }
+            line.append((char) (b & 0xff));
+        }
+        return false;
+    }
+
+    private void append(ByteBuffer buffer, int length) throws ProtocolException {
+        long required = (long) bodyLength + length;
+        if (required > MAX_BODY_SIZE) {
+            throw new ProtocolException("响应体过长");
+        }
+        if (required > body.length) {
+            body = Arrays.copyOf(body, (int) Math.min(MAX_BODY_SIZE, Math.max(required, body.length * 2L)));
+        }
+        buffer.get(body, bodyLength, length);
+        bodyLength += length;
+    }
+
+}
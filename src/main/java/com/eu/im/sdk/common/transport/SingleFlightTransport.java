@@ -0,0 +1,161 @@
+package com.eu.im.sdk.common.transport;
+
+import com.eu.im.sdk.constants.ImConstants;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并相同并发查询的传输实现（single-flight）
+ * 同一时刻 token、地址与请求体都相同的查询只会发出一次，其余调用等待该请求完成并共享同一份响应
+ * 请求完成后立即从进行中的表中移除，之后的调用会重新发出请求，因此不会返回过期数据
+ * <p>
+ * 进行中的请求保存在 ConcurrentHashMap 中，查找不加锁；写请求不参与合并，直接透传
+ * 为了让多个调用者各自读取，查询的响应体会被完整读入内存，不适合用于超大响应的流式读取
+ */
+public class SingleFlightTransport implements ImTransport {
+
+    private final ImTransport delegate;
+
+    private final QueryMatcher queryMatcher;
+
+    private final Map<RequestKey, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 共享了其他调用的请求结果、没有实际发出请求的次数
+     */
+    private final LongAdder sharedCount = new LongAdder();
+
+
+    /**
+     * 合并 GET 请求与群组列表查询
+     *
+     * @param delegate
+     */
+    public SingleFlightTransport(ImTransport delegate) {
+        this(delegate, ImConstants.CHART_LIST);
+    }
+
+    /**
+     * @param delegate
+     * @param queryPaths 使用 POST 发送但只做查询、可以合并的接口路径
+     */
+    public SingleFlightTransport(ImTransport delegate, String... queryPaths) {
+        this.delegate = delegate;
+        this.queryMatcher = new QueryMatcher(Arrays.asList(queryPaths));
+    }
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+        if (!queryMatcher.isQuery(request)) {
+            return delegate.execute(request);
+        }
+
+        RequestKey key = RequestKey.of(request);
+        CompletableFuture<SharedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<SharedResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            sharedCount.increment();
+            return await(existing, request).toResponse();
+        }
+
+        try {
+            SharedResponse shared;
+            try (ImResponse response = delegate.execute(request)) {
+                InputStream in = response.getBody();
+                shared = new SharedResponse(response.getStatus(), response.getHeaders(),
+                        in == null ? new byte[0] : ByteStreams.toByteArray(in));
+            }
+            inFlight.remove(key, flight);
+            flight.complete(shared);
+            return shared.toResponse();
+        } catch (IOException | RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 共享了其他调用的请求结果的次数
+     *
+     * @return
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    /**
+     * 当前进行中的查询个数
+     *
+     * @return
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * 等待共享的请求完成，最多等到本次调用的截止时间
+     * 共享的请求失败时抛出与发起者相同的异常
+     */
+    private static SharedResponse await(CompletableFuture<SharedResponse> flight, ImRequest request) throws IOException {
+        try {
+            return flight.get(request.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(String.format("请求[%s]已超过截止时间", request.getUrl()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待共享请求时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                //原样抛出，调用方可以按异常类型判断能否重试（ConnectTimeoutException、DeadlineExceededException 等）
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * 已完整读取的响应，每个调用者各自获得一个独立的响应体流
+     */
+    private static final class SharedResponse {
+
+        private final int status;
+
+        private final Map<String, String> headers;
+
+        private final byte[] body;
+
+        SharedResponse(int status, Map<String, String> headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        ImResponse toResponse() {
+            return new ImResponse(status, headers, new ByteArrayInputStream(body));
+        }
+
+    }
+
+}
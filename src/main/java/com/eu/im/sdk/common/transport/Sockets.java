@@ -0,0 +1,76 @@
+package com.eu.im.sdk.common.transport;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * 阻塞 Socket 的建立
+ */
+final class Sockets {
+
+    private Sockets() {
+    }
+
+    /**
+     * 建立连接，https 会在连接建立后完成 TLS 握手并校验主机名
+     *
+     * @param route
+     * @param connectTimeout
+     * @return
+     * @throws IOException
+     */
+    static Socket open(HttpRoute route, int connectTimeout) throws IOException {
+        return open(route, InetAddress.getByName(route.getHost()), connectTimeout);
+    }
+
+    /**
+     * 连接到已经解析好的地址
+     *
+     * @param route
+     * @param address        route 中主机名解析得到的地址
+     * @param connectTimeout
+     * @return
+     * @throws IOException
+     */
+    static Socket open(HttpRoute route, InetAddress address, int connectTimeout) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            try {
+                socket.connect(new InetSocketAddress(address, route.getPort()), connectTimeout);
+            } catch (SocketTimeoutException e) {
+                throw new ConnectTimeoutException(String.format("连接[%s]超时", route));
+            }
+
+            if (route.isSecure()) {
+                SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, route.getHost(), route.getPort(), true);
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.setSoTimeout(connectTimeout);
+                try {
+                    sslSocket.startHandshake();
+                } catch (SocketTimeoutException e) {
+                    throw new ConnectTimeoutException(String.format("与[%s]的 TLS 握手超时", route));
+                }
+                socket = sslSocket;
+            }
+            return socket;
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {  //关闭失败时无需处理
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 HttpURLConnection 的传输实现
+ * 连接复用依赖 JDK 自带的 keep-alive 缓存，只有在响应流（包括异常流）被完整读取并关闭后连接才会被复用
+ * 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
+ */
+public class UrlConnectionTransport implements ImTransport {
+
+    @Override
+    public ImResponse execute(ImRequest request) throws IOException {
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(request.getUrl()).openConnection();
+
+        //下面两个值限定了如果打开链接超过 connectTimeout 毫秒 或者 读取响应结果超过 readTimeout 毫秒都会抛出异常
+        //请求有截止时间时两者都不超过剩余时间，但 HttpURLConnection 的读取超时针对单次读取，无法精确限制整个调用
+        connection.setConnectTimeout(request.timeoutWithinDeadline(request.getConnectTimeout()));
+        connection.setReadTimeout(request.timeoutWithinDeadline(request.getReadTimeout()));
+        connection.setUseCaches(false);
+        connection.setDoInput(true);
+
+        //HttpURLConnection 不支持 PATCH，使用 POST 并通过请求头声明真实的请求方法
+        if (request.getMethod() == HttpMethod.PATCH) {
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+        } else {
+            connection.setRequestMethod(request.getMethod().name());
+        }
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        if (request.hasBody()) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(request.getBodyLength());
+        }
+
+        long connectStart = System.nanoTime();
+        try {
+            connection.connect();   //打开链接
+        } catch (SocketTimeoutException e) {
+            throw new ConnectTimeoutException(e.getMessage());
+        }
+        long writeStart = System.nanoTime();
+        request.addConnectTime(writeStart - connectStart);
+
+        if (request.hasBody()) {
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(request.getBody(), 0, request.getBodyLength());
+            }
+            request.addBytesSent(request.getBodyLength());
+            request.addWriteTime(System.nanoTime() - writeStart);
+        }
+
+        //HttpURLConnection 不暴露原始的收发字节数与主机名解析耗时，这里只统计请求体与声明的响应体长度
+        int status = connection.getResponseCode();
+        request.setTimeToFirstByte(System.nanoTime() - writeStart);
+        long contentLength = connection.getContentLengthLong();
+        if (contentLength > 0) {
+            request.addBytesReceived(contentLength);
+        }
+
+        InputStream body;
+        if (status >= 400) {
+            body = connection.getErrorStream();
+        } else {
+            body = connection.getInputStream();
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (header.getKey() != null && !header.getValue().isEmpty()) {
+                headers.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+
+        return new ImResponse(status, headers, body);
+    }
+
+    @Override
+    public void close() {
+        //连接由 JDK 统一管理，这里无需处理
+    }
+
+}
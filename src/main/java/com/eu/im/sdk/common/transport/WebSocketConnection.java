@@ -0,0 +1,380 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * WebSocket 客户端连接（RFC 6455）
+ * 读取只能在一个线程中进行，发送是线程安全的
+ * ping/pong 与 close 等控制帧在 readMessage 中自动处理
+ */
+public final class WebSocketConnection implements Closeable {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final int OP_CONTINUATION = 0x0;
+    private static final int OP_TEXT = 0x1;
+    private static final int OP_BINARY = 0x2;
+    private static final int OP_CLOSE = 0x8;
+    private static final int OP_PING = 0x9;
+    private static final int OP_PONG = 0xA;
+
+    private static final Random RANDOM = new SecureRandom();
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    /**
+     * 单条消息的最大字节数
+     */
+    private final int maxMessageSize;
+
+    private final byte[] mask = new byte[4];
+
+    private volatile boolean closed;
+
+
+    private WebSocketConnection(Socket socket, InputStream in, int maxMessageSize) throws IOException {
+        this.socket = socket;
+        this.in = in;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * 建立连接并完成握手
+     *
+     * @param url            ws:// 或 wss:// 地址
+     * @param headers        握手请求附带的请求头
+     * @param connectTimeout 连接超时时间（毫秒）
+     * @param readTimeout    读取超时时间（毫秒），超时后 readMessage 抛出 SocketTimeoutException，连接仍然可用
+     * @param maxMessageSize 单条消息的最大字节数
+     * @return
+     * @throws IOException 服务端拒绝握手时为 WebSocketHandshakeException
+     */
+    public static WebSocketConnection connect(String url, Map<String, String> headers, int connectTimeout, int readTimeout, int maxMessageSize) throws IOException {
+        String httpUrl;
+        String lower = url.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("wss://")) {
+            httpUrl = "https://" + url.substring(6);
+        } else if (lower.startsWith("ws://")) {
+            httpUrl = "http://" + url.substring(5);
+        } else {
+            httpUrl = url;
+        }
+
+        URL target = new URL(httpUrl);
+        HttpRoute route = HttpRoute.of(target);
+        Socket socket = Sockets.open(route, connectTimeout);
+        try {
+            socket.setSoTimeout(connectTimeout);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 8192);
+            WebSocketConnection connection = new WebSocketConnection(socket, in, maxMessageSize);
+            connection.handshake(target, route, headers);
+            socket.setSoTimeout(readTimeout);
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void handshake(URL url, HttpRoute route, Map<String, String> headers) throws IOException {
+        byte[] nonce = new byte[16];
+        RANDOM.nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+
+        String path = url.getFile();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+
+        StringBuilder head = new StringBuilder(256);
+        head.append("GET ").append(path).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(route.hostHeader()).append("\r\n");
+        head.append("Upgrade: websocket\r\n");
+        head.append("Connection: Upgrade\r\n");
+        head.append("Sec-WebSocket-Key: ").append(key).append("\r\n");
+        head.append("Sec-WebSocket-Version: 13\r\n");
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getValue() != null) {
+                    head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+                }
+            }
+        }
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+
+        String statusLine = readLine();
+        if (statusLine.length() < 12 || !statusLine.startsWith("HTTP/1.")) {
+            throw new ProtocolException(String.format("WebSocket 握手失败[%s]", statusLine));
+        }
+        String status = statusLine.substring(9, 12);
+        if (!"101".equals(status)) {
+            int code;
+            try {
+                code = Integer.parseInt(status);
+            } catch (NumberFormatException e) {
+                throw new ProtocolException(String.format("WebSocket 握手失败[%s]", statusLine));
+            }
+            throw new WebSocketHandshakeException(code, String.format("WebSocket 握手失败[%s]", statusLine));
+        }
+
+        String accept = null;
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int index = line.indexOf(':');
+            if (index > 0 && "sec-websocket-accept".equalsIgnoreCase(line.substring(0, index).trim())) {
+                accept = line.substring(index + 1).trim();
+            }
+        }
+
+        if (!expectedAccept(key).equals(accept)) {
+            throw new ProtocolException("WebSocket 握手校验失败");
+        }
+    }
+
+    /**
+     * 读取下一条数据消息
+     * 分片消息会被合并，控制帧在这里自动处理
+     *
+     * @return 消息内容，服务端关闭连接时返回 null
+     * @throws IOException 包括读取超时 SocketTimeoutException
+     */
+    public String readMessage() throws IOException {
+        ByteArrayOutputStream message = null;
+        while (true) {
+            int b0;
+            try {
+                b0 = in.read();
+            } catch (SocketTimeoutException e) {
+                //只有在两条消息之间超时，连接才仍然可用
+                if (message != null) {
+                    throw new IOException("WebSocket 分片消息读取超时", e);
+                }
+                throw e;
+            }
+            if (b0 == -1) {
+                return null;
+            }
+            int b1 = readByte();
+            boolean fin = (b0 & 0x80) != 0;
+            int opcode = b0 & 0x0F;
+            boolean masked = (b1 & 0x80) != 0;
+            long length = b1 & 0x7F;
+            if (length == 126) {
+                length = (readByte() << 8) | readByte();
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | readByte();
+                }
+            }
+            if (length < 0 || length > maxMessageSize) {
+                throw new ProtocolException(String.format("WebSocket 消息过长[%s]", length));
+            }
+
+            byte[] frameMask = null;
+            if (masked) {
+                frameMask = new byte[4];
+                readFully(frameMask);
+            }
+            byte[] payload = new byte[(int) length];
+            readFully(payload);
+            if (frameMask != null) {
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= frameMask[i & 3];
+                }
+            }
+
+            switch (opcode) {
+                case OP_PING:
+                    sendFrame(OP_PONG, payload);
+                    continue;
+                case OP_PONG:
+                    continue;
+                case OP_CLOSE:
+                    if (!closed) {
+                        sendCloseQuietly(payload);
+                    }
+                    return null;
+                case OP_TEXT:
+                case OP_BINARY:
+                    if (fin) {
+                        return new String(payload, StandardCharsets.UTF_8);
+                    }
+                    message = new ByteArrayOutputStream(payload.length * 2);
+                    message.write(payload);
+                    continue;
+                case OP_CONTINUATION:
+                    if (message == null) {
+                        throw new ProtocolException("WebSocket 分片消息不完整");
+                    }
+                    if (message.size() + payload.length > maxMessageSize) {
+                        throw new ProtocolException("WebSocket 消息过长");
+                    }
+                    message.write(payload);
+                    if (fin) {
+                        return new String(message.toByteArray(), StandardCharsets.UTF_8);
+                    }
+                    continue;
+                default:
+                    throw new ProtocolException(String.format("未知的 WebSocket 帧类型[%s]", opcode));
+            }
+        }
+    }
+
+    /**
+     * 发送文本消息
+     *
+     * @param text
+     * @throws IOException
+     */
+    public void sendText(String text) throws IOException {
+        sendFrame(OP_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 发送 ping，用于心跳检测
+     *
+     * @throws IOException
+     */
+    public void sendPing() throws IOException {
+        sendFrame(OP_PING, new byte[0]);
+    }
+
+    public boolean isOpen() {
+        return !closed && !socket.isClosed();
+    }
+
+    /**
+     * 发送 close 帧并关闭连接
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        sendCloseQuietly(new byte[]{0x03, (byte) 0xE8});   //1000 正常关闭
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignore) {  //关闭失败时无需处理
+        }
+    }
+
+    private void sendCloseQuietly(byte[] payload) {
+        try {
+            sendFrame(OP_CLOSE, payload);
+        } catch (IOException ignore) {  //连接可能已经断开，无需处理
+        }
+    }
+
+    /**
+     * 客户端发出的帧必须使用掩码
+     */
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("WebSocket 连接已关闭");
+        }
+        out.write(0x80 | opcode);
+        int length = payload.length;
+        if (length < 126) {
+            out.write(0x80 | length);
+        } else if (length <= 0xFFFF) {
+            out.write(0x80 | 126);
+            out.write(length >>> 8);
+            out.write(length);
+        } else {
+            out.write(0x80 | 127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) ((long) length >>> shift));
+            }
+        }
+        RANDOM.nextBytes(mask);
+        out.write(mask);
+        for (int i = 0; i < length; i++) {
+            out.write(payload[i] ^ mask[i & 3]);
+        }
+        out.flush();
+    }
+
+    /**
+     * 帧内读取超时后帧边界已无法确定，因此不再以 SocketTimeoutException 抛出
+     */
+    private int readByte() throws IOException {
+        int b;
+        try {
+            b = in.read();
+        } catch (SocketTimeoutException e) {
+            throw new IOException("WebSocket 帧读取超时", e);
+        }
+        if (b == -1) {
+            throw new EOFException("WebSocket 连接已被服务端关闭");
+        }
+        return b;
+    }
+
+    private void readFully(byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n;
+            try {
+                n = in.read(buffer, offset, buffer.length - offset);
+            } catch (SocketTimeoutException e) {
+                throw new IOException("WebSocket 帧读取超时", e);
+            }
+            if (n == -1) {
+                throw new EOFException("WebSocket 连接已被服务端关闭");
+            }
+            offset += n;
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = readByte()) != '\n') {
+            line.append((char) b);
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    private static String expectedAccept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
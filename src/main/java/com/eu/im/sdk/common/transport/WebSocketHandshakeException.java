@@ -0,0 +1,27 @@
+package com.eu.im.sdk.common.transport;
+
+import java.net.ProtocolException;
+
+/**
+ * 服务端以 101 之外的状态码拒绝 WebSocket 握手
+ * 调用方可以根据状态码区分认证失败（401）与其他错误
+ */
+public class WebSocketHandshakeException extends ProtocolException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public WebSocketHandshakeException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * 握手响应的状态码
+     */
+    public int getStatus() {
+        return status;
+    }
+
+}
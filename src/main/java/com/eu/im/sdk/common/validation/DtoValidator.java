@@ -0,0 +1,166 @@
+package com.eu.im.sdk.common.validation;
+
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 请求参数校验
+ * 支持 @NotNull、@NotEmpty、@NotBlank，不合法时抛出 REQUEST_ARGUMENT_EXCEPTION，异常信息取注解的 message
+ * 每个类型的约束只在第一次校验时通过反射解析一次并缓存，之后的校验只读取字段值
+ */
+public final class DtoValidator {
+
+    private static final Map<Class<?>, Constraint[]> CONSTRAINTS = new ConcurrentHashMap<>();
+
+    private static final Constraint[] NONE = new Constraint[0];
+
+    private DtoValidator() {
+    }
+
+    /**
+     * 校验请求参数，参数为集合时逐个校验其中的元素
+     *
+     * @param dto 为 null 时不校验
+     */
+    public static void validate(Object dto) {
+        if (dto instanceof Collection) {
+            for (Object element : (Collection<?>) dto) {
+                validateBean(element);
+            }
+        } else {
+            validateBean(dto);
+        }
+    }
+
+    private static void validateBean(Object dto) {
+        if (dto == null) {
+            return;
+        }
+        for (Constraint constraint : constraintsOf(dto.getClass())) {
+            constraint.check(dto);
+        }
+    }
+
+    private static Constraint[] constraintsOf(Class<?> type) {
+        Constraint[] cached = CONSTRAINTS.get(type);
+        if (cached != null) {
+            return cached;
+        }
+        Constraint[] created = create(type);
+        Constraint[] previous = CONSTRAINTS.putIfAbsent(type, created);
+        return previous != null ? previous : created;
+    }
+
+    private static Constraint[] create(Class<?> type) {
+        if (type.getName().startsWith("java.")) {
+            return NONE;
+        }
+        List<Constraint> constraints = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                NotNull notNull = field.getAnnotation(NotNull.class);
+                NotEmpty notEmpty = field.getAnnotation(NotEmpty.class);
+                NotBlank notBlank = field.getAnnotation(NotBlank.class);
+                if (notNull == null && notEmpty == null && notBlank == null) {
+                    continue;
+                }
+                field.setAccessible(true);
+                if (notNull != null) {
+                    constraints.add(new Constraint(field, Kind.NOT_NULL, message(notNull.message(), field, "不能为空")));
+                }
+                if (notEmpty != null) {
+                    constraints.add(new Constraint(field, Kind.NOT_EMPTY, message(notEmpty.message(), field, "不能为空")));
+                }
+                if (notBlank != null) {
+                    constraints.add(new Constraint(field, Kind.NOT_BLANK, message(notBlank.message(), field, "不能为空白")));
+                }
+            }
+        }
+        return constraints.isEmpty() ? NONE : constraints.toArray(NONE);
+    }
+
+    /**
+     * 注解未指定 message 时（默认值为 {javax.validation...} 形式的消息模板）使用字段名生成
+     */
+    private static String message(String message, Field field, String suffix) {
+        if (message.isEmpty() || message.startsWith("{")) {
+            return String.format("%s%s", field.getName(), suffix);
+        }
+        return message;
+    }
+
+    private enum Kind {
+        NOT_NULL, NOT_EMPTY, NOT_BLANK
+    }
+
+    private static final class Constraint {
+
+        private final Field field;
+
+        private final Kind kind;
+
+        private final String message;
+
+        Constraint(Field field, Kind kind, String message) {
+            this.field = field;
+            this.kind = kind;
+            this.message = message;
+        }
+
+        void check(Object dto) {
+            Object value;
+            try {
+                value = field.get(dto);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            boolean valid;
+            switch (kind) {
+                case NOT_NULL:
+                    valid = value != null;
+                    break;
+                case NOT_EMPTY:
+                    valid = value != null && !isEmpty(value);
+                    break;
+                default:
+                    valid = value != null && !value.toString().trim().isEmpty();
+            }
+            if (!valid) {
+                throw new GlobalException(GlobalExceptionCode.REQUEST_ARGUMENT_EXCEPTION.getCode(), message);
+            }
+        }
+
+        private static boolean isEmpty(Object value) {
+            if (value instanceof CharSequence) {
+                return ((CharSequence) value).length() == 0;
+            }
+            if (value instanceof Collection) {
+                return ((Collection<?>) value).isEmpty();
+            }
+            if (value instanceof Map) {
+                return ((Map<?, ?>) value).isEmpty();
+            }
+            if (value.getClass().isArray()) {
+                return Array.getLength(value) == 0;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -10,6 +10,26 @@ public interface ImConstants {
      */
     String LOGIN = "/login";
 
+    /************************ 好友 *************************/
+
+    /**
+     * 申请添加好友
+     * POST
+     */
+    String FRIEND_ADD = "/friend/apply";
+
+    /**
+     * 处理好友申请（通过或拒绝）
+     * PUT
+     */
+    String FRIEND_HANDLE = "/friend/apply/handle";
+
+    /**
+     * 修改好友备注
+     * PUT
+     */
+    String FRIEND_NOTE = "/friend/note";
+
     /************************ 群组 *************************/
 
     /**
@@ -25,10 +45,60 @@ public interface ImConstants {
      */
     String CHART_MESSAGE = "/chart/enter/%s";
 
+    /**
+     * 分页查看群组消息，按消息从新到旧翻页
+     * args1: 群组gid
+     * 参数 size: 每页条数；mid: 只返回该消息之前的消息，查询第一页时不传
+     * GET
+     */
+    String CHART_MESSAGE_PAGE = "/chart/enter/%s/page";
+
     /**
      * 创建群组
      * PUT
      */
     String GROUP_CREATE = "/chart/group";
 
+    /**
+     * 修改群组名称
+     * PUT
+     */
+    String GROUP_NAME = "/chart/group/name";
+
+    /**
+     * 邀请成员加入群组
+     * POST
+     */
+    String GROUP_INVITE = "/chart/group/invite";
+
+    /************************ 消息 *************************/
+
+    /**
+     * 发送消息
+     * POST
+     */
+    String MESSAGE_SEND = "/chart/message";
+
+    /**
+     * 批量发送消息
+     * 请求体为消息数组，响应 data 为与请求顺序一致的发送结果数组
+     * POST
+     */
+    String MESSAGE_SEND_BATCH = "/chart/message/batch";
+
+    /**
+     * 转发消息到多个群组
+     * POST
+     */
+    String MESSAGE_FORWARD = "/chart/message/forward";
+
+    /************************ 实时消息 *************************/
+
+    /**
+     * WebSocket 实时消息通道
+     * 请求头 Authorization 携带用户token，断线重连时通过 lastMid 参数从最后收到的消息之后继续推送
+     * WS
+     */
+    String WEBSOCKET = "/websocket";
+
 }
@@ -38,7 +38,17 @@ public class GlobalException extends RuntimeException {
      * @param msg
      */
     public GlobalException(int code, String msg) {
+        super(msg);
         this.code = code;
     }
 
+    /**
+     * 异常代码
+     *
+     * @return
+     */
+    public int getCode() {
+        return code;
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.eu.im.sdk.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * 创建群组
+ * 成员uid以 long[] 保存并直接编码，不装箱，适合成员很多的群组
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupCreateUidsDto {
+
+    /**
+     * 群组名称
+     */
+    @NotBlank(message = "群组名称不能为空")
+    private String groupName;
+
+    /**
+     * 群组成员id列表
+     */
+    @NotEmpty(message = "请选择群成员")
+    private long[] uidList;
+
+}
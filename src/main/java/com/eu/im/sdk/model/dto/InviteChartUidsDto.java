@@ -0,0 +1,31 @@
+package com.eu.im.sdk.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 邀请加入群聊
+ * 被邀请人uid以 long[] 保存并直接编码，不装箱，适合一次邀请很多成员
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InviteChartUidsDto {
+
+    /**
+     * 群聊id
+     */
+    @NotNull(message = "群聊id不能为空")
+    private Long gid;
+
+    /**
+     * 邀请人id list
+     */
+    @NotEmpty(message = "请邀请至少一位加入")
+    private long[] uidList;
+
+}
@@ -1,6 +1,8 @@
 package com.eu.im.sdk.model.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -9,6 +11,8 @@ import javax.validation.constraints.NotNull;
  * 发送消息dto
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class MessageDto {
 
     /**
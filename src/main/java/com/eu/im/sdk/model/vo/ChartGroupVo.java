@@ -0,0 +1,26 @@
+package com.eu.im.sdk.model.vo;
+
+import lombok.Data;
+
+/**
+ * 群组信息
+ */
+@Data
+public class ChartGroupVo {
+
+    /**
+     * 群组id
+     */
+    private Long gid;
+
+    /**
+     * 群组名称
+     */
+    private String groupName;
+
+    /**
+     * 群组头像
+     */
+    private String avatar;
+
+}
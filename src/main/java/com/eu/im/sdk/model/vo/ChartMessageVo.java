@@ -0,0 +1,42 @@
+package com.eu.im.sdk.model.vo;
+
+import lombok.Data;
+
+/**
+ * 群组消息
+ */
+@Data
+public class ChartMessageVo {
+
+    /**
+     * 消息id
+     */
+    private Long mid;
+
+    /**
+     * 群组id
+     */
+    private Long gid;
+
+    /**
+     * 发送者uid
+     */
+    private Long uid;
+
+    /**
+     * 消息内容
+     */
+    private String message;
+
+    /**
+     * 消息类型
+     * SubMsgType
+     */
+    private Integer msgType;
+
+    /**
+     * 发送时间
+     */
+    private String createTime;
+
+}
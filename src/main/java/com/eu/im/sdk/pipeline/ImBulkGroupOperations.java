@@ -0,0 +1,146 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.client.ImClient;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.GroupCreateUidsDto;
+import com.eu.im.sdk.model.dto.InviteChartUidsDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+/**
+ * 批量群成员操作
+ * 从 long[] 或 LongStream 中按 batchSize 逐批读取uid，每批作为一个请求在调用线程中依次发送；
+ * uid 全程以 long 保存并直接编码到请求体，不装箱，内存中只有一个批次的uid
+ * 某个批次失败时记录该批次的uid并继续发送之后的批次
+ */
+public class ImBulkGroupOperations {
+
+    private final ImClient client;
+
+    private final int batchSize;
+
+
+    /**
+     * 每批 500 个uid
+     *
+     * @param client
+     */
+    public ImBulkGroupOperations(ImClient client) {
+        this(client, 500);
+    }
+
+    /**
+     * @param client
+     * @param batchSize 单个请求的最大uid数，不能超过服务端的限制
+     */
+    public ImBulkGroupOperations(ImClient client, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive.");
+        }
+        this.client = client;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 创建群组
+     *
+     * @param groupName 群组名称
+     * @param uids      群成员uid
+     * @param listener  进度回调，可以为 null
+     */
+    public ImBulkResult create(String groupName, long[] uids, ImBulkListener listener) {
+        return this.create(groupName, Arrays.stream(uids), listener);
+    }
+
+    /**
+     * 创建群组
+     * 第一批成员随创建请求发送，之后的成员分批邀请加入；创建请求失败时抛出 GlobalException
+     *
+     * @param groupName 群组名称
+     * @param uids      群成员uid，只遍历一次
+     * @param listener  进度回调，可以为 null
+     */
+    public ImBulkResult create(String groupName, LongStream uids, ImBulkListener listener) {
+        PrimitiveIterator.OfLong iterator = uids.iterator();
+        long[] buffer = new long[batchSize];
+        long[] first = batch(buffer, fill(iterator, buffer));
+        Long gid = client.groupCreate(new GroupCreateUidsDto(groupName, first));
+        if (listener != null) {
+            listener.onProgress(first.length, 0);
+        }
+        if (!iterator.hasNext()) {
+            return new ImBulkResult(gid, first.length, new ArrayList<>());
+        }
+        if (gid == null) {
+            throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "群组已创建，但响应中没有gid，无法邀请其余成员");
+        }
+        return this.invite(gid, iterator, buffer, first.length, listener);
+    }
+
+    /**
+     * 邀请加入群聊
+     *
+     * @param gid      群组gid
+     * @param uids     被邀请人uid
+     * @param listener 进度回调，可以为 null
+     */
+    public ImBulkResult invite(Long gid, long[] uids, ImBulkListener listener) {
+        return this.invite(gid, Arrays.stream(uids), listener);
+    }
+
+    /**
+     * 邀请加入群聊
+     *
+     * @param gid      群组gid
+     * @param uids     被邀请人uid，只遍历一次
+     * @param listener 进度回调，可以为 null
+     */
+    public ImBulkResult invite(Long gid, LongStream uids, ImBulkListener listener) {
+        if (gid == null) {
+            throw new GlobalException(GlobalExceptionCode.REQUEST_ARGUMENT_EXCEPTION.getCode(), "群聊id不能为空");
+        }
+        return this.invite(gid, uids.iterator(), new long[batchSize], 0, listener);
+    }
+
+    private ImBulkResult invite(Long gid, PrimitiveIterator.OfLong iterator, long[] buffer, long succeeded, ImBulkListener listener) {
+        List<ImBulkResult.Failure> failures = new ArrayList<>();
+        long failed = 0;
+        int size;
+        while ((size = fill(iterator, buffer)) > 0) {
+            long[] uids = batch(buffer, size);
+            try {
+                client.groupInvite(new InviteChartUidsDto(gid, uids));
+                succeeded += size;
+            } catch (GlobalException e) {
+                //缓冲区会被下一批次覆盖，失败的uid需要复制保留
+                failures.add(new ImBulkResult.Failure(uids.clone(), e));
+                failed += size;
+            }
+            if (listener != null) {
+                listener.onProgress(succeeded, failed);
+            }
+        }
+        return new ImBulkResult(gid, succeeded, failures);
+    }
+
+    private static int fill(PrimitiveIterator.OfLong iterator, long[] buffer) {
+        int size = 0;
+        while (size < buffer.length && iterator.hasNext()) {
+            buffer[size++] = iterator.nextLong();
+        }
+        return size;
+    }
+
+    /**
+     * 不足一批时复制出准确长度的数组，满批直接使用缓冲区
+     */
+    private static long[] batch(long[] buffer, int size) {
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+}
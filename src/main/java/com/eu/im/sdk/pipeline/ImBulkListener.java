@@ -0,0 +1,16 @@
+package com.eu.im.sdk.pipeline;
+
+/**
+ * 批量群成员操作的进度回调
+ * 每个批次完成后在调用线程中回调一次
+ */
+@FunctionalInterface
+public interface ImBulkListener {
+
+    /**
+     * @param succeeded 目前成功处理的uid数
+     * @param failed    目前失败的uid数
+     */
+    void onProgress(long succeeded, long failed);
+
+}
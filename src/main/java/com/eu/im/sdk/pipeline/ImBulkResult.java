@@ -0,0 +1,105 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.exception.GlobalException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量群成员操作的结果
+ * 失败按批次记录，保留该批次的uid以便重新邀请
+ */
+public class ImBulkResult {
+
+    private final Long gid;
+
+    private final long succeeded;
+
+    private final List<Failure> failures;
+
+
+    ImBulkResult(Long gid, long succeeded, List<Failure> failures) {
+        this.gid = gid;
+        this.succeeded = succeeded;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * 操作的群组，创建群组时为新群组的gid
+     *
+     * @return
+     */
+    public Long getGid() {
+        return gid;
+    }
+
+    /**
+     * 成功处理的uid数
+     *
+     * @return
+     */
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * 失败的uid数
+     *
+     * @return
+     */
+    public long getFailed() {
+        long failed = 0;
+        for (Failure failure : failures) {
+            failed += failure.getUids().length;
+        }
+        return failed;
+    }
+
+    /**
+     * 失败的批次
+     *
+     * @return
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 是否全部成功
+     *
+     * @return
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * 失败的批次
+     */
+    public static class Failure {
+
+        private final long[] uids;
+
+        private final GlobalException error;
+
+        Failure(long[] uids, GlobalException error) {
+            this.uids = uids;
+            this.error = error;
+        }
+
+        /**
+         * 该批次的uid
+         *
+         * @return
+         */
+        public long[] getUids() {
+            return uids;
+        }
+
+        public GlobalException getError() {
+            return error;
+        }
+
+    }
+
+}
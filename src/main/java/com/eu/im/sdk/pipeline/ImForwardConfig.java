@@ -0,0 +1,79 @@
+package com.eu.im.sdk.pipeline;
+
+/**
+ * 消息转发配置
+ * 目标群组按 chunkSize 拆分为多个转发请求，最多 concurrency 个请求同时进行
+ */
+public class ImForwardConfig {
+
+    /**
+     * 单个转发请求的最大群组数
+     */
+    private int chunkSize = 50;
+
+    /**
+     * 同时进行的转发请求数，所有转发任务共用
+     */
+    private int concurrency = 4;
+
+    /**
+     * 每个群组的最大转发次数（包括第一次）
+     * 重试时失败的请求拆为两半，使个别群组的失败不影响同一请求中的其他群组
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 重试前的等待时间（毫秒）
+     */
+    private long retryDelayMillis = 200;
+
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public ImForwardConfig setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive.");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public ImForwardConfig setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive.");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public ImForwardConfig setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive.");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public ImForwardConfig setRetryDelayMillis(long retryDelayMillis) {
+        if (retryDelayMillis < 0) {
+            throw new IllegalArgumentException("retryDelayMillis must not be negative.");
+        }
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+}
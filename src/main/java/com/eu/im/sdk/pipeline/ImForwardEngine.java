@@ -0,0 +1,205 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.client.ImClient;
+import com.eu.im.sdk.common.validation.DtoValidator;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.MessageForwardDto;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 消息转发引擎
+ * 将转发到大量群组的请求按 chunkSize 拆分，由 concurrency 个线程并行发送，每个群组的结果汇总到 ImForwardResult
+ * 失败的请求只重试其中的群组，并且每次重试拆为两半，直到单个群组为止，因此个别群组的失败不会拖累其他群组
+ * 注意：读取响应超时的请求服务端可能已经处理，重试可能造成重复转发
+ */
+public class ImForwardEngine implements Closeable {
+
+    private final ImForwardConfig config;
+
+    private final Consumer<MessageForwardDto> sender;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * 尚未完成的转发任务数
+     */
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private volatile boolean closed;
+
+
+    /**
+     * 使用默认配置
+     *
+     * @param client
+     */
+    public ImForwardEngine(ImClient client) {
+        this(client, new ImForwardConfig());
+    }
+
+    /**
+     * @param client 用于发送转发请求的客户端
+     * @param config
+     */
+    public ImForwardEngine(ImClient client, ImForwardConfig config) {
+        this(client::messageForward, config);
+    }
+
+    /**
+     * @param sender 转发函数，失败时抛出 GlobalException
+     * @param config
+     */
+    public ImForwardEngine(Consumer<MessageForwardDto> sender, ImForwardConfig config) {
+        this.config = config;
+        this.sender = sender;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(config.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "eu-im-forward-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交转发任务，重复的群组只转发一次
+     *
+     * @param forward 消息mid及转发的群组gid列表
+     * @return 全部群组转发成功或重试用尽后完成
+     */
+    public CompletableFuture<ImForwardResult> forward(MessageForwardDto forward) {
+        DtoValidator.validate(forward);
+        if (closed) {
+            throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息转发引擎已关闭");
+        }
+
+        List<Long> gids = new ArrayList<>(new LinkedHashSet<>(forward.getGidList()));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < gids.size(); from += config.getChunkSize()) {
+            chunks.add(gids.subList(from, Math.min(gids.size(), from + config.getChunkSize())));
+        }
+        activeTasks.incrementAndGet();
+        ForwardTask task = new ForwardTask(forward.getMid());
+        task.round(chunks, 1);
+        return task.result;
+    }
+
+    /**
+     * 关闭引擎，已提交的转发任务（包括等待中的重试）会全部完成
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        synchronized (activeTasks) {
+            try {
+                long remaining;
+                while (activeTasks.get() > 0 && (remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) > 0) {
+                    activeTasks.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void finished() {
+        if (activeTasks.decrementAndGet() == 0) {
+            synchronized (activeTasks) {
+                activeTasks.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 单次转发的进度
+     */
+    private final class ForwardTask {
+
+        private final Long mid;
+
+        private final List<Long> succeeded = Collections.synchronizedList(new ArrayList<>());
+
+        private final CompletableFuture<ImForwardResult> result = new CompletableFuture<>();
+
+        ForwardTask(Long mid) {
+            this.mid = mid;
+        }
+
+        /**
+         * 并行发送一轮请求，全部完成后重试失败的请求或汇总结果
+         *
+         * @param chunks
+         * @param attempt 本轮是第几次发送
+         */
+        void round(List<List<Long>> chunks, int attempt) {
+            Map<List<Long>, GlobalException> failed = Collections.synchronizedMap(new LinkedHashMap<>());
+            CompletableFuture<?>[] sends = new CompletableFuture<?>[chunks.size()];
+            for (int i = 0; i < sends.length; i++) {
+                List<Long> chunk = chunks.get(i);
+                sends[i] = CompletableFuture.runAsync(() -> this.send(chunk), executor).handle((ignore, error) -> {
+                    if (error == null) {
+                        succeeded.addAll(chunk);
+                    } else {
+                        failed.put(chunk, toGlobalException(error));
+                    }
+                    return null;
+                });
+            }
+            CompletableFuture.allOf(sends).thenRun(() -> {
+                if (failed.isEmpty() || attempt >= config.getMaxAttempts()) {
+                    this.complete(failed);
+                    return;
+                }
+                List<List<Long>> retries = new ArrayList<>();
+                for (List<Long> chunk : failed.keySet()) {
+                    if (chunk.size() == 1) {
+                        retries.add(chunk);
+                    } else {
+                        retries.add(chunk.subList(0, chunk.size() / 2));
+                        retries.add(chunk.subList(chunk.size() / 2, chunk.size()));
+                    }
+                }
+                executor.schedule(() -> this.round(retries, attempt + 1), config.getRetryDelayMillis(), TimeUnit.MILLISECONDS);
+            });
+        }
+
+        private void send(List<Long> chunk) {
+            MessageForwardDto dto = new MessageForwardDto();
+            dto.setMid(mid);
+            dto.setGidList(new ArrayList<>(chunk));
+            sender.accept(dto);
+        }
+
+        private void complete(Map<List<Long>, GlobalException> failed) {
+            Map<Long, GlobalException> failures = new LinkedHashMap<>();
+            failed.forEach((chunk, error) -> chunk.forEach(gid -> failures.put(gid, error)));
+            result.complete(new ImForwardResult(mid, new ArrayList<>(succeeded), failures));
+            finished();
+        }
+
+    }
+
+    private static GlobalException toGlobalException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof GlobalException) {
+            return (GlobalException) cause;
+        }
+        return new GlobalException(GlobalExceptionCode.ERROR.getCode(), String.valueOf(cause.getMessage()));
+    }
+
+}
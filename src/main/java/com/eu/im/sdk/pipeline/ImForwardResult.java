@@ -0,0 +1,59 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.exception.GlobalException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次转发的结果
+ * 每个目标群组要么转发成功，要么带有最后一次失败的异常
+ */
+public class ImForwardResult {
+
+    private final Long mid;
+
+    private final List<Long> succeeded;
+
+    private final Map<Long, GlobalException> failures;
+
+
+    ImForwardResult(Long mid, List<Long> succeeded, Map<Long, GlobalException> failures) {
+        this.mid = mid;
+        this.succeeded = Collections.unmodifiableList(succeeded);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public Long getMid() {
+        return mid;
+    }
+
+    /**
+     * 转发成功的群组
+     *
+     * @return
+     */
+    public List<Long> getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * 重试后仍然失败的群组及最后一次失败的原因
+     *
+     * @return
+     */
+    public Map<Long, GlobalException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 是否全部转发成功
+     *
+     * @return
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+}
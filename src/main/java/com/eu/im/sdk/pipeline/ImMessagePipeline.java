@@ -0,0 +1,125 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.client.ImClient;
+import com.eu.im.sdk.common.validation.DtoValidator;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.MessageDto;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 消息发送管道
+ * 将逐条提交的消息合并为批量请求发送，每条消息通过各自的 future 得到发送结果
+ * 同一群组的消息总是进入同一个发送通道，因此同一群组内的发送顺序与提交顺序一致
+ * 某个批次发送失败时，其中的消息以异常完成，之后的批次继续发送
+ */
+public class ImMessagePipeline implements Closeable {
+
+    private final PipelineLane[] lanes;
+
+    /**
+     * 提交消息时持有读锁，关闭时持有写锁，关闭之后不会再有消息进入通道队列
+     */
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private boolean closed;
+
+
+    /**
+     * 使用默认配置
+     *
+     * @param client
+     */
+    public ImMessagePipeline(ImClient client) {
+        this(client, new ImPipelineConfig());
+    }
+
+    /**
+     * @param client 用于发送批量请求的客户端
+     * @param config
+     */
+    public ImMessagePipeline(ImClient client, ImPipelineConfig config) {
+        //每条消息的结果直接从响应流中读取
+        this(config, messages -> client.messageSendBatch(messages, reader -> PipelineLane.readResults(reader, messages.size())));
+    }
+
+    /**
+     * @param sender 批量发送函数，返回服务端响应内容
+     * @param config
+     */
+    public ImMessagePipeline(Function<List<MessageDto>, String> sender, ImPipelineConfig config) {
+        this(config, messages -> PipelineLane.parse(sender.apply(messages), messages.size()));
+    }
+
+    /**
+     * @param config
+     * @param sender 批量发送函数，按顺序返回每条消息的结果
+     */
+    private ImMessagePipeline(ImPipelineConfig config, Function<List<MessageDto>, List<String>> sender) {
+        this.lanes = new PipelineLane[config.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new PipelineLane(config, sender, "eu-im-pipeline-" + i);
+        }
+    }
+
+    /**
+     * 提交消息
+     * 通道队列已满时阻塞，直到有空位
+     *
+     * @param message
+     * @return 该条消息的发送结果：响应 data 是与请求顺序一一对应的数组时为对应的元素，否则为完整的 data
+     */
+    public CompletableFuture<String> send(MessageDto message) {
+        DtoValidator.validate(message);
+        if (message == null || message.getGid() == null) {
+            throw new GlobalException(GlobalExceptionCode.REQUEST_ARGUMENT_EXCEPTION.getCode(), "群组id不能为空");
+        }
+
+        PendingMessage pending = new PendingMessage(message);
+        gate.readLock().lock();
+        try {
+            if (closed) {
+                throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发送管道已关闭");
+            }
+            //通道在关闭之前持续消费队列，阻塞的 put 总能完成，关闭因此等待它放入之后才进行
+            lanes[Math.floorMod(message.getGid().hashCode(), lanes.length)].put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        } finally {
+            gate.readLock().unlock();
+        }
+        return pending.future;
+    }
+
+    /**
+     * 关闭管道，已提交的消息会全部发送完毕
+     */
+    @Override
+    public void close() {
+        gate.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            gate.writeLock().unlock();
+        }
+        for (PipelineLane lane : lanes) {
+            lane.close();
+        }
+        try {
+            for (PipelineLane lane : lanes) {
+                lane.await(TimeUnit.SECONDS.toMillis(30));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,702 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.client.ImClient;
+import com.eu.im.sdk.common.auth.TokenProvider;
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.JsonEncoder;
+import com.eu.im.sdk.common.codec.JsonReader;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import com.eu.im.sdk.common.validation.DtoValidator;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.MessageDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 本地持久化的消息发件箱
+ * 消息先追加写入内存映射的发件箱文件，刷盘后即确认，再由后台线程按写入顺序逐条发送到服务端；进程重启后继续发送未送达的消息
+ * 多个并发写入共用一次刷盘（组提交），刷盘期间到达的消息由下一次刷盘一并确认
+ * 每条消息以“发件箱id-序号”作为幂等键发送，重启或重试造成的重复发送由服务端去重
+ * 已送达的消息在文件空间不足时被压缩掉：未送达的消息复制到新文件，刷盘后原子替换原文件
+ * 替换之前先释放原文件的内存映射（Windows 上仍被映射的文件不能被替换）；释放依赖 JDK 的内部接口，
+ * 不可用时映射只能等待 GC 回收，此时在 Windows 上压缩会失败，发件箱只能在 Linux、macOS 等平台上使用
+ * <p>
+ * 文件格式：64 字节的文件头（魔数、版本、发件箱id、第一条未送达消息的位置与序号），之后是连续的消息记录，
+ * 每条记录为 [长度][CRC32][序号][json]，长度为 0 表示记录结束；启动时从第一条未送达的消息开始校验，遇到不完整的记录即停止
+ * <p>
+ * 同一个文件同时只能由一个发件箱打开
+ */
+@Slf4j
+public class ImOutbox implements Closeable {
+
+    private static final int MAGIC = 0x494d4f42;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * 文件头中第一条未送达消息的位置
+     */
+    private static final int ACKED_OFFSET = 24;
+
+    /**
+     * 文件头中第一条未送达消息的序号，没有未送达的消息时为下一条消息的序号
+     */
+    private static final int ACKED_SEQ = 32;
+
+    /**
+     * 记录头：长度、CRC32、序号
+     */
+    private static final int RECORD_HEADER = 16;
+
+    private final Path file;
+
+    private final ImOutboxConfig config;
+
+    private final BiConsumer<String, MessageDto> sender;
+
+    private final ImOutboxListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 有新的消息等待刷盘
+     */
+    private final Condition appended = lock.newCondition();
+
+    /**
+     * 有新的消息完成刷盘，或者发件箱关闭
+     */
+    private final Condition committed = lock.newCondition();
+
+    /**
+     * 锁外进行的刷盘已经结束
+     */
+    private final Condition forced = lock.newCondition();
+
+    /**
+     * 等待刷盘确认的消息，按序号排列
+     */
+    private final ArrayDeque<PendingAck> waiting = new ArrayDeque<>();
+
+    private final Thread committer;
+
+    private final Thread drainer;
+
+    private String id;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * 下一条消息的写入位置
+     */
+    private int writeOffset;
+
+    /**
+     * 下一条消息的序号
+     */
+    private long nextSeq;
+
+    /**
+     * 第一条未送达消息的位置
+     */
+    private int drainOffset;
+
+    /**
+     * 第一条未送达消息的序号
+     */
+    private long drainSeq;
+
+    /**
+     * 序号小于该值的消息都已刷盘
+     */
+    private long committedSeq;
+
+    private boolean closed;
+
+    /**
+     * 刷盘线程正在锁外刷新 buffer，此时不能释放其映射
+     */
+    private boolean forcing;
+
+
+    /**
+     * 使用默认配置
+     *
+     * @param client
+     * @param file   发件箱文件，不存在时创建
+     */
+    public ImOutbox(ImClient client, Path file) {
+        this(client, file, new ImOutboxConfig());
+    }
+
+    /**
+     * 被服务端拒绝的消息记录日志后丢弃
+     *
+     * @param client 用于发送消息的客户端
+     * @param file   发件箱文件，不存在时创建
+     * @param config
+     */
+    public ImOutbox(ImClient client, Path file, ImOutboxConfig config) {
+        this((key, message) -> client.messageSend(message, key), file, config, null);
+    }
+
+    /**
+     * @param sender   发送函数，参数为幂等键与消息，失败时抛出 GlobalException
+     * @param file     发件箱文件，不存在时创建
+     * @param config
+     * @param listener 消息被服务端拒绝时的回调，为 null 时记录日志
+     */
+    public ImOutbox(BiConsumer<String, MessageDto> sender, Path file, ImOutboxConfig config, ImOutboxListener listener) {
+        if (config.getInitialSize() < HEADER_SIZE || config.getInitialSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException("initialSize must be between 64 and maxSize.");
+        }
+        this.file = file;
+        this.config = config;
+        this.sender = sender;
+        this.listener = listener;
+        try {
+            this.open();
+        } catch (IOException e) {
+            log.warn("打开发件箱[{}]失败", file, e);
+            throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), String.format("打开发件箱[%s]失败", file));
+        }
+        this.committer = this.newThread(this::commitLoop, "eu-im-outbox-commit");
+        this.drainer = this.newThread(this::drainLoop, "eu-im-outbox-drain");
+    }
+
+    /**
+     * 将消息写入发件箱
+     *
+     * @param message 消息
+     * @return 消息刷盘后完成，值为消息的幂等键；config.sync 为 false 时写入后立即完成
+     */
+    public CompletableFuture<String> send(MessageDto message) {
+        DtoValidator.validate(message);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        String key;
+        //编码与校验和在锁外完成，锁内只复制字节
+        JsonWriter writer = JsonWriter.obtain();
+        try {
+            JsonEncoder.write(writer, message);
+            CRC32 crc = new CRC32();
+            crc.update(writer.buffer(), 0, writer.size());
+            int length = RECORD_HEADER + writer.size();
+
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发件箱已关闭");
+                }
+                this.ensureCapacity(length);
+                long seq = nextSeq++;
+                ByteBuffer target = buffer.duplicate();
+                target.position(writeOffset + RECORD_HEADER);
+                target.put(writer.buffer(), 0, writer.size());
+                buffer.putLong(writeOffset + 8, seq);
+                buffer.putInt(writeOffset + 4, (int) crc.getValue());
+                buffer.putInt(writeOffset, writer.size());
+                writeOffset += length;
+                key = this.keyOf(seq);
+                if (config.isSync()) {
+                    waiting.add(new PendingAck(seq, key, future));
+                    appended.signal();
+                    return future;
+                }
+                committedSeq = nextSeq;
+                committed.signal();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            writer.recycle();
+        }
+        future.complete(key);
+        return future;
+    }
+
+    /**
+     * 未送达的消息数，包括正在发送的消息
+     *
+     * @return
+     */
+    public long getPendingCount() {
+        lock.lock();
+        try {
+            return nextSeq - drainSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭发件箱
+     * 已写入的消息全部刷盘后返回；等待正在进行的发送完成（受发送函数自身的超时限制），
+     * 未送达的消息留在文件中，下次打开时继续发送
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signalAll();
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            //发送线程仍可能访问映射，不能释放；它在当前发送结束后退出
+            log.warn("关闭发件箱[{}]时被中断，发送线程在当前发送结束后退出", file);
+            return;
+        }
+        lock.lock();
+        try {
+            buffer.force();
+            unmap(buffer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private String keyOf(long seq) {
+        return id + "-" + seq;
+    }
+
+    /**
+     * 打开发件箱文件，从第一条未送达的消息开始恢复
+     */
+    private void open() throws IOException {
+        if (!Files.exists(file)) {
+            this.id = UUID.randomUUID().toString();
+            this.rewrite(config.getInitialSize());
+            return;
+        }
+        this.buffer = map(file);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("不是发件箱文件或版本不支持");
+        }
+        this.id = new UUID(buffer.getLong(8), buffer.getLong(16)).toString();
+        long offset = buffer.getLong(ACKED_OFFSET);
+        if (offset < HEADER_SIZE || offset > buffer.capacity()) {
+            throw new IOException("发件箱文件头损坏");
+        }
+        this.drainOffset = (int) offset;
+        this.drainSeq = buffer.getLong(ACKED_SEQ);
+        this.recover();
+    }
+
+    /**
+     * 校验未送达的消息，确定写入位置
+     * 第一条记录的序号以记录本身为准，之后的记录序号必须连续；遇到不完整或校验失败的记录即停止，并清除其后的内容
+     */
+    private void recover() {
+        int offset = drainOffset;
+        long seq = -1;
+        CRC32 crc = new CRC32();
+        while (offset + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - RECORD_HEADER) {
+                break;
+            }
+            long recordSeq = buffer.getLong(offset + 8);
+            if (seq >= 0 && recordSeq != seq + 1) {
+                break;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(offset + RECORD_HEADER).limit(offset + RECORD_HEADER + length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            if (seq < 0) {
+                drainSeq = recordSeq;
+            }
+            seq = recordSeq;
+            offset += RECORD_HEADER + length;
+        }
+        this.writeOffset = offset;
+        this.nextSeq = Math.max(drainSeq, seq + 1);
+        this.committedSeq = nextSeq;
+        //写入中断的记录可能残留部分内容，清除后新的记录才不会与之混淆
+        for (int i = offset; i < buffer.capacity() && i < offset + RECORD_HEADER; i++) {
+            if (buffer.get(i) != 0) {
+                for (int j = offset; j < buffer.capacity(); j++) {
+                    buffer.put(j, (byte) 0);
+                }
+                buffer.force();
+                break;
+            }
+        }
+        if (nextSeq > drainSeq) {
+            log.info("发件箱[{}]恢复了 {} 条未送达的消息", file, nextSeq - drainSeq);
+        }
+    }
+
+    /**
+     * 确保文件剩余空间可以写入 length 字节的记录
+     * 已送达的消息腾出的空间足够时只压缩，否则扩容到未送达的消息至多占用一半
+     */
+    private void ensureCapacity(int length) {
+        while (writeOffset + length > buffer.capacity()) {
+            //压缩会释放当前的映射，等待锁外的刷盘结束；等待期间发件箱可能已被关闭或已被其它线程压缩
+            if (forcing) {
+                forced.awaitUninterruptibly();
+                if (closed) {
+                    throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发件箱已关闭");
+                }
+                continue;
+            }
+            long required = HEADER_SIZE + (long) (writeOffset - drainOffset) + length;
+            if (required > config.getMaxSize()) {
+                throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发件箱已满");
+            }
+            int size = buffer.capacity();
+            while (size < required * 2 && size < config.getMaxSize()) {
+                size = (int) Math.min(config.getMaxSize(), size * 2L);
+            }
+            try {
+                this.rewrite(size);
+            } catch (IOException e) {
+                log.warn("压缩发件箱[{}]失败", file, e);
+                throw new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发件箱写入失败");
+            }
+        }
+    }
+
+    /**
+     * 将未送达的消息写入大小为 size 的新文件，刷盘后释放原文件的映射，再原子替换原文件
+     * 替换之前原文件保持完整，任何时刻崩溃都不会丢失消息；替换失败时重新映射原文件
+     * 调用者必须持有锁并且没有正在进行的刷盘（构造时除外）
+     */
+    private void rewrite(int size) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            //映射建立后不依赖于 channel，关闭 channel 不影响映射
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        UUID uuid = UUID.fromString(id);
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putLong(8, uuid.getMostSignificantBits());
+        mapped.putLong(16, uuid.getLeastSignificantBits());
+        mapped.putLong(ACKED_OFFSET, HEADER_SIZE);
+        mapped.putLong(ACKED_SEQ, drainSeq);
+        int pending = writeOffset - drainOffset;
+        if (pending > 0) {
+            ByteBuffer records = buffer.duplicate();
+            records.position(drainOffset).limit(writeOffset);
+            ByteBuffer target = mapped.duplicate();
+            target.position(HEADER_SIZE);
+            target.put(records);
+        }
+        mapped.force();
+
+        MappedByteBuffer previous = this.buffer;
+        if (previous != null) {
+            unmap(previous);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            unmap(mapped);
+            Files.deleteIfExists(temp);
+            if (previous != null) {
+                this.buffer = map(file);
+            }
+            throw e;
+        }
+        this.syncDirectory();
+
+        this.buffer = mapped;
+        this.drainOffset = HEADER_SIZE;
+        this.writeOffset = HEADER_SIZE + pending;
+        //新文件已经刷盘，之前写入的消息都可以确认
+        if (committedSeq < nextSeq) {
+            committedSeq = nextSeq;
+            appended.signal();
+            committed.signal();
+        }
+    }
+
+    /**
+     * 映射整个已有的发件箱文件
+     */
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("发件箱文件大小异常：" + size);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * 立即释放映射，之后不能再访问 mapped
+     * Java 8 通过 DirectBuffer 的 cleaner，Java 9 及以上通过 Unsafe.invokeCleaner；都不可用时只能等待 GC 回收
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = mapped.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(mapped);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("释放发件箱文件的映射失败，等待 GC 回收", e);
+        }
+    }
+
+    /**
+     * 刷新目录项，使替换文件在断电后依然有效；不支持的平台上忽略
+     */
+    private void syncDirectory() {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("刷新目录[{}]失败", directory, e);
+        }
+    }
+
+    /**
+     * 组提交：每次刷盘确认此前写入的所有消息
+     */
+    private void commitLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            long upTo;
+            lock.lock();
+            try {
+                while (waiting.isEmpty()) {
+                    if (closed) {
+                        return;
+                    }
+                    appended.awaitUninterruptibly();
+                }
+                target = committedSeq < nextSeq ? buffer : null;
+                upTo = nextSeq;
+                forcing = target != null;
+            } finally {
+                lock.unlock();
+            }
+
+            if (target != null) {
+                target.force();
+            }
+
+            List<PendingAck> done = new ArrayList<>();
+            lock.lock();
+            try {
+                if (forcing) {
+                    forcing = false;
+                    forced.signalAll();
+                }
+                if (committedSeq < upTo) {
+                    committedSeq = upTo;
+                    committed.signal();
+                }
+                while (!waiting.isEmpty() && waiting.peek().seq < committedSeq) {
+                    done.add(waiting.poll());
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (PendingAck ack : done) {
+                ack.future.complete(ack.key);
+            }
+        }
+    }
+
+    /**
+     * 按写入顺序逐条发送已刷盘的消息，送达或被拒绝后推进文件头中的位置
+     * 文件头不单独刷盘，崩溃后可能重发少量已送达的消息，由幂等键去重
+     */
+    private void drainLoop() {
+        while (true) {
+            int offset;
+            long seq;
+            byte[] payload;
+            lock.lock();
+            try {
+                while (!closed && drainSeq >= committedSeq) {
+                    committed.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+                offset = drainOffset;
+                seq = drainSeq;
+                payload = new byte[buffer.getInt(offset)];
+                ByteBuffer source = buffer.duplicate();
+                source.position(offset + RECORD_HEADER);
+                source.get(payload);
+            } finally {
+                lock.unlock();
+            }
+
+            String key = this.keyOf(seq);
+            MessageDto message = null;
+            try {
+                message = JsonDecoder.read(new JsonReader(new ByteArrayInputStream(payload)), MessageDto.class);
+            } catch (IOException | RuntimeException e) {
+                log.error("发件箱消息[{}]无法解析，已丢弃", key, e);
+            }
+            if (message != null && !this.deliver(key, message)) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                drainOffset += RECORD_HEADER + payload.length;
+                drainSeq = seq + 1;
+                //先写序号再写位置：两者之间崩溃时只会重发一条消息
+                buffer.putLong(ACKED_SEQ, drainSeq);
+                buffer.putLong(ACKED_OFFSET, drainOffset);
+                //刷盘进行中时不能释放映射，留到之后的确认或写入时再压缩
+                if (drainSeq == nextSeq && drainOffset > buffer.capacity() / 2 && !forcing) {
+                    this.rewrite(buffer.capacity());
+                }
+            } catch (IOException e) {
+                log.warn("压缩发件箱[{}]失败", file, e);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 发送消息，网络异常、超时、429、5xx 与 token 失效时按指数退避一直重试，其余错误视为服务端拒绝
+     *
+     * @return 发件箱关闭导致放弃发送时为 false
+     */
+    private boolean deliver(String key, MessageDto message) {
+        long delay = config.getRetryDelayMillis();
+        while (true) {
+            try {
+                sender.accept(key, message);
+                return true;
+            } catch (GlobalException e) {
+                if (!isRetryable(e)) {
+                    this.rejected(key, message, e);
+                    return true;
+                }
+                log.warn("发件箱消息[{}]发送失败（错误码 {}），{} 毫秒后重试", key, e.getCode(), delay);
+            } catch (RuntimeException e) {
+                log.warn("发件箱消息[{}]发送失败，{} 毫秒后重试", key, delay, e);
+            }
+            if (!this.pause(delay)) {
+                return false;
+            }
+            delay = Math.min(config.getMaxRetryDelayMillis(), delay * 2);
+        }
+    }
+
+    private static boolean isRetryable(GlobalException e) {
+        int code = e.getCode();
+        return code == 0 || code == GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode() || code == 408 || code == 429
+                || (code >= 500 && code < 600) || TokenProvider.isAuthenticationFailure(e);
+    }
+
+    private void rejected(String key, MessageDto message, GlobalException error) {
+        if (listener == null) {
+            log.warn("发件箱消息[{}]被服务端拒绝（错误码 {}）：{}", key, error.getCode(), error.getMessage());
+            return;
+        }
+        try {
+            listener.onRejected(key, message, error);
+        } catch (RuntimeException e) {
+            log.warn("发件箱回调失败", e);
+        }
+    }
+
+    /**
+     * 等待重试，发件箱关闭时提前返回
+     *
+     * @return 发件箱已关闭时为 false
+     */
+    private boolean pause(long millis) {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(millis);
+            while (!closed && remaining > 0) {
+                remaining = committed.awaitNanos(remaining);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class PendingAck {
+
+        private final long seq;
+
+        private final String key;
+
+        private final CompletableFuture<String> future;
+
+        PendingAck(long seq, String key, CompletableFuture<String> future) {
+            this.seq = seq;
+            this.key = key;
+            this.future = future;
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.eu.im.sdk.pipeline;
+
+/**
+ * 消息发件箱配置
+ * 发件箱文件从 initialSize 开始，放不下新消息时先压缩掉已送达的消息，仍然放不下时按倍数扩容，最大为 maxSize
+ */
+public class ImOutboxConfig {
+
+    /**
+     * 发件箱文件的初始大小（字节）
+     */
+    private int initialSize = 4 * 1024 * 1024;
+
+    /**
+     * 发件箱文件的最大大小（字节），未送达的消息超过该大小时拒绝新的消息
+     */
+    private int maxSize = 256 * 1024 * 1024;
+
+    /**
+     * 是否在确认消息之前将其刷到磁盘
+     * 关闭时写入内存映射即确认，进程崩溃不会丢失消息，但操作系统崩溃或断电可能丢失
+     */
+    private boolean sync = true;
+
+    /**
+     * 发送失败后第一次重试前的等待时间（毫秒），之后每次翻倍
+     */
+    private long retryDelayMillis = 500;
+
+    /**
+     * 重试等待时间的上限（毫秒）
+     */
+    private long maxRetryDelayMillis = 30000;
+
+
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    public ImOutboxConfig setInitialSize(int initialSize) {
+        if (initialSize <= 0) {
+            throw new IllegalArgumentException("initialSize must be positive.");
+        }
+        this.initialSize = initialSize;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public ImOutboxConfig setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive.");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    public ImOutboxConfig setSync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    public ImOutboxConfig setRetryDelayMillis(long retryDelayMillis) {
+        if (retryDelayMillis <= 0) {
+            throw new IllegalArgumentException("retryDelayMillis must be positive.");
+        }
+        this.retryDelayMillis = retryDelayMillis;
+        return this;
+    }
+
+    public long getMaxRetryDelayMillis() {
+        return maxRetryDelayMillis;
+    }
+
+    public ImOutboxConfig setMaxRetryDelayMillis(long maxRetryDelayMillis) {
+        if (maxRetryDelayMillis <= 0) {
+            throw new IllegalArgumentException("maxRetryDelayMillis must be positive.");
+        }
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+        return this;
+    }
+
+}
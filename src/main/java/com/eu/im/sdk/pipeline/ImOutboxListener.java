@@ -0,0 +1,20 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.model.dto.MessageDto;
+
+/**
+ * 发件箱中的消息被服务端拒绝时的回调
+ * 在发件箱的发送线程中回调，回调返回后消息从发件箱中移除
+ */
+@FunctionalInterface
+public interface ImOutboxListener {
+
+    /**
+     * @param key     消息的幂等键
+     * @param message 消息
+     * @param error   服务端返回的错误
+     */
+    void onRejected(String key, MessageDto message, GlobalException error);
+
+}
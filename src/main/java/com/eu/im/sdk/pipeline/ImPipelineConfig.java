@@ -0,0 +1,95 @@
+package com.eu.im.sdk.pipeline;
+
+/**
+ * 消息发送管道配置
+ * 满足批次条数、批次字节数或等待时间中任意一个条件即发送当前批次
+ */
+public class ImPipelineConfig {
+
+    /**
+     * 单个批次的最大消息数
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * 单个批次的最大字节数（按 UTF-8 估算）
+     */
+    private int maxBatchBytes = 256 * 1024;
+
+    /**
+     * 批次中第一条消息的最长等待时间（毫秒）
+     */
+    private long lingerMillis = 5;
+
+    /**
+     * 发送通道数，同一群组的消息总是进入同一个通道，通道内的批次依次发送
+     */
+    private int lanes = 4;
+
+    /**
+     * 每个通道最多排队的消息数，队列已满时 send 会阻塞
+     */
+    private int maxPendingPerLane = 10000;
+
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public ImPipelineConfig setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public ImPipelineConfig setMaxBatchBytes(int maxBatchBytes) {
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes must be positive.");
+        }
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+
+    public long getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public ImPipelineConfig setLingerMillis(long lingerMillis) {
+        if (lingerMillis < 0) {
+            throw new IllegalArgumentException("lingerMillis must not be negative.");
+        }
+        this.lingerMillis = lingerMillis;
+        return this;
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    public ImPipelineConfig setLanes(int lanes) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes must be positive.");
+        }
+        this.lanes = lanes;
+        return this;
+    }
+
+    public int getMaxPendingPerLane() {
+        return maxPendingPerLane;
+    }
+
+    public ImPipelineConfig setMaxPendingPerLane(int maxPendingPerLane) {
+        if (maxPendingPerLane <= 0) {
+            throw new IllegalArgumentException("maxPendingPerLane must be positive.");
+        }
+        this.maxPendingPerLane = maxPendingPerLane;
+        return this;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.model.dto.MessageDto;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 排队中的消息
+ */
+final class PendingMessage {
+
+    /**
+     * 每条消息在 json 数组中的固定开销估算（字段名、引号、分隔符等）
+     */
+    private static final int JSON_OVERHEAD = 48;
+
+    final MessageDto message;
+
+    final CompletableFuture<String> future = new CompletableFuture<>();
+
+    /**
+     * 序列化后的估算字节数
+     */
+    final int bytes;
+
+
+    PendingMessage(MessageDto message) {
+        this.message = message;
+        this.bytes = JSON_OVERHEAD + utf8Length(message.getMessage());
+    }
+
+    /**
+     * 不分配内存的 UTF-8 字节数计算
+     */
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.eu.im.sdk.pipeline;
+
+import com.eu.im.sdk.common.codec.JsonDecoder;
+import com.eu.im.sdk.common.codec.JsonEncoder;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import com.eu.im.sdk.common.codec.ResponseDecoder;
+import com.eu.im.sdk.common.codec.TokenReader;
+import com.eu.im.sdk.common.codec.ValueReader;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import com.eu.im.sdk.model.dto.MessageDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 发送通道
+ * 单线程从队列中取出消息组成批次并依次发送，因此同一通道内的消息顺序与提交顺序一致
+ */
+final class PipelineLane implements Runnable {
+
+    private static final ValueReader<?> ANY = JsonDecoder.readerFor(Object.class);
+
+    private final ImPipelineConfig config;
+
+    private final Function<List<MessageDto>, List<String>> sender;
+
+    private final BlockingQueue<PendingMessage> queue;
+
+    private final Thread thread;
+
+    /**
+     * 因超出字节预算而留到下一批次的消息
+     */
+    private PendingMessage carry;
+
+    private volatile boolean closed;
+
+
+    PipelineLane(ImPipelineConfig config, Function<List<MessageDto>, List<String>> sender, String name) {
+        this.config = config;
+        this.sender = sender;
+        this.queue = new LinkedBlockingQueue<>(config.getMaxPendingPerLane());
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 放入消息，队列已满时阻塞
+     *
+     * @param pending
+     * @throws InterruptedException
+     */
+    void put(PendingMessage pending) throws InterruptedException {
+        queue.put(pending);
+    }
+
+    /**
+     * 停止接收新消息，已排队的消息发送完毕后线程退出
+     */
+    void close() {
+        closed = true;
+    }
+
+    void await(long millis) throws InterruptedException {
+        thread.join(millis);
+    }
+
+    @Override
+    public void run() {
+        List<PendingMessage> batch = new ArrayList<>(config.getMaxBatchSize());
+        List<MessageDto> messages = new ArrayList<>(config.getMaxBatchSize());
+        while (true) {
+            PendingMessage first;
+            try {
+                first = carry != null ? carry : queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            carry = null;
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+
+            collect(first, batch);
+
+            messages.clear();
+            for (PendingMessage pending : batch) {
+                messages.add(pending.message);
+            }
+            send(batch, messages);
+            batch.clear();
+        }
+
+        //线程被中断时尚未发送的消息以异常完成
+        if (carry != null) {
+            carry.future.completeExceptionally(new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发送管道已关闭"));
+            carry = null;
+        }
+        PendingMessage rejected;
+        while ((rejected = queue.poll()) != null) {
+            rejected.future.completeExceptionally(new GlobalException(GlobalExceptionCode.ERROR.getCode(), "消息发送管道已关闭"));
+        }
+    }
+
+    /**
+     * 以 first 开始组成批次，直到达到条数、字节数或等待时间的上限
+     */
+    private void collect(PendingMessage first, List<PendingMessage> batch) {
+        batch.add(first);
+        int bytes = first.bytes;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLingerMillis());
+
+        while (batch.size() < config.getMaxBatchSize()) {
+            PendingMessage next = queue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) {
+                    break;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (next == null) {
+                    break;
+                }
+            }
+            if (bytes + next.bytes > config.getMaxBatchBytes()) {
+                carry = next;
+                break;
+            }
+            batch.add(next);
+            bytes += next.bytes;
+        }
+    }
+
+    /**
+     * 发送批次并将结果分发给每条消息
+     */
+    private void send(List<PendingMessage> batch, List<MessageDto> messages) {
+        List<String> results;
+        try {
+            results = sender.apply(messages);
+        } catch (RuntimeException e) {
+            for (PendingMessage pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results == null ? null : results.get(i));
+        }
+    }
+
+    /**
+     * 解析批量发送的响应内容，用于只能得到响应文本的发送函数
+     * 响应无法解析时每条消息都得到完整的响应内容
+     *
+     * @param body  响应内容
+     * @param count 批次中的消息数
+     * @return
+     */
+    static List<String> parse(String body, int count) {
+        try {
+            return ResponseDecoder.decode(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), reader -> readResults(reader, count));
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof GlobalException) {
+                throw (GlobalException) e;
+            }
+            return Collections.nCopies(count, body);  //无法解析时按整体结果处理
+        }
+    }
+
+    /**
+     * 读取 data 并分配给批次中的每条消息
+     * data 是与请求顺序一一对应的数组时每条消息得到各自的元素，否则都得到完整的 data；
+     * 对象与数组转为 json，其余为字面值
+     *
+     * @param reader
+     * @param count  批次中的消息数
+     * @return
+     * @throws IOException
+     */
+    static List<String> readResults(TokenReader reader, int count) throws IOException {
+        Object data = ANY.read(reader);
+        if (!(data instanceof List) || ((List<?>) data).size() != count) {
+            return Collections.nCopies(count, text(data));
+        }
+        List<?> elements = (List<?>) data;
+        List<String> results = new ArrayList<>(count);
+        for (Object element : elements) {
+            results.add(text(element));
+        }
+        return results;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof Map || value instanceof List) {
+            JsonWriter writer = new JsonWriter();
+            JsonEncoder.write(writer, value);
+            return writer.toString();
+        }
+        return String.valueOf(value);
+    }
+
+}
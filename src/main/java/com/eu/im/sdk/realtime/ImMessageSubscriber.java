@@ -0,0 +1,37 @@
+package com.eu.im.sdk.realtime;
+
+/**
+ * 实时消息订阅者
+ * 同一个订阅者的回调不会并发执行，且只会在 request 的额度内收到消息
+ */
+public interface ImMessageSubscriber {
+
+    /**
+     * 订阅成功，订阅者需要通过 subscription.request(n) 声明可以接收的消息数
+     *
+     * @param subscription
+     */
+    void onSubscribe(ImSubscription subscription);
+
+    /**
+     * 收到消息
+     *
+     * @param message 服务端推送的消息 json
+     */
+    void onMessage(String message);
+
+    /**
+     * 订阅因异常终止，例如缓冲区溢出或 onMessage 抛出异常
+     *
+     * @param e
+     */
+    default void onError(Throwable e) {
+    }
+
+    /**
+     * 会话已关闭，不会再收到消息
+     */
+    default void onComplete() {
+    }
+
+}
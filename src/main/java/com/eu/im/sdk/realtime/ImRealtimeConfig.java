@@ -0,0 +1,149 @@
+package com.eu.im.sdk.realtime;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时消息会话配置
+ */
+public class ImRealtimeConfig {
+
+    /**
+     * 每个订阅者的缓冲区大小
+     */
+    private int bufferSize = 256;
+
+    /**
+     * 缓冲区已满时的处理策略
+     */
+    private OverflowStrategy overflowStrategy = OverflowStrategy.BLOCK;
+
+    /**
+     * 心跳间隔（毫秒），超过该时间没有收到任何数据则发送 ping，连续两次没有响应视为断线
+     */
+    private int pingInterval = (int) TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 连接超时时间（毫秒）
+     */
+    private int connectTimeout = (int) TimeUnit.SECONDS.toMillis(3);
+
+    /**
+     * 重连初始等待时间（毫秒）
+     */
+    private long reconnectBaseDelay = 500;
+
+    /**
+     * 重连最大等待时间（毫秒）
+     */
+    private long reconnectMaxDelay = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 单条消息的最大字节数
+     */
+    private int maxMessageSize = 16 * 1024 * 1024;
+
+    /**
+     * 执行订阅者回调的线程池
+     */
+    private Executor callbackExecutor = ForkJoinPool.commonPool();
+
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public ImRealtimeConfig setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive.");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public OverflowStrategy getOverflowStrategy() {
+        return overflowStrategy;
+    }
+
+    public ImRealtimeConfig setOverflowStrategy(OverflowStrategy overflowStrategy) {
+        if (overflowStrategy == null) {
+            throw new IllegalArgumentException("overflowStrategy should not be null.");
+        }
+        this.overflowStrategy = overflowStrategy;
+        return this;
+    }
+
+    public int getPingInterval() {
+        return pingInterval;
+    }
+
+    public ImRealtimeConfig setPingInterval(int pingInterval) {
+        if (pingInterval <= 0) {
+            throw new IllegalArgumentException("pingInterval must be positive.");
+        }
+        this.pingInterval = pingInterval;
+        return this;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public ImRealtimeConfig setConnectTimeout(int connectTimeout) {
+        if (connectTimeout <= 0) {
+            throw new IllegalArgumentException("connectTimeout must be positive.");
+        }
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public long getReconnectBaseDelay() {
+        return reconnectBaseDelay;
+    }
+
+    public ImRealtimeConfig setReconnectBaseDelay(long reconnectBaseDelay) {
+        if (reconnectBaseDelay <= 0) {
+            throw new IllegalArgumentException("reconnectBaseDelay must be positive.");
+        }
+        this.reconnectBaseDelay = reconnectBaseDelay;
+        return this;
+    }
+
+    public long getReconnectMaxDelay() {
+        return reconnectMaxDelay;
+    }
+
+    public ImRealtimeConfig setReconnectMaxDelay(long reconnectMaxDelay) {
+        if (reconnectMaxDelay <= 0) {
+            throw new IllegalArgumentException("reconnectMaxDelay must be positive.");
+        }
+        this.reconnectMaxDelay = reconnectMaxDelay;
+        return this;
+    }
+
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public ImRealtimeConfig setMaxMessageSize(int maxMessageSize) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("maxMessageSize must be positive.");
+        }
+        this.maxMessageSize = maxMessageSize;
+        return this;
+    }
+
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    public ImRealtimeConfig setCallbackExecutor(Executor callbackExecutor) {
+        if (callbackExecutor == null) {
+            throw new IllegalArgumentException("callbackExecutor should not be null.");
+        }
+        this.callbackExecutor = callbackExecutor;
+        return this;
+    }
+
+}
@@ -0,0 +1,369 @@
+package com.eu.im.sdk.realtime;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.eu.im.sdk.common.auth.TokenProvider;
+import com.eu.im.sdk.common.transport.WebSocketConnection;
+import com.eu.im.sdk.common.transport.WebSocketHandshakeException;
+import com.eu.im.sdk.constants.ImConstants;
+import com.eu.im.sdk.exception.GlobalException;
+import com.eu.im.sdk.exception.GlobalExceptionCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 实时消息会话
+ * 同一个端点与token只维护一条 WebSocket 连接，全部订阅者共享这条连接，并可以按群组过滤消息
+ * 断线后按带随机抖动的指数退避自动重连，并从最后收到的消息 id 之后继续接收
+ * 每次连接都从 TokenProvider 获取 token；握手因认证失败被拒绝时刷新一次 token 立即重连，
+ * 刷新后仍被拒绝（或 token 无法刷新）时会话终止，全部订阅者收到 onError
+ */
+@Slf4j
+public class ImRealtimeSession implements Closeable {
+
+    /**
+     * 全部会话，key 为 端点 + token（或 token 来源）
+     */
+    private static final Map<Object, ImRealtimeSession> SESSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 请求端点
+     */
+    private final String endpoint;
+
+    /**
+     * 请求token来源
+     */
+    private final TokenProvider tokenProvider;
+
+    private final ImRealtimeConfig config;
+
+    private final Object key;
+
+    private final List<RealtimeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Thread reader;
+
+    private volatile WebSocketConnection connection;
+
+    /**
+     * 最后收到的消息 id，-1 表示尚未收到消息
+     */
+    private volatile long lastMid = -1;
+
+    private volatile boolean closed;
+
+    /**
+     * 会话异常终止的原因，为 null 表示正常关闭或仍在运行
+     */
+    private volatile Throwable failure;
+
+
+    private ImRealtimeSession(String endpoint, TokenProvider tokenProvider, ImRealtimeConfig config, Object key) {
+        this.endpoint = endpoint;
+        this.tokenProvider = tokenProvider;
+        this.config = config;
+        this.key = key;
+        this.reader = new Thread(this::readLoop, "eu-im-realtime");
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * 获取会话，使用默认配置
+     *
+     * @param endpoint
+     * @param token
+     * @return
+     */
+    public static ImRealtimeSession of(String endpoint, String token) {
+        return of(endpoint, token, new ImRealtimeConfig());
+    }
+
+    /**
+     * 获取会话
+     * 同一个端点与token已经存在会话时直接返回该会话，config 参数被忽略
+     *
+     * @param endpoint
+     * @param token
+     * @param config
+     * @return
+     */
+    public static ImRealtimeSession of(String endpoint, String token, ImRealtimeConfig config) {
+        return of(endpoint, TokenProvider.of(token), config, Arrays.asList(endpoint, token));
+    }
+
+    /**
+     * 获取会话，使用默认配置
+     *
+     * @param endpoint
+     * @param tokenProvider token来源，如自动登录并刷新的 RefreshingTokenProvider
+     * @return
+     */
+    public static ImRealtimeSession of(String endpoint, TokenProvider tokenProvider) {
+        return of(endpoint, tokenProvider, new ImRealtimeConfig());
+    }
+
+    /**
+     * 获取会话
+     * 同一个端点与token来源已经存在会话时直接返回该会话，config 参数被忽略
+     *
+     * @param endpoint
+     * @param tokenProvider token来源，如自动登录并刷新的 RefreshingTokenProvider
+     * @param config
+     * @return
+     */
+    public static ImRealtimeSession of(String endpoint, TokenProvider tokenProvider, ImRealtimeConfig config) {
+        return of(endpoint, tokenProvider, config, Arrays.asList(endpoint, tokenProvider));
+    }
+
+    private static ImRealtimeSession of(String endpoint, TokenProvider tokenProvider, ImRealtimeConfig config, Object key) {
+        ImRealtimeSession session = SESSIONS.computeIfAbsent(key, k -> new ImRealtimeSession(endpoint, tokenProvider, config, k));
+        session.startOnce();
+        return session;
+    }
+
+    /**
+     * 订阅全部消息
+     *
+     * @param subscriber
+     * @return
+     */
+    public ImSubscription subscribe(ImMessageSubscriber subscriber) {
+        return this.subscribe(null, subscriber);
+    }
+
+    /**
+     * 订阅指定群组的消息
+     *
+     * @param gid        群组gid，为 null 表示全部消息
+     * @param subscriber
+     * @return
+     */
+    public ImSubscription subscribe(Long gid, ImMessageSubscriber subscriber) {
+        RealtimeSubscription subscription = new RealtimeSubscription(this, subscriber, gid, config);
+        if (closed) {
+            subscription.start();
+            subscription.complete(failure);
+            return subscription;
+        }
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * 通过当前连接发送消息
+     *
+     * @param text
+     */
+    public void send(String text) {
+        WebSocketConnection current = this.connection;
+        if (current == null) {
+            throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), "实时消息通道未连接");
+        }
+        try {
+            current.sendText(text);
+        } catch (IOException e) {
+            throw new GlobalException(GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode(), "实时消息发送失败");
+        }
+    }
+
+    /**
+     * 是否已连接
+     */
+    public boolean isConnected() {
+        WebSocketConnection current = this.connection;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * 最后收到的消息 id，-1 表示尚未收到消息
+     */
+    public long getLastMessageId() {
+        return lastMid;
+    }
+
+    /**
+     * 关闭会话，全部订阅者在缓冲区中的消息投递完毕后收到 onComplete
+     */
+    @Override
+    public void close() {
+        this.terminate(null);
+    }
+
+    void remove(RealtimeSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * 终止会话
+     *
+     * @param cause 异常终止的原因，为 null 时订阅者收到 onComplete
+     */
+    private synchronized void terminate(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        failure = cause;
+        closed = true;
+        SESSIONS.remove(key, this);
+        reader.interrupt();
+        WebSocketConnection current = this.connection;
+        if (current != null) {
+            current.close();
+        }
+        for (RealtimeSubscription subscription : subscriptions) {
+            subscription.complete(cause);
+        }
+        subscriptions.clear();
+    }
+
+    private synchronized void startOnce() {
+        if (reader.getState() == Thread.State.NEW) {
+            reader.start();
+        }
+    }
+
+    private void readLoop() {
+        int attempt = 0;
+        //握手被拒绝的 token，下一次连接前先刷新
+        String rejected = null;
+        while (!closed) {
+            WebSocketConnection current = null;
+            String token = null;
+            try {
+                token = rejected == null ? tokenProvider.getToken() : tokenProvider.refresh(rejected);
+                current = WebSocketConnection.connect(url(), Collections.singletonMap("Authorization", token),
+                        config.getConnectTimeout(), config.getPingInterval(), config.getMaxMessageSize());
+                this.connection = current;
+                if (closed) {   //连接建立期间会话被关闭
+                    break;
+                }
+                attempt = 0;
+                rejected = null;
+                receive(current);
+            } catch (WebSocketHandshakeException e) {
+                if (e.getStatus() != 401) {
+                    log.warn("实时消息通道[{}]握手失败: {}", endpoint, e.toString());
+                } else if (rejected != null) {
+                    //刷新后的 token 仍被拒绝
+                    this.terminate(new GlobalException(e.getStatus(), String.format("实时消息通道[%s]认证失败", endpoint)));
+                    break;
+                } else {
+                    rejected = token;
+                    continue;   //刷新 token 后立即重连
+                }
+            } catch (GlobalException e) {
+                //获取或刷新 token 失败，网络异常时按退避重试，其余情况终止会话
+                if (e.getCode() != GlobalExceptionCode.HTTP_REQUEST_ERROR.getCode()) {
+                    this.terminate(e);
+                    break;
+                }
+                log.warn("实时消息通道[{}]获取 token 失败: {}", endpoint, e.getMessage());
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("实时消息通道[{}]断开: {}", endpoint, e.toString());
+                }
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                this.connection = null;
+                if (current != null) {
+                    current.close();
+                }
+            }
+
+            if (closed) {
+                break;
+            }
+            try {
+                Thread.sleep(backoff(attempt++));
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void receive(WebSocketConnection current) throws IOException, InterruptedException {
+        int idle = 0;
+        while (!closed) {
+            String message;
+            try {
+                message = current.readMessage();
+            } catch (SocketTimeoutException e) {
+                //一个心跳周期没有收到数据时发送 ping，连续两个周期没有数据视为断线
+                if (++idle >= 2) {
+                    throw new IOException("心跳超时", e);
+                }
+                current.sendPing();
+                continue;
+            }
+            if (message == null) {
+                return;
+            }
+            idle = 0;
+            dispatch(message);
+        }
+    }
+
+    private void dispatch(String message) throws InterruptedException {
+        Long mid = null;
+        Long gid = null;
+        try {
+            JSONObject json = JSONUtil.parseObj(message);
+            mid = json.getLong("mid");
+            gid = json.getLong("gid");
+        } catch (RuntimeException e) {
+            log.warn("无法解析的实时消息: {}", message);
+        }
+
+        if (mid != null) {
+            //重连后服务端可能重复推送已经收到过的消息
+            if (mid <= lastMid) {
+                return;
+            }
+            lastMid = mid;
+        }
+
+        for (RealtimeSubscription subscription : subscriptions) {
+            if (subscription.accepts(gid)) {
+                subscription.offer(message);
+            }
+        }
+    }
+
+    private String url() {
+        String url = endpoint + ImConstants.WEBSOCKET;
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            url = "wss://" + url.substring(8);
+        } else if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            url = "ws://" + url.substring(7);
+        }
+        if (lastMid >= 0) {
+            url += "?lastMid=" + lastMid;
+        }
+        return url;
+    }
+
+    /**
+     * 带随机抖动的指数退避：在 [0, min(max, base * 2^attempt)] 中随机取值
+     */
+    private long backoff(int attempt) {
+        long ceiling = config.getReconnectBaseDelay() << Math.min(attempt, 20);
+        if (ceiling <= 0 || ceiling > config.getReconnectMaxDelay()) {
+            ceiling = config.getReconnectMaxDelay();
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.eu.im.sdk.realtime;
+
+/**
+ * 订阅关系
+ */
+public interface ImSubscription {
+
+    /**
+     * 增加可接收的消息数，传入 Long.MAX_VALUE 表示不限制
+     *
+     * @param n
+     */
+    void request(long n);
+
+    /**
+     * 取消订阅，缓冲区中尚未投递的消息会被丢弃
+     */
+    void cancel();
+
+}
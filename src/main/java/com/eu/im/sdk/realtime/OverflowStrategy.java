@@ -0,0 +1,24 @@
+package com.eu.im.sdk.realtime;
+
+/**
+ * 订阅者缓冲区已满时的处理策略
+ */
+public enum OverflowStrategy {
+
+    /**
+     * 暂停读取 WebSocket，直到缓冲区有空位，压力通过 TCP 传递给服务端
+     * 注意：同一会话上的全部订阅者都会被暂停
+     */
+    BLOCK,
+
+    /**
+     * 终止该订阅者，onError 收到 BufferOverflowException，其余订阅者不受影响
+     */
+    FAIL,
+
+    /**
+     * 丢弃新到的消息，订阅者继续接收之后的消息，其余订阅者不受影响
+     */
+    DROP,
+
+}
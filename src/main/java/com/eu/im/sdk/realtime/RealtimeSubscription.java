@@ -0,0 +1,219 @@
+package com.eu.im.sdk.realtime;
+
+import java.nio.BufferOverflowException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个订阅者的有界缓冲区与投递循环
+ * 读取线程向缓冲区放入消息，投递在回调线程池中串行执行，且不超过订阅者声明的额度
+ */
+final class RealtimeSubscription implements ImSubscription {
+
+    private final ImRealtimeSession session;
+
+    private final ImMessageSubscriber subscriber;
+
+    /**
+     * 只接收该群组的消息，为 null 表示接收全部消息
+     */
+    private final Long gid;
+
+    private final ArrayBlockingQueue<String> buffer;
+
+    private final OverflowStrategy overflowStrategy;
+
+    private final Executor executor;
+
+    /**
+     * 剩余可投递的消息数
+     */
+    private final AtomicLong demand = new AtomicLong();
+
+    /**
+     * 投递循环的待处理信号数，不为 0 时表示投递循环正在执行
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    /**
+     * 终止信号，投递循环在缓冲区清空后发出
+     */
+    private volatile Throwable error;
+
+    private volatile boolean completed;
+
+    /**
+     * 会话异常终止的原因，缓冲区中的消息投递完毕后以 onError 通知订阅者
+     */
+    private volatile Throwable cause;
+
+    private boolean subscribed;
+
+    private boolean terminated;
+
+
+    RealtimeSubscription(ImRealtimeSession session, ImMessageSubscriber subscriber, Long gid, ImRealtimeConfig config) {
+        this.session = session;
+        this.subscriber = subscriber;
+        this.gid = gid;
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferSize());
+        this.overflowStrategy = config.getOverflowStrategy();
+        this.executor = config.getCallbackExecutor();
+    }
+
+    boolean accepts(Long messageGid) {
+        return gid == null || gid.equals(messageGid);
+    }
+
+    /**
+     * 放入消息（读取线程中调用）
+     *
+     * @param message
+     * @throws InterruptedException
+     */
+    void offer(String message) throws InterruptedException {
+        if (cancelled) {
+            return;
+        }
+        if (overflowStrategy == OverflowStrategy.BLOCK) {
+            //等待期间订阅可能被取消，因此分段等待
+            while (!buffer.offer(message, 100, TimeUnit.MILLISECONDS)) {
+                if (cancelled) {
+                    return;
+                }
+            }
+        } else if (!buffer.offer(message)) {
+            if (overflowStrategy == OverflowStrategy.DROP) {
+                return;
+            }
+            fail(new BufferOverflowException());
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * 会话关闭，缓冲区中的消息投递完毕后通知订阅者
+     */
+    void complete() {
+        this.complete(null);
+    }
+
+    /**
+     * 会话终止，缓冲区中的消息投递完毕后通知订阅者
+     *
+     * @param cause 异常终止的原因，为 null 时订阅者收到 onComplete
+     */
+    void complete(Throwable cause) {
+        this.cause = cause;
+        completed = true;
+        drain();
+    }
+
+    /**
+     * onSubscribe 同样在投递循环中执行，保证订阅者的回调不会并发
+     */
+    void start() {
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("request must be positive."));
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = demand.get();
+            if (current == Long.MAX_VALUE) {
+                break;
+            }
+            next = current + n;
+            if (next < 0) {
+                next = Long.MAX_VALUE;
+            }
+        } while (!demand.compareAndSet(current, next));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        session.remove(this);
+        buffer.clear();
+    }
+
+    private void fail(Throwable e) {
+        error = e;
+        cancelled = true;
+        session.remove(this);
+        buffer.clear();
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            if (!terminated) {
+                deliver();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void deliver() {
+        if (!subscribed) {
+            subscribed = true;
+            subscriber.onSubscribe(this);
+        }
+
+        while (!cancelled && demand.get() > 0) {
+            String message = buffer.poll();
+            if (message == null) {
+                break;
+            }
+            if (demand.get() != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            try {
+                subscriber.onMessage(message);
+            } catch (RuntimeException e) {
+                error = e;
+                cancelled = true;
+                session.remove(this);
+                buffer.clear();
+            }
+        }
+
+        if (error != null) {
+            terminated = true;
+            subscriber.onError(error);
+        } else if (cancelled) {
+            terminated = true;
+        } else if (completed && buffer.isEmpty()) {
+            terminated = true;
+            if (cause != null) {
+                subscriber.onError(cause);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+}
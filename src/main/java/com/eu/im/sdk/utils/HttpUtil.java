@@ -1,119 +1,271 @@
 package com.eu.im.sdk.utils;
 
-import cn.hutool.json.JSONUtil;
+import com.eu.im.sdk.common.codec.BodyDecoder;
+import com.eu.im.sdk.common.codec.DefaultJsonCodec;
+import com.eu.im.sdk.common.codec.JsonCodec;
+import com.eu.im.sdk.common.codec.JsonWriter;
+import com.eu.im.sdk.common.codec.WireFormat;
+import com.eu.im.sdk.common.metrics.ImMetrics;
+import com.eu.im.sdk.common.metrics.Metrics;
+import com.eu.im.sdk.common.resilience.EndpointResolver;
+import com.eu.im.sdk.common.tracing.ImSpan;
+import com.eu.im.sdk.common.tracing.TraceContext;
+import com.eu.im.sdk.common.tracing.Tracing;
+import com.eu.im.sdk.common.transport.CallTimeout;
+import com.eu.im.sdk.common.transport.CompressionConfig;
+import com.eu.im.sdk.common.transport.ContentCoding;
+import com.eu.im.sdk.common.transport.HttpMethod;
+import com.eu.im.sdk.common.transport.ImAsyncTransport;
+import com.eu.im.sdk.common.transport.ImRequest;
+import com.eu.im.sdk.common.transport.ImResponse;
+import com.eu.im.sdk.common.transport.ImTransport;
+import com.eu.im.sdk.common.transport.NioHttpTransport;
+import com.eu.im.sdk.common.transport.PooledHttpTransport;
 import com.eu.im.sdk.exception.GlobalException;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
+import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * HTTP 工具类
- * 将 connection 链接做成最简化版本，并且使其拥有 http 池
+ * 请求统一交给 ImTransport 发出，默认使用带连接池的 PooledHttpTransport，调用者也可以为每个请求指定传输实现
  * 其中的请求方法只有成功和抛出异常两种情况，调用者必须进行异常捕获，并对请求失败的情况作出相应的处理
- * 本类中不进行任何的代码提取，开发者认为针对本项目的 http 请求操作，只有成功和失败，而且不存在其它的情况，失败就进行重试等操作
- * 所以最简洁的代码反而会起到更好的效果
+ * 开发者认为针对本项目的 http 请求操作，只有成功和失败，而且不存在其它的情况
+ * 连接失败、超时、5xx 与 429 等可以重试的失败，可以通过 RetryingTransport / RetryingAsyncTransport 在传输层按策略自动重试
+ * 每次调用的耗时、传输层各阶段数据、重试次数与错误码都会按接口交给 Metrics 中的监控实现记录
+ * 开启链路追踪后，请求会带上 traceparent 请求头，被采样的调用结束后生成包含各阶段耗时的 span 交给 Tracing 中的实现
+ * 默认接受 gzip 与 deflate 压缩的响应并边读取边解压，按 CompressionConfig 还可以压缩较大的请求体
+ * 请求体默认为 json，可以通过 setWireFormat 改为 MessagePack 等格式，响应按 Content-Type 选择读取方式
  */
+@Slf4j
 public enum HttpUtil {
 
     INSTANCE;
 
     /**
-     * 默认连接超时时间
+     * 未指定超时设置的请求使用的超时设置
      */
-    private static int CONNECT_TIMEOUT = 1000; //1 秒
+    private volatile CallTimeout defaultTimeout = CallTimeout.DEFAULT;
 
     /**
-     * 响应结果读取超时时间
+     * 未指定传输实现时使用的默认传输实现
      */
-    private static final int READ_TIMEOUT = 3000;
+    private volatile ImTransport transport = new PooledHttpTransport();
 
+    /**
+     * 默认异步传输实现，首次使用时才创建，避免不使用异步接口时启动 I/O 线程
+     */
+    private volatile ImAsyncTransport asyncTransport;
 
     /**
-     * get 请求
-     *
-     * @param url
-     * @param token
-     * @param serializeFunction
-     * @param <R>
-     * @return
+     * 请求体编码实现
      */
-    public <R> R get(String url, String token, Function<String, R> serializeFunction) {
+    private volatile JsonCodec codec = new DefaultJsonCodec();
 
-        HttpURLConnection connection = null;
+    /**
+     * 请求体与期望的响应体格式
+     */
+    private volatile WireFormat wireFormat = WireFormat.JSON;
 
-        InputStreamReader isr = null;
-        InputStreamReader esr = null;
+    /**
+     * 请求与响应的压缩配置
+     */
+    private volatile CompressionConfig compression = new CompressionConfig();
 
-        int responseCode = 0;           //响应状态码
-        String responseBody = null;     //响应内容字符串
 
-        try {
-            URL urlObj = new URL(url);
-            connection = (HttpURLConnection) urlObj.openConnection();
-
-            //设置超时时间
-            //下面两个值限定了如果打开链接超过 CONNECT_TIMEOUT 毫秒 或者 读取响应结果超过 READ_TIMEOUT 毫秒都会抛出异常
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", token);
-
-            connection.connect();   //打开链接
-
-            //得到响应状态吗
-            responseCode = connection.getResponseCode();
-            //读取响应结果
-            isr = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-            responseBody = CharStreams.toString(isr);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            if (connection != null) {
-                if (connection.getErrorStream() != null) {
-                    // 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
-                    try {
-                        esr = new InputStreamReader(connection.getErrorStream());
-                        CharStreams.toString(esr);
-                    } catch (Exception e1) {    //若读取异常信息都会出现问题则忽略这个异常
-                        e1.printStackTrace();
-                    }
-                }
-            }
+    /**
+     * 默认传输实现
+     *
+     * @return
+     */
+    public ImTransport getTransport() {
+        return transport;
+    }
 
-        } finally {
-            try {
-                if (isr != null) {  //关闭输入流
-                    isr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    /**
+     * 替换默认传输实现，原传输实现不会被关闭
+     *
+     * @param transport
+     */
+    public void setTransport(ImTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport should not be null.");
+        }
+        this.transport = transport;
+    }
 
-            try {
-                if (esr != null) {  //关闭异常输入流
-                    esr.close();
+    /**
+     * 默认异步传输实现
+     *
+     * @return
+     */
+    public ImAsyncTransport getAsyncTransport() {
+        ImAsyncTransport current = this.asyncTransport;
+        if (current == null) {
+            synchronized (this) {
+                current = this.asyncTransport;
+                if (current == null) {
+                    current = new NioHttpTransport();
+                    this.asyncTransport = current;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
+        }
+        return current;
+    }
 
+    /**
+     * 替换默认异步传输实现，原传输实现不会被关闭
+     *
+     * @param asyncTransport
+     */
+    public void setAsyncTransport(ImAsyncTransport asyncTransport) {
+        if (asyncTransport == null) {
+            throw new IllegalArgumentException("asyncTransport should not be null.");
         }
+        this.asyncTransport = asyncTransport;
+    }
+
+    /**
+     * 请求体编码实现
+     *
+     * @return
+     */
+    public JsonCodec getCodec() {
+        return codec;
+    }
 
-        //到此，若响应状态吗为 200 则表示本次请求全部正常结束
-        if (responseCode == 200) {
-            return serializeFunction.apply(responseBody);
-        } else {
-            throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
+    /**
+     * 替换请求体编码实现，如需与旧版本完全一致的序列化结果可使用 HutoolJsonCodec
+     *
+     * @param codec
+     */
+    public void setCodec(JsonCodec codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("codec should not be null.");
         }
+        this.codec = codec;
+    }
+
+    /**
+     * 请求体与期望的响应体格式
+     *
+     * @return
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * 替换请求体与期望的响应体格式，如 WireFormat.MESSAGE_PACK，对之后的请求生效
+     * 响应始终按 Content-Type 读取，服务端不支持该格式时返回的 json 同样可以读取
+     *
+     * @param wireFormat
+     */
+    public void setWireFormat(WireFormat wireFormat) {
+        if (wireFormat == null) {
+            throw new IllegalArgumentException("wireFormat should not be null.");
+        }
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * 请求与响应的压缩配置
+     *
+     * @return
+     */
+    public CompressionConfig getCompression() {
+        return compression;
+    }
+
+    /**
+     * 替换压缩配置，对之后的请求生效
+     *
+     * @param compression
+     */
+    public void setCompression(CompressionConfig compression) {
+        if (compression == null) {
+            throw new IllegalArgumentException("compression should not be null.");
+        }
+        this.compression = compression;
+    }
+
+    /**
+     * 未指定超时设置的请求使用的超时设置
+     *
+     * @return
+     */
+    public CallTimeout getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * 替换默认超时设置，其中的截止时间被忽略：截止时间只对单次调用有意义
+     *
+     * @param defaultTimeout
+     */
+    public void setDefaultTimeout(CallTimeout defaultTimeout) {
+        if (defaultTimeout == null) {
+            throw new IllegalArgumentException("defaultTimeout should not be null.");
+        }
+        this.defaultTimeout = new CallTimeout(defaultTimeout.getConnectTimeout(), defaultTimeout.getReadTimeout(), 0);
+    }
+
+    /**
+     * 当前使用的监控实现
+     *
+     * @return
+     */
+    public ImMetrics getMetrics() {
+        return Metrics.get();
+    }
+
+    /**
+     * 替换监控实现，对全部传输实现与之后的请求生效
+     *
+     * @param metrics
+     */
+    public void setMetrics(ImMetrics metrics) {
+        Metrics.set(metrics);
+    }
+
+    /**
+     * get 请求
+     *
+     * @param url
+     * @param token
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R get(String url, String token, Function<String, R> serializeFunction) {
+        return this.get(this.transport, url, token, serializeFunction);
+    }
 
+    /**
+     * get 请求
+     *
+     * @param transport
+     * @param url
+     * @param token
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R get(ImTransport transport, String url, String token, Function<String, R> serializeFunction) {
+        return this.execute(transport, HttpMethod.GET, url, token, null, serializeFunction);
     }
 
     /**
@@ -127,192 +279,391 @@ public enum HttpUtil {
      * @return
      */
     public <R> R post(String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.post(this.transport, url, token, body, serializeFunction);
+    }
 
-        HttpURLConnection connection = null;
+    /**
+     * post 请求
+     *
+     * @param transport
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R post(ImTransport transport, String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.execute(transport, HttpMethod.POST, url, token, body, serializeFunction);
+    }
 
-        InputStreamReader isr = null;
-        InputStreamReader esr = null;
+    /**
+     * put 请求
+     *
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R put(String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.put(this.transport, url, token, body, serializeFunction);
+    }
 
-        int responseCode = 0;           //响应状态码
-        String responseBody = null;     //响应内容字符串
+    /**
+     * put 请求
+     *
+     * @param transport
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R put(ImTransport transport, String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.execute(transport, HttpMethod.PUT, url, token, body, serializeFunction);
+    }
 
-        try {
-            URL urlObj = new URL(url);
-            connection = (HttpURLConnection) urlObj.openConnection();
-
-            //设置超时时间
-            //下面两个值限定了如果打开链接超过 CONNECT_TIMEOUT 毫秒 或者 读取响应结果超过 READ_TIMEOUT 毫秒都会抛出异常
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Authorization", token);
-
-            //设置是否向HttpURLConnection输出
-            connection.setDoOutput(true);
-            //设置是否从httpUrlConnection读入
-            connection.setDoInput(true);
-            //设置是否使用缓存
-            connection.setUseCaches(false);
-            //设置参数类型是json格式
-            connection.setRequestProperty("Content-Type", "application/json;charset=utf-8");
-            connection.connect();   //打开链接
+    /**
+     * patch 请求
+     *
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R patch(String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.patch(this.transport, url, token, body, serializeFunction);
+    }
 
-            if (null != body) {
-                //放入body
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
-                writer.write(JSONUtil.toJsonStr(body));
-                writer.close();
-            }
+    /**
+     * patch 请求
+     *
+     * @param transport
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R patch(ImTransport transport, String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.execute(transport, HttpMethod.PATCH, url, token, body, serializeFunction);
+    }
 
-            //得到响应状态吗
-            responseCode = connection.getResponseCode();
-            //读取响应结果
-            isr = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-            responseBody = CharStreams.toString(isr);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            if (connection != null) {
-                if (connection.getErrorStream() != null) {
-                    // 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
-                    try {
-                        esr = new InputStreamReader(connection.getErrorStream());
-                        CharStreams.toString(esr);
-                    } catch (Exception e1) {    //若读取异常信息都会出现问题则忽略这个异常
-                        e1.printStackTrace();
-                    }
-                }
-            }
+    /**
+     * delete 请求
+     *
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R delete(String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.delete(this.transport, url, token, body, serializeFunction);
+    }
 
-        } finally {
-            try {
-                if (isr != null) {  //关闭输入流
-                    isr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    /**
+     * delete 请求
+     *
+     * @param transport
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param <R>
+     * @return
+     */
+    public <R> R delete(ImTransport transport, String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.execute(transport, HttpMethod.DELETE, url, token, body, serializeFunction);
+    }
+
+    /**
+     * 发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param decoder
+     * @param <R>
+     * @return
+     */
+    public <R> R exchange(ImTransport transport, HttpMethod method, String url, String token, Object body, BodyDecoder<R> decoder) {
+        return this.exchange(transport, method, url, token, body, decoder, this.defaultTimeout);
+    }
+
+    /**
+     * 按指定的超时设置发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param decoder
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> R exchange(ImTransport transport, HttpMethod method, String url, String token, Object body, BodyDecoder<R> decoder, CallTimeout timeout) {
+        return this.exchange(transport, method, url, token, body, Collections.emptyMap(), decoder, timeout);
+    }
 
+    /**
+     * 附带额外的请求头发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param headers   额外的请求头，如 Idempotency-Key
+     * @param decoder
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> R exchange(ImTransport transport, HttpMethod method, String url, String token, Object body, Map<String, String> headers,
+                          BodyDecoder<R> decoder, CallTimeout timeout) {
+        long start = System.nanoTime();
+        String endpoint = EndpointResolver.DEFAULT.resolve(url);
+        TraceContext trace = Tracing.nextSpan();
+        ImRequest request = null;
+        int status = 0;
+        long received = 0;
+        GlobalException error = null;
+        try {
+            //同步发送时请求体在 execute 返回前已经写出，可以直接使用线程缓存的缓冲区
+            JsonWriter writer = JsonWriter.obtain();
+            ImResponse response;
             try {
-                if (esr != null) {  //关闭异常输入流
-                    esr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+                request = this.newRequest(method, url, token, body, headers, writer, timeout, trace);
+                response = this.send(transport, request);
+            } finally {
+                writer.recycle();
             }
-
+            received = System.nanoTime();
+            status = response == null ? 0 : response.getStatus();
+            return this.read(response, url, decoder);
+        } catch (GlobalException e) {
+            error = e;
+            throw e;
+        } finally {
+            this.finish(endpoint, request, trace, status, error, start, received);
         }
+    }
+
+    /**
+     * 发送请求并返回未读取的响应
+     * 只有状态码为 200 时才返回，调用者必须关闭响应，连接才能被归还复用
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @return
+     */
+    public ImResponse open(ImTransport transport, HttpMethod method, String url, String token, Object body) {
+        return this.open(transport, method, url, token, body, this.defaultTimeout);
+    }
 
-        //到此，若响应状态吗为 200 则表示本次请求全部正常结束
-        if (responseCode == 200) {
-            return serializeFunction.apply(responseBody);
-        } else {
-            throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
+    /**
+     * 按指定的超时设置发送请求并返回未读取的响应
+     * 截止时间同样限制之后对响应体的读取
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param timeout
+     * @return
+     */
+    public ImResponse open(ImTransport transport, HttpMethod method, String url, String token, Object body, CallTimeout timeout) {
+        long start = System.nanoTime();
+        String endpoint = EndpointResolver.DEFAULT.resolve(url);
+        TraceContext trace = Tracing.nextSpan();
+        ImRequest request = null;
+        int status = 0;
+        long received = 0;
+        GlobalException error = null;
+        try {
+            JsonWriter writer = JsonWriter.obtain();
+            ImResponse response;
+            try {
+                request = this.newRequest(method, url, token, body, Collections.emptyMap(), writer, timeout, trace);
+                response = this.send(transport, request);
+            } finally {
+                writer.recycle();
+            }
+            received = System.nanoTime();
+            status = response == null ? 0 : response.getStatus();
+            if (status == 200) {
+                return this.decoded(response, url);
+            }
+            return this.read(response, url, in -> null);
+        } catch (GlobalException e) {
+            error = e;
+            throw e;
+        } finally {
+            //响应体由调用者读取，这里只记录到收到响应头为止
+            this.finish(endpoint, request, trace, status, error, start, received);
         }
+    }
 
+    /**
+     * 异步发送请求
+     * 响应的读取与 serializeFunction 的调用都在 executor 中执行，请求失败时 future 以 GlobalException 异常完成
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param executor
+     * @param <R>
+     * @return
+     */
+    public <R> CompletableFuture<R> executeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                 Function<String, R> serializeFunction, Executor executor) {
+        return this.executeAsync(transport, method, url, token, body, serializeFunction, executor, this.defaultTimeout);
     }
 
     /**
-     * put 请求
+     * 按指定的超时设置异步发送请求
      *
+     * @param transport
+     * @param method
      * @param url
      * @param token
      * @param body
      * @param serializeFunction
+     * @param executor
+     * @param timeout
      * @param <R>
      * @return
      */
-    public <R> R put(String url, String token, Object body, Function<String, R> serializeFunction) {
+    public <R> CompletableFuture<R> executeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                 Function<String, R> serializeFunction, Executor executor, CallTimeout timeout) {
+        return this.exchangeAsync(transport, method, url, token, body, this.stringDecoder(serializeFunction), executor, timeout);
+    }
 
-        HttpURLConnection connection = null;
+    /**
+     * 附带额外的请求头，按指定的超时设置异步发送请求
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param headers           额外的请求头，如 Idempotency-Key
+     * @param serializeFunction
+     * @param executor
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> CompletableFuture<R> executeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                 Map<String, String> headers, Function<String, R> serializeFunction, Executor executor, CallTimeout timeout) {
+        return this.exchangeAsync(transport, method, url, token, body, headers, this.stringDecoder(serializeFunction), executor, timeout);
+    }
 
-        InputStreamReader isr = null;
-        InputStreamReader esr = null;
+    /**
+     * 异步发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param decoder
+     * @param executor
+     * @param <R>
+     * @return
+     */
+    public <R> CompletableFuture<R> exchangeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                  BodyDecoder<R> decoder, Executor executor) {
+        return this.exchangeAsync(transport, method, url, token, body, decoder, executor, this.defaultTimeout);
+    }
 
-        int responseCode = 0;           //响应状态码
-        String responseBody = null;     //响应内容字符串
+    /**
+     * 按指定的超时设置异步发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param decoder
+     * @param executor
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> CompletableFuture<R> exchangeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                  BodyDecoder<R> decoder, Executor executor, CallTimeout timeout) {
+        return this.exchangeAsync(transport, method, url, token, body, Collections.emptyMap(), decoder, executor, timeout);
+    }
 
-        try {
-            URL urlObj = new URL(url);
-            connection = (HttpURLConnection) urlObj.openConnection();
-
-            //设置超时时间
-            //下面两个值限定了如果打开链接超过 CONNECT_TIMEOUT 毫秒 或者 读取响应结果超过 READ_TIMEOUT 毫秒都会抛出异常
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("PUT");
-            connection.setRequestProperty("Authorization", token);
-
-            //设置是否向HttpURLConnection输出
-            connection.setDoOutput(true);
-            //设置是否从httpUrlConnection读入
-            connection.setDoInput(true);
-            //设置是否使用缓存
-            connection.setUseCaches(false);
-            //设置参数类型是json格式
-            connection.setRequestProperty("Content-Type", "application/json;charset=utf-8");
-            connection.connect();   //打开链接
+    /**
+     * 附带额外的请求头异步发送请求并直接从响应体字节流解码
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param headers   额外的请求头，如 Idempotency-Key
+     * @param decoder
+     * @param executor
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> CompletableFuture<R> exchangeAsync(ImAsyncTransport transport, HttpMethod method, String url, String token, Object body,
+                                                  Map<String, String> headers, BodyDecoder<R> decoder, Executor executor, CallTimeout timeout) {
 
-            if (null != body) {
-                //放入body
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
-                writer.write(JSONUtil.toJsonStr(body));
-                writer.close();
-            }
+        long start = System.nanoTime();
+        String endpoint = EndpointResolver.DEFAULT.resolve(url);
+        //链路在调用线程中确定，之后的处理都在其它线程中进行
+        TraceContext trace = Tracing.nextSpan();
 
-            //得到响应状态吗
-            responseCode = connection.getResponseCode();
-            //读取响应结果
-            isr = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-            responseBody = CharStreams.toString(isr);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            if (connection != null) {
-                if (connection.getErrorStream() != null) {
-                    // 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
-                    try {
-                        esr = new InputStreamReader(connection.getErrorStream());
-                        CharStreams.toString(esr);
-                    } catch (Exception e1) {    //若读取异常信息都会出现问题则忽略这个异常
-                        e1.printStackTrace();
-                    }
-                }
-            }
+        //请求体在 I/O 线程中发送，缓冲区归请求所有，不能复用线程缓存
+        ImRequest request = this.newRequest(method, url, token, body, headers, new JsonWriter(), timeout, trace);
 
-        } finally {
-            try {
-                if (isr != null) {  //关闭输入流
-                    isr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+        return transport.executeAsync(request).handleAsync((response, e) -> {
+            long received = System.nanoTime();
+            if (e != null) {
+                log.warn("请求[{}]失败", url, e);
             }
-
+            int status = response == null ? 0 : response.getStatus();
+            GlobalException error = null;
             try {
-                if (esr != null) {  //关闭异常输入流
-                    esr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+                return this.read(response, url, decoder);
+            } catch (GlobalException ge) {
+                error = ge;
+                throw ge;
+            } finally {
+                this.finish(endpoint, request, trace, status, error, start, received);
             }
-
-        }
-
-        //到此，若响应状态吗为 200 则表示本次请求全部正常结束
-        if (responseCode == 200) {
-            return serializeFunction.apply(responseBody);
-        } else {
-            throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
-        }
-
+        }, executor);
     }
 
     /**
-     * patch 请求
+     * 发送请求
      *
+     * @param transport
+     * @param method
      * @param url
      * @param token
      * @param body
@@ -320,188 +671,259 @@ public enum HttpUtil {
      * @param <R>
      * @return
      */
-    public <R> R patch(String url, String token, Object body, Function<String, R> serializeFunction) {
-
-        HttpURLConnection connection = null;
+    private <R> R execute(ImTransport transport, HttpMethod method, String url, String token, Object body, Function<String, R> serializeFunction) {
+        return this.execute(transport, method, url, token, body, serializeFunction, this.defaultTimeout);
+    }
 
-        InputStreamReader isr = null;
-        InputStreamReader esr = null;
+    /**
+     * 按指定的超时设置发送请求
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param serializeFunction
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> R execute(ImTransport transport, HttpMethod method, String url, String token, Object body, Function<String, R> serializeFunction, CallTimeout timeout) {
+        return this.exchange(transport, method, url, token, body, this.stringDecoder(serializeFunction), timeout);
+    }
 
-        int responseCode = 0;           //响应状态码
-        String responseBody = null;     //响应内容字符串
+    /**
+     * 附带额外的请求头，按指定的超时设置发送请求
+     *
+     * @param transport
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param headers           额外的请求头，如 Idempotency-Key
+     * @param serializeFunction
+     * @param timeout
+     * @param <R>
+     * @return
+     */
+    public <R> R execute(ImTransport transport, HttpMethod method, String url, String token, Object body, Map<String, String> headers,
+                         Function<String, R> serializeFunction, CallTimeout timeout) {
+        return this.exchange(transport, method, url, token, body, headers, this.stringDecoder(serializeFunction), timeout);
+    }
 
+    /**
+     * 发出请求
+     *
+     * @return 为 null 表示请求没有得到响应
+     */
+    private ImResponse send(ImTransport transport, ImRequest request) {
         try {
-            URL urlObj = new URL(url);
-            connection = (HttpURLConnection) urlObj.openConnection();
-
-            //设置超时时间
-            //下面两个值限定了如果打开链接超过 CONNECT_TIMEOUT 毫秒 或者 读取响应结果超过 READ_TIMEOUT 毫秒都会抛出异常
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("PATCH");
-            connection.setRequestProperty("Authorization", token);
-
-            //设置是否向HttpURLConnection输出
-            connection.setDoOutput(true);
-            //设置是否从httpUrlConnection读入
-            connection.setDoInput(true);
-            //设置是否使用缓存
-            connection.setUseCaches(false);
-            //设置参数类型是json格式
-            connection.setRequestProperty("Content-Type", "application/json;charset=utf-8");
-            connection.connect();   //打开链接
-
-            if (null != body) {
-                //放入body
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
-                writer.write(JSONUtil.toJsonStr(body));
-                writer.close();
-            }
+            return transport.execute(request);
+        } catch (IOException e) {
+            log.warn("请求[{}]失败", request.getUrl(), e);
+            return null;
+        }
+    }
 
-            //得到响应状态吗
-            responseCode = connection.getResponseCode();
-            //读取响应结果
-            isr = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-            responseBody = CharStreams.toString(isr);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            if (connection != null) {
-                if (connection.getErrorStream() != null) {
-                    // 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
-                    try {
-                        esr = new InputStreamReader(connection.getErrorStream());
-                        CharStreams.toString(esr);
-                    } catch (Exception e1) {    //若读取异常信息都会出现问题则忽略这个异常
-                        e1.printStackTrace();
-                    }
-                }
-            }
+    /**
+     * 调用结束，记录监控数据并生成 span
+     *
+     * @param endpoint
+     * @param request  为 null 表示请求没有构建成功
+     * @param trace    链路追踪关闭时为 null
+     * @param status   响应状态码，没有得到响应时为 0
+     * @param error    调用成功时为 null
+     * @param start    调用开始的时间（纳秒）
+     * @param received 传输层返回的时间（纳秒），为 0 表示没有返回
+     */
+    private void finish(String endpoint, ImRequest request, TraceContext trace, int status, GlobalException error, long start, long received) {
+        long end = System.nanoTime();
+        ImMetrics metrics = Metrics.get();
+        if (error != null) {
+            metrics.onError(endpoint, error.getCode());
+        }
+        metrics.onRequest(endpoint, status, end - start);
+        if (request == null) {
+            return;
+        }
+        metrics.onExchange(endpoint, request.getConnectTime(), request.getTimeToFirstByte(), request.getBytesSent(), request.getBytesReceived());
+        if (request.getRetries() > 0) {
+            metrics.onRetries(endpoint, request.getRetries());
+        }
 
-        } finally {
+        if (trace != null && trace.isSampled()) {
+            ImSpan span = new ImSpan();
+            span.setTraceId(trace.getTraceId());
+            span.setSpanId(trace.getSpanId());
+            span.setParentSpanId(trace.getParentSpanId());
+            span.setEndpoint(endpoint);
+            span.setMethod(request.getMethod().name());
+            span.setUrl(request.getUrl());
+            span.setStatus(status);
+            span.setErrorCode(error == null ? null : error.getCode());
+            span.setStartTime(System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(end - start));
+            span.setDuration(end - start);
+            span.setResolve(request.getResolveTime());
+            span.setConnect(request.getConnectTime());
+            span.setWrite(request.getWriteTime());
+            span.setWaiting(Math.max(0, request.getTimeToFirstByte() - request.getWriteTime()));
+            span.setRead(request.getReadTime());
+            span.setDecode(received == 0 ? 0 : end - received);
+            span.setRetries(request.getRetries());
             try {
-                if (isr != null) {  //关闭输入流
-                    isr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+                Tracing.getTracer().onSpan(span);
+            } catch (RuntimeException e) {
+                log.warn("上报链路[{}]失败", span.getTraceId(), e);
             }
+        }
+    }
 
-            try {
-                if (esr != null) {  //关闭异常输入流
-                    esr.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    /**
+     * 构建请求
+     *
+     * @param method
+     * @param url
+     * @param token
+     * @param body
+     * @param headers 额外的请求头
+     * @param writer  请求体编码的目标缓冲区，请求发送完成之前不能被复用
+     * @param timeout
+     * @param trace   链路追踪关闭时为 null
+     * @return
+     */
+    private ImRequest newRequest(HttpMethod method, String url, String token, Object body, Map<String, String> headers,
+                                 JsonWriter writer, CallTimeout timeout, TraceContext trace) {
+
+        ImRequest request = new ImRequest(method, url)
+                .timeout(timeout.getConnectTimeout(), timeout.getReadTimeout())
+                .deadline(timeout.getDeadline())
+                .header("Authorization", token)
+                .header(Tracing.TRACEPARENT, trace == null ? null : trace.toTraceparent());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.header(header.getKey(), header.getValue());
+        }
 
+        CompressionConfig compression = this.compression;
+        if (compression.isAcceptCompressed()) {
+            request.header("Accept-Encoding", ContentCoding.ACCEPT_ENCODING);
         }
 
-        //到此，若响应状态吗为 200 则表示本次请求全部正常结束
-        if (responseCode == 200) {
-            return serializeFunction.apply(responseBody);
-        } else {
-            throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
+        WireFormat format = this.wireFormat;
+        if (format != WireFormat.JSON) {
+            request.header("Accept", format.getContentType() + ", application/json;q=0.5");
+        }
+
+        if (method != HttpMethod.GET) {
+            request.header("Content-Type", format.getContentType());
+            if (null != body) {
+                //json 使用可替换的 codec 编码
+                if (format == WireFormat.JSON) {
+                    this.codec.encode(body, writer);
+                } else {
+                    format.encode(body, writer);
+                }
+                //压缩在原缓冲区中进行，压缩后没有变小时保持原样发送
+                if (compression.isCompressRequests() && writer.size() >= compression.getMinRequestSize()
+                        && ContentCoding.gzip(writer, compression.getLevel())) {
+                    request.header("Content-Encoding", ContentCoding.GZIP);
+                }
+                request.body(writer.buffer(), writer.size());
+            }
         }
 
+        return request;
     }
 
     /**
-     * delete 请求
+     * 将响应体替换为解压并标记了格式的流，关闭时关闭原响应体
      *
+     * @param response
      * @param url
-     * @param token
+     * @return
+     */
+    private ImResponse decoded(ImResponse response, String url) {
+        InputStream body = response.getBody();
+        if (body == null) {
+            return response;
+        }
+        InputStream decoded;
+        try {
+            decoded = this.decode(response, body);
+        } catch (IOException e) {
+            log.warn("读取请求[{}]的响应失败", url, e);
+            response.close();
+            throw new GlobalException(0, String.format("请求[%s]失败", url));
+        }
+        if (decoded == body) {
+            return response;
+        }
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.getHeaders());
+        headers.remove("Content-Encoding");
+        headers.remove("Content-Length");
+        return new ImResponse(response.getStatus(), headers, decoded);
+    }
+
+    /**
+     * 按 Content-Encoding 解压响应体，按 Content-Type 标记响应体的格式
+     *
+     * @param response
      * @param body
-     * @param serializeFunction
-     * @param <R>
      * @return
+     * @throws IOException 不支持的压缩编码
      */
-    public <R> R delete(String url, String token, Object body, Function<String, R> serializeFunction) {
+    private InputStream decode(ImResponse response, InputStream body) throws IOException {
+        InputStream decompressed = ContentCoding.decode(response.getHeader("Content-Encoding"), body);
+        String contentType = response.getHeader("Content-Type");
+        WireFormat format = this.wireFormat.accepts(contentType) ? this.wireFormat : WireFormat.forContentType(contentType);
+        return WireFormat.tag(decompressed, format);
+    }
 
-        HttpURLConnection connection = null;
+    /**
+     * 将响应体读取为字符串后交给 serializeFunction，其它格式的响应体先转换为 json
+     */
+    private <R> BodyDecoder<R> stringDecoder(Function<String, R> serializeFunction) {
+        return in -> serializeFunction.apply(CharStreams.toString(new InputStreamReader(WireFormat.toJson(in), StandardCharsets.UTF_8)));
+    }
 
-        InputStreamReader isr = null;
-        InputStreamReader esr = null;
+    /**
+     * 读取响应并关闭
+     *
+     * @param response 为 null 表示请求没有得到响应
+     * @param url
+     * @param decoder
+     * @param <R>
+     * @return
+     */
+    private <R> R read(ImResponse response, String url, BodyDecoder<R> decoder) {
 
         int responseCode = 0;           //响应状态码
-        String responseBody = null;     //响应内容字符串
 
-        try {
-            URL urlObj = new URL(url);
-            connection = (HttpURLConnection) urlObj.openConnection();
-
-            //设置超时时间
-            //下面两个值限定了如果打开链接超过 CONNECT_TIMEOUT 毫秒 或者 读取响应结果超过 READ_TIMEOUT 毫秒都会抛出异常
-            connection.setConnectTimeout(CONNECT_TIMEOUT);
-            connection.setReadTimeout(READ_TIMEOUT);
-            connection.setRequestMethod("DELETE");
-            connection.setRequestProperty("Authorization", token);
-
-            //设置是否向HttpURLConnection输出
-            connection.setDoOutput(true);
-            //设置是否从httpUrlConnection读入
-            connection.setDoInput(true);
-            //设置是否使用缓存
-            connection.setUseCaches(false);
-            //设置参数类型是json格式
-            connection.setRequestProperty("Content-Type", "application/json;charset=utf-8");
-            connection.connect();   //打开链接
+        if (response != null) {
+            try (ImResponse closeable = response) {
 
-            if (null != body) {
-                //放入body
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
-                writer.write(JSONUtil.toJsonStr(body));
-                writer.close();
-            }
+                //得到响应状态吗
+                responseCode = closeable.getStatus();
 
-            //得到响应状态吗
-            responseCode = connection.getResponseCode();
-            //读取响应结果
-            isr = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-            responseBody = CharStreams.toString(isr);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            if (connection != null) {
-                if (connection.getErrorStream() != null) {
-                    // 参考：https://docs.oracle.com/javase/7/docs/technotes/guides/net/http-keepalive.html
-                    try {
-                        esr = new InputStreamReader(connection.getErrorStream());
-                        CharStreams.toString(esr);
-                    } catch (Exception e1) {    //若读取异常信息都会出现问题则忽略这个异常
-                        e1.printStackTrace();
+                InputStream body = closeable.getBody() == null ? new ByteArrayInputStream(new byte[0]) : closeable.getBody();
+                //到此，若响应状态吗为 200 则表示本次请求全部正常结束
+                if (responseCode == 200) {
+                    try (InputStream decoded = this.decode(closeable, body)) {
+                        return decoder.decode(decoded);
                     }
                 }
-            }
+                //读取完异常信息后连接才能被复用
+                ByteStreams.exhaust(body);
 
-        } finally {
-            try {
-                if (isr != null) {  //关闭输入流
-                    isr.close();
-                }
             } catch (IOException e) {
-                e.printStackTrace();
-            }
-
-            try {
-                if (esr != null) {  //关闭异常输入流
-                    esr.close();
+                log.warn("读取请求[{}]的响应失败", url, e);
+                if (responseCode == 200) {  //响应结果读取失败同样视为请求失败
+                    responseCode = 0;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-
-        }
-
-        //到此，若响应状态吗为 200 则表示本次请求全部正常结束
-        if (responseCode == 200) {
-            return serializeFunction.apply(responseBody);
-        } else {
-            throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
         }
 
+        throw new GlobalException(responseCode, String.format("请求[%s]失败", url));
     }
 
 }
@@ -0,0 +1,179 @@
+package com.eu.im.sdk.common.transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.eu.im.sdk.common.transport.WebSocketStubServer.OP_CLOSE;
+import static com.eu.im.sdk.common.transport.WebSocketStubServer.OP_CONTINUATION;
+import static com.eu.im.sdk.common.transport.WebSocketStubServer.OP_PING;
+import static com.eu.im.sdk.common.transport.WebSocketStubServer.OP_PONG;
+import static com.eu.im.sdk.common.transport.WebSocketStubServer.OP_TEXT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WebSocketConnectionTest {
+
+    private WebSocketStubServer server;
+
+    private WebSocketConnection connection;
+
+    private WebSocketStubServer.Peer peer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new WebSocketStubServer();
+        connection = connect(1024);
+        peer = server.accept(5, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        server.close();
+    }
+
+    @Test
+    public void handshakeSendsPathAndHeaders() {
+        assertEquals("/websocket?lastMid=7", peer.path());
+        assertEquals("token", peer.header("Authorization"));
+        assertEquals("13", peer.header("Sec-WebSocket-Version"));
+    }
+
+    @Test
+    public void fragmentedMessageIsReassembledAroundControlFrames() throws Exception {
+        peer.sendFrame(OP_TEXT, false, bytes("hel"));
+        peer.sendFrame(OP_PING, true, bytes("p1"));
+        peer.sendFrame(OP_CONTINUATION, false, bytes("lo "));
+        peer.sendFrame(OP_PONG, true, new byte[0]);
+        peer.sendFrame(OP_CONTINUATION, true, bytes("world"));
+
+        assertEquals("hello world", connection.readMessage());
+
+        WebSocketStubServer.Frame pong = peer.readFrame();
+        assertEquals(OP_PONG, pong.opcode);
+        assertEquals("p1", pong.text());
+    }
+
+    @Test
+    public void continuationWithoutStartIsRejected() throws Exception {
+        peer.sendFrame(OP_CONTINUATION, true, bytes("orphan"));
+        try {
+            connection.readMessage();
+            fail("expected ProtocolException");
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void extendedLengthFrameIsRead() throws Exception {
+        char[] text = new char[300];
+        Arrays.fill(text, 'x');
+        peer.sendText(new String(text));
+
+        assertEquals(new String(text), connection.readMessage());
+    }
+
+    @Test
+    public void oversizedMessageIsRejected() throws Exception {
+        peer.sendFrame(OP_TEXT, false, new byte[600]);
+        peer.sendFrame(OP_CONTINUATION, true, new byte[600]);
+        try {
+            connection.readMessage();
+            fail("expected ProtocolException");
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void serverCloseIsEchoedAndEndsStream() throws Exception {
+        byte[] status = {0x03, (byte) 0xE8};
+        peer.sendFrame(OP_CLOSE, true, status);
+
+        assertNull(connection.readMessage());
+
+        WebSocketStubServer.Frame close = peer.readFrame();
+        assertEquals(OP_CLOSE, close.opcode);
+        assertArrayEquals(status, close.payload);
+    }
+
+    @Test
+    public void droppedConnectionEndsStream() throws Exception {
+        peer.drop();
+
+        assertNull(connection.readMessage());
+    }
+
+    @Test
+    public void clientFramesAreMasked() throws Exception {
+        connection.sendText("hi");
+        connection.sendPing();
+
+        WebSocketStubServer.Frame text = peer.readFrame();
+        assertTrue(text.masked);
+        assertTrue(text.fin);
+        assertEquals(OP_TEXT, text.opcode);
+        assertEquals("hi", text.text());
+
+        WebSocketStubServer.Frame ping = peer.readFrame();
+        assertTrue(ping.masked);
+        assertEquals(OP_PING, ping.opcode);
+    }
+
+    @Test
+    public void readTimeoutBetweenMessagesKeepsConnectionUsable() throws Exception {
+        try {
+            connection.readMessage();
+            fail("expected SocketTimeoutException");
+        } catch (SocketTimeoutException expected) {
+        }
+        assertTrue(connection.isOpen());
+
+        peer.sendText("after timeout");
+        assertEquals("after timeout", connection.readMessage());
+    }
+
+    @Test
+    public void closeSendsNormalClosure() throws Exception {
+        connection.close();
+
+        assertFalse(connection.isOpen());
+        WebSocketStubServer.Frame close = peer.readFrame();
+        assertEquals(OP_CLOSE, close.opcode);
+        assertArrayEquals(new byte[]{0x03, (byte) 0xE8}, close.payload);
+    }
+
+    @Test
+    public void rejectedHandshakeReportsStatus() throws Exception {
+        server.reject("expired");
+        String url = server.endpoint().replace("http://", "ws://") + "/websocket";
+        try {
+            WebSocketConnection.connect(url, Collections.singletonMap("Authorization", "expired"), 3000, 300, 1024);
+            fail("expected WebSocketHandshakeException");
+        } catch (WebSocketHandshakeException expected) {
+            assertEquals(401, expected.getStatus());
+        }
+    }
+
+    private WebSocketConnection connect(int maxMessageSize) throws IOException {
+        String url = server.endpoint().replace("http://", "ws://") + "/websocket?lastMid=7";
+        return WebSocketConnection.connect(url, Collections.singletonMap("Authorization", "token"), 3000, 300, maxMessageSize);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,317 @@
+package com.eu.im.sdk.common.transport;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 ServerSocket 的最小 WebSocket 服务端，仅用于测试
+ * 完成握手后由测试代码直接收发帧，服务端发出的帧不使用掩码
+ */
+public final class WebSocketStubServer implements Closeable {
+
+    public static final int OP_CONTINUATION = 0x0;
+    public static final int OP_TEXT = 0x1;
+    public static final int OP_CLOSE = 0x8;
+    public static final int OP_PING = 0x9;
+    public static final int OP_PONG = 0xA;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final ServerSocket server;
+
+    private final BlockingQueue<Peer> peers = new LinkedBlockingQueue<>();
+
+    private final Thread acceptor;
+
+    /**
+     * 以 401 拒绝握手的 Authorization 请求头
+     */
+    private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+
+
+    public WebSocketStubServer() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::acceptLoop, "ws-stub-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * http 形式的端点，与 ImRealtimeSession 的 endpoint 参数一致
+     */
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getLocalPort();
+    }
+
+    /**
+     * 之后携带该 Authorization 请求头的握手以 401 拒绝
+     */
+    public void reject(String authorization) {
+        rejected.add(authorization);
+    }
+
+    /**
+     * 等待下一条完成握手的连接
+     */
+    public Peer accept(long timeout, TimeUnit unit) throws InterruptedException {
+        Peer peer = peers.poll(timeout, unit);
+        if (peer == null) {
+            throw new AssertionError("no websocket connection within " + timeout + " " + unit);
+        }
+        return peer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Peer peer;
+        while ((peer = peers.poll()) != null) {
+            peer.drop();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(5));
+                Peer peer = Peer.handshake(socket, rejected);
+                if (peer != null) {
+                    peers.add(peer);
+                }
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                //握手失败的连接直接丢弃
+            }
+        }
+    }
+
+    /**
+     * 服务端一侧的连接
+     */
+    public static final class Peer implements Closeable {
+
+        private final Socket socket;
+
+        private final InputStream in;
+
+        private final OutputStream out;
+
+        private final String path;
+
+        private final Map<String, String> headers;
+
+
+        private Peer(Socket socket, InputStream in, String path, Map<String, String> headers) throws IOException {
+            this.socket = socket;
+            this.in = in;
+            this.out = socket.getOutputStream();
+            this.path = path;
+            this.headers = headers;
+        }
+
+        /**
+         * @return 握手被拒绝时返回 null，连接已关闭
+         */
+        static Peer handshake(Socket socket, Set<String> rejected) throws IOException {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String requestLine = readLine(in);
+            String[] parts = requestLine.split(" ");
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                int index = line.indexOf(':');
+                headers.put(line.substring(0, index).trim().toLowerCase(Locale.ROOT), line.substring(index + 1).trim());
+            }
+
+            OutputStream out = socket.getOutputStream();
+            if (rejected.contains(String.valueOf(headers.get("authorization")))) {
+                out.write("HTTP/1.1 401 Unauthorized\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                socket.close();
+                return null;
+            }
+
+            String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept(headers.get("sec-websocket-key")) + "\r\n"
+                    + "\r\n";
+            out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return new Peer(socket, in, parts[1], headers);
+        }
+
+        /**
+         * 握手请求的路径，包括查询参数
+         */
+        public String path() {
+            return path;
+        }
+
+        /**
+         * 握手请求头，名称为小写
+         */
+        public String header(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public void sendText(String text) throws IOException {
+            sendFrame(OP_TEXT, true, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public synchronized void sendFrame(int opcode, boolean fin, byte[] payload) throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 10);
+            frame.write((fin ? 0x80 : 0) | opcode);
+            if (payload.length < 126) {
+                frame.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                frame.write(126);
+                frame.write(payload.length >>> 8);
+                frame.write(payload.length);
+            } else {
+                frame.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    frame.write((int) ((long) payload.length >>> shift));
+                }
+            }
+            frame.write(payload, 0, payload.length);
+            out.write(frame.toByteArray());
+            out.flush();
+        }
+
+        /**
+         * 读取客户端发出的下一帧
+         */
+        public Frame readFrame() throws IOException {
+            int b0 = read(in);
+            int b1 = read(in);
+            long length = b1 & 0x7F;
+            if (length == 126) {
+                length = (read(in) << 8) | read(in);
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = (length << 8) | read(in);
+                }
+            }
+            boolean masked = (b1 & 0x80) != 0;
+            byte[] mask = new byte[4];
+            if (masked) {
+                readFully(in, mask);
+            }
+            byte[] payload = new byte[(int) length];
+            readFully(in, payload);
+            if (masked) {
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+            }
+            return new Frame((b0 & 0x80) != 0, b0 & 0x0F, masked, payload);
+        }
+
+        /**
+         * 不发送 close 帧直接断开，模拟网络中断
+         */
+        public void drop() {
+            try {
+                socket.close();
+            } catch (IOException ignore) {  //关闭失败时无需处理
+            }
+        }
+
+        @Override
+        public void close() {
+            drop();
+        }
+
+    }
+
+    /**
+     * 客户端发出的帧，payload 已去除掩码
+     */
+    public static final class Frame {
+
+        public final boolean fin;
+
+        public final int opcode;
+
+        public final boolean masked;
+
+        public final byte[] payload;
+
+        Frame(boolean fin, int opcode, boolean masked, byte[] payload) {
+            this.fin = fin;
+            this.opcode = opcode;
+            this.masked = masked;
+            this.payload = payload;
+        }
+
+        public String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    private static String accept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = read(in)) != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static int read(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = in.read(buffer, offset, buffer.length - offset);
+            if (n == -1) {
+                throw new EOFException();
+            }
+            offset += n;
+        }
+    }
+
+}
@@ -0,0 +1,344 @@
+package com.eu.im.sdk.realtime;
+
+import com.eu.im.sdk.common.auth.TokenProvider;
+import com.eu.im.sdk.common.transport.WebSocketStubServer;
+import com.eu.im.sdk.exception.GlobalException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImRealtimeSessionTest {
+
+    private WebSocketStubServer server;
+
+    private ExecutorService callbacks;
+
+    private ImRealtimeSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new WebSocketStubServer();
+        callbacks = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (session != null) {
+            session.close();
+        }
+        server.close();
+        callbacks.shutdownNow();
+    }
+
+    @Test
+    public void reconnectResumesAfterLastMidAndSkipsReplayedMessages() throws Exception {
+        String token = open(config());
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        session.subscribe(recorder);
+
+        WebSocketStubServer.Peer first = server.accept(5, TimeUnit.SECONDS);
+        assertEquals("/websocket", first.path());
+        assertEquals(token, first.header("Authorization"));
+        first.sendText(message(1, 10));
+        first.sendText(message(2, 10));
+        assertEquals(Arrays.asList(message(1, 10), message(2, 10)), recorder.take(2));
+
+        first.drop();
+        WebSocketStubServer.Peer second = server.accept(5, TimeUnit.SECONDS);
+        assertEquals("/websocket?lastMid=2", second.path());
+
+        //服务端从 lastMid 之前开始重放
+        second.sendText(message(1, 10));
+        second.sendText(message(2, 10));
+        second.sendText(message(3, 10));
+        assertEquals(Arrays.asList(message(3, 10)), recorder.take(1));
+        assertNull(recorder.poll(200));
+        assertEquals(3, session.getLastMessageId());
+    }
+
+    @Test
+    public void fragmentedMessageIsDispatchedOnce() throws Exception {
+        open(config());
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        session.subscribe(recorder);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        String text = message(1, 10);
+        int half = text.length() / 2;
+        peer.sendFrame(WebSocketStubServer.OP_TEXT, false, text.substring(0, half).getBytes("UTF-8"));
+        peer.sendFrame(WebSocketStubServer.OP_PING, true, new byte[0]);
+        peer.sendFrame(WebSocketStubServer.OP_CONTINUATION, true, text.substring(half).getBytes("UTF-8"));
+
+        assertEquals(Arrays.asList(text), recorder.take(1));
+        assertEquals(WebSocketStubServer.OP_PONG, peer.readFrame().opcode);
+    }
+
+    @Test
+    public void subscriberOnlyReceivesItsGroup() throws Exception {
+        open(config());
+        Recorder group = new Recorder(Long.MAX_VALUE);
+        session.subscribe(20L, group);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        peer.sendText(message(1, 10));
+        peer.sendText(message(2, 20));
+        peer.sendText(message(3, 10));
+
+        assertEquals(Arrays.asList(message(2, 20)), group.take(1));
+        assertNull(group.poll(200));
+    }
+
+    @Test
+    public void deliveryFollowsRequestedDemand() throws Exception {
+        open(config());
+        Recorder recorder = new Recorder(1);
+        session.subscribe(recorder);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        peer.sendText(message(1, 10));
+        peer.sendText(message(2, 10));
+        peer.sendText(message(3, 10));
+
+        assertEquals(Arrays.asList(message(1, 10)), recorder.take(1));
+        assertNull(recorder.poll(200));
+
+        recorder.subscription().request(2);
+        assertEquals(Arrays.asList(message(2, 10), message(3, 10)), recorder.take(2));
+    }
+
+    @Test
+    public void blockOverflowPausesReaderWithoutLoss() throws Exception {
+        open(config().setBufferSize(1).setOverflowStrategy(OverflowStrategy.BLOCK));
+        Recorder slow = new Recorder(0);
+        Recorder fast = new Recorder(Long.MAX_VALUE);
+        session.subscribe(slow);
+        session.subscribe(fast);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        peer.sendText(message(1, 10));
+        peer.sendText(message(2, 10));
+        peer.sendText(message(3, 10));
+
+        //第一条消息填满慢订阅者的缓冲区，读取线程阻塞在第二条消息上，其余订阅者同样暂停
+        assertEquals(Arrays.asList(message(1, 10)), fast.take(1));
+        assertNull(fast.poll(300));
+
+        slow.subscription().request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(message(1, 10), message(2, 10), message(3, 10)), slow.take(3));
+        assertEquals(Arrays.asList(message(2, 10), message(3, 10)), fast.take(2));
+        assertNull(slow.error);
+    }
+
+    @Test
+    public void dropOverflowDiscardsNewMessagesOnly() throws Exception {
+        open(config().setBufferSize(2).setOverflowStrategy(OverflowStrategy.DROP));
+        Recorder slow = new Recorder(0);
+        Recorder fast = new Recorder(Long.MAX_VALUE);
+        session.subscribe(slow);
+        session.subscribe(fast);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        //逐条发送，保证溢出只发生在慢订阅者上
+        for (int mid = 1; mid <= 4; mid++) {
+            peer.sendText(message(mid, 10));
+            assertEquals(Arrays.asList(message(mid, 10)), fast.take(1));
+        }
+
+        slow.subscription().request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList(message(1, 10), message(2, 10)), slow.take(2));
+        assertNull(slow.poll(200));
+
+        //丢弃之后订阅仍然有效
+        peer.sendText(message(5, 10));
+        assertEquals(Arrays.asList(message(5, 10)), slow.take(1));
+        assertNull(slow.error);
+    }
+
+    @Test
+    public void failOverflowTerminatesOnlyThatSubscriber() throws Exception {
+        open(config().setBufferSize(2).setOverflowStrategy(OverflowStrategy.FAIL));
+        Recorder slow = new Recorder(0);
+        Recorder fast = new Recorder(Long.MAX_VALUE);
+        session.subscribe(slow);
+        session.subscribe(fast);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        //逐条发送，保证溢出只发生在慢订阅者上
+        for (int mid = 1; mid <= 4; mid++) {
+            peer.sendText(message(mid, 10));
+            assertEquals(Arrays.asList(message(mid, 10)), fast.take(1));
+        }
+
+        assertTrue(slow.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(slow.error instanceof BufferOverflowException);
+    }
+
+    @Test
+    public void closeCompletesSubscribers() throws Exception {
+        open(config());
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        session.subscribe(recorder);
+        server.accept(5, TimeUnit.SECONDS);
+
+        session.close();
+
+        assertTrue(recorder.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(recorder.completed);
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void rejectedTokenIsRefreshedBeforeReconnecting() throws Exception {
+        AtomicInteger refreshes = new AtomicInteger();
+        server.reject("expired");
+        session = ImRealtimeSession.of(server.endpoint(), new TokenProvider() {
+            @Override
+            public String getToken() {
+                return refreshes.get() == 0 ? "expired" : "fresh";
+            }
+
+            @Override
+            public String refresh(String staleToken) {
+                assertEquals("expired", staleToken);
+                refreshes.incrementAndGet();
+                return "fresh";
+            }
+        }, config());
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        session.subscribe(recorder);
+
+        WebSocketStubServer.Peer peer = server.accept(5, TimeUnit.SECONDS);
+        assertEquals("fresh", peer.header("Authorization"));
+        assertEquals(1, refreshes.get());
+        peer.sendText(message(1, 10));
+        assertEquals(Arrays.asList(message(1, 10)), recorder.take(1));
+    }
+
+    @Test
+    public void rejectedTokenThatCannotBeRefreshedFailsSubscribers() throws Exception {
+        String token = UUID.randomUUID().toString();
+        server.reject(token);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        session = ImRealtimeSession.of(server.endpoint(), token, config());
+        session.subscribe(recorder);
+
+        assertTrue(recorder.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(recorder.error instanceof GlobalException);
+        assertEquals(401, ((GlobalException) recorder.error).getCode());
+        assertFalse(session.isConnected());
+
+        //会话已终止，之后的订阅者立即收到同样的错误
+        Recorder late = new Recorder(Long.MAX_VALUE);
+        session.subscribe(late);
+        assertTrue(late.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(late.error == recorder.error);
+    }
+
+    private ImRealtimeConfig config() {
+        return new ImRealtimeConfig()
+                .setReconnectBaseDelay(10)
+                .setReconnectMaxDelay(50)
+                .setCallbackExecutor(callbacks);
+    }
+
+    /**
+     * 会话按端点与token缓存，每个用例使用独立的token
+     */
+    private String open(ImRealtimeConfig config) {
+        String token = UUID.randomUUID().toString();
+        session = ImRealtimeSession.of(server.endpoint(), token, config);
+        return token;
+    }
+
+    private static String message(long mid, long gid) {
+        return "{\"mid\":" + mid + ",\"gid\":" + gid + ",\"content\":\"m" + mid + "\"}";
+    }
+
+    private static final class Recorder implements ImMessageSubscriber {
+
+        private final long initialDemand;
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        private final CountDownLatch subscribed = new CountDownLatch(1);
+
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        private volatile ImSubscription subscription;
+
+        private volatile Throwable error;
+
+        private volatile boolean completed;
+
+        Recorder(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(ImSubscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        ImSubscription subscription() throws InterruptedException {
+            assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+            return subscription;
+        }
+
+        List<String> take(int n) throws InterruptedException {
+            List<String> taken = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                String message = messages.poll(5, TimeUnit.SECONDS);
+                if (message == null) {
+                    throw new AssertionError("expected " + n + " messages, got " + taken);
+                }
+                taken.add(message);
+            }
+            return taken;
+        }
+
+        String poll(long millis) throws InterruptedException {
+            return messages.poll(millis, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+}